@@ -0,0 +1,157 @@
+/*
+ * Copyright (C) 2019 The Guava Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.common.collect;
+
+import com.google.caliper.AfterExperiment;
+import com.google.caliper.BeforeExperiment;
+import com.google.caliper.Benchmark;
+import com.google.caliper.Param;
+import com.google.caliper.api.SkipThisScenarioException;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the ring buffer queues of {@link Queues} against {@link ArrayBlockingQueue}: offering
+ * and polling on one thread, and handing elements from a set of producer threads to the benchmark
+ * thread.
+ */
+public class ConcurrentArrayQueueBenchmark {
+  @Param({"1024"})
+  int capacity;
+
+  @Param({"0", "1", "3"})
+  int producerThreads;
+
+  @Param QueueType queueType;
+
+  private Queue<Integer> queue;
+  private ExecutorService producers;
+  private volatile boolean stopped;
+
+  @BeforeExperiment
+  void setUp() {
+    if (producerThreads > 1 && !queueType.allowsMultipleProducers) {
+      throw new SkipThisScenarioException();
+    }
+    queue = queueType.create(capacity);
+    stopped = false;
+    producers = Executors.newFixedThreadPool(Math.max(1, producerThreads));
+    final Integer element = 42;
+    for (int i = 0; i < producerThreads; i++) {
+      @SuppressWarnings("unused") // go/futurereturn-lsc
+      Future<?> possiblyIgnoredError =
+          producers.submit(
+              new Runnable() {
+                @Override
+                public void run() {
+                  while (!stopped) {
+                    if (!queue.offer(element)) {
+                      Thread.yield();
+                    }
+                  }
+                }
+              });
+    }
+  }
+
+  @AfterExperiment
+  void tearDown() throws InterruptedException {
+    stopped = true;
+    producers.shutdown();
+    producers.awaitTermination(10, TimeUnit.SECONDS);
+  }
+
+  @Benchmark
+  int offerAndPoll(int reps) {
+    if (producerThreads != 0) {
+      throw new SkipThisScenarioException();
+    }
+    Integer element = 42;
+    int dummy = 0;
+    for (int i = 0; i < reps; i++) {
+      queue.offer(element);
+      dummy += queue.poll();
+    }
+    return dummy;
+  }
+
+  @Benchmark
+  long consumeFromProducers(int reps) {
+    if (producerThreads == 0) {
+      throw new SkipThisScenarioException();
+    }
+    long dummy = 0;
+    for (int i = 0; i < reps; i++) {
+      Integer e;
+      while ((e = queue.poll()) == null) {}
+      dummy += e;
+    }
+    return dummy;
+  }
+
+  @Benchmark
+  long drainFromProducers(int reps) {
+    if (producerThreads == 0) {
+      throw new SkipThisScenarioException();
+    }
+    final long[] sum = new long[1];
+    int remaining = reps;
+    while (remaining > 0) {
+      remaining -= Queues.drain(queue, e -> sum[0] += e, Math.min(remaining, 64));
+    }
+    return sum[0];
+  }
+
+  enum QueueType {
+    ARRAY_BLOCKING_QUEUE(true) {
+      @Override
+      Queue<Integer> create(int capacity) {
+        return new ArrayBlockingQueue<>(capacity);
+      }
+    },
+    CONCURRENT_ARRAY_QUEUE(true) {
+      @Override
+      Queue<Integer> create(int capacity) {
+        return Queues.newConcurrentArrayQueue(capacity);
+      }
+    },
+    SINGLE_CONSUMER_ARRAY_QUEUE(true) {
+      @Override
+      Queue<Integer> create(int capacity) {
+        return Queues.newSingleConsumerArrayQueue(capacity);
+      }
+    },
+    SINGLE_PRODUCER_SINGLE_CONSUMER_ARRAY_QUEUE(false) {
+      @Override
+      Queue<Integer> create(int capacity) {
+        return Queues.newSingleProducerSingleConsumerArrayQueue(capacity);
+      }
+    };
+
+    final boolean allowsMultipleProducers;
+
+    QueueType(boolean allowsMultipleProducers) {
+      this.allowsMultipleProducers = allowsMultipleProducers;
+    }
+
+    abstract Queue<Integer> create(int capacity);
+  }
+}
@@ -21,8 +21,13 @@ import com.google.caliper.Benchmark;
 import com.google.caliper.Param;
 import com.google.common.math.IntMath;
 import java.math.RoundingMode;
+import java.util.Random;
 
-/** Benchmark of implementations of {@link ImmutableSet#hashFloodingDetected(Object[])}. */
+/**
+ * Benchmark of implementations of {@link ImmutableSet#hashFloodingDetected(Object[])}, and of
+ * {@link ImmutableSet#contains} on sets built from the same input, which shows the lookup latency
+ * that remains after flooding is detected and handled.
+ */
 public class ImmutableSetHashFloodingDetectionBenchmark {
   private static final int TEST_CASES = 0x100;
 
@@ -31,17 +36,25 @@ public class ImmutableSetHashFloodingDetectionBenchmark {
 
   @Param Impl impl;
 
+  @Param Input input;
+
   private static final Object[][] tables = new Object[TEST_CASES][];
+  private static final ImmutableSet<?>[] sets = new ImmutableSet<?>[TEST_CASES];
+  private static final Object[][] queries = new Object[TEST_CASES][];
 
   @BeforeExperiment
   public void setUp() {
+    Random random = new Random(0);
     int tableSize = ImmutableSet.chooseTableSize(size);
     int mask = tableSize - 1;
     for (int i = 0; i < TEST_CASES; i++) {
+      Object[] elements = new Object[size];
+      queries[i] = new Object[size];
+      input.fill(elements, queries[i], random);
+      sets[i] = ImmutableSet.copyOf(elements);
       tables[i] = new Object[tableSize];
-      for (int j = 0; j < size; j++) {
-        Object o = new Object();
-        for (int k = o.hashCode(); ; k++) {
+      for (Object o : elements) {
+        for (int k = Hashing.smear(o.hashCode()); ; k++) {
           int index = k & mask;
           if (tables[i][index] == null) {
             tables[i][index] = o;
@@ -52,6 +65,41 @@ public class ImmutableSetHashFloodingDetectionBenchmark {
     }
   }
 
+  enum Input {
+    RANDOM {
+      @Override
+      void fill(Object[] elements, Object[] queries, Random random) {
+        for (int i = 0; i < elements.length; i++) {
+          elements[i] = new Object();
+          queries[i] = new Object();
+        }
+      }
+    },
+    /**
+     * Hash codes that occupy consecutive table slots once smeared, forming a single run that makes
+     * unsuccessful lookups take linear time unless the set defends against it. Each query misses,
+     * but starts at a slot occupied by one of the elements.
+     */
+    ASCENDING_SMEARED_HASHES {
+      @Override
+      void fill(Object[] elements, Object[] queries, Random random) {
+        int start = random.nextInt();
+        for (int i = 0; i < elements.length; i++) {
+          elements[i] = unsmear(start + i);
+          queries[i] = unsmear(start + i + (1 << 30));
+        }
+      }
+    };
+
+    abstract void fill(Object[] elements, Object[] queries, Random random);
+
+    /** Returns an integer whose hash code is smeared by {@link Hashing#smear} to {@code smeared}. */
+    static Integer unsmear(int smeared) {
+      // multiplicative inverses of the constants used in Hashing.smear
+      return 0xdee13bb1 * Integer.rotateRight(0x56ed309b * smeared, 15);
+    }
+  }
+
   enum Impl {
     EXHAUSTIVE {
       int maxRunBeforeFallback(int tableSize) {
@@ -155,4 +203,16 @@ public class ImmutableSetHashFloodingDetectionBenchmark {
     }
     return count;
   }
+
+  @Benchmark
+  public int contains(int reps) {
+    int count = 0;
+    for (int i = 0; i < reps; i++) {
+      int testCase = i & 0xFF;
+      if (sets[testCase].contains(queries[testCase][i % size])) {
+        count++;
+      }
+    }
+    return count;
+  }
 }
@@ -0,0 +1,113 @@
+/*
+ * Copyright (C) 2019 The Guava Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.common.hash;
+
+import com.google.caliper.BeforeExperiment;
+import com.google.caliper.Benchmark;
+import com.google.caliper.Param;
+import java.util.Random;
+
+/**
+ * Benchmarks for comparing the lookup latency of the {@link BloomFilterStrategies}.
+ *
+ * <p>Parameters for the benchmark are:
+ *
+ * <ul>
+ *   <li>strategy: The strategy of the Bloom filter.
+ *   <li>expectedInsertions: The number of elements in the Bloom filter. The largest size makes the
+ *       filter much bigger than the CPU caches.
+ *   <li>fpp: The requested false positive probability, which determines the number of hash
+ *       functions.
+ * </ul>
+ *
+ * <p>The {@code absent} benchmark returns the number of false positives it encountered, so the
+ * false positive probability of each configuration can be read off its result; {@code
+ * BloomFilterTest} checks it precisely.
+ */
+public class BloomFilterBenchmark {
+
+  // Use a constant seed for all of the benchmarks to ensure apples to apples comparisons.
+  private static final int RANDOM_SEED = new Random().nextInt();
+
+  private static final int NUM_QUERIES = 1 << 16;
+
+  @Param BloomFilterStrategies strategy;
+
+  @Param({"10000", "100000000"})
+  private int expectedInsertions;
+
+  @Param({"0.01", "0.0001"})
+  private double fpp;
+
+  private BloomFilter<Long> bloomFilter;
+  private long[] present;
+  private long[] absent;
+
+  @BeforeExperiment
+  void setUp() {
+    bloomFilter = BloomFilter.create(Funnels.longFunnel(), expectedInsertions, fpp, strategy);
+    Random random = new Random(RANDOM_SEED);
+    present = new long[NUM_QUERIES];
+    for (int i = 0; i < expectedInsertions; i++) {
+      long element = random.nextLong() | 1;
+      bloomFilter.put(element);
+      if (i < NUM_QUERIES) {
+        present[i] = element;
+      }
+    }
+    for (int i = expectedInsertions; i < NUM_QUERIES; i++) {
+      present[i] = present[i % expectedInsertions];
+    }
+    absent = new long[NUM_QUERIES];
+    for (int i = 0; i < NUM_QUERIES; i++) {
+      absent[i] = random.nextLong() & ~1L; // present elements are all odd
+    }
+  }
+
+  @Benchmark
+  int present(int reps) {
+    int dummy = 0;
+    for (int i = 0; i < reps; i++) {
+      if (bloomFilter.mightContain(present[i & (NUM_QUERIES - 1)])) {
+        dummy++;
+      }
+    }
+    return dummy;
+  }
+
+  @Benchmark
+  int absent(int reps) {
+    int falsePositives = 0;
+    for (int i = 0; i < reps; i++) {
+      if (bloomFilter.mightContain(absent[i & (NUM_QUERIES - 1)])) {
+        falsePositives++;
+      }
+    }
+    return falsePositives;
+  }
+
+  @Benchmark
+  int put(int reps) {
+    int dummy = 0;
+    for (int i = 0; i < reps; i++) {
+      if (bloomFilter.put(absent[i & (NUM_QUERIES - 1)])) {
+        dummy++;
+      }
+    }
+    return dummy;
+  }
+}
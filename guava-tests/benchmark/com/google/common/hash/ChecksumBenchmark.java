@@ -87,6 +87,37 @@ public class ChecksumBenchmark {
     return result;
   }
 
+  // CRC32C
+
+  @Benchmark
+  byte crc32cHashFunction(int reps) {
+    // Uses java.util.zip.CRC32C, and thus the processor's CRC instructions, on Java 9 and later.
+    return runHashFunction(reps, Hashing.crc32c());
+  }
+
+  @Benchmark
+  byte crc32cPureJava(int reps) {
+    byte result = 0x01;
+    for (int i = 0; i < reps; i++) {
+      Hasher hasher = new Crc32cHashFunction.Crc32cHasher();
+      result ^= hasher.putBytes(testBytes).hash().asBytes()[0];
+    }
+    return result;
+  }
+
+  @Benchmark
+  byte crc32cPureJavaByteAtATime(int reps) {
+    byte result = 0x01;
+    for (int i = 0; i < reps; i++) {
+      Hasher hasher = new Crc32cHashFunction.Crc32cHasher();
+      for (byte b : testBytes) {
+        hasher.putByte(b);
+      }
+      result ^= hasher.hash().asBytes()[0];
+    }
+    return result;
+  }
+
   // Helpers + main
 
   private byte runHashFunction(int reps, HashFunction hashFunction) {
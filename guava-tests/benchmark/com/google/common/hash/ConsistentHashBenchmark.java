@@ -0,0 +1,108 @@
+/*
+ * Copyright (C) 2019 The Guava Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.common.hash;
+
+import com.google.caliper.BeforeExperiment;
+import com.google.caliper.Benchmark;
+import com.google.caliper.Param;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Benchmarks for the ways of assigning keys to nodes: {@link Hashing#consistentHash(long, int)},
+ * {@link RendezvousHash} and {@link MultiProbeConsistentHash}. Their distribution quality is
+ * checked by their tests.
+ */
+public class ConsistentHashBenchmark {
+  private static final int KEYS_MASK = 0xffff;
+
+  @Param({"10", "100", "1000", "10000"})
+  private int nodes;
+
+  private final long[] keys = new long[KEYS_MASK + 1];
+  private RendezvousHash<Integer> rendezvousHash;
+  private RendezvousHash<Integer> weightedRendezvousHash;
+  private MultiProbeConsistentHash<Integer> multiProbeConsistentHash;
+
+  @BeforeExperiment
+  void setUp() {
+    Random random = new Random(42);
+    for (int i = 0; i < keys.length; i++) {
+      keys[i] = random.nextLong();
+    }
+    RendezvousHash.Builder<Integer> builder =
+        RendezvousHash.builder(Hashing.murmur3_128(), Funnels.integerFunnel());
+    RendezvousHash.Builder<Integer> weightedBuilder =
+        RendezvousHash.builder(Hashing.murmur3_128(), Funnels.integerFunnel());
+    List<Integer> nodeList = new ArrayList<>();
+    for (int i = 0; i < nodes; i++) {
+      builder.add(i);
+      weightedBuilder.add(i, 1 + random.nextInt(10));
+      nodeList.add(i);
+    }
+    rendezvousHash = builder.build();
+    weightedRendezvousHash = weightedBuilder.build();
+    multiProbeConsistentHash =
+        MultiProbeConsistentHash.create(Hashing.murmur3_128(), Funnels.integerFunnel(), nodeList);
+  }
+
+  @Benchmark
+  int consistentHash(int reps) {
+    int result = 0;
+    for (int i = 0; i < reps; i++) {
+      result += Hashing.consistentHash(keys[i & KEYS_MASK], nodes);
+    }
+    return result;
+  }
+
+  @Benchmark
+  int rendezvousHash(int reps) {
+    int result = 0;
+    for (int i = 0; i < reps; i++) {
+      result += rendezvousHash.get(keys[i & KEYS_MASK]);
+    }
+    return result;
+  }
+
+  @Benchmark
+  int weightedRendezvousHash(int reps) {
+    int result = 0;
+    for (int i = 0; i < reps; i++) {
+      result += weightedRendezvousHash.get(keys[i & KEYS_MASK]);
+    }
+    return result;
+  }
+
+  @Benchmark
+  int rendezvousHashReplicas(int reps) {
+    int result = 0;
+    for (int i = 0; i < reps; i++) {
+      result += rendezvousHash.getReplicas(keys[i & KEYS_MASK], 3).get(0);
+    }
+    return result;
+  }
+
+  @Benchmark
+  int multiProbeConsistentHash(int reps) {
+    int result = 0;
+    for (int i = 0; i < reps; i++) {
+      result += multiProbeConsistentHash.get(keys[i & KEYS_MASK]);
+    }
+    return result;
+  }
+}
@@ -0,0 +1,149 @@
+/*
+ * Copyright (C) 2019 The Guava Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.common.hash;
+
+import com.google.caliper.BeforeExperiment;
+import com.google.caliper.Benchmark;
+import com.google.caliper.Param;
+import java.util.Random;
+
+/**
+ * Benchmarks for hashing small keys to primitives, comparing the {@link HashCode}-returning methods
+ * of {@link HashFunction} with their primitive-returning shortcuts and with a {@link
+ * ResettableHasher}. Run with Caliper's allocation instrument ({@code -i allocation}) to see that
+ * the shortcuts and the resettable hasher allocate nothing for the non-cryptographic functions, or
+ * only a {@link java.util.zip.Checksum} for the checksums.
+ */
+public class HashToPrimitiveBenchmark {
+  private static final int KEYS_MASK = 0x3ff;
+
+  @Param({
+    "MURMUR3_32",
+    "MURMUR3_128",
+    "FARMHASH_FINGERPRINT_64",
+    "XX_HASH_64",
+    "XXH3_64",
+    "WY_HASH",
+    "CRC32C",
+    "CRC32",
+    "ADLER32"
+  })
+  HashFunctionEnum hashFunctionEnum;
+
+  @Param({"16"})
+  private int size;
+
+  private HashFunction hashFunction;
+  private ResettableHasher resettableHasher;
+  private final long[] longs = new long[KEYS_MASK + 1];
+  private final byte[][] bytes = new byte[KEYS_MASK + 1][];
+  private final String[] strings = new String[KEYS_MASK + 1];
+
+  @BeforeExperiment
+  void setUp() {
+    hashFunction = hashFunctionEnum.getHashFunction();
+    resettableHasher = hashFunction.newResettableHasher();
+    Random random = new Random(42);
+    for (int i = 0; i <= KEYS_MASK; i++) {
+      longs[i] = random.nextLong();
+      bytes[i] = new byte[size];
+      random.nextBytes(bytes[i]);
+      char[] chars = new char[size / 2];
+      for (int j = 0; j < chars.length; j++) {
+        chars[j] = (char) ('a' + random.nextInt(26));
+      }
+      strings[i] = new String(chars);
+    }
+  }
+
+  @Benchmark
+  long hashLong(int reps) {
+    long result = 0;
+    for (int i = 0; i < reps; i++) {
+      result += hashFunction.hashLong(longs[i & KEYS_MASK]).padToLong();
+    }
+    return result;
+  }
+
+  @Benchmark
+  long hashLongToLong(int reps) {
+    long result = 0;
+    for (int i = 0; i < reps; i++) {
+      result += hashFunction.hashLongToLong(longs[i & KEYS_MASK]);
+    }
+    return result;
+  }
+
+  @Benchmark
+  long hashBytes(int reps) {
+    long result = 0;
+    for (int i = 0; i < reps; i++) {
+      result += hashFunction.hashBytes(bytes[i & KEYS_MASK]).padToLong();
+    }
+    return result;
+  }
+
+  @Benchmark
+  long hashBytesToLong(int reps) {
+    long result = 0;
+    for (int i = 0; i < reps; i++) {
+      result += hashFunction.hashBytesToLong(bytes[i & KEYS_MASK]);
+    }
+    return result;
+  }
+
+  @Benchmark
+  long hashUnencodedChars(int reps) {
+    long result = 0;
+    for (int i = 0; i < reps; i++) {
+      result += hashFunction.hashUnencodedChars(strings[i & KEYS_MASK]).padToLong();
+    }
+    return result;
+  }
+
+  @Benchmark
+  long hashUnencodedCharsToLong(int reps) {
+    long result = 0;
+    for (int i = 0; i < reps; i++) {
+      result += hashFunction.hashUnencodedCharsToLong(strings[i & KEYS_MASK]);
+    }
+    return result;
+  }
+
+  @Benchmark
+  long newHasher(int reps) {
+    long result = 0;
+    for (int i = 0; i < reps; i++) {
+      int key = i & KEYS_MASK;
+      result +=
+          hashFunction.newHasher().putLong(longs[key]).putUnencodedChars(strings[key]).hash()
+              .padToLong();
+    }
+    return result;
+  }
+
+  @Benchmark
+  long resettableHasher(int reps) {
+    long result = 0;
+    for (int i = 0; i < reps; i++) {
+      int key = i & KEYS_MASK;
+      result +=
+          resettableHasher.putLong(longs[key]).putUnencodedChars(strings[key]).hashToLong();
+    }
+    return result;
+  }
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright (C) 2019 The Guava Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.common.hash;
+
+import com.google.caliper.BeforeExperiment;
+import com.google.caliper.Benchmark;
+import com.google.caliper.Param;
+import java.util.Random;
+
+/**
+ * Benchmarks for {@link HyperLogLog}.
+ *
+ * <p>Parameters for the benchmark are:
+ *
+ * <ul>
+ *   <li>precision: The precision of the sketch.
+ *   <li>cardinality: The number of distinct elements in the sketch. Small cardinalities keep the
+ *       sketch in its sparse representation.
+ * </ul>
+ */
+public class HyperLogLogBenchmark {
+
+  // Use a constant seed for all of the benchmarks to ensure apples to apples comparisons.
+  private static final int RANDOM_SEED = new Random().nextInt();
+
+  private static final int NUM_ELEMENTS = 1 << 16;
+
+  @Param({"10", "14", "18"})
+  private int precision;
+
+  @Param({"100", "1000000"})
+  private int cardinality;
+
+  private long[] elements;
+  private HyperLogLog<Long> sketch;
+  private HyperLogLog<Long> other;
+
+  @BeforeExperiment
+  void setUp() {
+    Random random = new Random(RANDOM_SEED);
+    elements = new long[NUM_ELEMENTS];
+    for (int i = 0; i < NUM_ELEMENTS; i++) {
+      elements[i] = random.nextLong();
+    }
+    sketch = HyperLogLog.create(Funnels.longFunnel(), precision);
+    other = HyperLogLog.create(Funnels.longFunnel(), precision);
+    for (int i = 0; i < cardinality; i++) {
+      sketch.put(random.nextLong());
+      other.put(random.nextLong());
+    }
+  }
+
+  @Benchmark
+  int put(int reps) {
+    int dummy = 0;
+    for (int i = 0; i < reps; i++) {
+      if (sketch.put(elements[i & (NUM_ELEMENTS - 1)])) {
+        dummy++;
+      }
+    }
+    return dummy;
+  }
+
+  @Benchmark
+  long approximateElementCount(int reps) {
+    long dummy = 0;
+    for (int i = 0; i < reps; i++) {
+      dummy += sketch.approximateElementCount();
+    }
+    return dummy;
+  }
+
+  @Benchmark
+  long putAll(int reps) {
+    long dummy = 0;
+    for (int i = 0; i < reps; i++) {
+      HyperLogLog<Long> union = sketch.copy();
+      union.putAll(other);
+      dummy += union.precision();
+    }
+    return dummy;
+  }
+}
@@ -17,6 +17,7 @@ package com.google.common.io;
 import com.google.caliper.BeforeExperiment;
 import com.google.caliper.Benchmark;
 import com.google.caliper.Param;
+import com.google.common.base.Charsets;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
@@ -50,6 +51,9 @@ public class BaseEncodingBenchmark {
 
   private final byte[][] encodingInputs = new byte[INPUTS_COUNT][];
   private final String[] decodingInputs = new String[INPUTS_COUNT];
+  private final byte[][] asciiDecodingInputs = new byte[INPUTS_COUNT][];
+  private byte[] encodingTarget;
+  private byte[] decodingTarget;
 
   @BeforeExperiment
   public void setUp() {
@@ -58,7 +62,10 @@ public class BaseEncodingBenchmark {
       encodingInputs[i] = new byte[n];
       rng.nextBytes(encodingInputs[i]);
       decodingInputs[i] = encoding.encoding.encode(encodingInputs[i]);
+      asciiDecodingInputs[i] = decodingInputs[i].getBytes(Charsets.US_ASCII);
     }
+    encodingTarget = new byte[encoding.encoding.maxEncodedSize(n)];
+    decodingTarget = new byte[encoding.encoding.maxDecodedSize(encodingTarget.length)];
   }
 
   @Benchmark
@@ -79,6 +86,26 @@ public class BaseEncodingBenchmark {
     return tmp;
   }
 
+  @Benchmark
+  public int encodeToBytes(int reps) {
+    int tmp = 0;
+    for (int i = 0; i < reps; i++) {
+      byte[] input = encodingInputs[i & INPUTS_MASK];
+      tmp += encoding.encoding.encodeTo(encodingTarget, 0, input, 0, input.length);
+    }
+    return tmp;
+  }
+
+  @Benchmark
+  public int decodeToBytes(int reps) {
+    int tmp = 0;
+    for (int i = 0; i < reps; i++) {
+      byte[] input = asciiDecodingInputs[i & INPUTS_MASK];
+      tmp += encoding.encoding.decodeTo(decodingTarget, 0, input, 0, input.length);
+    }
+    return tmp;
+  }
+
   @Benchmark
   public int encodingStream(int reps) throws IOException {
     int tmp = 0;
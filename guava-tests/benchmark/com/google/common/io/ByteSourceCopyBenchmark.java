@@ -0,0 +1,96 @@
+/*
+ * Copyright (C) 2019 The Guava Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.common.io;
+
+import com.google.caliper.AfterExperiment;
+import com.google.caliper.BeforeExperiment;
+import com.google.caliper.Benchmark;
+import com.google.caliper.Param;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Random;
+
+/**
+ * Benchmarks for copying a file with {@link ByteSource#copyTo(ByteSink)}, which uses {@link
+ * java.nio.channels.FileChannel#transferTo} for file sources, compared to copying between the
+ * streams of the source and sink.
+ */
+public class ByteSourceCopyBenchmark {
+  enum CopyStrategy {
+    STREAMS {
+      @Override
+      long copy(ByteSource source, ByteSink sink) throws IOException {
+        try (InputStream in = source.openStream();
+            OutputStream out = sink.openStream()) {
+          return ByteStreams.copy(in, out);
+        }
+      }
+    },
+    COPY_TO {
+      @Override
+      long copy(ByteSource source, ByteSink sink) throws IOException {
+        return source.copyTo(sink);
+      }
+    };
+
+    abstract long copy(ByteSource source, ByteSink sink) throws IOException;
+  }
+
+  @Param({"1024", "1048576", "104857600"})
+  int size;
+
+  @Param CopyStrategy strategy;
+
+  @Param({"true", "false"})
+  boolean path;
+
+  private File from;
+  private File to;
+  private ByteSource source;
+  private ByteSink sink;
+
+  @BeforeExperiment
+  void setUp() throws IOException {
+    from = File.createTempFile("ByteSourceCopyBenchmark", ".from");
+    to = File.createTempFile("ByteSourceCopyBenchmark", ".to");
+    byte[] bytes = new byte[size];
+    new Random(42).nextBytes(bytes);
+    Files.write(bytes, from);
+    if (path) {
+      source = MoreFiles.asByteSource(from.toPath());
+      sink = MoreFiles.asByteSink(to.toPath());
+    } else {
+      source = Files.asByteSource(from);
+      sink = Files.asByteSink(to);
+    }
+  }
+
+  @AfterExperiment
+  void tearDown() {
+    from.delete();
+    to.delete();
+  }
+
+  @Benchmark
+  long copy(int reps) throws IOException {
+    long r = 0;
+    for (int i = 0; i < reps; i++) {
+      r += strategy.copy(source, sink);
+    }
+    return r;
+  }
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright (C) 2019 The Guava Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.common.io;
+
+import com.google.caliper.BeforeExperiment;
+import com.google.caliper.Benchmark;
+import com.google.caliper.Param;
+import com.google.common.base.Charsets;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.channels.Channels;
+import java.util.Random;
+
+/**
+ * Benchmarks for copying many small streams, where allocating a buffer for each copy is a
+ * significant part of the cost. Run with Caliper's allocation instrument ({@code -i allocation}),
+ * and with {@code -Dguava.io.pool_buffers=false} to compare against unpooled buffers.
+ */
+public class ByteStreamsCopyBenchmark {
+  @Param({"100", "10000"})
+  int size;
+
+  private byte[] bytes;
+  private String chars;
+  private StringBuilder builder;
+
+  @BeforeExperiment
+  void setUp() {
+    bytes = new byte[size];
+    new Random(42).nextBytes(bytes);
+    chars = new String(bytes, Charsets.ISO_8859_1);
+    builder = new StringBuilder(size);
+  }
+
+  @Benchmark
+  long copyStream(int reps) throws IOException {
+    long r = 0;
+    for (int i = 0; i < reps; i++) {
+      r += ByteStreams.copy(new ByteArrayInputStream(bytes), ByteStreams.nullOutputStream());
+    }
+    return r;
+  }
+
+  @Benchmark
+  long exhaustStream(int reps) throws IOException {
+    long r = 0;
+    for (int i = 0; i < reps; i++) {
+      r += ByteStreams.exhaust(new ByteArrayInputStream(bytes));
+    }
+    return r;
+  }
+
+  @Benchmark
+  long copyChannel(int reps) throws IOException {
+    long r = 0;
+    for (int i = 0; i < reps; i++) {
+      r +=
+          ByteStreams.copy(
+              Channels.newChannel(new ByteArrayInputStream(bytes)),
+              Channels.newChannel(ByteStreams.nullOutputStream()));
+    }
+    return r;
+  }
+
+  @Benchmark
+  long copyReader(int reps) throws IOException {
+    long r = 0;
+    for (int i = 0; i < reps; i++) {
+      builder.setLength(0);
+      r += CharStreams.copy(new StringReader(chars), builder);
+    }
+    return r;
+  }
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright (C) 2019 The Guava Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.common.io;
+
+import com.google.caliper.AfterExperiment;
+import com.google.caliper.BeforeExperiment;
+import com.google.caliper.Benchmark;
+import com.google.caliper.Param;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.google.common.hash.HashingInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Benchmarks for hashing a source while gzipping it to a sink and counting the compressed bytes,
+ * with hand-assembled streams and with the views returned by {@link ByteSource#hashing} and {@link
+ * ByteSink#gzipped()}, sequentially and in parallel.
+ */
+public class ByteTransformsBenchmark {
+  enum Pipeline {
+    STREAMS {
+      @Override
+      long copy(ByteSource source, ByteSink sink, ExecutorService executor) throws IOException {
+        try (HashingInputStream in = new HashingInputStream(Hashing.crc32c(), source.openStream());
+            CountingOutputStream counting = new CountingOutputStream(sink.openStream());
+            OutputStream out = new GZIPOutputStream(new BufferedOutputStream(counting))) {
+          ByteStreams.copy(in, out);
+          out.close();
+          return in.hash().asInt() + counting.getCount();
+        }
+      }
+    },
+    VIEWS {
+      @Override
+      long copy(ByteSource source, ByteSink sink, ExecutorService executor) throws IOException {
+        Hasher hasher = Hashing.crc32c().newHasher();
+        AtomicLong count = new AtomicLong();
+        source.hashing(hasher).copyTo(sink.counting(count).gzipped());
+        return hasher.hash().asInt() + count.get();
+      }
+    },
+    PARALLEL_VIEWS {
+      @Override
+      long copy(ByteSource source, ByteSink sink, ExecutorService executor) throws IOException {
+        Hasher hasher = Hashing.crc32c().newHasher();
+        AtomicLong count = new AtomicLong();
+        source.hashing(hasher).copyTo(sink.counting(count).gzipped(executor));
+        return hasher.hash().asInt() + count.get();
+      }
+    };
+
+    abstract long copy(ByteSource source, ByteSink sink, ExecutorService executor)
+        throws IOException;
+  }
+
+  @Param({"10000", "10000000"})
+  int size;
+
+  @Param Pipeline pipeline;
+
+  private ByteSource source;
+  private final ByteSink sink =
+      new ByteSink() {
+        @Override
+        public OutputStream openStream() {
+          return ByteStreams.nullOutputStream();
+        }
+      };
+  private ExecutorService executor;
+
+  @BeforeExperiment
+  void setUp() {
+    // text-like bytes, which compress about as well as logs do
+    Random random = new Random(42);
+    byte[] bytes = new byte[size];
+    for (int i = 0; i < size; i++) {
+      bytes[i] = (byte) ('a' + (int) Math.abs(random.nextGaussian() * 6));
+    }
+    source = ByteSource.wrap(bytes);
+    executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+  }
+
+  @AfterExperiment
+  void tearDown() {
+    executor.shutdown();
+  }
+
+  @Benchmark
+  long copy(int reps) throws IOException {
+    long r = 0;
+    for (int i = 0; i < reps; i++) {
+      r += pipeline.copy(source, sink, executor);
+    }
+    return r;
+  }
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright (C) 2019 The Guava Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.common.io;
+
+import com.google.caliper.BeforeExperiment;
+import com.google.caliper.Benchmark;
+import com.google.caliper.Param;
+import com.google.common.base.Charsets;
+import com.google.common.primitives.Longs;
+import java.io.IOException;
+import java.util.Random;
+
+/**
+ * Benchmarks for summing a column of CSV data, decoding each line with {@link
+ * CharSource#readLines(LineProcessor)} or scanning the bytes with {@link
+ * ByteSource#readLines(RecordProcessor)} and {@link Longs#parseAscii}. Run with Caliper's
+ * allocation instrument ({@code -i allocation}) to see that the latter allocates almost nothing.
+ */
+public class ReadRecordsBenchmark {
+  @Param({"1000", "100000"})
+  int lines;
+
+  private ByteSource source;
+
+  @BeforeExperiment
+  void setUp() {
+    Random random = new Random(42);
+    StringBuilder builder = new StringBuilder();
+    for (int i = 0; i < lines; i++) {
+      builder.append("row").append(i).append(',').append(random.nextInt()).append(",x\n");
+    }
+    source = ByteSource.wrap(builder.toString().getBytes(Charsets.US_ASCII));
+  }
+
+  @Benchmark
+  long charSourceLineProcessor(int reps) throws IOException {
+    long result = 0;
+    for (int i = 0; i < reps; i++) {
+      result +=
+          source
+              .asCharSource(Charsets.US_ASCII)
+              .readLines(
+                  new LineProcessor<Long>() {
+                    long sum;
+
+                    @Override
+                    public boolean processLine(String line) {
+                      int start = line.indexOf(',') + 1;
+                      sum += Long.parseLong(line.substring(start, line.indexOf(',', start)));
+                      return true;
+                    }
+
+                    @Override
+                    public Long getResult() {
+                      return sum;
+                    }
+                  });
+    }
+    return result;
+  }
+
+  @Benchmark
+  long byteSourceRecordProcessor(int reps) throws IOException {
+    long result = 0;
+    for (int i = 0; i < reps; i++) {
+      result +=
+          source.readLines(
+              new RecordProcessor<Long>() {
+                long sum;
+
+                @Override
+                public boolean processRecord(byte[] buf, int off, int len) {
+                  int start = off;
+                  while (buf[start++] != ',') {}
+                  int end = start;
+                  while (buf[end] != ',') {
+                    end++;
+                  }
+                  sum += Longs.parseAscii(buf, start, end - start);
+                  return true;
+                }
+
+                @Override
+                public Long getResult() {
+                  return sum;
+                }
+              });
+    }
+    return result;
+  }
+}
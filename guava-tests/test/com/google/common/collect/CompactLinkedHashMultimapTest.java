@@ -0,0 +1,352 @@
+/*
+ * Copyright (C) 2019 The Guava Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.common.collect;
+
+import static com.google.common.collect.Sets.newHashSet;
+import static com.google.common.collect.Sets.newLinkedHashSet;
+import static com.google.common.collect.testing.Helpers.mapEntry;
+import static com.google.common.collect.testing.IteratorFeature.MODIFIABLE;
+import static com.google.common.truth.Truth.assertThat;
+import static java.util.Arrays.asList;
+
+import com.google.common.annotations.GwtIncompatible;
+import com.google.common.collect.testing.IteratorTester;
+import com.google.common.collect.testing.features.CollectionFeature;
+import com.google.common.collect.testing.features.CollectionSize;
+import com.google.common.collect.testing.features.MapFeature;
+import com.google.common.collect.testing.google.SetMultimapTestSuiteBuilder;
+import com.google.common.collect.testing.google.TestStringSetMultimapGenerator;
+import com.google.common.testing.EqualsTester;
+import com.google.common.testing.SerializableTester;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.Random;
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+/** Tests for {@code CompactLinkedHashMultimap}. */
+@GwtIncompatible // CompactLinkedHashMultimap
+public class CompactLinkedHashMultimapTest extends TestCase {
+  public static Test suite() {
+    TestSuite suite = new TestSuite();
+    suite.addTest(
+        SetMultimapTestSuiteBuilder.using(
+                new TestStringSetMultimapGenerator() {
+                  @Override
+                  protected SetMultimap<String, String> create(Entry<String, String>[] entries) {
+                    SetMultimap<String, String> multimap = CompactLinkedHashMultimap.create();
+                    for (Entry<String, String> entry : entries) {
+                      multimap.put(entry.getKey(), entry.getValue());
+                    }
+                    return multimap;
+                  }
+                })
+            .named("CompactLinkedHashMultimap")
+            .withFeatures(
+                MapFeature.ALLOWS_NULL_KEYS,
+                MapFeature.ALLOWS_NULL_VALUES,
+                MapFeature.ALLOWS_ANY_NULL_QUERIES,
+                MapFeature.GENERAL_PURPOSE,
+                MapFeature.FAILS_FAST_ON_CONCURRENT_MODIFICATION,
+                CollectionFeature.SUPPORTS_ITERATOR_REMOVE,
+                CollectionFeature.KNOWN_ORDER,
+                CollectionFeature.SERIALIZABLE,
+                CollectionSize.ANY)
+            .createTestSuite());
+    suite.addTestSuite(CompactLinkedHashMultimapTest.class);
+    return suite;
+  }
+
+  private static Multimap<String, Integer> initializeMultimap5() {
+    Multimap<String, Integer> multimap = CompactLinkedHashMultimap.create();
+    multimap.put("foo", 5);
+    multimap.put("bar", 4);
+    multimap.put("foo", 3);
+    multimap.put("cow", 2);
+    multimap.put("bar", 1);
+    return multimap;
+  }
+
+  public void testToString() {
+    Multimap<String, Integer> multimap = CompactLinkedHashMultimap.create();
+    multimap.put("foo", 3);
+    multimap.put("bar", 1);
+    multimap.putAll("foo", asList(-1, 2, 4));
+    multimap.putAll("bar", asList(2, 3));
+    multimap.put("foo", 1);
+    assertEquals("{foo=[3, -1, 2, 4, 1], bar=[1, 2, 3]}", multimap.toString());
+  }
+
+  public void testToStringNullExact() {
+    Multimap<String, Integer> multimap = CompactLinkedHashMultimap.create();
+    multimap.put("foo", 3);
+    multimap.put("foo", -1);
+    multimap.put(null, null);
+    multimap.put("bar", 1);
+    multimap.put("foo", 2);
+    multimap.put(null, 0);
+    multimap.put("bar", 2);
+    multimap.put("bar", null);
+    multimap.put("foo", null);
+    multimap.put("foo", 4);
+    multimap.put(null, -1);
+    multimap.put("bar", 3);
+    multimap.put("bar", 1);
+    multimap.put("foo", 1);
+    assertEquals(
+        "{foo=[3, -1, 2, null, 4, 1], null=[null, 0, -1], bar=[1, 2, null, 3]}",
+        multimap.toString());
+  }
+
+  public void testOrderingReadOnly() {
+    assertOrderingReadOnly(initializeMultimap5());
+  }
+
+  public void testOrderingUnmodifiable() {
+    assertOrderingReadOnly(Multimaps.unmodifiableMultimap(initializeMultimap5()));
+  }
+
+  public void testSerializationOrdering() {
+    Multimap<String, Integer> multimap = initializeMultimap5();
+    Multimap<String, Integer> copy = SerializableTester.reserializeAndAssert(multimap);
+    assertOrderingReadOnly(copy);
+  }
+
+  public void testSerializationOrderingKeysAndEntries() {
+    Multimap<String, Integer> multimap = CompactLinkedHashMultimap.create();
+    multimap.put("a", 1);
+    multimap.put("b", 2);
+    multimap.put("a", 3);
+    multimap.put("c", 4);
+    multimap.remove("a", 1);
+    multimap = SerializableTester.reserializeAndAssert(multimap);
+    assertThat(multimap.keySet()).containsExactly("a", "b", "c").inOrder();
+    assertThat(multimap.entries())
+        .containsExactly(mapEntry("b", 2), mapEntry("a", 3), mapEntry("c", 4))
+        .inOrder();
+  }
+
+  private static void assertOrderingReadOnly(Multimap<String, Integer> multimap) {
+    assertThat(multimap.get("foo")).containsExactly(5, 3).inOrder();
+    assertThat(multimap.get("bar")).containsExactly(4, 1).inOrder();
+    assertThat(multimap.get("cow")).contains(2);
+
+    assertThat(multimap.keySet()).containsExactly("foo", "bar", "cow").inOrder();
+    assertThat(multimap.values()).containsExactly(5, 4, 3, 2, 1).inOrder();
+
+    Iterator<Entry<String, Integer>> entryIterator = multimap.entries().iterator();
+    assertEquals(Maps.immutableEntry("foo", 5), entryIterator.next());
+    assertEquals(Maps.immutableEntry("bar", 4), entryIterator.next());
+    assertEquals(Maps.immutableEntry("foo", 3), entryIterator.next());
+    assertEquals(Maps.immutableEntry("cow", 2), entryIterator.next());
+    assertEquals(Maps.immutableEntry("bar", 1), entryIterator.next());
+
+    Iterator<Entry<String, Collection<Integer>>> collectionIterator =
+        multimap.asMap().entrySet().iterator();
+    Entry<String, Collection<Integer>> entry = collectionIterator.next();
+    assertEquals("foo", entry.getKey());
+    assertThat(entry.getValue()).containsExactly(5, 3).inOrder();
+    entry = collectionIterator.next();
+    assertEquals("bar", entry.getKey());
+    assertThat(entry.getValue()).containsExactly(4, 1).inOrder();
+    entry = collectionIterator.next();
+    assertEquals("cow", entry.getKey());
+    assertThat(entry.getValue()).contains(2);
+  }
+
+  public void testOrderingUpdates() {
+    Multimap<String, Integer> multimap = initializeMultimap5();
+
+    assertThat(multimap.replaceValues("foo", asList(6, 7))).containsExactly(5, 3).inOrder();
+    assertThat(multimap.keySet()).containsExactly("foo", "bar", "cow").inOrder();
+    assertThat(multimap.values()).containsExactly(4, 2, 1, 6, 7).inOrder();
+    assertThat(multimap.removeAll("foo")).containsExactly(6, 7).inOrder();
+    assertThat(multimap.keySet()).containsExactly("bar", "cow").inOrder();
+    assertTrue(multimap.remove("bar", 4));
+    assertThat(multimap.keySet()).containsExactly("bar", "cow").inOrder();
+    assertTrue(multimap.remove("bar", 1));
+    assertThat(multimap.keySet()).contains("cow");
+    multimap.put("bar", 9);
+    assertThat(multimap.keySet()).containsExactly("cow", "bar").inOrder();
+  }
+
+  public void testKeysToString_ordering() {
+    Multimap<String, Integer> multimap = initializeMultimap5();
+    assertEquals("[foo x 2, bar x 2, cow]", multimap.keys().toString());
+  }
+
+  public void testCreateFromMultimap() {
+    Multimap<String, Integer> multimap = LinkedHashMultimap.create();
+    multimap.put("a", 1);
+    multimap.put("b", 2);
+    multimap.put("a", 3);
+    multimap.put("c", 4);
+    CompactLinkedHashMultimap<String, Integer> copy = CompactLinkedHashMultimap.create(multimap);
+    new EqualsTester().addEqualityGroup(multimap, copy).testEquals();
+    assertThat(copy.entries()).containsExactlyElementsIn(multimap.entries()).inOrder();
+  }
+
+  public void testCreateFromSizes() {
+    CompactLinkedHashMultimap<String, Integer> multimap = CompactLinkedHashMultimap.create(20, 15);
+    multimap.put("foo", 1);
+    multimap.put("bar", 2);
+    multimap.put("foo", 3);
+    assertEquals(ImmutableSet.of(1, 3), multimap.get("foo"));
+  }
+
+  public void testCreateFromIllegalSizes() {
+    try {
+      CompactLinkedHashMultimap.create(-20, 15);
+      fail();
+    } catch (IllegalArgumentException expected) {
+    }
+
+    try {
+      CompactLinkedHashMultimap.create(20, -15);
+      fail();
+    } catch (IllegalArgumentException expected) {
+    }
+  }
+
+  public void testRemoveCompactsEntries() {
+    CompactLinkedHashMultimap<Integer, Integer> multimap = CompactLinkedHashMultimap.create();
+    for (int i = 0; i < 100; i++) {
+      multimap.put(i % 10, i);
+    }
+    int keyCapacity = multimap.keys.length;
+    for (int i = 0; i < 100; i += 2) {
+      assertTrue(multimap.remove(i % 10, i));
+    }
+    assertEquals(50, multimap.size());
+    assertEquals(ImmutableSet.of(1, 3, 5, 7, 9), multimap.keySet());
+    for (int i = 0; i < 100; i += 2) {
+      multimap.put(i % 10, i);
+    }
+    // the removed keys were re-added after the remaining ones, and their free slots were reused
+    assertThat(multimap.keySet()).containsExactly(1, 3, 5, 7, 9, 0, 2, 4, 6, 8).inOrder();
+    assertEquals(keyCapacity, multimap.keys.length);
+  }
+
+  public void testKeySetIteratorRemove() {
+    Multimap<String, Integer> multimap = initializeMultimap5();
+    Iterator<String> iterator = multimap.keySet().iterator();
+    assertEquals("foo", iterator.next());
+    iterator.remove();
+    assertEquals("bar", iterator.next());
+    assertEquals("cow", iterator.next());
+    assertFalse(iterator.hasNext());
+    assertThat(multimap.entries())
+        .containsExactly(mapEntry("bar", 4), mapEntry("cow", 2), mapEntry("bar", 1))
+        .inOrder();
+  }
+
+  public void testAgreesWithLinkedHashMultimap() {
+    Random random = new Random(0);
+    Multimap<Integer, Integer> expected = LinkedHashMultimap.create();
+    Multimap<Integer, Integer> actual = CompactLinkedHashMultimap.create();
+    for (int i = 0; i < 10000; i++) {
+      Integer key = random.nextInt(20);
+      Integer value = random.nextInt(20);
+      switch (random.nextInt(8)) {
+        case 0:
+          assertEquals(expected.remove(key, value), actual.remove(key, value));
+          break;
+        case 1:
+          assertEquals(expected.removeAll(key), actual.removeAll(key));
+          break;
+        case 2:
+          List<Integer> values = asList(value, random.nextInt(20));
+          assertEquals(expected.replaceValues(key, values), actual.replaceValues(key, values));
+          break;
+        case 3:
+          removeFirstValues(expected.values().iterator(), value);
+          removeFirstValues(actual.values().iterator(), value);
+          break;
+        default:
+          assertEquals(expected.put(key, value), actual.put(key, value));
+          break;
+      }
+      assertEquals(expected, actual);
+      assertThat(actual.entries()).containsExactlyElementsIn(expected.entries()).inOrder();
+      assertThat(actual.keySet()).containsExactlyElementsIn(expected.keySet()).inOrder();
+    }
+  }
+
+  private static void removeFirstValues(Iterator<Integer> iterator, int count) {
+    for (int i = 0; i < count && iterator.hasNext(); i++) {
+      iterator.next();
+      iterator.remove();
+    }
+  }
+
+  public void testGetIteration() {
+    new IteratorTester<Integer>(
+        6,
+        MODIFIABLE,
+        newLinkedHashSet(asList(2, 3, 4, 7, 8)),
+        IteratorTester.KnownOrder.KNOWN_ORDER) {
+      private Multimap<String, Integer> multimap;
+
+      @Override
+      protected Iterator<Integer> newTargetIterator() {
+        multimap = CompactLinkedHashMultimap.create();
+        multimap.putAll("foo", asList(2, 3, 4));
+        multimap.putAll("bar", asList(5, 6));
+        multimap.putAll("foo", asList(7, 8));
+        return multimap.get("foo").iterator();
+      }
+
+      @Override
+      protected void verify(List<Integer> elements) {
+        assertEquals(newHashSet(elements), multimap.get("foo"));
+      }
+    }.test();
+  }
+
+  public void testEntriesIteration() {
+    @SuppressWarnings("unchecked")
+    List<Entry<String, Integer>> list =
+        asList(
+            Maps.immutableEntry("foo", 2),
+            Maps.immutableEntry("foo", 3),
+            Maps.immutableEntry("bar", 4),
+            Maps.immutableEntry("bar", 5),
+            Maps.immutableEntry("foo", 6));
+
+    new IteratorTester<Entry<String, Integer>>(
+        6, MODIFIABLE, newLinkedHashSet(list), IteratorTester.KnownOrder.KNOWN_ORDER) {
+      private Multimap<String, Integer> multimap;
+
+      @Override
+      protected Iterator<Entry<String, Integer>> newTargetIterator() {
+        multimap = CompactLinkedHashMultimap.create();
+        multimap.putAll("foo", asList(2, 3));
+        multimap.putAll("bar", asList(4, 5));
+        multimap.putAll("foo", asList(6));
+        return multimap.entries().iterator();
+      }
+
+      @Override
+      protected void verify(List<Entry<String, Integer>> elements) {
+        assertEquals(newHashSet(elements), multimap.entries());
+      }
+    }.test();
+  }
+}
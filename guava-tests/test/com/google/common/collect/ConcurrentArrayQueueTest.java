@@ -0,0 +1,265 @@
+/*
+ * Copyright (C) 2019 The Guava Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.common.collect;
+
+import static com.google.common.truth.Truth.assertThat;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import junit.framework.TestCase;
+
+/** Tests for {@link ConcurrentArrayQueue}. */
+public class ConcurrentArrayQueueTest extends TestCase {
+
+  private static List<Queue<String>> boundedQueues(int capacity) {
+    return ImmutableList.of(
+        Queues.<String>newConcurrentArrayQueue(capacity),
+        Queues.<String>newSingleConsumerArrayQueue(capacity),
+        Queues.<String>newSingleProducerSingleConsumerArrayQueue(capacity));
+  }
+
+  public void testCreateWithInvalidCapacity() {
+    try {
+      Queues.newConcurrentArrayQueue(0);
+      fail();
+    } catch (IllegalArgumentException expected) {
+    }
+    try {
+      Queues.newSingleConsumerArrayQueue(-1);
+      fail();
+    } catch (IllegalArgumentException expected) {
+    }
+    try {
+      Queues.newConcurrentEvictingQueue(-1);
+      fail();
+    } catch (IllegalArgumentException expected) {
+    }
+  }
+
+  public void testOfferAndPoll() {
+    for (int capacity : new int[] {1, 3, 4, 100}) {
+      for (Queue<String> queue : boundedQueues(capacity)) {
+        assertTrue(queue.isEmpty());
+        assertNull(queue.peek());
+        assertNull(queue.poll());
+        for (int i = 0; i < capacity; i++) {
+          assertTrue(queue.offer("e" + i));
+        }
+        assertFalse(queue.offer("overflow"));
+        assertEquals(capacity, queue.size());
+        assertEquals(0, ((ConcurrentArrayQueue<String>) queue).remainingCapacity());
+        assertEquals("e0", queue.peek());
+        for (int i = 0; i < capacity; i++) {
+          assertEquals("e" + i, queue.poll());
+        }
+        assertNull(queue.poll());
+        assertTrue(queue.isEmpty());
+        assertEquals(0, queue.size());
+      }
+    }
+  }
+
+  public void testWrapsAround() {
+    for (Queue<String> queue : boundedQueues(3)) {
+      for (int i = 0; i < 20; i++) {
+        assertTrue(queue.offer("a" + i));
+        assertTrue(queue.offer("b" + i));
+        assertEquals("a" + i, queue.poll());
+        assertEquals("b" + i, queue.poll());
+      }
+      assertTrue(queue.isEmpty());
+    }
+  }
+
+  public void testAddWhenFull() {
+    Queue<String> queue = Queues.newConcurrentArrayQueue(1);
+    queue.add("one");
+    try {
+      queue.add("two");
+      fail();
+    } catch (IllegalStateException expected) {
+    }
+    assertThat(queue).containsExactly("one");
+  }
+
+  public void testIterator() {
+    for (Queue<String> queue : boundedQueues(5)) {
+      queue.add("zero");
+      queue.poll();
+      queue.addAll(ImmutableList.of("one", "two", "three"));
+      assertThat(queue).containsExactly("one", "two", "three").inOrder();
+      Iterator<String> iterator = queue.iterator();
+      assertEquals("one", iterator.next());
+      try {
+        iterator.remove();
+        fail();
+      } catch (UnsupportedOperationException expected) {
+      }
+    }
+  }
+
+  public void testClear() {
+    for (Queue<String> queue : boundedQueues(4)) {
+      queue.addAll(ImmutableList.of("one", "two", "three"));
+      queue.clear();
+      assertTrue(queue.isEmpty());
+      assertTrue(queue.offer("four"));
+      assertThat(queue).containsExactly("four");
+    }
+  }
+
+  public void testDrain() {
+    for (Queue<String> queue : boundedQueues(8)) {
+      queue.addAll(ImmutableList.of("one", "two", "three", "four", "five"));
+      List<String> drained = Lists.newArrayList();
+      assertEquals(2, Queues.drain(queue, drained::add, 2));
+      assertThat(drained).containsExactly("one", "two").inOrder();
+      assertEquals(3, Queues.drain(queue, drained::add, 10));
+      assertThat(drained).containsExactly("one", "two", "three", "four", "five").inOrder();
+      assertEquals(0, Queues.drain(queue, drained::add, 10));
+      assertTrue(queue.isEmpty());
+      assertTrue(queue.offer("six"));
+      assertEquals("six", queue.peek());
+    }
+  }
+
+  public void testDrain_consumerThrows() {
+    for (Queue<String> queue : boundedQueues(4)) {
+      queue.addAll(ImmutableList.of("one", "two", "three"));
+      try {
+        Queues.drain(
+            queue,
+            e -> {
+              if (e.equals("two")) {
+                throw new IllegalStateException();
+              }
+            },
+            10);
+        fail();
+      } catch (IllegalStateException expected) {
+      }
+      assertThat(queue).containsExactly("three");
+    }
+  }
+
+  public void testEvicting() {
+    Queue<String> queue = Queues.newConcurrentEvictingQueue(3);
+    assertTrue(queue.add("one"));
+    assertTrue(queue.add("two"));
+    assertTrue(queue.add("three"));
+    assertTrue(queue.add("four"));
+    assertEquals(3, queue.size());
+    assertThat(queue).containsExactly("two", "three", "four").inOrder();
+    assertEquals("two", queue.remove());
+    assertTrue(queue.addAll(ImmutableList.of("five", "six", "seven")));
+    assertThat(queue).containsExactly("five", "six", "seven").inOrder();
+  }
+
+  public void testEvicting_zeroSize() {
+    Queue<String> queue = Queues.newConcurrentEvictingQueue(0);
+    assertTrue(queue.add("hi"));
+    assertTrue(queue.offer("hi"));
+    assertEquals(0, queue.size());
+    assertNull(queue.peek());
+    assertNull(queue.poll());
+  }
+
+  public void testOfferNull() {
+    for (Queue<String> queue : boundedQueues(5)) {
+      try {
+        queue.offer(null);
+        fail();
+      } catch (NullPointerException expected) {
+      }
+    }
+    try {
+      Queues.newConcurrentEvictingQueue(5).offer(null);
+      fail();
+    } catch (NullPointerException expected) {
+    }
+  }
+
+  public void testConcurrentProducersAndConsumers() throws Exception {
+    checkConcurrentProducersAndConsumers(Queues.<Long>newConcurrentArrayQueue(16), 4, 4);
+    checkConcurrentProducersAndConsumers(Queues.<Long>newSingleConsumerArrayQueue(16), 4, 1);
+    checkConcurrentProducersAndConsumers(
+        Queues.<Long>newSingleProducerSingleConsumerArrayQueue(16), 1, 1);
+  }
+
+  private static void checkConcurrentProducersAndConsumers(
+      final Queue<Long> queue, int producers, int consumers) throws Exception {
+    final int perProducer = 10000;
+    final long expectedCount = (long) producers * perProducer;
+    final AtomicLong count = new AtomicLong();
+    final AtomicLong sum = new AtomicLong();
+    final CountDownLatch start = new CountDownLatch(1);
+    ExecutorService executor = Executors.newFixedThreadPool(producers + consumers);
+    try {
+      List<Future<?>> futures = Lists.newArrayList();
+      for (int p = 0; p < producers; p++) {
+        futures.add(
+            executor.submit(
+                () -> {
+                  start.await();
+                  for (long i = 1; i <= perProducer; i++) {
+                    while (!queue.offer(i)) {
+                      Thread.yield();
+                    }
+                  }
+                  return null;
+                }));
+      }
+      for (int c = 0; c < consumers; c++) {
+        futures.add(
+            executor.submit(
+                () -> {
+                  start.await();
+                  while (count.get() < expectedCount) {
+                    int drained =
+                        Queues.drain(
+                            queue,
+                            e -> {
+                              sum.addAndGet(e);
+                              count.incrementAndGet();
+                            },
+                            8);
+                    if (drained == 0) {
+                      Thread.yield();
+                    }
+                  }
+                  return null;
+                }));
+      }
+      start.countDown();
+      for (Future<?> future : futures) {
+        future.get(10, SECONDS);
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+    assertEquals(expectedCount, count.get());
+    assertEquals(producers * ((long) perProducer * (perProducer + 1) / 2), sum.get());
+    assertTrue(queue.isEmpty());
+  }
+}
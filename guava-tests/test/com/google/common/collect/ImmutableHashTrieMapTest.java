@@ -0,0 +1,242 @@
+/*
+ * Copyright (C) 2019 The Guava Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.common.collect;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.collect.testing.MapTestSuiteBuilder;
+import com.google.common.collect.testing.TestStringMapGenerator;
+import com.google.common.collect.testing.features.CollectionFeature;
+import com.google.common.collect.testing.features.CollectionSize;
+import com.google.common.collect.testing.features.MapFeature;
+import com.google.common.testing.SerializableTester;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Random;
+import java.util.stream.Stream;
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+/** Tests for {@link ImmutableHashTrieMap}. */
+public class ImmutableHashTrieMapTest extends TestCase {
+
+  public static Test suite() {
+    TestSuite suite = new TestSuite();
+    suite.addTestSuite(ImmutableHashTrieMapTest.class);
+    suite.addTest(
+        MapTestSuiteBuilder.using(
+                new TestStringMapGenerator() {
+                  @Override
+                  protected Map<String, String> create(Entry<String, String>[] entries) {
+                    return ImmutableHashTrieMap.<String, String>builder()
+                        .putAll(Arrays.asList(entries))
+                        .build();
+                  }
+                })
+            .withFeatures(
+                CollectionSize.ANY,
+                CollectionFeature.SERIALIZABLE_INCLUDING_VIEWS,
+                MapFeature.REJECTS_DUPLICATES_AT_CREATION,
+                CollectionFeature.ALLOWS_NULL_QUERIES)
+            .named("ImmutableHashTrieMap")
+            .createTestSuite());
+    suite.addTest(
+        MapTestSuiteBuilder.using(
+                new TestStringMapGenerator() {
+                  @Override
+                  protected Map<String, String> create(Entry<String, String>[] entries) {
+                    ImmutableHashTrieMap<String, String> map = ImmutableHashTrieMap.of();
+                    for (Entry<String, String> entry : entries) {
+                      map = map.with(entry.getKey(), entry.getValue());
+                    }
+                    return map;
+                  }
+                })
+            .withFeatures(
+                CollectionSize.ANY,
+                CollectionFeature.SERIALIZABLE_INCLUDING_VIEWS,
+                CollectionFeature.ALLOWS_NULL_QUERIES)
+            .named("ImmutableHashTrieMap, built with with()")
+            .createTestSuite());
+    return suite;
+  }
+
+  /** A key whose hash code is under the test's control, to force collisions. */
+  private static final class Key {
+    final int hash;
+    final int id;
+
+    Key(int hash, int id) {
+      this.hash = hash;
+      this.id = id;
+    }
+
+    @Override
+    public int hashCode() {
+      return hash;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      return obj instanceof Key && ((Key) obj).id == id;
+    }
+
+    @Override
+    public String toString() {
+      return "Key" + id;
+    }
+  }
+
+  public void testWithAndWithout() {
+    ImmutableHashTrieMap<String, Integer> empty = ImmutableHashTrieMap.of();
+    ImmutableHashTrieMap<String, Integer> one = empty.with("one", 1);
+    ImmutableHashTrieMap<String, Integer> two = one.with("two", 2);
+    assertTrue(empty.isEmpty());
+    assertEquals(ImmutableMap.of("one", 1), one);
+    assertEquals(ImmutableMap.of("one", 1, "two", 2), two);
+    assertEquals(ImmutableMap.of("one", 1, "two", 3), two.with("two", 3));
+    assertEquals(ImmutableMap.of("two", 2), two.without("one"));
+    assertSame(empty, one.without("one"));
+  }
+
+  public void testWithAndWithout_unchanged() {
+    Integer value = 1;
+    ImmutableHashTrieMap<String, Integer> map = ImmutableHashTrieMap.of("one", value);
+    assertSame(map, map.with("one", value));
+    assertSame(map, map.without("two"));
+  }
+
+  public void testWithoutLeavesOriginalIntact() {
+    ImmutableHashTrieMap<Integer, Integer> map = ImmutableHashTrieMap.of();
+    for (int i = 0; i < 1000; i++) {
+      map = map.with(i, i);
+    }
+    ImmutableHashTrieMap<Integer, Integer> smaller = map;
+    for (int i = 0; i < 1000; i += 2) {
+      smaller = smaller.without(i);
+    }
+    assertEquals(1000, map.size());
+    assertEquals(500, smaller.size());
+    for (int i = 0; i < 1000; i++) {
+      assertEquals((Integer) i, map.get(i));
+      assertEquals(i % 2 == 0 ? null : (Integer) i, smaller.get(i));
+    }
+  }
+
+  public void testCollidingKeys() {
+    ImmutableHashTrieMap<Key, Integer> map = ImmutableHashTrieMap.of();
+    Map<Key, Integer> expected = new HashMap<>();
+    for (int i = 0; i < 100; i++) {
+      Key key = new Key(i % 3, i);
+      map = map.with(key, i);
+      expected.put(key, i);
+    }
+    assertEquals(expected, map);
+    for (int i = 0; i < 100; i += 3) {
+      Key key = new Key(i % 3, i);
+      map = map.without(key);
+      expected.remove(key);
+    }
+    assertEquals(expected, map);
+    assertNull(map.get(new Key(0, 0)));
+    assertEquals((Integer) 1, map.get(new Key(1, 1)));
+  }
+
+  public void testRandomOperations() {
+    Random random = new Random(0);
+    ImmutableHashTrieMap<Key, Integer> map = ImmutableHashTrieMap.of();
+    Map<Key, Integer> expected = new HashMap<>();
+    for (int i = 0; i < 20000; i++) {
+      int id = random.nextInt(2000);
+      // Clustered hash codes produce deep tries as well as collisions.
+      Key key = new Key(id & 0x3F00FF, id);
+      if (random.nextInt(3) == 0) {
+        map = map.without(key);
+        expected.remove(key);
+      } else {
+        map = map.with(key, i);
+        expected.put(key, i);
+      }
+    }
+    assertEquals(expected, map);
+    assertEquals(expected.hashCode(), map.hashCode());
+    assertEquals(ImmutableHashTrieMap.copyOf(expected), map);
+  }
+
+  public void testIterationOrderIndependentOfInsertionOrder() {
+    ImmutableHashTrieMap<String, Integer> forward = ImmutableHashTrieMap.of();
+    ImmutableHashTrieMap<String, Integer> backward = ImmutableHashTrieMap.of();
+    for (int i = 0; i < 100; i++) {
+      forward = forward.with("key" + i, i);
+      backward = backward.with("key" + (99 - i), 99 - i);
+    }
+    assertThat(forward.entrySet()).containsExactlyElementsIn(backward.entrySet()).inOrder();
+  }
+
+  public void testBuilder_duplicateKeys() {
+    ImmutableHashTrieMap.Builder<String, Integer> builder =
+        ImmutableHashTrieMap.<String, Integer>builder().put("one", 1).put("one", 2);
+    try {
+      builder.build();
+      fail();
+    } catch (IllegalArgumentException expected) {
+    }
+  }
+
+  public void testBuilder_orderEntriesByValue() {
+    try {
+      ImmutableHashTrieMap.<String, Integer>builder().orderEntriesByValue(Ordering.natural());
+      fail();
+    } catch (UnsupportedOperationException expected) {
+    }
+  }
+
+  public void testCopyOf_returnsSameInstance() {
+    ImmutableHashTrieMap<String, Integer> map = ImmutableHashTrieMap.of("one", 1, "two", 2);
+    assertSame(map, ImmutableHashTrieMap.copyOf(map));
+  }
+
+  public void testToImmutableHashTrieMap() {
+    ImmutableHashTrieMap<String, Integer> map =
+        Stream.of("one", "three", "five")
+            .collect(ImmutableHashTrieMap.toImmutableHashTrieMap(s -> s, String::length));
+    assertEquals(ImmutableMap.of("one", 3, "three", 5, "five", 4), map);
+  }
+
+  public void testNullsRejected() {
+    ImmutableHashTrieMap<String, Integer> map = ImmutableHashTrieMap.of();
+    try {
+      map.with(null, 1);
+      fail();
+    } catch (NullPointerException expected) {
+    }
+    try {
+      map.with("one", null);
+      fail();
+    } catch (NullPointerException expected) {
+    }
+  }
+
+  public void testSerialization() {
+    ImmutableHashTrieMap<String, Integer> map = ImmutableHashTrieMap.of("one", 1, "two", 2);
+    ImmutableHashTrieMap<String, Integer> copy = SerializableTester.reserializeAndAssert(map);
+    assertThat(copy.entrySet()).containsExactlyElementsIn(map.entrySet()).inOrder();
+  }
+}
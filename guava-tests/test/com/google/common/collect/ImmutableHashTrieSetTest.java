@@ -0,0 +1,96 @@
+/*
+ * Copyright (C) 2019 The Guava Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.common.collect;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.collect.testing.SetTestSuiteBuilder;
+import com.google.common.collect.testing.TestStringSetGenerator;
+import com.google.common.collect.testing.features.CollectionFeature;
+import com.google.common.collect.testing.features.CollectionSize;
+import com.google.common.testing.SerializableTester;
+import java.util.Set;
+import java.util.stream.Stream;
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+/** Tests for {@link ImmutableHashTrieSet}. */
+public class ImmutableHashTrieSetTest extends TestCase {
+
+  public static Test suite() {
+    TestSuite suite = new TestSuite();
+    suite.addTestSuite(ImmutableHashTrieSetTest.class);
+    suite.addTest(
+        SetTestSuiteBuilder.using(
+                new TestStringSetGenerator() {
+                  @Override
+                  protected Set<String> create(String[] elements) {
+                    return ImmutableHashTrieSet.copyOf(elements);
+                  }
+                })
+            .named("ImmutableHashTrieSet")
+            .withFeatures(
+                CollectionSize.ANY,
+                CollectionFeature.SERIALIZABLE,
+                CollectionFeature.ALLOWS_NULL_QUERIES)
+            .createTestSuite());
+    return suite;
+  }
+
+  public void testWithAndWithout() {
+    ImmutableHashTrieSet<String> empty = ImmutableHashTrieSet.of();
+    ImmutableHashTrieSet<String> two = empty.with("one").with("two");
+    assertThat(two).containsExactly("one", "two");
+    assertThat(two.without("one")).containsExactly("two");
+    assertSame(two, two.with("one"));
+    assertSame(two, two.without("three"));
+    assertSame(empty, two.without("one").without("two"));
+    assertTrue(empty.isEmpty());
+  }
+
+  public void testBuilderReuse() {
+    ImmutableHashTrieSet.Builder<String> builder = ImmutableHashTrieSet.builder();
+    ImmutableHashTrieSet<String> first = builder.add("one", "two").build();
+    ImmutableHashTrieSet<String> second = builder.add("two", "three").build();
+    assertThat(first).containsExactly("one", "two");
+    assertThat(second).containsExactly("one", "two", "three");
+  }
+
+  public void testToImmutableHashTrieSet() {
+    assertThat(
+            Stream.of("one", "two", "one", "three")
+                .collect(ImmutableHashTrieSet.toImmutableHashTrieSet()))
+        .containsExactly("one", "two", "three");
+  }
+
+  public void testEqualsRegularSet() {
+    ImmutableHashTrieSet<Integer> set = ImmutableHashTrieSet.of();
+    for (int i = 0; i < 500; i++) {
+      set = set.with(i);
+    }
+    ImmutableSet<Integer> expected = ContiguousSet.closedOpen(0, 500);
+    assertEquals(expected, set);
+    assertEquals(expected.hashCode(), set.hashCode());
+  }
+
+  public void testSerialization() {
+    ImmutableHashTrieSet<String> set = ImmutableHashTrieSet.of("one", "two", "three");
+    ImmutableHashTrieSet<String> copy = SerializableTester.reserializeAndAssert(set);
+    assertThat(copy).containsExactlyElementsIn(set).inOrder();
+  }
+}
@@ -1061,6 +1061,22 @@ public class ImmutableMapTest extends TestCase {
     // allow up to 2x wobble in the constant factors
   }
 
+  @GwtIncompatible
+  public void testRecoversFromSmearedHashFloodingWithoutFallback() {
+    List<Integer> keys = ImmutableSetTest.createSmearedHashFloodingInput(10000, 1 << 16);
+    ImmutableMap.Builder<Integer, Integer> builder = ImmutableMap.builder();
+    for (Integer key : keys) {
+      builder.put(key, -key);
+    }
+    ImmutableMap<Integer, Integer> map = builder.build();
+    assertThat(map).isInstanceOf(RegularImmutableMap.class);
+    assertThat(map.keySet()).containsExactlyElementsIn(keys).inOrder();
+    for (Integer key : keys) {
+      assertEquals((Integer) (-key), map.get(key));
+    }
+    assertNull(map.get(-1));
+  }
+
   private static long worstCaseQueryOperations(Map<?, ?> map, CallsCounter counter) {
     long worstCalls = 0;
     for (Object k : map.keySet()) {
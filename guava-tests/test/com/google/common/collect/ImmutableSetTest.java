@@ -572,6 +572,36 @@ public class ImmutableSetTest extends AbstractImmutableSetTest {
     // We allow up to 2x wobble in the constant factors.
   }
 
+  /**
+   * Returns distinct integers whose hash codes {@link Hashing#smear} to {@code 0, stride, 2 *
+   * stride, ...}. A stride of 1 produces one long run of consecutive table slots; a stride of
+   * {@code 1 << 16} makes every element compete for the same slot.
+   */
+  static List<Integer> createSmearedHashFloodingInput(int size, int stride) {
+    List<Integer> result = Lists.newArrayListWithCapacity(size);
+    for (int i = 0; i < size; i++) {
+      // multiplicative inverses of the constants used in Hashing.smear
+      int hash = 0xdee13bb1 * Integer.rotateRight(0x56ed309b * (i * stride), 15);
+      assertEquals(i * stride, Hashing.smear(hash));
+      result.add(hash);
+    }
+    return result;
+  }
+
+  @GwtIncompatible
+  public void testRecoversFromSmearedHashFloodingWithoutFallback() {
+    for (int stride : new int[] {1, 1 << 16}) {
+      List<Integer> input = createSmearedHashFloodingInput(10000, stride);
+      for (ConstructionPathway pathway : ConstructionPathway.values()) {
+        ImmutableSet<?> set = pathway.create(input);
+        assertThat(set).isInstanceOf(RegularImmutableSet.class);
+        assertFalse(ImmutableSet.hashFloodingDetected(((RegularImmutableSet<?>) set).table));
+        assertThat(set).containsExactlyElementsIn(input).inOrder();
+        assertFalse(set.contains(-1));
+      }
+    }
+  }
+
   private static long worstCaseQueryOperations(Set<?> set, CallsCounter counter) {
     long worstCalls = 0;
     for (Object k : set) {
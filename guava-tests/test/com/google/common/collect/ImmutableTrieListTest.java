@@ -0,0 +1,169 @@
+/*
+ * Copyright (C) 2019 The Guava Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.common.collect;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.collect.testing.ListTestSuiteBuilder;
+import com.google.common.collect.testing.TestStringListGenerator;
+import com.google.common.collect.testing.features.CollectionFeature;
+import com.google.common.collect.testing.features.CollectionSize;
+import com.google.common.testing.SerializableTester;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+/** Tests for {@link ImmutableTrieList}. */
+public class ImmutableTrieListTest extends TestCase {
+
+  public static Test suite() {
+    TestSuite suite = new TestSuite();
+    suite.addTestSuite(ImmutableTrieListTest.class);
+    suite.addTest(
+        ListTestSuiteBuilder.using(
+                new TestStringListGenerator() {
+                  @Override
+                  protected List<String> create(String[] elements) {
+                    return ImmutableTrieList.copyOf(elements);
+                  }
+                })
+            .named("ImmutableTrieList")
+            .withFeatures(
+                CollectionSize.ANY,
+                CollectionFeature.SERIALIZABLE,
+                CollectionFeature.ALLOWS_NULL_QUERIES)
+            .createTestSuite());
+    suite.addTest(
+        ListTestSuiteBuilder.using(
+                new TestStringListGenerator() {
+                  @Override
+                  protected List<String> create(String[] elements) {
+                    ImmutableTrieList<String> list = ImmutableTrieList.of();
+                    for (String element : elements) {
+                      list = list.withAdded(element);
+                    }
+                    return list;
+                  }
+                })
+            .named("ImmutableTrieList, built with withAdded()")
+            .withFeatures(
+                CollectionSize.ANY,
+                CollectionFeature.SERIALIZABLE,
+                CollectionFeature.ALLOWS_NULL_QUERIES)
+            .createTestSuite());
+    return suite;
+  }
+
+  public void testWithAddedAndWithoutLast() {
+    ImmutableTrieList<Integer> list = ImmutableTrieList.of();
+    List<Integer> expected = new ArrayList<>();
+    // Crosses the boundaries where the trie gains a level.
+    for (int i = 0; i < 40000; i++) {
+      list = list.withAdded(i);
+      expected.add(i);
+    }
+    assertEquals(expected, list);
+    while (!expected.isEmpty()) {
+      list = list.withoutLast();
+      expected.remove(expected.size() - 1);
+      if (expected.size() % 1000 == 0) {
+        assertEquals(expected, list);
+      }
+    }
+    assertSame(ImmutableTrieList.of(), list);
+  }
+
+  public void testWithoutLast_empty() {
+    try {
+      ImmutableTrieList.of().withoutLast();
+      fail();
+    } catch (IllegalStateException expected) {
+    }
+  }
+
+  public void testWith() {
+    ImmutableTrieList<Integer> list = ImmutableTrieList.copyOf(ContiguousSet.closedOpen(0, 100));
+    ImmutableTrieList<Integer> changed = list.with(5, -5).with(99, -99);
+    assertEquals((Integer) 5, list.get(5));
+    assertEquals((Integer) (-5), changed.get(5));
+    assertEquals((Integer) (-99), changed.get(99));
+    assertEquals(list.subList(6, 99), changed.subList(6, 99));
+    assertSame(changed, changed.with(5, changed.get(5)));
+    try {
+      list.with(100, 0);
+      fail();
+    } catch (IndexOutOfBoundsException expected) {
+    }
+  }
+
+  public void testRandomOperationsShareStructure() {
+    Random random = new Random(0);
+    List<ImmutableTrieList<Integer>> snapshots = new ArrayList<>();
+    List<List<Integer>> expectedSnapshots = new ArrayList<>();
+    ImmutableTrieList<Integer> list = ImmutableTrieList.of();
+    List<Integer> expected = new ArrayList<>();
+    for (int i = 0; i < 20000; i++) {
+      int operation = random.nextInt(10);
+      if (operation < 6 || expected.isEmpty()) {
+        list = list.withAdded(i);
+        expected.add(i);
+      } else if (operation < 8) {
+        list = list.withoutLast();
+        expected.remove(expected.size() - 1);
+      } else {
+        int index = random.nextInt(expected.size());
+        list = list.with(index, -i);
+        expected.set(index, -i);
+      }
+      if (i % 1000 == 0) {
+        snapshots.add(list);
+        expectedSnapshots.add(new ArrayList<>(expected));
+      }
+    }
+    assertEquals(expected, list);
+    assertEquals(expectedSnapshots, snapshots);
+  }
+
+  public void testSortedCopyOf() {
+    assertThat(ImmutableTrieList.sortedCopyOf(ImmutableList.of(3, 1, 2)))
+        .containsExactly(1, 2, 3)
+        .inOrder();
+  }
+
+  public void testToImmutableTrieList() {
+    assertThat(Stream.of("a", "b", "c").collect(ImmutableTrieList.toImmutableTrieList()))
+        .containsExactly("a", "b", "c")
+        .inOrder();
+  }
+
+  public void testBuilder_unsupported() {
+    try {
+      ImmutableTrieList.builder();
+      fail();
+    } catch (UnsupportedOperationException expected) {
+    }
+  }
+
+  public void testSerialization() {
+    ImmutableTrieList<Integer> list = ImmutableTrieList.copyOf(ContiguousSet.closedOpen(0, 1000));
+    assertThat(SerializableTester.reserializeAndAssert(list)).isInstanceOf(ImmutableTrieList.class);
+  }
+}
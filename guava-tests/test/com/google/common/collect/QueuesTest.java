@@ -28,6 +28,7 @@ import static java.util.concurrent.TimeUnit.SECONDS;
 import com.google.common.base.Stopwatch;
 import java.util.Collection;
 import java.util.List;
+import java.util.Queue;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.Callable;
@@ -260,6 +261,26 @@ public class QueuesTest extends TestCase {
     assertEquals(11, Queues.newLinkedBlockingQueue(11).remainingCapacity());
   }
 
+  public void testDrainToConsumer() {
+    Queue<Integer> q = Queues.newArrayDeque(ImmutableList.of(1, 2, 3, 4));
+    List<Integer> buf = newArrayList();
+    assertEquals(0, Queues.drain(q, buf::add, 0));
+    assertEquals(3, Queues.drain(q, buf::add, 3));
+    assertThat(buf).containsExactly(1, 2, 3).inOrder();
+    assertEquals(1, Queues.drain(q, buf::add, 3));
+    assertThat(buf).containsExactly(1, 2, 3, 4).inOrder();
+    assertEquals(0, Queues.drain(q, buf::add, 3));
+    assertTrue(q.isEmpty());
+  }
+
+  public void testDrainToConsumer_negativeMaxElements() {
+    try {
+      Queues.drain(Queues.<Object>newArrayDeque(), e -> {}, -1);
+      fail();
+    } catch (IllegalArgumentException expected) {
+    }
+  }
+
   /** Checks that #drain() invocations behave correctly for a drained (empty) queue. */
   private void assertDrained(BlockingQueue<Object> q) {
     assertNull(q.peek());
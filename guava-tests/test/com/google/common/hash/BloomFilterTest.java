@@ -23,6 +23,7 @@ import com.google.common.base.Stopwatch;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.hash.BloomFilterStrategies.LockFreeBitArray;
 import com.google.common.math.LongMath;
+import com.google.common.io.Files;
 import com.google.common.primitives.Ints;
 import com.google.common.testing.EqualsTester;
 import com.google.common.testing.NullPointerTester;
@@ -30,9 +31,14 @@ import com.google.common.testing.SerializableTester;
 import com.google.common.util.concurrent.Uninterruptibles;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.lang.Thread.UncaughtExceptionHandler;
 import java.math.RoundingMode;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Random;
 import java.util.concurrent.TimeUnit;
@@ -169,6 +175,43 @@ public class BloomFilterTest extends TestCase {
     assertEquals(expectedReportedFpp, actualReportedFpp, 0.00033);
   }
 
+  public void testCreateAndCheckBlockedBloomFilterWithKnownFalsePositives() {
+    int numInsertions = 1000000;
+    BloomFilter<String> bf =
+        BloomFilter.createBlocked(Funnels.unencodedCharsFunnel(), numInsertions, 0.03);
+
+    // Insert "numInsertions" even numbers into the BF.
+    for (int i = 0; i < numInsertions * 2; i += 2) {
+      bf.put(Integer.toString(i));
+    }
+    assertApproximateElementCountGuess(bf, numInsertions);
+
+    // Assert that the BF "might" have all of the even numbers.
+    for (int i = 0; i < numInsertions * 2; i += 2) {
+      assertTrue(bf.mightContain(Integer.toString(i)));
+    }
+
+    // Now we check for known false positives using a set of known false positives.
+    // (These are all of the false positives under 900.)
+    ImmutableSet<Integer> falsePositives =
+        ImmutableSet.of(177, 201, 265, 343, 369, 409, 423, 545, 597, 611, 665, 777, 867);
+    for (int i = 1; i < 900; i += 2) {
+      if (!falsePositives.contains(i)) {
+        assertFalse("BF should not contain " + i, bf.mightContain(Integer.toString(i)));
+      }
+    }
+
+    // Check that there are exactly 28820 false positives for this BF.
+    int knownNumberOfFalsePositives = 28820;
+    int numFpp = 0;
+    for (int i = 1; i < numInsertions * 2; i += 2) {
+      if (bf.mightContain(Integer.toString(i))) {
+        numFpp++;
+      }
+    }
+    assertEquals(knownNumberOfFalsePositives, numFpp);
+  }
+
   public void testCreateAndCheckBloomFilterWithKnownUtf8FalsePositives64() {
     int numInsertions = 1000000;
     BloomFilter<String> bf =
@@ -301,6 +344,26 @@ public class BloomFilterTest extends TestCase {
     }
   }
 
+  public void testOptimalBlockedSize() {
+    for (int n : new int[] {1, 10, 1000, 1_000_000}) {
+      for (double fpp : new double[] {0.5, 0.03, 0.001, 1e-6, 1e-9}) {
+        long numBits = BloomFilter.optimalNumOfBlockedBits(n, fpp);
+        assertEquals(0, numBits % 512);
+        assertThat(numBits).isAtLeast(BloomFilter.optimalNumOfBits(n, fpp));
+        int numHashFunctions = BloomFilter.optimalNumOfBlockedHashFunctions(n, numBits);
+        assertThat(numHashFunctions).isAtLeast(1);
+        assertThat(numHashFunctions).isAtMost(BloomFilter.optimalNumOfHashFunctions(n, numBits));
+        assertThat(BloomFilter.blockedFpp(n, numBits, numHashFunctions)).isAtMost(fpp);
+      }
+    }
+  }
+
+  public void testBlockedFppMatchesUnblockedForOneBlock() {
+    // with a single block, the number of elements in the block is exactly n
+    double unblocked = Math.pow(1 - Math.exp(-5.0 * 20 / 512), 5);
+    assertEquals(unblocked, BloomFilter.blockedFpp(20, 512, 5), 0.02);
+  }
+
   @AndroidIncompatible // OutOfMemoryError
   public void testLargeNumberOfInsertions() {
     // We use horrible FPPs here to keep Java from OOM'ing
@@ -487,6 +550,25 @@ public class BloomFilterTest extends TestCase {
     }
   }
 
+  public void testPutAllBlockedAndUnblocked() {
+    BloomFilter<Integer> bf1 = BloomFilter.create(Funnels.integerFunnel(), 1000, 0.03);
+    BloomFilter<Integer> bf2 = BloomFilter.createBlocked(Funnels.integerFunnel(), 1000, 0.03);
+    assertFalse(bf1.isCompatible(bf2));
+    try {
+      bf1.putAll(bf2);
+      fail();
+    } catch (IllegalArgumentException expected) {
+    }
+
+    BloomFilter<Integer> bf3 = BloomFilter.createBlocked(Funnels.integerFunnel(), 1000, 0.03);
+    bf2.put(1);
+    bf3.put(2);
+    assertTrue(bf2.isCompatible(bf3));
+    bf2.putAll(bf3);
+    assertTrue(bf2.mightContain(1));
+    assertTrue(bf2.mightContain(2));
+  }
+
   public void testPutAllWithSelf() {
     BloomFilter<Integer> bf1 = BloomFilter.create(Funnels.integerFunnel(), 1);
     try {
@@ -525,14 +607,104 @@ public class BloomFilterTest extends TestCase {
     assertEquals(bf, BloomFilter.readFrom(new ByteArrayInputStream(out.toByteArray()), funnel));
   }
 
+  public void testCustomSerializationBlocked() throws Exception {
+    Funnel<byte[]> funnel = Funnels.byteArrayFunnel();
+    BloomFilter<byte[]> bf = BloomFilter.createBlocked(funnel, 100, 0.03);
+    for (int i = 0; i < 100; i++) {
+      bf.put(Ints.toByteArray(i));
+    }
+
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    bf.writeTo(out);
+
+    BloomFilter<byte[]> copy =
+        BloomFilter.readFrom(new ByteArrayInputStream(out.toByteArray()), funnel);
+    assertEquals(bf, copy);
+    for (int i = 0; i < 100; i++) {
+      assertTrue(copy.mightContain(Ints.toByteArray(i)));
+    }
+    SerializableTester.reserializeAndAssert(bf);
+  }
+
+  public void testMap() throws Exception {
+    for (BloomFilterStrategies strategy : BloomFilterStrategies.values()) {
+      BloomFilter<Integer> bf = BloomFilter.create(Funnels.integerFunnel(), 10_000, 0.01, strategy);
+      for (int i = 0; i < 10_000; i++) {
+        bf.put(i);
+      }
+      File file = File.createTempFile("BloomFilterTest", ".bin");
+      try {
+        try (OutputStream out = new FileOutputStream(file)) {
+          bf.writeTo(out);
+        }
+        BloomFilter<Integer> mapped = BloomFilter.map(file, Funnels.integerFunnel());
+        assertEquals(bf, mapped);
+        assertEquals(bf.hashCode(), mapped.hashCode());
+        assertEquals(bf.approximateElementCount(), mapped.approximateElementCount());
+        assertEquals(bf.expectedFpp(), mapped.expectedFpp());
+        for (int i = -10_000; i < 20_000; i++) {
+          assertEquals(bf.mightContain(i), mapped.mightContain(i));
+        }
+        try {
+          mapped.put(-1);
+          fail();
+        } catch (UnsupportedOperationException expected) {
+        }
+        try {
+          mapped.putAll(bf);
+          fail();
+        } catch (UnsupportedOperationException expected) {
+        }
+
+        // copies and deserialized filters live on the heap, and can be modified again
+        BloomFilter<Integer> copy = mapped.copy();
+        assertEquals(bf, copy);
+        assertTrue(copy.put(-1));
+        copy = SerializableTester.reserializeAndAssert(mapped);
+        assertTrue(copy.put(-1));
+        copy = BloomFilter.create(Funnels.integerFunnel(), 10_000, 0.01, strategy);
+        copy.putAll(mapped);
+        assertEquals(bf, copy);
+      } finally {
+        file.delete();
+      }
+    }
+  }
+
+  public void testMapMalformed() throws Exception {
+    BloomFilter<Integer> bf = BloomFilter.create(Funnels.integerFunnel(), 1000);
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    bf.writeTo(out);
+    byte[] bytes = out.toByteArray();
+    File file = File.createTempFile("BloomFilterTest", ".bin");
+    try {
+      Files.write(Arrays.copyOf(bytes, bytes.length - 1), file);
+      try {
+        BloomFilter.map(file, Funnels.integerFunnel());
+        fail();
+      } catch (IOException expected) {
+      }
+      bytes[0] = 99; // no such strategy
+      Files.write(bytes, file);
+      try {
+        BloomFilter.map(file, Funnels.integerFunnel());
+        fail();
+      } catch (IOException expected) {
+      }
+    } finally {
+      file.delete();
+    }
+  }
+
   /**
    * This test will fail whenever someone updates/reorders the BloomFilterStrategies constants. Only
    * appending a new constant is allowed.
    */
   public void testBloomFilterStrategies() {
-    assertThat(BloomFilterStrategies.values()).hasLength(2);
+    assertThat(BloomFilterStrategies.values()).hasLength(3);
     assertEquals(BloomFilterStrategies.MURMUR128_MITZ_32, BloomFilterStrategies.values()[0]);
     assertEquals(BloomFilterStrategies.MURMUR128_MITZ_64, BloomFilterStrategies.values()[1]);
+    assertEquals(BloomFilterStrategies.MURMUR128_BLOCKED_512, BloomFilterStrategies.values()[2]);
   }
 
   public void testNoRaceConditions() throws Exception {
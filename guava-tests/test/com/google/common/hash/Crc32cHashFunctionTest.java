@@ -16,7 +16,9 @@ package com.google.common.hash;
 
 import static com.google.common.base.Charsets.UTF_8;
 
+import java.nio.ByteBuffer;
 import java.util.Arrays;
+import java.util.Random;
 import junit.framework.TestCase;
 
 /**
@@ -98,6 +100,33 @@ public class Crc32cHashFunctionTest extends TestCase {
     assertEquals(expectedCrc, actualCrc);
   }
 
+  public void testPureJavaMatchesDefault() {
+    // On Java 9 and later, Hashing.crc32c() uses java.util.zip.CRC32C instead of Crc32cHasher.
+    Random random = new Random(0);
+    for (int length = 0; length < 300; length++) {
+      byte[] bytes = new byte[length + 16];
+      random.nextBytes(bytes);
+      int offset = random.nextInt(16);
+      HashCode expected = Hashing.crc32c().hashBytes(bytes, offset, length);
+      assertEquals(
+          expected, new Crc32cHashFunction.Crc32cHasher().putBytes(bytes, offset, length).hash());
+
+      ByteBuffer direct = ByteBuffer.allocateDirect(length);
+      direct.put(bytes, offset, length).flip();
+      assertEquals(expected, new Crc32cHashFunction.Crc32cHasher().putBytes(direct).hash());
+
+      Hasher byteAtATime = new Crc32cHashFunction.Crc32cHasher();
+      for (int i = offset; i < offset + length; i++) {
+        byteAtATime.putByte(bytes[i]);
+      }
+      assertEquals(expected, byteAtATime.hash());
+
+      assertEquals(
+          expected.padToLong(),
+          Crc32cHashFunction.Crc32cHasher.update(0, bytes, offset, length) & 0xFFFFFFFFL);
+    }
+  }
+
   // From RFC 3720, Section 12.1, the polynomial generator is 0x11EDC6F41.
   // We calculate the constant below by:
   //   1. Omitting the most significant bit (because it's always 1). => 0x1EDC6F41
@@ -122,4 +151,22 @@ public class Crc32cHashFunctionTest extends TestCase {
         "Expected: \n" + Arrays.toString(expected) + "\nActual:\n" + Arrays.toString(actual),
         Arrays.equals(expected, actual));
   }
+
+  public void testDirectByteBuffer() {
+    Random random = new Random(0);
+    for (int length = 0; length < 100; length++) {
+      byte[] bytes = new byte[length];
+      random.nextBytes(bytes);
+      ByteBuffer direct = ByteBuffer.allocateDirect(length);
+      direct.put(bytes).flip();
+      HashCode expected = Hashing.crc32c().hashBytes(bytes);
+      assertEquals(expected, Hashing.crc32c().hashBytes(direct));
+      assertFalse(direct.hasRemaining());
+
+      int split = random.nextInt(length + 1);
+      direct.position(split);
+      Hasher hasher = Hashing.crc32c().newHasher().putBytes(bytes, 0, split).putBytes(direct);
+      assertEquals(expected, hasher.hash());
+    }
+  }
 }
@@ -0,0 +1,305 @@
+/*
+ * Copyright (C) 2019 The Guava Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.common.hash;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.testing.EqualsTester;
+import com.google.common.testing.NullPointerTester;
+import com.google.common.testing.SerializableTester;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import junit.framework.TestCase;
+
+/** Tests for {@link CuckooFilter}. */
+public class CuckooFilterTest extends TestCase {
+
+  public void testPreconditions() {
+    try {
+      CuckooFilter.create(Funnels.longFunnel(), -1);
+      fail();
+    } catch (IllegalArgumentException expected) {
+    }
+    try {
+      CuckooFilter.create(Funnels.longFunnel(), 100, 0.0);
+      fail();
+    } catch (IllegalArgumentException expected) {
+    }
+    try {
+      CuckooFilter.create(Funnels.longFunnel(), 100, 1.0);
+      fail();
+    } catch (IllegalArgumentException expected) {
+    }
+    try {
+      CuckooFilter.create(Funnels.longFunnel(), Long.MAX_VALUE);
+      fail();
+    } catch (IllegalArgumentException expected) {
+    }
+  }
+
+  public void testNullPointers() {
+    NullPointerTester tester = new NullPointerTester();
+    tester.testAllPublicInstanceMethods(CuckooFilter.create(Funnels.unencodedCharsFunnel(), 100));
+    tester.testAllPublicStaticMethods(CuckooFilter.class);
+  }
+
+  public void testOptimalFingerprintBits() {
+    assertEquals(4, CuckooFilter.optimalFingerprintBits(0.9));
+    assertEquals(9, CuckooFilter.optimalFingerprintBits(0.03));
+    assertEquals(10, CuckooFilter.optimalFingerprintBits(0.01));
+    assertEquals(17, CuckooFilter.optimalFingerprintBits(0.0001));
+    assertEquals(32, CuckooFilter.optimalFingerprintBits(1e-20));
+  }
+
+  public void testPackedArray() {
+    for (int bits : new int[] {4, 7, 13, 32}) {
+      CuckooFilter.PackedArray array = new CuckooFilter.PackedArray(1000, bits);
+      long mask = (1L << bits) - 1;
+      Random random = new Random(bits);
+      long[] expected = new long[1000];
+      for (int round = 0; round < 5000; round++) {
+        int index = random.nextInt(1000);
+        expected[index] = random.nextLong() & mask;
+        array.set(index, expected[index]);
+      }
+      for (int i = 0; i < 1000; i++) {
+        assertEquals(expected[i], array.get(i));
+      }
+    }
+  }
+
+  public void testPutAndRemove() {
+    CuckooFilter<Long> cf = CuckooFilter.create(Funnels.longFunnel(), 10_000, 0.001);
+    for (long i = 0; i < 10_000; i++) {
+      assertTrue(cf.put(i));
+    }
+    assertEquals(10_000, cf.approximateElementCount());
+    for (long i = 0; i < 10_000; i++) {
+      assertTrue(cf.mightContain(i));
+    }
+    for (long i = 0; i < 10_000; i += 2) {
+      assertTrue(cf.remove(i));
+    }
+    assertEquals(5_000, cf.approximateElementCount());
+    int falsePositives = 0;
+    for (long i = 0; i < 10_000; i++) {
+      if (i % 2 == 1) {
+        assertTrue(cf.mightContain(i));
+      } else if (cf.mightContain(i)) {
+        falsePositives++;
+      }
+    }
+    assertThat(falsePositives).isLessThan(20);
+    for (long i = 1; i < 10_000; i += 2) {
+      assertTrue(cf.remove(i));
+    }
+    assertEquals(0, cf.approximateElementCount());
+    assertEquals(CuckooFilter.create(Funnels.longFunnel(), 10_000, 0.001), cf);
+  }
+
+  public void testDuplicates() {
+    CuckooFilter<Long> cf = CuckooFilter.create(Funnels.longFunnel(), 100);
+    assertTrue(cf.put(1L));
+    assertTrue(cf.put(1L));
+    assertEquals(2, cf.approximateElementCount());
+    assertTrue(cf.remove(1L));
+    assertTrue(cf.mightContain(1L));
+    assertTrue(cf.remove(1L));
+    assertFalse(cf.mightContain(1L));
+    assertFalse(cf.remove(1L));
+  }
+
+  public void testFalsePositiveProbability() {
+    for (double fpp : new double[] {0.03, 0.001}) {
+      int numInsertions = 100_000;
+      CuckooFilter<Long> cf = CuckooFilter.create(Funnels.longFunnel(), numInsertions, fpp);
+      for (long i = 0; i < numInsertions; i++) {
+        assertTrue(cf.put(i));
+      }
+      assertThat(cf.expectedFpp()).isLessThan(fpp);
+      int falsePositives = 0;
+      int numQueries = 1_000_000;
+      for (long i = numInsertions; i < numInsertions + numQueries; i++) {
+        if (cf.mightContain(i)) {
+          falsePositives++;
+        }
+      }
+      assertThat((double) falsePositives / numQueries).isLessThan(fpp);
+    }
+  }
+
+  public void testFullFilterIsUnchanged() {
+    CuckooFilter<Long> cf = CuckooFilter.create(Funnels.longFunnel(), 1000);
+    long i = 0;
+    while (cf.put(i)) {
+      i++;
+    }
+    // the filter fills up to about 95% of its capacity
+    assertThat((double) i / cf.capacity()).isGreaterThan(0.9);
+    assertEquals(i, cf.approximateElementCount());
+    CuckooFilter<Long> copy = cf.copy();
+    for (long j = i; j < i + 100; j++) {
+      if (!cf.put(j)) {
+        assertEquals(copy, cf);
+      } else {
+        copy = cf.copy();
+      }
+    }
+    for (long j = 0; j < i; j++) {
+      assertTrue(cf.mightContain(j));
+    }
+  }
+
+  public void testPutAll() {
+    CuckooFilter<Long> evens = CuckooFilter.create(Funnels.longFunnel(), 10_000);
+    CuckooFilter<Long> odds = CuckooFilter.create(Funnels.longFunnel(), 10_000);
+    for (long i = 0; i < 8_000; i++) {
+      (i % 2 == 0 ? evens : odds).put(i);
+    }
+    assertTrue(evens.putAll(odds));
+    assertEquals(8_000, evens.approximateElementCount());
+    for (long i = 0; i < 8_000; i++) {
+      assertTrue(evens.mightContain(i));
+      assertTrue(evens.remove(i));
+    }
+    assertEquals(0, evens.approximateElementCount());
+    assertEquals(4_000, odds.approximateElementCount());
+  }
+
+  public void testPutAllIncompatible() {
+    CuckooFilter<Long> cf = CuckooFilter.create(Funnels.longFunnel(), 1000);
+    List<CuckooFilter<Long>> incompatible = new ArrayList<>();
+    incompatible.add(cf);
+    incompatible.add(CuckooFilter.create(Funnels.longFunnel(), 100_000));
+    incompatible.add(CuckooFilter.create(Funnels.longFunnel(), 1000, 0.0001));
+    for (CuckooFilter<Long> other : incompatible) {
+      assertFalse(cf.isCompatible(other));
+      try {
+        cf.putAll(other);
+        fail();
+      } catch (IllegalArgumentException expected) {
+      }
+    }
+    assertTrue(cf.isCompatible(CuckooFilter.create(Funnels.longFunnel(), 1000)));
+  }
+
+  public void testEquals() {
+    CuckooFilter<Long> cf1 = CuckooFilter.create(Funnels.longFunnel(), 100);
+    cf1.put(1L);
+    CuckooFilter<Long> cf2 = CuckooFilter.create(Funnels.longFunnel(), 100);
+    cf2.put(1L);
+    new EqualsTester()
+        .addEqualityGroup(CuckooFilter.create(Funnels.longFunnel(), 100))
+        .addEqualityGroup(CuckooFilter.create(Funnels.longFunnel(), 1000))
+        .addEqualityGroup(CuckooFilter.create(Funnels.longFunnel(), 100, 0.0001))
+        .addEqualityGroup(CuckooFilter.create(Funnels.integerFunnel(), 100))
+        .addEqualityGroup(cf1, cf2, cf1.copy())
+        .testEquals();
+  }
+
+  public void testJavaSerialization() {
+    CuckooFilter<Long> cf = CuckooFilter.create(Funnels.longFunnel(), 1000);
+    for (long i = 0; i < 500; i++) {
+      cf.put(i);
+    }
+    CuckooFilter<Long> copy = SerializableTester.reserializeAndAssert(cf);
+    assertEquals(500, copy.approximateElementCount());
+    assertTrue(copy.remove(1L));
+  }
+
+  public void testCustomSerialization() throws IOException {
+    CuckooFilter<Long> cf = CuckooFilter.create(Funnels.longFunnel(), 1000, 0.01);
+    for (long i = 0; i < 500; i++) {
+      cf.put(i);
+    }
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    cf.writeTo(out);
+    // 5 header bytes, then 10 bits for each of the 4 slots of 512 buckets
+    assertEquals(5 + 512 * 4 * 10 / 8, out.size());
+    CuckooFilter<Long> copy =
+        CuckooFilter.readFrom(new ByteArrayInputStream(out.toByteArray()), Funnels.longFunnel());
+    assertEquals(cf, copy);
+    assertEquals(500, copy.approximateElementCount());
+  }
+
+  public void testReadFromMalformed() {
+    try {
+      CuckooFilter.readFrom(
+          new ByteArrayInputStream(new byte[] {2, 0, 0, 0, 1}), Funnels.longFunnel());
+      fail();
+    } catch (IOException expected) {
+    }
+    try {
+      CuckooFilter.readFrom(
+          new ByteArrayInputStream(new byte[] {8, 0, 0, 0, 3}), Funnels.longFunnel());
+      fail();
+    } catch (IOException expected) {
+    }
+    try {
+      CuckooFilter.readFrom(
+          new ByteArrayInputStream(new byte[] {8, 0, 0, 0, 4}), Funnels.longFunnel());
+      fail();
+    } catch (IOException expected) {
+    }
+  }
+
+  public void testNoRaceConditions() throws InterruptedException {
+    int numThreads = 8;
+    int perThread = 20_000;
+    CuckooFilter<Integer> cf =
+        CuckooFilter.create(Funnels.integerFunnel(), numThreads * perThread, 0.001);
+    List<Thread> threads = new ArrayList<>();
+    List<Throwable> failures = new ArrayList<>();
+    for (int t = 0; t < numThreads; t++) {
+      int offset = t * perThread;
+      threads.add(
+          new Thread(
+              () -> {
+                for (int i = offset; i < offset + perThread; i++) {
+                  if (!cf.put(i)) {
+                    synchronized (failures) {
+                      failures.add(new AssertionError("could not put " + i));
+                    }
+                  }
+                }
+                // no false negatives, even while other threads relocate fingerprints
+                for (int i = offset; i < offset + perThread; i++) {
+                  if (!cf.mightContain(i) || (i % 2 == 0 && !cf.remove(i))) {
+                    synchronized (failures) {
+                      failures.add(new AssertionError("lost " + i));
+                    }
+                  }
+                }
+              }));
+    }
+    for (Thread thread : threads) {
+      thread.start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    assertThat(failures).isEmpty();
+    assertEquals(numThreads * perThread / 2, cf.approximateElementCount());
+    for (int i = 1; i < numThreads * perThread; i += 2) {
+      assertTrue(cf.mightContain(i));
+    }
+  }
+}
@@ -21,7 +21,9 @@ import static com.google.common.base.Charsets.UTF_8;
 import static com.google.common.truth.Truth.assertThat;
 
 import com.google.common.base.Strings;
+import java.nio.ByteBuffer;
 import java.util.Arrays;
+import java.util.Random;
 import junit.framework.TestCase;
 
 /**
@@ -196,4 +198,18 @@ public class FarmHashFingerprint64Test extends TestCase {
   private static byte getChar(long h) {
     return (byte) ('a' + ((h & 0xfffff) % 26));
   }
+
+  public void testDirectByteBuffer() {
+    Random random = new Random(0);
+    for (int length = 0; length < 300; length++) {
+      byte[] bytes = new byte[length];
+      random.nextBytes(bytes);
+      int position = random.nextInt(8);
+      ByteBuffer direct = ByteBuffer.allocateDirect(position + length);
+      direct.position(position);
+      direct.put(bytes).flip().position(position);
+      assertEquals(HASH_FN.hashBytes(bytes), HASH_FN.hashBytes(direct));
+      assertFalse(direct.hasRemaining());
+    }
+  }
 }
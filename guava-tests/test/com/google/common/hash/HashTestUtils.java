@@ -587,6 +587,61 @@ final class HashTestUtils {
       assertHashStringEquivalence(hashFunction, random);
       assertHashStringWithSurrogatesEquivalence(hashFunction, random);
     }
+    random = new Random(7012L);
+    for (int i = 0; i < trials; i++) {
+      assertPrimitiveShortcutsEquivalence(hashFunction, random);
+      assertResettableHasherEquivalence(hashFunction, random);
+    }
+  }
+
+  private static void assertPrimitiveShortcutsEquivalence(
+      HashFunction hashFunction, Random random) {
+    long l = random.nextLong();
+    assertEquals(hashFunction.hashLong(l).padToLong(), hashFunction.hashLongToLong(l));
+
+    int size = random.nextInt(256);
+    byte[] bytes = new byte[size];
+    random.nextBytes(bytes);
+    HashCode hashCode = hashFunction.hashBytes(bytes);
+    assertEquals(hashCode.asInt(), hashFunction.hashBytesToInt(bytes));
+    assertEquals(hashCode.padToLong(), hashFunction.hashBytesToLong(bytes));
+    int off = random.nextInt(size + 1);
+    int len = random.nextInt(size - off + 1);
+    hashCode = hashFunction.hashBytes(bytes, off, len);
+    assertEquals(hashCode.asInt(), hashFunction.hashBytesToInt(bytes, off, len));
+    assertEquals(hashCode.padToLong(), hashFunction.hashBytesToLong(bytes, off, len));
+
+    String s = new String(bytes, Charsets.UTF_16LE);
+    assertEquals(
+        hashFunction.hashUnencodedChars(s).padToLong(), hashFunction.hashUnencodedCharsToLong(s));
+  }
+
+  private static void assertResettableHasherEquivalence(HashFunction hashFunction, Random random) {
+    ResettableHasher resettableHasher = hashFunction.newResettableHasher();
+    resettableHasher.putLong(random.nextLong()).putUnencodedChars("discarded").reset();
+    for (int i = 0; i < 3; i++) {
+      long seed = random.nextLong();
+      HashCode expected = randomHash(hashFunction, new Random(seed), 10);
+      Random actions = new Random(seed);
+      for (int j = 0; j < 10; j++) {
+        RandomHasherAction.pickAtRandom(actions)
+            .performAction(actions, ImmutableSet.of(resettableHasher));
+      }
+      switch (i) {
+        case 0:
+          assertEquals(expected, resettableHasher.hash());
+          break;
+        case 1:
+          assertEquals(expected.asInt(), resettableHasher.hashToInt());
+          break;
+        default:
+          assertEquals(expected.padToLong(), resettableHasher.hashToLong());
+      }
+    }
+    String s = "\u00e9t\u00e9 \ud83d\ude00 \udc00";
+    assertEquals(
+        hashFunction.hashString(s, Charsets.UTF_8),
+        resettableHasher.putString(s, Charsets.UTF_8).hash());
   }
 
   private static void assertHashBytesEquivalence(HashFunction hashFunction, Random random) {
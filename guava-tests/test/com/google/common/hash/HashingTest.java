@@ -91,6 +91,11 @@ public class HashingTest extends TestCase {
     assertEquals("Hashing.crc32()", Hashing.crc32().toString());
   }
 
+  public void testCrc32c() {
+    HashTestUtils.assertInvariants(Hashing.crc32c());
+    assertEquals("Hashing.crc32c()", Hashing.crc32c().toString());
+  }
+
   public void testAdler32() {
     HashTestUtils.assertInvariants(Hashing.adler32());
     assertEquals("Hashing.adler32()", Hashing.adler32().toString());
@@ -489,6 +494,15 @@ public class HashingTest extends TestCase {
           .put(Hashing.farmHashFingerprint64(), EMPTY_STRING, "4f40902f3b6ae19a")
           .put(Hashing.farmHashFingerprint64(), TQBFJOTLD, "34511b3bf383beab")
           .put(Hashing.farmHashFingerprint64(), TQBFJOTLDP, "737d7e5f8660653e")
+          .put(Hashing.xxHash64(), EMPTY_STRING, "99e9d85137db46ef")
+          .put(Hashing.xxHash64(), TQBFJOTLD, "bc71da1f362d240b")
+          .put(Hashing.xxHash64(), TQBFJOTLDP, "73ad51577033ad44")
+          .put(Hashing.xxh3_64(), EMPTY_STRING, "c294d3380580062d")
+          .put(Hashing.xxh3_64(), TQBFJOTLD, "65b38f41a5197dce")
+          .put(Hashing.xxh3_64(), TQBFJOTLDP, "19db515d22e014b6")
+          .put(Hashing.wyHash(), EMPTY_STRING, "a2c5eee04d8a2293")
+          .put(Hashing.wyHash(), TQBFJOTLD, "87b57b10df45e408")
+          .put(Hashing.wyHash(), TQBFJOTLDP, "2f8539b744f6dd0d")
           .build();
 
   public void testAllHashFunctionsHaveKnownHashes() throws Exception {
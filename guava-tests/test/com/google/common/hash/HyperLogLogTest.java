@@ -0,0 +1,284 @@
+/*
+ * Copyright (C) 2019 The Guava Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.common.hash;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.testing.EqualsTester;
+import com.google.common.testing.NullPointerTester;
+import com.google.common.testing.SerializableTester;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.LongStream;
+import junit.framework.TestCase;
+
+/** Tests for {@link HyperLogLog}. */
+public class HyperLogLogTest extends TestCase {
+
+  public void testEmpty() {
+    HyperLogLog<Long> hll = HyperLogLog.create(Funnels.longFunnel());
+    assertEquals(0, hll.approximateElementCount());
+    assertTrue(hll.isSparse());
+  }
+
+  public void testPreconditions() {
+    try {
+      HyperLogLog.create(Funnels.longFunnel(), HyperLogLog.MIN_PRECISION - 1);
+      fail();
+    } catch (IllegalArgumentException expected) {
+    }
+    try {
+      HyperLogLog.create(Funnels.longFunnel(), HyperLogLog.MAX_PRECISION + 1);
+      fail();
+    } catch (IllegalArgumentException expected) {
+    }
+    try {
+      HyperLogLog.create(Funnels.longFunnel(), 14, Hashing.murmur3_32());
+      fail();
+    } catch (IllegalArgumentException expected) {
+    }
+  }
+
+  public void testNullPointers() {
+    NullPointerTester tester = new NullPointerTester();
+    tester.testAllPublicInstanceMethods(HyperLogLog.create(Funnels.longFunnel()));
+    tester.testAllPublicStaticMethods(HyperLogLog.class);
+  }
+
+  public void testSmallCardinalitiesAreExact() {
+    HyperLogLog<Long> hll = HyperLogLog.create(Funnels.longFunnel(), 14);
+    for (long i = 0; i < 1000; i++) {
+      hll.put(i);
+      hll.put(i); // duplicates are not counted
+      assertEquals(i + 1, hll.approximateElementCount());
+    }
+    assertTrue(hll.isSparse());
+  }
+
+  public void testAccuracy() {
+    for (int precision : new int[] {8, 12, 14}) {
+      HyperLogLog<Long> hll = HyperLogLog.create(Funnels.longFunnel(), precision);
+      double tolerance = 4 * hll.relativeStandardError();
+      long count = 0;
+      for (long expected = 10; expected <= 1_000_000; expected *= 10) {
+        while (count < expected) {
+          hll.put(count++);
+        }
+        double error = (hll.approximateElementCount() - expected) / (double) expected;
+        assertThat(Math.abs(error)).isLessThan(tolerance);
+      }
+      assertFalse(hll.isSparse());
+    }
+  }
+
+  public void testAccuracyWithOtherHashFunctions() {
+    for (HashFunction hashFunction :
+        new HashFunction[] {Hashing.sipHash24(), Hashing.farmHashFingerprint64(), Hashing.sha256()}) {
+      HyperLogLog<Long> hll = HyperLogLog.create(Funnels.longFunnel(), 12, hashFunction);
+      for (long i = 0; i < 100_000; i++) {
+        hll.put(i);
+      }
+      double error = (hll.approximateElementCount() - 100_000) / 100_000.0;
+      assertThat(Math.abs(error)).isLessThan(4 * hll.relativeStandardError());
+    }
+  }
+
+  public void testPutReturnValue() {
+    HyperLogLog<Long> hll = HyperLogLog.create(Funnels.longFunnel(), 4);
+    assertTrue(hll.put(1L));
+    assertFalse(hll.put(1L));
+    // with 16 registers, most new elements no longer change the sketch
+    int changes = 0;
+    for (long i = 0; i < 10_000; i++) {
+      if (hll.put(i)) {
+        changes++;
+      }
+    }
+    assertThat(changes).isLessThan(200);
+  }
+
+  public void testPutAll() {
+    for (int size : new int[] {10, 1_000, 100_000}) {
+      HyperLogLog<Long> evens = HyperLogLog.create(Funnels.longFunnel(), 12);
+      HyperLogLog<Long> odds = HyperLogLog.create(Funnels.longFunnel(), 12);
+      HyperLogLog<Long> all = HyperLogLog.create(Funnels.longFunnel(), 12);
+      for (long i = 0; i < size; i++) {
+        (i % 2 == 0 ? evens : odds).put(i);
+        all.put(i);
+      }
+      HyperLogLog<Long> union = evens.copy();
+      union.putAll(odds);
+      assertEquals(all, union);
+      union = odds.copy();
+      union.putAll(evens);
+      assertEquals(all, union);
+    }
+  }
+
+  public void testPutAllMixedRepresentations() {
+    HyperLogLog<Long> small = HyperLogLog.create(Funnels.longFunnel(), 12);
+    HyperLogLog<Long> large = HyperLogLog.create(Funnels.longFunnel(), 12);
+    HyperLogLog<Long> all = HyperLogLog.create(Funnels.longFunnel(), 12);
+    for (long i = 0; i < 10; i++) {
+      small.put(-i);
+      all.put(-i);
+    }
+    for (long i = 0; i < 10_000; i++) {
+      large.put(i);
+      all.put(i);
+    }
+    assertTrue(small.isSparse());
+    assertFalse(large.isSparse());
+    HyperLogLog<Long> union = small.copy();
+    union.putAll(large);
+    assertFalse(union.isSparse());
+    assertEquals(all, union);
+    union = large.copy();
+    union.putAll(small);
+    assertEquals(all, union);
+  }
+
+  public void testPutAllIncompatible() {
+    HyperLogLog<Long> hll = HyperLogLog.create(Funnels.longFunnel(), 12);
+    List<HyperLogLog<Long>> incompatible = new ArrayList<>();
+    incompatible.add(hll);
+    incompatible.add(HyperLogLog.create(Funnels.longFunnel(), 13));
+    incompatible.add(HyperLogLog.create(Funnels.longFunnel(), 12, Hashing.sipHash24()));
+    for (HyperLogLog<Long> other : incompatible) {
+      assertFalse(hll.isCompatible(other));
+      try {
+        hll.putAll(other);
+        fail();
+      } catch (IllegalArgumentException expected) {
+      }
+    }
+    assertTrue(hll.isCompatible(HyperLogLog.create(Funnels.longFunnel(), 12)));
+  }
+
+  public void testEquals() {
+    HyperLogLog<Long> hll1 = HyperLogLog.create(Funnels.longFunnel(), 10);
+    hll1.put(1L);
+    HyperLogLog<Long> hll2 = HyperLogLog.create(Funnels.longFunnel(), 10);
+    hll2.put(1L);
+    HyperLogLog<Long> dense = HyperLogLog.create(Funnels.longFunnel(), 10);
+    for (long i = 0; i < 10_000; i++) {
+      dense.put(i);
+    }
+    new EqualsTester()
+        .addEqualityGroup(HyperLogLog.create(Funnels.longFunnel(), 10))
+        .addEqualityGroup(HyperLogLog.create(Funnels.longFunnel(), 11))
+        .addEqualityGroup(HyperLogLog.create(Funnels.integerFunnel(), 10))
+        .addEqualityGroup(hll1, hll2)
+        .addEqualityGroup(dense, dense.copy())
+        .testEquals();
+  }
+
+  public void testCollector() {
+    HyperLogLog<Long> expected = HyperLogLog.create(Funnels.longFunnel(), 12);
+    for (long i = 0; i < 50_000; i++) {
+      expected.put(i);
+    }
+    assertEquals(
+        expected,
+        LongStream.range(0, 50_000)
+            .boxed()
+            .parallel()
+            .collect(HyperLogLog.toHyperLogLog(Funnels.longFunnel(), 12)));
+  }
+
+  public void testJavaSerialization() {
+    for (int size : new int[] {0, 100, 100_000}) {
+      HyperLogLog<Long> hll = HyperLogLog.create(Funnels.longFunnel(), 12);
+      for (long i = 0; i < size; i++) {
+        hll.put(i);
+      }
+      HyperLogLog<Long> copy = SerializableTester.reserializeAndAssert(hll);
+      assertEquals(hll.approximateElementCount(), copy.approximateElementCount());
+    }
+  }
+
+  public void testCustomSerialization() throws IOException {
+    for (int size : new int[] {0, 100, 100_000}) {
+      HyperLogLog<Long> hll = HyperLogLog.create(Funnels.longFunnel(), 14);
+      for (long i = 0; i < size; i++) {
+        hll.put(i);
+      }
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      hll.writeTo(out);
+      HyperLogLog<Long> copy =
+          HyperLogLog.readFrom(new ByteArrayInputStream(out.toByteArray()), Funnels.longFunnel());
+      assertEquals(hll, copy);
+      assertEquals(hll.approximateElementCount(), copy.approximateElementCount());
+    }
+  }
+
+  public void testCustomSerializationIsCompact() throws IOException {
+    HyperLogLog<Long> hll = HyperLogLog.create(Funnels.longFunnel(), 14);
+    for (long i = 0; i < 1_000_000; i++) {
+      hll.put(i);
+    }
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    hll.writeTo(out);
+    // 2 header bytes, then 6 bits for each of the 2^14 registers
+    assertEquals(2 + (1 << 14) * 6 / 8, out.size());
+  }
+
+  public void testReadFromMalformed() {
+    try {
+      HyperLogLog.readFrom(new ByteArrayInputStream(new byte[] {7, 14}), Funnels.longFunnel());
+      fail();
+    } catch (IOException expected) {
+    }
+    try {
+      HyperLogLog.readFrom(new ByteArrayInputStream(new byte[] {0, 99}), Funnels.longFunnel());
+      fail();
+    } catch (IOException expected) {
+    }
+  }
+
+  public void testNoRaceConditions() throws InterruptedException {
+    int numThreads = 8;
+    int size = 200_000;
+    HyperLogLog<Integer> expected = HyperLogLog.create(Funnels.integerFunnel(), 14);
+    for (int i = 0; i < size; i++) {
+      expected.put(i);
+    }
+    HyperLogLog<Integer> concurrent = HyperLogLog.create(Funnels.integerFunnel(), 14);
+    List<Thread> threads = new ArrayList<>();
+    for (int t = 0; t < numThreads; t++) {
+      int offset = t;
+      threads.add(
+          new Thread(
+              () -> {
+                // every element is put by several threads
+                for (int i = offset % 3; i < size; i += 3) {
+                  concurrent.put(i);
+                }
+              }));
+    }
+    for (Thread thread : threads) {
+      thread.start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    assertEquals(expected, concurrent);
+  }
+}
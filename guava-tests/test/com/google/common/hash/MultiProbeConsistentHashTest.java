@@ -0,0 +1,196 @@
+/*
+ * Copyright (C) 2019 The Guava Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.common.hash;
+
+import com.google.common.collect.ContiguousSet;
+import com.google.common.collect.DiscreteDomain;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Range;
+import java.util.Random;
+import junit.framework.TestCase;
+
+/** Tests for {@link MultiProbeConsistentHash}. */
+public class MultiProbeConsistentHashTest extends TestCase {
+
+  private static final int KEYS = 100_000;
+
+  public void testGet_balanced() {
+    int nodes = 100;
+    MultiProbeConsistentHash<Integer> hash = create(nodes);
+    int[] counts = new int[nodes];
+    Random random = new Random(1);
+    for (int i = 0; i < KEYS; i++) {
+      counts[hash.get(random.nextLong())]++;
+    }
+    int max = 0;
+    for (int count : counts) {
+      max = Math.max(max, count);
+    }
+    // A ring with a single point per node would give the most loaded node several times its share.
+    assertTrue("max: " + max, max < 1.3 * KEYS / nodes);
+  }
+
+  public void testGet_balanced_32BitHashFunctions() {
+    int nodes = 100;
+    for (HashFunction hashFunction : ImmutableList.of(Hashing.murmur3_32(), Hashing.crc32c())) {
+      MultiProbeConsistentHash<Integer> hash =
+          MultiProbeConsistentHash.create(hashFunction, Funnels.integerFunnel(), range(nodes));
+      int[] counts = new int[nodes];
+      Random random = new Random(1);
+      for (int i = 0; i < KEYS; i++) {
+        counts[hash.get(hashFunction.hashLong(random.nextLong()))]++;
+      }
+      int min = KEYS;
+      int max = 0;
+      for (int count : counts) {
+        min = Math.min(min, count);
+        max = Math.max(max, count);
+      }
+      // The node points must be spread over the whole 64-bit ring, not just its lowest 2^32 values.
+      assertTrue(hashFunction + " max: " + max, max < 1.3 * KEYS / nodes);
+      assertTrue(hashFunction + " min: " + min, min > 0.02 * KEYS / nodes);
+    }
+  }
+
+  public void testGet_moreProbesAreMoreBalanced() {
+    int nodes = 100;
+    assertTrue(maxLoad(create(nodes, 1)) > maxLoad(create(nodes, 21)));
+  }
+
+  public void testGet_hashCode() {
+    MultiProbeConsistentHash<Integer> hash = create(10);
+    Random random = new Random(2);
+    for (int i = 0; i < 100; i++) {
+      long key = random.nextLong();
+      assertEquals(hash.get(key), hash.get(HashCode.fromLong(key)));
+    }
+  }
+
+  public void testGet_singleNode() {
+    MultiProbeConsistentHash<Integer> hash = create(1);
+    assertEquals(0, (int) hash.get(0L));
+    assertEquals(0, (int) hash.get(Long.MIN_VALUE));
+    assertEquals(0, (int) hash.get(-1L));
+  }
+
+  public void testWithoutNode_onlyReassignsRemovedNode() {
+    MultiProbeConsistentHash<Integer> hash = create(50);
+    MultiProbeConsistentHash<Integer> removed = hash.withoutNode(7);
+    Random random = new Random(3);
+    int moved = 0;
+    for (int i = 0; i < KEYS; i++) {
+      long key = random.nextLong();
+      int before = hash.get(key);
+      int after = removed.get(key);
+      if (before == 7) {
+        assertTrue(after != 7);
+        moved++;
+      } else {
+        assertEquals(before, after);
+      }
+    }
+    assertTrue("moved: " + moved, moved < 1.3 * KEYS / 50);
+  }
+
+  public void testWithNode_onlyTakesKeys() {
+    MultiProbeConsistentHash<Integer> hash = create(50);
+    MultiProbeConsistentHash<Integer> added = hash.withNode(50);
+    Random random = new Random(4);
+    int moved = 0;
+    for (int i = 0; i < KEYS; i++) {
+      long key = random.nextLong();
+      int after = added.get(key);
+      if (after == 50) {
+        moved++;
+      } else {
+        assertEquals((int) hash.get(key), after);
+      }
+    }
+    assertTrue("moved: " + moved, moved > 0 && moved < 1.3 * KEYS / 51);
+  }
+
+  public void testNodes() {
+    MultiProbeConsistentHash<String> hash =
+        MultiProbeConsistentHash.create(
+            Hashing.murmur3_128(), Funnels.unencodedCharsFunnel(), ImmutableList.of("b", "a"));
+    assertEquals(ImmutableList.of("b", "a"), hash.nodes().asList());
+    assertEquals(ImmutableSet.of("b", "a", "c"), hash.withNode("c").nodes());
+    assertEquals(ImmutableSet.of("a"), hash.withoutNode("b").nodes());
+  }
+
+  public void testPreconditions() {
+    try {
+      MultiProbeConsistentHash.create(
+          Hashing.murmur3_128(), Funnels.integerFunnel(), ImmutableList.<Integer>of());
+      fail();
+    } catch (IllegalArgumentException expected) {
+    }
+    try {
+      MultiProbeConsistentHash.create(
+          Hashing.murmur3_128(), Funnels.integerFunnel(), ImmutableList.of(1, 2, 1));
+      fail();
+    } catch (IllegalArgumentException expected) {
+    }
+    try {
+      MultiProbeConsistentHash.create(
+          Hashing.murmur3_128(), Funnels.integerFunnel(), ImmutableList.of(1), 0);
+      fail();
+    } catch (IllegalArgumentException expected) {
+    }
+    MultiProbeConsistentHash<Integer> hash = create(1);
+    try {
+      hash.withoutNode(0);
+      fail();
+    } catch (IllegalArgumentException expected) {
+    }
+    try {
+      hash.withoutNode(1);
+      fail();
+    } catch (IllegalArgumentException expected) {
+    }
+    try {
+      hash.withNode(0);
+      fail();
+    } catch (IllegalArgumentException expected) {
+    }
+  }
+
+  private static int maxLoad(MultiProbeConsistentHash<Integer> hash) {
+    int[] counts = new int[hash.nodes().size()];
+    Random random = new Random(5);
+    int max = 0;
+    for (int i = 0; i < KEYS; i++) {
+      max = Math.max(max, ++counts[hash.get(random.nextLong())]);
+    }
+    return max;
+  }
+
+  private static MultiProbeConsistentHash<Integer> create(int nodes) {
+    return MultiProbeConsistentHash.create(
+        Hashing.murmur3_128(), Funnels.integerFunnel(), range(nodes));
+  }
+
+  private static MultiProbeConsistentHash<Integer> create(int nodes, int probes) {
+    return MultiProbeConsistentHash.create(
+        Hashing.murmur3_128(), Funnels.integerFunnel(), range(nodes), probes);
+  }
+
+  private static ContiguousSet<Integer> range(int nodes) {
+    return ContiguousSet.create(Range.closedOpen(0, nodes), DiscreteDomain.integers());
+  }
+}
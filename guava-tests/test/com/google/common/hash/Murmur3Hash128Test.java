@@ -22,6 +22,7 @@ import com.google.common.base.Charsets;
 import com.google.common.hash.HashTestUtils.HashFn;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
+import java.util.Random;
 import junit.framework.TestCase;
 
 /** Tests for {@link Murmur3_128HashFunction}. */
@@ -78,4 +79,23 @@ public class Murmur3Hash128Test extends TestCase {
   public void testInvariants() {
     HashTestUtils.assertInvariants(murmur3_128());
   }
+
+  public void testDirectByteBuffer() {
+    Random random = new Random(0);
+    for (int length = 0; length < 100; length++) {
+      byte[] bytes = new byte[length];
+      random.nextBytes(bytes);
+      ByteBuffer direct = ByteBuffer.allocateDirect(length);
+      direct.put(bytes).flip();
+      assertEquals(murmur3_128().hashBytes(bytes), murmur3_128().hashBytes(direct));
+
+      // a partially filled internal buffer is topped up before the rest is read in place
+      int split = random.nextInt(length + 1);
+      direct.position(split);
+      Hasher hasher = murmur3_128().newHasher().putBytes(bytes, 0, split).putBytes(direct);
+      assertEquals(murmur3_128().hashBytes(bytes), hasher.hash());
+      assertFalse(direct.hasRemaining());
+      assertEquals(ByteOrder.BIG_ENDIAN, direct.order());
+    }
+  }
 }
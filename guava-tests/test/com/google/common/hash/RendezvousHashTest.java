@@ -0,0 +1,221 @@
+/*
+ * Copyright (C) 2019 The Guava Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.common.hash;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import java.util.List;
+import java.util.Random;
+import junit.framework.TestCase;
+
+/** Tests for {@link RendezvousHash}. */
+public class RendezvousHashTest extends TestCase {
+
+  private static final int KEYS = 100_000;
+
+  public void testGet_uniform() {
+    RendezvousHash<Integer> hash = create(20);
+    int[] counts = new int[20];
+    Random random = new Random(1);
+    for (int i = 0; i < KEYS; i++) {
+      counts[hash.get(random.nextLong())]++;
+    }
+    for (int count : counts) {
+      // the expected count is 5000, with a standard deviation of about 70
+      assertTrue("count: " + count, Math.abs(count - KEYS / 20) < 400);
+    }
+  }
+
+  public void testGet_weighted() {
+    RendezvousHash<Integer> hash =
+        RendezvousHash.builder(Hashing.murmur3_128(), Funnels.integerFunnel())
+            .add(0, 1)
+            .add(1, 2)
+            .add(2, 3)
+            .add(3, 4)
+            .build();
+    int[] counts = new int[4];
+    Random random = new Random(2);
+    for (int i = 0; i < KEYS; i++) {
+      counts[hash.get(random.nextLong())]++;
+    }
+    for (int node = 0; node < 4; node++) {
+      int expected = KEYS * (node + 1) / 10;
+      assertTrue("count: " + counts[node], Math.abs(counts[node] - expected) < 1000);
+    }
+  }
+
+  public void testGet_hashCode() {
+    RendezvousHash<Integer> hash = create(10);
+    Random random = new Random(3);
+    for (int i = 0; i < 100; i++) {
+      long key = random.nextLong();
+      assertEquals(hash.get(key), hash.get(HashCode.fromLong(key)));
+    }
+  }
+
+  public void testGet_singleNode() {
+    RendezvousHash<Integer> hash = create(1);
+    assertEquals(0, (int) hash.get(0L));
+    assertEquals(0, (int) hash.get(-1L));
+  }
+
+  public void testWithoutNode_onlyReassignsRemovedNode() {
+    RendezvousHash<Integer> hash = create(10);
+    RendezvousHash<Integer> removed = hash.withoutNode(3);
+    int[] counts = new int[10];
+    Random random = new Random(4);
+    for (int i = 0; i < KEYS; i++) {
+      long key = random.nextLong();
+      int before = hash.get(key);
+      int after = removed.get(key);
+      if (before == 3) {
+        assertTrue(after != 3);
+        counts[after]++;
+      } else {
+        assertEquals(before, after);
+      }
+    }
+    // the keys of the removed node are spread evenly over the other nodes
+    for (int node = 0; node < 10; node++) {
+      if (node != 3) {
+        assertTrue("count: " + counts[node], Math.abs(counts[node] - KEYS / 90) < 400);
+      }
+    }
+  }
+
+  public void testWithNode_onlyTakesKeys() {
+    RendezvousHash<Integer> hash = create(10);
+    RendezvousHash<Integer> added = hash.withNode(10, 5);
+    assertEquals(5.0, added.weights().get(10));
+    int moved = 0;
+    Random random = new Random(5);
+    for (int i = 0; i < KEYS; i++) {
+      long key = random.nextLong();
+      int after = added.get(key);
+      if (after == 10) {
+        moved++;
+      } else {
+        assertEquals((int) hash.get(key), after);
+      }
+    }
+    // the new node has a third of the total weight
+    assertTrue("moved: " + moved, Math.abs(moved - KEYS / 3) < 1000);
+  }
+
+  public void testGetReplicas() {
+    RendezvousHash<Integer> uniform = create(10);
+    RendezvousHash<Integer> weighted = uniform.withNode(10, 3);
+    Random random = new Random(6);
+    for (RendezvousHash<Integer> hash : ImmutableList.of(uniform, weighted)) {
+      for (int i = 0; i < 1000; i++) {
+        long key = random.nextLong();
+        List<Integer> replicas = hash.getReplicas(key, 3);
+        assertEquals(3, replicas.size());
+        assertEquals(3, ImmutableSet.copyOf(replicas).size());
+        assertEquals(hash.get(key), replicas.get(0));
+        // removing the first replica promotes the others
+        RendezvousHash<Integer> removed = hash.withoutNode(replicas.get(0));
+        assertEquals(replicas.subList(1, 3), removed.getReplicas(key, 2));
+        assertEquals(replicas.subList(0, 1), hash.getReplicas(key, 1));
+      }
+    }
+  }
+
+  public void testGetReplicas_moreThanNodes() {
+    RendezvousHash<Integer> hash = create(3);
+    List<Integer> replicas = hash.getReplicas(42, 5);
+    assertEquals(3, replicas.size());
+    assertEquals(ImmutableList.of(), hash.getReplicas(42, 0));
+    try {
+      hash.getReplicas(42, -1);
+      fail();
+    } catch (IllegalArgumentException expected) {
+    }
+  }
+
+  public void testGetReplicas_spreadEvenly() {
+    RendezvousHash<Integer> hash = create(10);
+    int[] secondCounts = new int[10];
+    Random random = new Random(7);
+    for (int i = 0; i < KEYS; i++) {
+      secondCounts[hash.getReplicas(random.nextLong(), 2).get(1)]++;
+    }
+    for (int count : secondCounts) {
+      assertTrue("count: " + count, Math.abs(count - KEYS / 10) < 600);
+    }
+  }
+
+  public void testWeights() {
+    RendezvousHash<String> hash =
+        RendezvousHash.<String>builder(Hashing.murmur3_128(), Funnels.unencodedCharsFunnel())
+            .add("b", 2)
+            .add("a")
+            .build();
+    assertEquals(ImmutableMap.of("b", 2.0, "a", 1.0), hash.weights());
+    assertEquals(ImmutableMap.of("a", 1.0), hash.withoutNode("b").weights());
+  }
+
+  public void testPreconditions() {
+    RendezvousHash.Builder<Integer> builder =
+        RendezvousHash.builder(Hashing.murmur3_128(), Funnels.integerFunnel());
+    try {
+      builder.build();
+      fail();
+    } catch (IllegalStateException expected) {
+    }
+    for (double weight : new double[] {0, -1, Double.NaN, Double.POSITIVE_INFINITY}) {
+      try {
+        builder.add(1, weight);
+        fail();
+      } catch (IllegalArgumentException expected) {
+      }
+    }
+    builder.add(1);
+    try {
+      builder.add(1, 2);
+      fail();
+    } catch (IllegalArgumentException expected) {
+    }
+    RendezvousHash<Integer> hash = builder.build();
+    try {
+      hash.withoutNode(1);
+      fail();
+    } catch (IllegalArgumentException expected) {
+    }
+    try {
+      hash.withoutNode(2);
+      fail();
+    } catch (IllegalArgumentException expected) {
+    }
+    try {
+      hash.withNode(1, 1);
+      fail();
+    } catch (IllegalArgumentException expected) {
+    }
+  }
+
+  private static RendezvousHash<Integer> create(int nodes) {
+    RendezvousHash.Builder<Integer> builder =
+        RendezvousHash.builder(Hashing.murmur3_128(), Funnels.integerFunnel());
+    for (int i = 0; i < nodes; i++) {
+      builder.add(i);
+    }
+    return builder.build();
+  }
+}
@@ -0,0 +1,216 @@
+/*
+ * Copyright (C) 2019 The Guava Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.common.hash;
+
+import com.google.common.primitives.Ints;
+import com.google.common.testing.NullPointerTester;
+import com.google.common.testing.SerializableTester;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import junit.framework.TestCase;
+
+/**
+ * Tests for {@link ScalableBloomFilter}.
+ */
+public class ScalableBloomFilterTest extends TestCase {
+
+  public void testGrowsAndKeepsFppBound() {
+    double fpp = 0.01;
+    ScalableBloomFilter<Integer> sbf =
+        ScalableBloomFilter.create(Funnels.integerFunnel(), 1000, fpp);
+    assertEquals(1, sbf.filters().size());
+    int numPuts = 100_000;
+    for (int i = 0; i < numPuts; i++) {
+      sbf.put(i);
+    }
+    // 1000 + 2000 + ... + 64000 < 100_000 < 1000 + 2000 + ... + 128000
+    assertEquals(7, sbf.filters().size());
+    for (int i = 0; i < numPuts; i++) {
+      assertTrue(sbf.mightContain(i));
+    }
+    assertTrue(sbf.expectedFpp() < fpp);
+    int falsePositives = 0;
+    int numQueries = 100_000;
+    for (int i = numPuts; i < numPuts + numQueries; i++) {
+      if (sbf.mightContain(i)) {
+        falsePositives++;
+      }
+    }
+    assertTrue(falsePositives + " false positives", falsePositives < numQueries * fpp);
+    double approximateCount = sbf.approximateElementCount();
+    assertTrue(Math.abs(approximateCount - numPuts) < numPuts * 0.05);
+  }
+
+  public void testFiltersAreTightened() {
+    ScalableBloomFilter<Integer> sbf =
+        ScalableBloomFilter.create(Funnels.integerFunnel(), 100, 0.01);
+    for (int i = 0; i < 10_000; i++) {
+      sbf.put(i);
+    }
+    List<BloomFilter<Integer>> filters = sbf.filters();
+    for (int i = 1; i < filters.size(); i++) {
+      assertTrue(filters.get(i).bitSize() >= 2 * filters.get(i - 1).bitSize());
+    }
+  }
+
+  public void testPutReturnValue() {
+    ScalableBloomFilter<Integer> sbf =
+        ScalableBloomFilter.create(Funnels.integerFunnel(), 10, 0.001);
+    for (int i = 0; i < 1000; i++) {
+      boolean mightContain = sbf.mightContain(i);
+      assertEquals(!mightContain, sbf.put(i));
+      assertFalse(sbf.put(i));
+    }
+    assertTrue(sbf.filters().size() > 1);
+  }
+
+  public void testPreconditions() {
+    try {
+      ScalableBloomFilter.create(Funnels.integerFunnel(), 0);
+      fail();
+    } catch (IllegalArgumentException expected) {
+    }
+    try {
+      ScalableBloomFilter.create(Funnels.integerFunnel(), 1, 0.0);
+      fail();
+    } catch (IllegalArgumentException expected) {
+    }
+    try {
+      ScalableBloomFilter.create(Funnels.integerFunnel(), 1, 1.0);
+      fail();
+    } catch (IllegalArgumentException expected) {
+    }
+  }
+
+  public void testNullPointers() {
+    NullPointerTester tester = new NullPointerTester();
+    tester.testAllPublicInstanceMethods(
+        ScalableBloomFilter.create(Funnels.unencodedCharsFunnel(), 100));
+    tester.testAllPublicStaticMethods(ScalableBloomFilter.class);
+  }
+
+  public void testCopyAndEquals() {
+    ScalableBloomFilter<Integer> sbf = ScalableBloomFilter.create(Funnels.integerFunnel(), 10);
+    for (int i = 0; i < 100; i++) {
+      sbf.put(i);
+    }
+    ScalableBloomFilter<Integer> copy = sbf.copy();
+    assertEquals(sbf, copy);
+    assertEquals(sbf.hashCode(), copy.hashCode());
+    copy.put(-1);
+    assertFalse(sbf.mightContain(-1));
+    assertFalse(sbf.equals(copy));
+    assertFalse(sbf.equals(ScalableBloomFilter.create(Funnels.integerFunnel(), 10)));
+  }
+
+  public void testJavaSerialization() {
+    ScalableBloomFilter<byte[]> sbf = ScalableBloomFilter.create(Funnels.byteArrayFunnel(), 10);
+    for (int i = 0; i < 100; i++) {
+      sbf.put(Ints.toByteArray(i));
+    }
+
+    ScalableBloomFilter<byte[]> copy = SerializableTester.reserializeAndAssert(sbf);
+    for (int i = 0; i < 100; i++) {
+      assertTrue(copy.mightContain(Ints.toByteArray(i)));
+    }
+    assertEquals(sbf.expectedFpp(), copy.expectedFpp());
+    // the copy keeps growing like the original
+    for (int i = 100; i < 1000; i++) {
+      sbf.put(Ints.toByteArray(i));
+      copy.put(Ints.toByteArray(i));
+    }
+    assertEquals(sbf, copy);
+  }
+
+  public void testCustomSerialization() throws Exception {
+    Funnel<byte[]> funnel = Funnels.byteArrayFunnel();
+    ScalableBloomFilter<byte[]> sbf = ScalableBloomFilter.create(funnel, 10);
+    for (int i = 0; i < 100; i++) {
+      sbf.put(Ints.toByteArray(i));
+    }
+
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    sbf.writeTo(out);
+    sbf.writeTo(out);
+    ByteArrayInputStream in = new ByteArrayInputStream(out.toByteArray());
+
+    assertEquals(sbf, ScalableBloomFilter.readFrom(in, funnel));
+    assertEquals(sbf, ScalableBloomFilter.readFrom(in, funnel));
+    assertEquals(0, in.available());
+  }
+
+  public void testCustomSerialization_invalid() {
+    try {
+      ScalableBloomFilter.readFrom(
+          new ByteArrayInputStream(new byte[20]), Funnels.byteArrayFunnel());
+      fail();
+    } catch (IOException expected) {
+    }
+  }
+
+  public void testConcurrentPuts() throws Exception {
+    final ScalableBloomFilter<Integer> sbf =
+        ScalableBloomFilter.create(Funnels.integerFunnel(), 100, 0.01);
+    final int numThreads = 8;
+    final int putsPerThread = 20_000;
+    final AtomicInteger firstPuts = new AtomicInteger();
+    List<Thread> threads = new ArrayList<>();
+    final List<Throwable> exceptions = new ArrayList<>();
+    for (int t = 0; t < numThreads; t++) {
+      final int offset = t * putsPerThread / 2; // neighboring threads put half the same elements
+      Thread thread =
+          new Thread(
+              new Runnable() {
+                @Override
+                public void run() {
+                  for (int i = offset; i < offset + putsPerThread; i++) {
+                    if (sbf.put(i)) {
+                      firstPuts.incrementAndGet();
+                    }
+                  }
+                }
+              });
+      thread.setUncaughtExceptionHandler(
+          new Thread.UncaughtExceptionHandler() {
+            @Override
+            public void uncaughtException(Thread t, Throwable e) {
+              synchronized (exceptions) {
+                exceptions.add(e);
+              }
+            }
+          });
+      threads.add(thread);
+    }
+    for (Thread thread : threads) {
+      thread.start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    assertTrue(exceptions.isEmpty());
+    int distinct = (numThreads + 1) * putsPerThread / 2;
+    for (int i = 0; i < distinct; i++) {
+      assertTrue(sbf.mightContain(i));
+    }
+    assertTrue(firstPuts.get() > distinct * 0.95);
+    assertTrue(sbf.expectedFpp() < 0.01);
+  }
+}
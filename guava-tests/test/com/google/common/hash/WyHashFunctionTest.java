@@ -0,0 +1,103 @@
+/*
+ * Copyright (C) 2019 The Guava Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.common.hash;
+
+import static java.nio.charset.StandardCharsets.US_ASCII;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+import junit.framework.TestCase;
+
+/** Unit test for {@link WyHashFunction}. */
+public class WyHashFunctionTest extends TestCase {
+
+  /** The test vectors of the reference implementation, each hashed with its index as the seed. */
+  private static final String[] KNOWN_INPUTS = {
+    "",
+    "a",
+    "abc",
+    "message digest",
+    "abcdefghijklmnopqrstuvwxyz",
+    "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789",
+    "12345678901234567890123456789012345678901234567890123456789012345678901234567890",
+  };
+
+  private static final long[] KNOWN_HASHES = {
+    0x93228a4de0eec5a2L,
+    0xc5bac3db178713c4L,
+    0xa97f2f7b1d9b3314L,
+    0x786d1f1df3801df4L,
+    0xdca5a8138ad37c87L,
+    0xb9e734f117cfaf70L,
+    0x6cc5eab49a92d617L,
+  };
+
+  public void testKnownHashes() {
+    for (int i = 0; i < KNOWN_INPUTS.length; i++) {
+      byte[] input = KNOWN_INPUTS[i].getBytes(US_ASCII);
+      assertEquals(KNOWN_HASHES[i], Hashing.wyHash(i).hashBytes(input).asLong());
+      assertEquals(KNOWN_HASHES[i], WyHashFunction.hash(input, 0, input.length, i));
+      ByteBuffer direct = ByteBuffer.allocateDirect(input.length);
+      direct.put(input).flip();
+      assertEquals(KNOWN_HASHES[i], Hashing.wyHash(i).hashBytes(direct).asLong());
+    }
+  }
+
+  public void testDirectByteBufferMatchesBytes() {
+    Random random = new Random(0);
+    for (int length = 0; length < 1100; length++) {
+      byte[] bytes = new byte[length];
+      random.nextBytes(bytes);
+      long seed = random.nextLong();
+      HashFunction hashFunction = Hashing.wyHash(seed);
+      int position = random.nextInt(8);
+      ByteBuffer direct = ByteBuffer.allocateDirect(position + length + 8);
+      direct.position(position);
+      direct.put(bytes).flip().position(position);
+      assertEquals(hashFunction.hashBytes(bytes), hashFunction.hashBytes(direct));
+      assertFalse(direct.hasRemaining());
+      assertEquals(
+          hashFunction.hashBytes(bytes),
+          hashFunction.hashBytes(ByteBuffer.wrap(bytes).asReadOnlyBuffer()));
+    }
+  }
+
+  public void testHashIntAndLong() {
+    Random random = new Random(0);
+    for (int i = 0; i < 100; i++) {
+      HashFunction hashFunction = Hashing.wyHash(random.nextLong());
+      int intValue = random.nextInt();
+      long longValue = random.nextLong();
+      assertEquals(
+          hashFunction.newHasher().putInt(intValue).hash(), hashFunction.hashInt(intValue));
+      assertEquals(
+          hashFunction.newHasher().putLong(longValue).hash(), hashFunction.hashLong(longValue));
+    }
+  }
+
+  public void testInvariants() {
+    HashTestUtils.assertInvariants(Hashing.wyHash());
+    HashTestUtils.assertHashByteBufferInvariants(Hashing.wyHash());
+    HashTestUtils.assertInvariants(Hashing.wyHash(42));
+  }
+
+  public void testSeeds() {
+    assertEquals(Hashing.wyHash(), Hashing.wyHash(0));
+    assertFalse(Hashing.wyHash().equals(Hashing.wyHash(1)));
+    assertEquals("Hashing.wyHash(42)", Hashing.wyHash(42).toString());
+  }
+}
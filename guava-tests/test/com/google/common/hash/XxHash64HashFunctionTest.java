@@ -0,0 +1,112 @@
+/*
+ * Copyright (C) 2019 The Guava Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.common.hash;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+import junit.framework.TestCase;
+
+/** Unit test for {@link XxHash64HashFunction}. */
+public class XxHash64HashFunctionTest extends TestCase {
+
+  /**
+   * The XXH64 hashes of the bytes {@code 0, 1, 2, ...} for different input lengths, as {@code
+   * {length, hash with seed 0, hash with seed 42}}, computed by the reference implementation.
+   */
+  private static final long[][] KNOWN_HASHES = {
+    {0, 0xEF46DB3751D8E999L, 0x98B1582B0977E704L},
+    {1, 0xE934A84ADB052768L, 0x83A7B47F8D92D727L},
+    {3, 0xE5C7BB4533BC65DDL, 0x53897EFCB08E44C3L},
+    {4, 0xFFCED8604453CC1EL, 0xA40E4929EFDEACE0L},
+    {7, 0x14CC643F630C72D2L, 0x3EC2863AEAF013FDL},
+    {8, 0x884A173614B81B8DL, 0x9CDE1E0FBAC053A6L},
+    {9, 0x67D85784A7C78C5BL, 0x911E6AA5B083AF4AL},
+    {16, 0x44B6EF2FB84169F7L, 0x59BDDD550740A760L},
+    {17, 0x5603E60C527599B6L, 0xF3EDB6731A8B516AL},
+    {32, 0xCBF59C5116FF32B4L, 0x8809E1CA0BE25072L},
+    {33, 0x0C535D1ACAFB8EADL, 0x1C682D8884811FDBL},
+    {64, 0xF7C67301DB6713F0L, 0xCE47892C1E53BE8EL},
+    {65, 0xC31EB63B2AE4465BL, 0x084264909C7C641DL},
+    {128, 0x7A7FE14647B9AB92L, 0x8A1F71AB8D4AF2E1L},
+    {129, 0x0BA25DFD6E891FCFL, 0x2E7A1DC11BECE3F3L},
+    {240, 0x012947F0DA6A27B1L, 0xD86F83CB4C789265L},
+    {241, 0x8D643F23BF2808E1L, 0xB704A4381F93B603L},
+    {1024, 0x6F3914F18FE4DF57L, 0x4CB9B11211D5B1A0L},
+    {1025, 0x0614C40149130943L, 0x4A9B3FE0B3B27577L},
+    {2345, 0xCE6ADD73BBBE71B3L, 0xC697D74402D341D5L},
+  };
+
+  public void testKnownHashes() {
+    byte[] input = new byte[2345];
+    for (int i = 0; i < input.length; i++) {
+      input[i] = (byte) i;
+    }
+    for (long[] known : KNOWN_HASHES) {
+      int length = (int) known[0];
+      assertEquals(known[1], Hashing.xxHash64().hashBytes(input, 0, length).asLong());
+      assertEquals(known[2], Hashing.xxHash64(42).hashBytes(input, 0, length).asLong());
+      assertEquals(known[1], XxHash64HashFunction.hash(input, 0, length, 0));
+      ByteBuffer direct = ByteBuffer.allocateDirect(length);
+      direct.put(input, 0, length).flip();
+      assertEquals(known[2], Hashing.xxHash64(42).hashBytes(direct).asLong());
+    }
+  }
+
+  public void testDirectByteBufferMatchesBytes() {
+    Random random = new Random(0);
+    for (int length = 0; length < 1100; length++) {
+      byte[] bytes = new byte[length];
+      random.nextBytes(bytes);
+      long seed = random.nextLong();
+      HashFunction hashFunction = Hashing.xxHash64(seed);
+      int position = random.nextInt(8);
+      ByteBuffer direct = ByteBuffer.allocateDirect(position + length + 8);
+      direct.position(position);
+      direct.put(bytes).flip().position(position);
+      assertEquals(hashFunction.hashBytes(bytes), hashFunction.hashBytes(direct));
+      assertFalse(direct.hasRemaining());
+      assertEquals(
+          hashFunction.hashBytes(bytes),
+          hashFunction.hashBytes(ByteBuffer.wrap(bytes).asReadOnlyBuffer()));
+    }
+  }
+
+  public void testHashIntAndLong() {
+    Random random = new Random(0);
+    for (int i = 0; i < 100; i++) {
+      HashFunction hashFunction = Hashing.xxHash64(random.nextLong());
+      int intValue = random.nextInt();
+      long longValue = random.nextLong();
+      assertEquals(
+          hashFunction.newHasher().putInt(intValue).hash(), hashFunction.hashInt(intValue));
+      assertEquals(
+          hashFunction.newHasher().putLong(longValue).hash(), hashFunction.hashLong(longValue));
+    }
+  }
+
+  public void testInvariants() {
+    HashTestUtils.assertInvariants(Hashing.xxHash64());
+    HashTestUtils.assertHashByteBufferInvariants(Hashing.xxHash64());
+    HashTestUtils.assertInvariants(Hashing.xxHash64(42));
+  }
+
+  public void testSeeds() {
+    assertEquals(Hashing.xxHash64(), Hashing.xxHash64(0));
+    assertFalse(Hashing.xxHash64().equals(Hashing.xxHash64(1)));
+    assertEquals("Hashing.xxHash64(42)", Hashing.xxHash64(42).toString());
+  }
+}
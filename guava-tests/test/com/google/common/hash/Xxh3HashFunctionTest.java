@@ -0,0 +1,124 @@
+/*
+ * Copyright (C) 2019 The Guava Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.common.hash;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+import junit.framework.TestCase;
+
+/** Unit test for {@link Xxh3HashFunction}. */
+public class Xxh3HashFunctionTest extends TestCase {
+
+  /**
+   * The 64-bit XXH3 hashes of the bytes {@code 0, 1, 2, ...} for different input lengths, as
+   * {@code {length, hash with seed 0, hash with seed 42}}, computed by the reference
+   * implementation.
+   */
+  private static final long[][] KNOWN_HASHES = {
+    {0, 0x2D06800538D394C2L, 0xB029411FF43D84D2L},
+    {1, 0xC44BDFF4074EECDBL, 0x5CF10F10BF2DD245L},
+    {3, 0x5F4299FC161C9CBBL, 0x75881294BDBAF34CL},
+    {4, 0x60DAB036A58211F2L, 0xD8571BD6D6D17E42L},
+    {7, 0x0CD2084A62406B69L, 0xA1F4DAE48A8A738EL},
+    {8, 0x3A1C2D7C85AF88F8L, 0x533B2C25FA397F0BL},
+    {9, 0xE9612598145BB9DCL, 0xEC60D7913C5410F9L},
+    {16, 0x8355E3A6F61770DBL, 0x74891A34D3FFF0A9L},
+    {17, 0x9EF341A99DE37328L, 0x2668E3977D451C23L},
+    {32, 0x3523581FE96E4C05L, 0xEB1C9B8FB88F9BB6L},
+    {33, 0xE68C56BA88991E58L, 0x42FA7404A76A4F26L},
+    {64, 0x6187EB9089B0ED55L, 0x19611AC4647C1DFDL},
+    {65, 0x6928C76CE90422D0L, 0x3F5CDEF7B5F97E9FL},
+    {128, 0x85C6174C7FF4C46BL, 0xA7F863935F4A4028L},
+    {129, 0xEC7642B431BA3E5AL, 0x82B80BDD4AC29DB5L},
+    {240, 0x375A384D957FE865L, 0x4C023D24E6A84D31L},
+    {241, 0x02E8CD95421C6D02L, 0x26E3D358D4E0A1D6L},
+    {1024, 0xA870F92984398D22L, 0x2976C34B83200DF6L},
+    {1025, 0x78C86E91EE939852L, 0xD6DEE707E1B271B4L},
+    {2345, 0x94EA8284855AE819L, 0xCF4B5BE89136C21EL},
+  };
+
+  public void testKnownHashes() {
+    byte[] input = new byte[2345];
+    for (int i = 0; i < input.length; i++) {
+      input[i] = (byte) i;
+    }
+    for (long[] known : KNOWN_HASHES) {
+      int length = (int) known[0];
+      assertEquals(known[1], Hashing.xxh3_64().hashBytes(input, 0, length).asLong());
+      assertEquals(known[2], Hashing.xxh3_64(42).hashBytes(input, 0, length).asLong());
+      assertEquals(known[1], Xxh3HashFunction.hash(input, 0, length, 0));
+      ByteBuffer direct = ByteBuffer.allocateDirect(length);
+      direct.put(input, 0, length).flip();
+      assertEquals(known[2], Hashing.xxh3_64(42).hashBytes(direct).asLong());
+    }
+  }
+
+  public void testHashBytesLongerThanASecretBlock() {
+    // inputs longer than 1024 bytes are processed in blocks, scrambling the accumulators in between
+    byte[] input = new byte[100_000];
+    new Random(0).nextBytes(input);
+    HashFunction hashFunction = Hashing.xxh3_64(7);
+    ByteBuffer direct = ByteBuffer.allocateDirect(input.length);
+    direct.put(input).flip();
+    assertEquals(hashFunction.hashBytes(input), hashFunction.hashBytes(direct));
+    assertFalse(hashFunction.hashBytes(input).equals(hashFunction.hashBytes(input, 0, 99_999)));
+  }
+
+  public void testDirectByteBufferMatchesBytes() {
+    Random random = new Random(0);
+    for (int length = 0; length < 1100; length++) {
+      byte[] bytes = new byte[length];
+      random.nextBytes(bytes);
+      long seed = random.nextLong();
+      HashFunction hashFunction = Hashing.xxh3_64(seed);
+      int position = random.nextInt(8);
+      ByteBuffer direct = ByteBuffer.allocateDirect(position + length + 8);
+      direct.position(position);
+      direct.put(bytes).flip().position(position);
+      assertEquals(hashFunction.hashBytes(bytes), hashFunction.hashBytes(direct));
+      assertFalse(direct.hasRemaining());
+      assertEquals(
+          hashFunction.hashBytes(bytes),
+          hashFunction.hashBytes(ByteBuffer.wrap(bytes).asReadOnlyBuffer()));
+    }
+  }
+
+  public void testHashIntAndLong() {
+    Random random = new Random(0);
+    for (int i = 0; i < 100; i++) {
+      HashFunction hashFunction = Hashing.xxh3_64(random.nextLong());
+      int intValue = random.nextInt();
+      long longValue = random.nextLong();
+      assertEquals(
+          hashFunction.newHasher().putInt(intValue).hash(), hashFunction.hashInt(intValue));
+      assertEquals(
+          hashFunction.newHasher().putLong(longValue).hash(), hashFunction.hashLong(longValue));
+    }
+  }
+
+  public void testInvariants() {
+    HashTestUtils.assertInvariants(Hashing.xxh3_64());
+    HashTestUtils.assertHashByteBufferInvariants(Hashing.xxh3_64());
+    HashTestUtils.assertInvariants(Hashing.xxh3_64(42));
+  }
+
+  public void testSeeds() {
+    assertEquals(Hashing.xxh3_64(), Hashing.xxh3_64(0));
+    assertFalse(Hashing.xxh3_64().equals(Hashing.xxh3_64(1)));
+    assertEquals("Hashing.xxh3_64(42)", Hashing.xxh3_64(42).toString());
+  }
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright (C) 2019 The Guava Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.common.io;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.MoreExecutors;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.OutputStream;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.Executors;
+
+/** Tests for {@link AsyncByteSink}. */
+public class AsyncByteSinkTest extends IoTestCase {
+
+  private static final byte[] BYTES = newPreFilledByteArray(2 * AsyncIo.CHUNK_SIZE + 5);
+
+  private ListeningExecutorService executor;
+  private AsyncIo io;
+
+  @Override
+  protected void setUp() throws Exception {
+    super.setUp();
+    executor = MoreExecutors.listeningDecorator(Executors.newFixedThreadPool(2));
+    io = AsyncIo.create(executor);
+  }
+
+  @Override
+  protected void tearDown() {
+    executor.shutdownNow();
+    super.tearDown();
+  }
+
+  public void testWrite_file() throws Exception {
+    File file = createTempFile();
+    Files.write(new byte[BYTES.length + 10], file);
+    io.sink(Files.asByteSink(file)).write(BYTES).get();
+    assertThat(Files.toByteArray(file)).isEqualTo(BYTES);
+  }
+
+  public void testWrite_newFile() throws Exception {
+    File file = new File(getTempDir(), "new");
+    io.sink(Files.asByteSink(file)).write(BYTES).get();
+    assertThat(Files.toByteArray(file)).isEqualTo(BYTES);
+    file.delete();
+  }
+
+  public void testWrite_path() throws Exception {
+    File file = createTempFile();
+    Files.write(new byte[BYTES.length + 10], file);
+    io.sink(MoreFiles.asByteSink(file.toPath())).write(BYTES).get();
+    assertThat(Files.toByteArray(file)).isEqualTo(BYTES);
+  }
+
+  public void testWrite_empty() throws Exception {
+    File file = createTempFile();
+    Files.write(BYTES, file);
+    io.sink(Files.asByteSink(file)).write(new byte[0]).get();
+    assertEquals(0, file.length());
+  }
+
+  public void testWrite_append() throws Exception {
+    File file = createTempFile();
+    Files.write(new byte[] {1, 2, 3}, file);
+    io.sink(Files.asByteSink(file, FileWriteMode.APPEND)).write(BYTES).get();
+    io.sink(MoreFiles.asByteSink(file.toPath(), StandardOpenOption.APPEND)).write(BYTES).get();
+    assertEquals(3 + 2 * BYTES.length, file.length());
+  }
+
+  public void testWrite_notAFile() throws Exception {
+    final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    ByteSink sink =
+        new ByteSink() {
+          @Override
+          public OutputStream openStream() {
+            return out;
+          }
+        };
+    io.sink(sink).write(BYTES).get();
+    assertThat(out.toByteArray()).isEqualTo(BYTES);
+  }
+}
@@ -0,0 +1,144 @@
+/*
+ * Copyright (C) 2019 The Guava Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.common.io;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.hash.Hashing;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.MoreExecutors;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+
+/** Tests for {@link AsyncByteSource}. */
+public class AsyncByteSourceTest extends IoTestCase {
+
+  private static final byte[] BYTES = newRandomBytes(3 * AsyncIo.CHUNK_SIZE + 17);
+
+  private ListeningExecutorService executor;
+  private AsyncIo io;
+
+  @Override
+  protected void setUp() throws Exception {
+    super.setUp();
+    executor = MoreExecutors.listeningDecorator(Executors.newFixedThreadPool(2));
+    io = AsyncIo.create(executor);
+  }
+
+  @Override
+  protected void tearDown() {
+    executor.shutdownNow();
+    super.tearDown();
+  }
+
+  public void testRead_file() throws Exception {
+    File file = createTempFile();
+    Files.write(BYTES, file);
+    assertThat(io.source(Files.asByteSource(file)).read().get()).isEqualTo(BYTES);
+  }
+
+  public void testRead_path() throws Exception {
+    File file = createTempFile();
+    Files.write(BYTES, file);
+    assertThat(io.source(MoreFiles.asByteSource(file.toPath())).read().get()).isEqualTo(BYTES);
+  }
+
+  public void testRead_emptyFile() throws Exception {
+    File file = createTempFile();
+    assertEquals(0, io.source(Files.asByteSource(file)).read().get().length);
+  }
+
+  public void testRead_notAFile() throws Exception {
+    assertThat(io.source(ByteSource.wrap(BYTES)).read().get()).isEqualTo(BYTES);
+  }
+
+  public void testRead_missingFile() throws Exception {
+    File file = new File(getTempDir(), "missing");
+    try {
+      io.source(Files.asByteSource(file)).read().get();
+      fail();
+    } catch (ExecutionException expected) {
+      assertTrue(expected.getCause() instanceof FileNotFoundException);
+    }
+  }
+
+  public void testHash_file() throws Exception {
+    File file = createTempFile();
+    Files.write(BYTES, file);
+    assertEquals(
+        Hashing.sha256().hashBytes(BYTES),
+        io.source(Files.asByteSource(file)).hash(Hashing.sha256()).get());
+  }
+
+  public void testHash_notAFile() throws Exception {
+    assertEquals(
+        Hashing.sha256().hashBytes(BYTES),
+        io.source(ByteSource.wrap(BYTES)).hash(Hashing.sha256()).get());
+  }
+
+  public void testCopyTo_fileToFile() throws Exception {
+    File from = createTempFile();
+    File to = createTempFile();
+    Files.write(BYTES, from);
+    Files.write(new byte[BYTES.length * 2], to);
+    long copied = io.source(Files.asByteSource(from)).copyTo(io.sink(Files.asByteSink(to))).get();
+    assertEquals(BYTES.length, copied);
+    assertThat(Files.toByteArray(to)).isEqualTo(BYTES);
+  }
+
+  public void testCopyTo_fileToAppendingFile() throws Exception {
+    File from = createTempFile();
+    File to = createTempFile();
+    Files.write(BYTES, from);
+    Files.write(new byte[] {1, 2, 3}, to);
+    AsyncByteSink sink = io.sink(Files.asByteSink(to, FileWriteMode.APPEND));
+    assertEquals(BYTES.length, (long) io.source(Files.asByteSource(from)).copyTo(sink).get());
+    byte[] written = Files.toByteArray(to);
+    assertEquals(3 + BYTES.length, written.length);
+    assertEquals(BYTES[0], written[3]);
+  }
+
+  public void testCopyTo_missingFile() throws Exception {
+    File from = new File(getTempDir(), "missing");
+    File to = createTempFile();
+    try {
+      io.source(Files.asByteSource(from)).copyTo(io.sink(Files.asByteSink(to))).get();
+      fail();
+    } catch (ExecutionException expected) {
+      assertTrue(expected.getCause() instanceof FileNotFoundException);
+    }
+  }
+
+  public void testCopyTo_toDirectory() throws Exception {
+    File from = createTempFile();
+    Files.write(BYTES, from);
+    try {
+      io.source(Files.asByteSource(from)).copyTo(io.sink(Files.asByteSink(getTempDir()))).get();
+      fail();
+    } catch (ExecutionException expected) {
+      assertTrue(expected.getCause() instanceof IOException);
+    }
+  }
+
+  private static byte[] newRandomBytes(int size) {
+    byte[] bytes = new byte[size];
+    new Random(0).nextBytes(bytes);
+    return bytes;
+  }
+}
@@ -0,0 +1,151 @@
+/*
+ * Copyright (C) 2019 The Guava Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.common.io;
+
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.Uninterruptibles;
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import junit.framework.TestCase;
+
+/** Tests for {@link AsyncIo}. */
+public class AsyncIoTest extends TestCase {
+
+  private ListeningExecutorService executor;
+
+  @Override
+  protected void setUp() {
+    executor = MoreExecutors.listeningDecorator(Executors.newCachedThreadPool());
+  }
+
+  @Override
+  protected void tearDown() {
+    executor.shutdownNow();
+  }
+
+  public void testCreate_nonPositiveLimit() {
+    try {
+      AsyncIo.create(executor, 0);
+      fail();
+    } catch (IllegalArgumentException expected) {
+    }
+  }
+
+  public void testConcurrencyLimit() throws Exception {
+    AsyncIo io = AsyncIo.create(executor, 2);
+    BlockingSource source = new BlockingSource();
+    List<ListenableFuture<byte[]>> futures = new ArrayList<>();
+    for (int i = 0; i < 10; i++) {
+      futures.add(io.source(source).read());
+    }
+    source.awaitOpened(2);
+    Thread.sleep(100);
+    assertEquals(2, source.opened.get());
+
+    source.release.countDown();
+    assertEquals(10, Futures.allAsList(futures).get(10, TimeUnit.SECONDS).size());
+    assertEquals(10, source.opened.get());
+    assertEquals(2, source.maxOpen.get());
+  }
+
+  public void testCancelWhileWaiting() throws Exception {
+    AsyncIo io = AsyncIo.create(executor, 1);
+    BlockingSource source = new BlockingSource();
+    ListenableFuture<byte[]> first = io.source(source).read();
+    ListenableFuture<byte[]> second = io.source(source).read();
+    ListenableFuture<byte[]> third = io.source(source).read();
+    source.awaitOpened(1);
+    assertTrue(second.cancel(false));
+
+    source.release.countDown();
+    first.get(10, TimeUnit.SECONDS);
+    third.get(10, TimeUnit.SECONDS);
+    assertEquals(2, source.opened.get());
+  }
+
+  public void testFailureReleasesPermit() throws Exception {
+    AsyncIo io = AsyncIo.create(executor, 1);
+    ByteSource failing =
+        new ByteSource() {
+          @Override
+          public InputStream openStream() {
+            throw new IllegalStateException();
+          }
+        };
+    try {
+      io.source(failing).read().get(10, TimeUnit.SECONDS);
+      fail();
+    } catch (ExecutionException expected) {
+      assertTrue(expected.getCause() instanceof IllegalStateException);
+    }
+    byte[] read = io.source(ByteSource.wrap(new byte[3])).read().get(10, TimeUnit.SECONDS);
+    assertEquals(3, read.length);
+  }
+
+  public void testRejectedExecution() throws Exception {
+    AsyncIo io = AsyncIo.create(executor);
+    executor.shutdown();
+    try {
+      io.source(ByteSource.wrap(new byte[3])).read().get();
+      fail();
+    } catch (ExecutionException expected) {
+      assertTrue(expected.getCause() instanceof RejectedExecutionException);
+    }
+  }
+
+  /** A source whose streams can't be opened until {@link #release} is counted down. */
+  private static final class BlockingSource extends ByteSource {
+    final CountDownLatch release = new CountDownLatch(1);
+    final AtomicInteger opened = new AtomicInteger();
+    final AtomicInteger open = new AtomicInteger();
+    final AtomicInteger maxOpen = new AtomicInteger();
+
+    @Override
+    public InputStream openStream() {
+      opened.incrementAndGet();
+      int nowOpen = open.incrementAndGet();
+      while (true) {
+        int max = maxOpen.get();
+        if (nowOpen <= max || maxOpen.compareAndSet(max, nowOpen)) {
+          break;
+        }
+      }
+      Uninterruptibles.awaitUninterruptibly(release);
+      return new ByteArrayInputStream(new byte[1]) {
+        @Override
+        public void close() {
+          open.decrementAndGet();
+        }
+      };
+    }
+
+    void awaitOpened(int count) throws InterruptedException {
+      while (opened.get() < count) {
+        Thread.sleep(10);
+      }
+    }
+  }
+}
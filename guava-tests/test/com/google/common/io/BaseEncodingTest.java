@@ -24,6 +24,7 @@ import static com.google.common.truth.Truth.assertThat;
 import com.google.common.annotations.GwtCompatible;
 import com.google.common.annotations.GwtIncompatible;
 import com.google.common.base.Ascii;
+import com.google.common.base.CharMatcher;
 import com.google.common.base.Joiner;
 import com.google.common.base.Splitter;
 import com.google.common.collect.ImmutableList;
@@ -34,6 +35,10 @@ import java.io.OutputStream;
 import java.io.Reader;
 import java.io.StringReader;
 import java.io.StringWriter;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Random;
 import junit.framework.TestCase;
 import org.checkerframework.checker.nullness.qual.Nullable;
 
@@ -372,6 +377,11 @@ public class BaseEncodingTest extends TestCase {
 
   private static void testEncodes(BaseEncoding encoding, String decoded, String encoded) {
     assertThat(encoding.encode(decoded.getBytes(UTF_8))).isEqualTo(encoded);
+
+    byte[] bytes = decoded.getBytes(UTF_8);
+    byte[] target = new byte[encoding.maxEncodedSize(bytes.length) + 2];
+    int written = encoding.encodeTo(target, 1, bytes, 0, bytes.length);
+    assertThat(new String(target, 1, written, UTF_8)).isEqualTo(encoded);
   }
 
   private static void testEncodesWithOffset(
@@ -382,6 +392,11 @@ public class BaseEncodingTest extends TestCase {
   private static void testDecodes(BaseEncoding encoding, String encoded, String decoded) {
     assertTrue(encoding.canDecode(encoded));
     assertThat(encoding.decode(encoded)).isEqualTo(decoded.getBytes(UTF_8));
+
+    byte[] ascii = encoded.getBytes(UTF_8);
+    byte[] target = new byte[encoding.maxDecodedSize(ascii.length) + 2];
+    int written = encoding.decodeTo(target, 1, ascii, 0, ascii.length);
+    assertThat(new String(target, 1, written, UTF_8)).isEqualTo(decoded);
   }
 
   private static void assertFailsToDecode(BaseEncoding encoding, String cannotDecode) {
@@ -442,6 +457,23 @@ public class BaseEncodingTest extends TestCase {
         }
       }
     },
+    DECODE_ASCII {
+      @Override
+      void assertFailsToDecode(
+          BaseEncoding encoding, String cannotDecode, @Nullable String expectedMessage) {
+        byte[] encoded = cannotDecode.getBytes(UTF_8);
+        try {
+          encoding.decodeTo(
+              new byte[encoding.maxDecodedSize(encoded.length)], 0, encoded, 0, encoded.length);
+          fail("Expected IllegalArgumentException");
+        } catch (IllegalArgumentException expected) {
+          // non-ASCII characters are reported as the bytes that encode them
+          if (expectedMessage != null && CharMatcher.ascii().matchesAllOf(cannotDecode)) {
+            assertThat(expected).hasCauseThat().hasMessageThat().isEqualTo(expectedMessage);
+          }
+        }
+      }
+    },
     DECODE_CHECKED {
       @Override
       void assertFailsToDecode(
@@ -514,6 +546,128 @@ public class BaseEncodingTest extends TestCase {
     decodingStream.close();
   }
 
+  @GwtIncompatible // ByteBuffer
+  public void testByteBuffers() {
+    Random random = new Random(0);
+    for (BaseEncoding encoding : allEncodings()) {
+      for (int length = 0; length < 20; length++) {
+        byte[] bytes = new byte[length];
+        random.nextBytes(bytes);
+        String encoded = encoding.encode(bytes);
+        for (boolean direct : new boolean[] {false, true}) {
+          ByteBuffer input = allocate(length + 2, direct);
+          input.put((byte) 1).put(bytes).flip().position(1);
+          ByteBuffer target = allocate(encoding.maxEncodedSize(length) + 1, direct);
+          target.put((byte) 1);
+          int written = encoding.encodeTo(target, input);
+          assertEquals(encoded.length(), written);
+          assertFalse(input.hasRemaining());
+          assertEquals(written + 1, target.position());
+          target.flip().position(1);
+          byte[] ascii = new byte[written];
+          target.get(ascii);
+          assertEquals(encoded, new String(ascii, UTF_8));
+
+          ByteBuffer decoded = allocate(encoding.maxDecodedSize(written), direct);
+          assertEquals(length, encoding.decodeTo(decoded, ByteBuffer.wrap(ascii)));
+          decoded.flip();
+          byte[] roundTripped = new byte[decoded.remaining()];
+          decoded.get(roundTripped);
+          assertTrue(Arrays.equals(bytes, roundTripped));
+        }
+      }
+    }
+  }
+
+  @GwtIncompatible // ByteBuffer
+  private static ByteBuffer allocate(int capacity, boolean direct) {
+    return direct ? ByteBuffer.allocateDirect(capacity) : ByteBuffer.allocate(capacity);
+  }
+
+  @GwtIncompatible // ByteBuffer
+  public void testByteBuffers_errors() {
+    ByteBuffer tooSmall = ByteBuffer.allocate(3);
+    try {
+      base64().encodeTo(tooSmall, ByteBuffer.wrap(new byte[3]));
+      fail();
+    } catch (BufferOverflowException expected) {
+    }
+    assertEquals(0, tooSmall.position());
+
+    ByteBuffer invalid = ByteBuffer.wrap("AB*D".getBytes(UTF_8));
+    ByteBuffer target = ByteBuffer.allocate(3);
+    try {
+      base64().decodeTo(target, invalid);
+      fail();
+    } catch (IllegalArgumentException expected) {
+    }
+    assertEquals(0, invalid.position());
+    assertEquals(0, target.position());
+  }
+
+  public void testEncodeToBytes_outOfBounds() {
+    try {
+      base16().encodeTo(new byte[3], 0, new byte[2], 0, 2);
+      fail();
+    } catch (IndexOutOfBoundsException expected) {
+    }
+    try {
+      base16().decodeTo(new byte[3], 2, new byte[4], 0, 4);
+      fail();
+    } catch (IndexOutOfBoundsException expected) {
+    }
+  }
+
+  public void testBytes_nonAsciiPaddingOrSeparator() {
+    for (BaseEncoding encoding :
+        ImmutableList.of(
+            base64().withPadChar('\u2026'),
+            base16().withSeparator("\u2028", 4),
+            base32().withSeparator("-\u2028", 4).withPadChar('#'))) {
+      // the characters are still encoded correctly as a String
+      byte[] bytes = "foo".getBytes(UTF_8);
+      assertThat(encoding.decode(encoding.encode(bytes))).isEqualTo(bytes);
+      try {
+        encoding.encodeTo(new byte[100], 0, new byte[1], 0, 1);
+        fail();
+      } catch (IllegalStateException expected) {
+      }
+      try {
+        encoding.decodeTo(new byte[100], 0, new byte[0], 0, 0);
+        fail();
+      } catch (IllegalStateException expected) {
+      }
+    }
+  }
+
+  @GwtIncompatible // Writer
+  public void testStreamingEncodesInBatches() throws IOException {
+    Random random = new Random(0);
+    byte[] bytes = new byte[20000];
+    random.nextBytes(bytes);
+    for (BaseEncoding encoding : allEncodings()) {
+      StringWriter writer = new StringWriter();
+      OutputStream encodingStream = encoding.encodingStream(writer);
+      // write in pieces of varying lengths, so that chunks are split between writes
+      for (int off = 0; off < bytes.length; ) {
+        int len = Math.min(bytes.length - off, random.nextInt(7000));
+        encodingStream.write(bytes, off, len);
+        off += len;
+      }
+      encodingStream.close();
+      assertEquals(encoding.encode(bytes), writer.toString());
+    }
+  }
+
+  private static ImmutableList<BaseEncoding> allEncodings() {
+    ImmutableList.Builder<BaseEncoding> encodings = ImmutableList.builder();
+    for (BaseEncoding encoding :
+        ImmutableList.of(base64(), BaseEncoding.base64Url(), base32(), base32Hex(), base16())) {
+      encodings.add(encoding, encoding.omitPadding(), encoding.withSeparator("\n", 76));
+    }
+    return encodings.build();
+  }
+
   public void testToString() {
     assertEquals("BaseEncoding.base64().withPadChar('=')", base64().toString());
     assertEquals("BaseEncoding.base32Hex().omitPadding()", base32Hex().omitPadding().toString());
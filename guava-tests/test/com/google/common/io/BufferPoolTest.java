@@ -0,0 +1,156 @@
+/*
+ * Copyright (C) 2019 The Guava Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.common.io;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReference;
+import junit.framework.TestCase;
+
+/** Unit tests for {@link BufferPool}. */
+public class BufferPoolTest extends TestCase {
+
+  public void testByteArray_reused() {
+    byte[] buf = BufferPool.takeByteArray();
+    assertEquals(BufferPool.BYTE_BUFFER_SIZE, buf.length);
+    BufferPool.returnByteArray(buf);
+    assertSame(buf, BufferPool.takeByteArray());
+  }
+
+  public void testByteArray_zeroedOnReturn() {
+    byte[] buf = BufferPool.takeByteArray();
+    Arrays.fill(buf, (byte) 1);
+    BufferPool.returnByteArray(buf);
+    assertThat(BufferPool.takeByteArray()).isEqualTo(new byte[BufferPool.BYTE_BUFFER_SIZE]);
+  }
+
+  public void testByteArray_nestedTakesGetDistinctArrays() {
+    byte[] outer = BufferPool.takeByteArray();
+    byte[] inner = BufferPool.takeByteArray();
+    assertNotSame(outer, inner);
+    BufferPool.returnByteArray(inner);
+    BufferPool.returnByteArray(outer);
+  }
+
+  public void testByteArray_wrongSizeNotPooled() {
+    BufferPool.returnByteArray(BufferPool.takeByteArray());
+    byte[] grown = new byte[BufferPool.BYTE_BUFFER_SIZE * 2];
+    BufferPool.takeByteArray();
+    BufferPool.returnByteArray(grown);
+    assertEquals(BufferPool.BYTE_BUFFER_SIZE, BufferPool.takeByteArray().length);
+  }
+
+  public void testByteArray_notSharedBetweenThreads() throws Exception {
+    byte[] buf = BufferPool.takeByteArray();
+    BufferPool.returnByteArray(buf);
+    final AtomicReference<byte[]> other = new AtomicReference<>();
+    Thread thread =
+        new Thread() {
+          @Override
+          public void run() {
+            other.set(BufferPool.takeByteArray());
+          }
+        };
+    thread.start();
+    thread.join();
+    assertNotSame(buf, other.get());
+  }
+
+  public void testCharArray_reused() {
+    char[] buf = BufferPool.takeCharArray();
+    assertEquals(BufferPool.CHAR_BUFFER_SIZE, buf.length);
+    BufferPool.returnCharArray(buf);
+    assertSame(buf, BufferPool.takeCharArray());
+    assertNotSame(buf, BufferPool.takeCharArray());
+  }
+
+  public void testCharArray_zeroedOnReturn() {
+    char[] buf = BufferPool.takeCharArray();
+    Arrays.fill(buf, 'x');
+    BufferPool.returnCharArray(buf);
+    assertTrue(Arrays.equals(new char[BufferPool.CHAR_BUFFER_SIZE], BufferPool.takeCharArray()));
+  }
+
+  public void testDirectBuffer_returnedCleared() {
+    ByteBuffer buf = BufferPool.takeDirectBuffer();
+    assertTrue(buf.isDirect());
+    assertEquals(BufferPool.BYTE_BUFFER_SIZE, buf.capacity());
+    buf.put(buf.capacity() - 1, (byte) 1);
+    buf.put((byte) 1).flip();
+    BufferPool.returnDirectBuffer(buf);
+    ByteBuffer again = BufferPool.takeDirectBuffer();
+    assertSame(buf, again);
+    assertEquals(0, again.position());
+    assertEquals(again.capacity(), again.limit());
+    assertEquals(0, again.get(0));
+    assertEquals(0, again.get(again.capacity() - 1));
+  }
+
+  public void testCopy_streamsDontSeeEarlierCopies() throws IOException {
+    ByteStreams.copy(
+        new ByteArrayInputStream(newPreFilledByteArray(100)), new ByteArrayOutputStream());
+    final AtomicReference<byte[]> seen = new AtomicReference<>();
+    InputStream in =
+        new InputStream() {
+          @Override
+          public int read() {
+            throw new UnsupportedOperationException();
+          }
+
+          @Override
+          public int read(byte[] b, int off, int len) {
+            seen.set(Arrays.copyOfRange(b, off, off + len));
+            return -1;
+          }
+        };
+    ByteStreams.copy(in, new ByteArrayOutputStream());
+    assertThat(seen.get()).isEqualTo(new byte[seen.get().length]);
+  }
+
+  public void testCopy_nestedCopyFromOutputStream() throws IOException {
+    byte[] outerBytes = newPreFilledByteArray(3 * BufferPool.BYTE_BUFFER_SIZE + 5);
+    final byte[] innerBytes = newPreFilledByteArray(100);
+    final ByteArrayOutputStream innerOut = new ByteArrayOutputStream();
+    ByteArrayOutputStream outerOut = new ByteArrayOutputStream();
+    // copies another stream on every write, while the outer copy is using its buffer
+    OutputStream out =
+        new FilterOutputStream(outerOut) {
+          @Override
+          public void write(byte[] b, int off, int len) throws IOException {
+            ByteStreams.copy(new ByteArrayInputStream(innerBytes), innerOut);
+            out.write(b, off, len);
+          }
+        };
+    ByteStreams.copy(new ByteArrayInputStream(outerBytes), out);
+    assertThat(outerOut.toByteArray()).isEqualTo(outerBytes);
+    assertEquals(4 * innerBytes.length, innerOut.size());
+  }
+
+  private static byte[] newPreFilledByteArray(int size) {
+    byte[] array = new byte[size];
+    for (int i = 0; i < size; i++) {
+      array[i] = (byte) i;
+    }
+    return array;
+  }
+}
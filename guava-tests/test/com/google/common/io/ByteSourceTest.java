@@ -36,8 +36,11 @@ import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.EnumSet;
+import java.util.List;
 import junit.framework.TestSuite;
 
 /**
@@ -107,6 +110,15 @@ public class ByteSourceTest extends IoTestCase {
     assertArrayEquals(bytes, out.toByteArray());
   }
 
+  public void testCopyTo_channel() throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+    assertEquals(bytes.length, source.copyTo(Channels.newChannel(out)));
+    assertTrue(source.wasStreamOpened() && source.wasStreamClosed());
+
+    assertArrayEquals(bytes, out.toByteArray());
+  }
+
   public void testCopyTo_byteSink() throws IOException {
     TestByteSink sink = new TestByteSink();
 
@@ -171,6 +183,50 @@ public class ByteSourceTest extends IoTestCase {
     assertTrue(source.wasStreamOpened() && source.wasStreamClosed());
   }
 
+  public void testReadLines_withRecordProcessor() throws IOException {
+    TestByteSource byteSource = new TestByteSource("one\ntwo\r\nthree".getBytes(Charsets.US_ASCII));
+    RecordProcessor<List<String>> processor =
+        new RecordProcessor<List<String>>() {
+          final List<String> lines = new ArrayList<>();
+
+          @Override
+          public boolean processRecord(byte[] buf, int off, int len) {
+            lines.add(new String(buf, off, len, Charsets.US_ASCII));
+            return true;
+          }
+
+          @Override
+          public List<String> getResult() {
+            return lines;
+          }
+        };
+
+    assertEquals(ImmutableList.of("one", "two", "three"), byteSource.readLines(processor));
+    assertTrue(byteSource.wasStreamOpened() && byteSource.wasStreamClosed());
+  }
+
+  public void testReadRecords_stopsOnFalse() throws IOException {
+    TestByteSource byteSource = new TestByteSource("1,2,3".getBytes(Charsets.US_ASCII));
+    RecordProcessor<Integer> processor =
+        new RecordProcessor<Integer>() {
+          int calls;
+
+          @Override
+          public boolean processRecord(byte[] buf, int off, int len) {
+            calls++;
+            return false;
+          }
+
+          @Override
+          public Integer getResult() {
+            return calls;
+          }
+        };
+
+    assertEquals((Integer) 1, byteSource.readRecords((byte) ',', processor));
+    assertTrue(byteSource.wasStreamOpened() && byteSource.wasStreamClosed());
+  }
+
   public void testHash() throws IOException {
     ByteSource byteSource = new TestByteSource("hamburger\n".getBytes(Charsets.US_ASCII));
 
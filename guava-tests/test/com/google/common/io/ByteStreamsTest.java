@@ -19,6 +19,8 @@ package com.google.common.io;
 import static com.google.common.truth.Truth.assertThat;
 
 import com.google.common.base.Charsets;
+import com.google.common.base.Strings;
+import com.google.common.collect.ImmutableList;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.EOFException;
@@ -32,7 +34,10 @@ import java.io.RandomAccessFile;
 import java.nio.channels.Channels;
 import java.nio.channels.ReadableByteChannel;
 import java.nio.channels.WritableByteChannel;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
 
 /**
  * Unit test for {@link ByteStreams}.
@@ -540,6 +545,80 @@ public class ByteStreamsTest extends IoTestCase {
     }
   }
 
+  public void testReadLines_recordProcessor() throws IOException {
+    String text = "a\nbc\r\n\ndef\r\rg\r\n";
+    ImmutableList<String> expected = ImmutableList.of("a", "bc", "", "def", "", "g");
+    assertEquals(expected, ByteStreams.readLines(asciiStream(text), new RecordCollector()));
+    assertEquals(
+        ImmutableList.of("a", "b"),
+        ByteStreams.readLines(asciiStream("a\nb"), new RecordCollector()));
+    assertEquals(ImmutableList.of(), ByteStreams.readLines(asciiStream(""), new RecordCollector()));
+
+    // with \r\n split between reads
+    Random random = new Random(42);
+    for (int i = 0; i < 100; i++) {
+      InputStream in = new RandomAmountInputStream(asciiStream(text), random);
+      assertEquals(expected, ByteStreams.readLines(in, new RecordCollector()));
+    }
+  }
+
+  public void testReadRecords() throws IOException {
+    assertEquals(
+        ImmutableList.of("a", "", "b c", "d"),
+        ByteStreams.readRecords(asciiStream("a,,b c,d,"), (byte) ',', new RecordCollector()));
+    assertEquals(
+        ImmutableList.of("a\r", "b"),
+        ByteStreams.readRecords(asciiStream("a\r\tb"), (byte) '\t', new RecordCollector()));
+  }
+
+  public void testReadRecords_longerThanBuffer() throws IOException {
+    StringBuilder builder = new StringBuilder();
+    List<String> expected = new ArrayList<>();
+    for (int length : new int[] {10, 100_000, 5, 8192, 8191, 8193, 0, 3}) {
+      String record = Strings.repeat("x", length);
+      builder.append(record).append('\n');
+      expected.add(record);
+    }
+    Random random = new Random(42);
+    InputStream in = new RandomAmountInputStream(asciiStream(builder.toString()), random);
+    assertEquals(expected, ByteStreams.readRecords(in, (byte) '\n', new RecordCollector()));
+    in = new RandomAmountInputStream(asciiStream(builder.toString()), random);
+    assertEquals(expected, ByteStreams.readLines(in, new RecordCollector()));
+  }
+
+  public void testRecordProcessorStopEarly() throws IOException {
+    assertEquals(
+        ImmutableList.of("a", "b"),
+        ByteStreams.readLines(
+            asciiStream("a\nb\nc\n"),
+            new RecordCollector() {
+              @Override
+              public boolean processRecord(byte[] buf, int off, int len) {
+                super.processRecord(buf, off, len);
+                return records.size() < 2;
+              }
+            }));
+  }
+
+  private static InputStream asciiStream(String text) {
+    return new ByteArrayInputStream(text.getBytes(Charsets.US_ASCII));
+  }
+
+  private static class RecordCollector implements RecordProcessor<List<String>> {
+    final List<String> records = new ArrayList<>();
+
+    @Override
+    public boolean processRecord(byte[] buf, int off, int len) {
+      records.add(new String(buf, off, len, Charsets.US_ASCII));
+      return true;
+    }
+
+    @Override
+    public List<String> getResult() {
+      return records;
+    }
+  }
+
   public void testByteProcessorStopEarly() throws IOException {
     byte[] array = newPreFilledByteArray(10000);
     assertEquals(
@@ -0,0 +1,168 @@
+/*
+ * Copyright (C) 2019 The Guava Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.common.io;
+
+import static com.google.common.truth.Truth.assertThat;
+import static com.google.common.util.concurrent.MoreExecutors.directExecutor;
+
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.google.common.util.concurrent.RateLimiter;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.InflaterInputStream;
+import junit.framework.TestCase;
+
+/**
+ * Tests for the views returned by {@link ByteSource#gunzipped()}, {@link ByteSink#gzipped()} and
+ * the other transforms implemented in {@link ByteTransforms}.
+ */
+public class ByteTransformsTest extends TestCase {
+
+  private static final byte[] BYTES = IoTestCase.newPreFilledByteArray(100000);
+
+  public void testGzipped() throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    byteSink(out).gzipped().write(BYTES);
+    InputStream in = new GZIPInputStream(new ByteArrayInputStream(out.toByteArray()));
+    assertThat(ByteStreams.toByteArray(in)).isEqualTo(BYTES);
+  }
+
+  public void testGzipped_parallel() throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    byteSink(out).gzipped(directExecutor()).write(BYTES);
+    assertThat(ByteSource.wrap(out.toByteArray()).gunzipped().read()).isEqualTo(BYTES);
+  }
+
+  public void testGunzipped() throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    try (OutputStream gzip = new GZIPOutputStream(out)) {
+      gzip.write(BYTES);
+    }
+    ByteSource source = ByteSource.wrap(out.toByteArray()).gunzipped();
+    assertThat(source.read()).isEqualTo(BYTES);
+    assertEquals(BYTES.length, source.size());
+  }
+
+  public void testGunzipped_notGzip() throws IOException {
+    try {
+      ByteSource.wrap(BYTES).gunzipped().read();
+      fail();
+    } catch (IOException expected) {
+    }
+  }
+
+  public void testDeflated() throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    byteSink(out).deflated().write(BYTES);
+    InputStream in = new InflaterInputStream(new ByteArrayInputStream(out.toByteArray()));
+    assertThat(ByteStreams.toByteArray(in)).isEqualTo(BYTES);
+  }
+
+  public void testInflated() throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    try (OutputStream deflate = new DeflaterOutputStream(out)) {
+      deflate.write(BYTES);
+    }
+    assertThat(ByteSource.wrap(out.toByteArray()).inflated().read()).isEqualTo(BYTES);
+  }
+
+  public void testHashing_source() throws IOException {
+    Hasher hasher = Hashing.sha256().newHasher();
+    ByteSource source = ByteSource.wrap(BYTES).hashing(hasher);
+    assertEquals(BYTES.length, source.size());
+    try (InputStream in = source.openStream()) {
+      assertEquals(BYTES[0], in.read());
+      ByteStreams.skipFully(in, 1000);
+      ByteStreams.exhaust(in);
+    }
+    assertEquals(Hashing.sha256().hashBytes(BYTES), hasher.hash());
+  }
+
+  public void testHashing_sink() throws IOException {
+    Hasher hasher = Hashing.sha256().newHasher();
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    try (OutputStream stream = byteSink(out).hashing(hasher).openStream()) {
+      stream.write(BYTES[0]);
+      stream.write(BYTES, 1, BYTES.length - 1);
+    }
+    assertEquals(Hashing.sha256().hashBytes(BYTES), hasher.hash());
+    assertThat(out.toByteArray()).isEqualTo(BYTES);
+  }
+
+  public void testCounting() throws IOException {
+    AtomicLong read = new AtomicLong();
+    AtomicLong written = new AtomicLong();
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    ByteSource.wrap(BYTES).counting(read).copyTo(byteSink(out).gzipped().counting(written));
+    assertEquals(BYTES.length, read.get());
+    assertEquals(BYTES.length, written.get());
+    assertTrue(out.size() < BYTES.length);
+  }
+
+  public void testCounting_sizeOfUnknownSizeSourceIsNotCounted() throws IOException {
+    ByteSource unknownSize =
+        new ByteSource() {
+          @Override
+          public InputStream openStream() {
+            return new ByteArrayInputStream(BYTES);
+          }
+        };
+    AtomicLong read = new AtomicLong();
+    ByteSource source = unknownSize.counting(read);
+    assertFalse(source.isEmpty());
+    assertEquals(BYTES.length, source.size());
+    assertEquals(0, read.get());
+  }
+
+  public void testPipeline() throws IOException {
+    Hasher uncompressedHasher = Hashing.crc32c().newHasher();
+    AtomicLong compressedCount = new AtomicLong();
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    ByteSource.wrap(BYTES)
+        .hashing(uncompressedHasher)
+        .copyTo(byteSink(out).counting(compressedCount).gzipped());
+    assertEquals(Hashing.crc32c().hashBytes(BYTES), uncompressedHasher.hash());
+    assertEquals(out.size(), compressedCount.get());
+    assertThat(ByteSource.wrap(out.toByteArray()).gunzipped().read()).isEqualTo(BYTES);
+  }
+
+  public void testRateLimited() throws IOException {
+    RateLimiter rateLimiter = RateLimiter.create(1e9);
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    ByteSource.wrap(BYTES).rateLimited(rateLimiter).copyTo(byteSink(out).rateLimited(rateLimiter));
+    assertThat(out.toByteArray()).isEqualTo(BYTES);
+  }
+
+  public void testToString() {
+    assertEquals("ByteSource.empty().gunzipped()", ByteSource.empty().gunzipped().toString());
+  }
+
+  private static ByteSink byteSink(final OutputStream out) {
+    return new ByteSink() {
+      @Override
+      public OutputStream openStream() {
+        return out;
+      }
+    };
+  }
+}
@@ -106,6 +106,19 @@ public class CharSourceTest extends IoTestCase {
     assertEquals(SPLIT_LINES, lines);
   }
 
+  public void testParallelLines() throws IOException {
+    source = new TestCharSource(LINES);
+
+    ImmutableList<String> lines;
+    try (Stream<String> linesStream = source.parallelLines()) {
+      assertTrue(linesStream.isParallel());
+      lines = linesStream.collect(toImmutableList());
+    }
+
+    assertTrue(source.wasStreamClosed());
+    assertEquals(SPLIT_LINES, lines);
+  }
+
   public void testCopyTo_appendable() throws IOException {
     StringBuilder builder = new StringBuilder();
 
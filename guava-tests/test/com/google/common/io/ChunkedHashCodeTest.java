@@ -0,0 +1,239 @@
+/*
+ * Copyright (C) 2019 The Guava Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.common.io;
+
+import static com.google.common.truth.Truth.assertThat;
+import static com.google.common.util.concurrent.MoreExecutors.directExecutor;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import junit.framework.TestCase;
+
+/** Tests for {@link ChunkedHashCode}. */
+public class ChunkedHashCodeTest extends TestCase {
+
+  private static final HashFunction HASH_FUNCTION = Hashing.murmur3_128();
+
+  private ExecutorService executor;
+
+  @Override
+  protected void setUp() {
+    executor = Executors.newFixedThreadPool(4);
+  }
+
+  @Override
+  protected void tearDown() {
+    executor.shutdown();
+  }
+
+  public void testHash_singleChunk() throws IOException {
+    byte[] bytes = randomBytes(100);
+    ChunkedHashCode hashCode =
+        ChunkedHashCode.hash(ByteSource.wrap(bytes), HASH_FUNCTION, 100, executor);
+    assertEquals(100, hashCode.size());
+    assertEquals(ImmutableList.of(HASH_FUNCTION.hashBytes(bytes)), hashCode.chunkHashCodes());
+    assertEquals(HASH_FUNCTION.hashBytes(bytes), hashCode.root());
+  }
+
+  public void testHash_empty() throws IOException {
+    ChunkedHashCode hashCode =
+        ChunkedHashCode.hash(ByteSource.empty(), HASH_FUNCTION, 100, executor);
+    assertEquals(0, hashCode.size());
+    assertEquals(HASH_FUNCTION.hashBytes(new byte[0]), hashCode.root());
+  }
+
+  public void testHash_chunks() throws IOException {
+    byte[] bytes = randomBytes(450);
+    ChunkedHashCode hashCode =
+        ChunkedHashCode.hash(ByteSource.wrap(bytes), HASH_FUNCTION, 100, executor);
+    HashCode[] chunks = new HashCode[5];
+    for (int i = 0; i < chunks.length; i++) {
+      chunks[i] = HASH_FUNCTION.hashBytes(bytes, i * 100, Math.min(100, bytes.length - i * 100));
+    }
+    assertEquals(Arrays.asList(chunks), hashCode.chunkHashCodes());
+    HashCode left =
+        Hashing.combineOrdered(
+            ImmutableList.of(
+                Hashing.combineOrdered(ImmutableList.of(chunks[0], chunks[1])),
+                Hashing.combineOrdered(ImmutableList.of(chunks[2], chunks[3]))));
+    assertEquals(Hashing.combineOrdered(ImmutableList.of(left, chunks[4])), hashCode.root());
+    assertEquals(
+        hashCode, ChunkedHashCode.hash(ByteSource.wrap(bytes), HASH_FUNCTION, 100, directExecutor()));
+  }
+
+  public void testHash_manyChunks() throws IOException {
+    byte[] bytes = randomBytes(1_000_000);
+    ChunkedHashCode hashCode =
+        ChunkedHashCode.hash(ByteSource.wrap(bytes), Hashing.sha256(), 4096, executor);
+    assertEquals(245, hashCode.chunkHashCodes().size());
+    assertEquals(
+        hashCode,
+        ChunkedHashCode.hash(ByteSource.wrap(bytes), Hashing.sha256(), 4096, directExecutor()));
+    assertThat(hashCode.root())
+        .isNotEqualTo(
+            ChunkedHashCode.hash(ByteSource.wrap(bytes), Hashing.sha256(), 4095, executor).root());
+  }
+
+  public void testHash_path() throws IOException {
+    byte[] bytes = randomBytes(10_000);
+    File file = File.createTempFile("ChunkedHashCodeTest", ".bin");
+    try {
+      Files.write(bytes, file);
+      ChunkedHashCode hashCode =
+          ChunkedHashCode.hash(file.toPath(), HASH_FUNCTION, 1000, executor);
+      assertEquals(
+          ChunkedHashCode.hash(ByteSource.wrap(bytes), HASH_FUNCTION, 1000, executor), hashCode);
+
+      bytes[4321]++;
+      Files.write(bytes, file);
+      ChunkedHashCode rehashed = hashCode.rehash(file.toPath(), ImmutableList.of(4), executor);
+      assertEquals(
+          ChunkedHashCode.hash(ByteSource.wrap(bytes), HASH_FUNCTION, 1000, executor), rehashed);
+    } finally {
+      file.delete();
+    }
+  }
+
+  public void testRehash_readsOnlyChangedChunks() throws IOException {
+    byte[] bytes = randomBytes(1000);
+    CountingByteSource source = new CountingByteSource(bytes);
+    ChunkedHashCode hashCode = ChunkedHashCode.hash(source, HASH_FUNCTION, 100, executor);
+    assertEquals(10, source.streamsOpened.get());
+
+    bytes[250]++;
+    bytes[720]++;
+    source.streamsOpened.set(0);
+    ChunkedHashCode rehashed = hashCode.rehash(source, ImmutableList.of(2, 7), executor);
+    assertEquals(2, source.streamsOpened.get());
+    ChunkedHashCode expected = ChunkedHashCode.hash(source, HASH_FUNCTION, 100, executor);
+    assertEquals(expected, rehashed);
+    assertEquals(ImmutableSet.of(2, 7), hashCode.changedChunks(expected));
+
+    // chunks that are not listed as changed are not read again
+    bytes[10]++;
+    ChunkedHashCode stale = expected.rehash(source, ImmutableList.<Integer>of(), executor);
+    assertEquals(expected, stale);
+  }
+
+  public void testRehash_sizeChanged() throws IOException {
+    byte[] bytes = randomBytes(1050);
+    ChunkedHashCode hashCode =
+        ChunkedHashCode.hash(ByteSource.wrap(bytes), HASH_FUNCTION, 100, executor);
+
+    byte[] grown = Arrays.copyOf(bytes, 1234);
+    ChunkedHashCode rehashed =
+        hashCode.rehash(ByteSource.wrap(grown), ImmutableList.<Integer>of(), executor);
+    assertEquals(
+        ChunkedHashCode.hash(ByteSource.wrap(grown), HASH_FUNCTION, 100, executor), rehashed);
+    assertEquals(ImmutableSet.of(10, 11, 12), hashCode.changedChunks(rehashed));
+
+    byte[] shrunk = Arrays.copyOf(bytes, 777);
+    rehashed = hashCode.rehash(ByteSource.wrap(shrunk), ImmutableList.of(3, 9, 10), executor);
+    assertEquals(
+        ChunkedHashCode.hash(ByteSource.wrap(shrunk), HASH_FUNCTION, 100, executor), rehashed);
+    assertEquals(ImmutableSet.of(7, 8, 9, 10), hashCode.changedChunks(rehashed));
+  }
+
+  public void testChangedChunks_incompatible() throws IOException {
+    ByteSource source = ByteSource.wrap(randomBytes(1000));
+    ChunkedHashCode hashCode = ChunkedHashCode.hash(source, HASH_FUNCTION, 100, executor);
+    assertThat(hashCode.changedChunks(hashCode)).isEmpty();
+    try {
+      hashCode.changedChunks(ChunkedHashCode.hash(source, HASH_FUNCTION, 200, executor));
+      fail();
+    } catch (IllegalArgumentException expected) {
+    }
+    try {
+      hashCode.changedChunks(ChunkedHashCode.hash(source, Hashing.sha256(), 100, executor));
+      fail();
+    } catch (IllegalArgumentException expected) {
+    }
+  }
+
+  public void testHash_failure() {
+    ByteSource source =
+        new ByteSource() {
+          @Override
+          public InputStream openStream() throws IOException {
+            throw new IOException("boom");
+          }
+
+          @Override
+          public long size() {
+            return 1000;
+          }
+        };
+    try {
+      ChunkedHashCode.hash(source, HASH_FUNCTION, 100, executor);
+      fail();
+    } catch (IOException expected) {
+      assertThat(expected).hasMessageThat().isEqualTo("boom");
+    }
+  }
+
+  public void testPreconditions() throws IOException {
+    ByteSource source = ByteSource.wrap(randomBytes(10));
+    try {
+      ChunkedHashCode.hash(source, HASH_FUNCTION, 0, executor);
+      fail();
+    } catch (IllegalArgumentException expected) {
+    }
+    ChunkedHashCode hashCode = ChunkedHashCode.hash(source, HASH_FUNCTION, 5, executor);
+    try {
+      hashCode.rehash(source, ImmutableList.of(-1), executor);
+      fail();
+    } catch (IllegalArgumentException expected) {
+    }
+  }
+
+  private static byte[] randomBytes(int size) {
+    byte[] bytes = new byte[size];
+    new Random(size).nextBytes(bytes);
+    return bytes;
+  }
+
+  private static final class CountingByteSource extends ByteSource {
+    final AtomicInteger streamsOpened = new AtomicInteger();
+    final byte[] bytes;
+
+    CountingByteSource(byte[] bytes) {
+      this.bytes = bytes;
+    }
+
+    @Override
+    public InputStream openStream() throws IOException {
+      streamsOpened.incrementAndGet();
+      return ByteSource.wrap(bytes).openStream();
+    }
+
+    @Override
+    public long size() {
+      return bytes.length;
+    }
+  }
+}
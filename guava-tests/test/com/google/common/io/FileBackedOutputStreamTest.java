@@ -16,11 +16,20 @@
 
 package com.google.common.io;
 
+import static com.google.common.util.concurrent.MoreExecutors.directExecutor;
+
 import com.google.common.testing.GcFinalization;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.OutputStream;
+import java.util.ArrayDeque;
 import java.util.Arrays;
+import java.util.Queue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * Unit tests for {@link FileBackedOutputStream}.
@@ -160,4 +169,165 @@ public class FileBackedOutputStreamTest extends IoTestCase {
 
     out.close();
   }
+
+  public void testTiered() throws Exception {
+    int chunk = SpillingOutputStream.CHUNK_SIZE;
+    testTiered(0, 0, 100);
+    testTiered(100, 0, 100);
+    testTiered(1000, 0, 100);
+    testTiered(100, 0, 10 * chunk + 17);
+    testTiered(chunk + 100, 4 * chunk, 10 * chunk + 17);
+    testTiered(3 * chunk, 0, 3 * chunk);
+  }
+
+  private void testTiered(int heapThreshold, long directThreshold, int dataSize)
+      throws IOException {
+    byte[] data = newPreFilledByteArray(dataSize);
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      for (boolean singleByte : new boolean[] {true, false}) {
+        FileBackedOutputStream out =
+            new FileBackedOutputStream(heapThreshold, directThreshold, executor);
+        ByteSource source = out.asByteSource();
+        write(out, data, 0, dataSize, singleByte);
+        out.close();
+        assertTrue(Arrays.equals(data, source.read()));
+
+        File file = out.getFile();
+        out.reset();
+        if (file != null) {
+          assertFalse(file.exists());
+        }
+        assertTrue(Arrays.equals(new byte[0], source.read()));
+      }
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  public void testTiered_spillsInBackground() throws Exception {
+    int chunk = SpillingOutputStream.CHUNK_SIZE;
+    byte[] data = newPreFilledByteArray(100 + 2 * chunk);
+    QueueExecutor executor = new QueueExecutor();
+    FileBackedOutputStream out = new FileBackedOutputStream(100, 0, executor);
+    ByteSource source = out.asByteSource();
+
+    // the second direct buffer starts the spill, but doesn't wait for it
+    out.write(data);
+    assertNull(out.getFile());
+    assertEquals(1, executor.tasks.size());
+    InputStream before = source.openStream();
+
+    executor.runAll();
+    File file = out.getFile();
+    assertEquals(chunk, file.length());
+
+    // streams read the spilled chunk from the file, including those opened before the spill
+    assertTrue(Arrays.equals(data, ByteStreams.toByteArray(before)));
+    assertTrue(Arrays.equals(data, source.read()));
+    assertEquals((byte) (chunk + 17), source.slice(chunk + 17, chunk).read()[0]);
+
+    out.reset();
+    assertFalse(file.exists());
+  }
+
+  public void testTiered_reusesSpilledBuffers() throws Exception {
+    int chunk = SpillingOutputStream.CHUNK_SIZE;
+    byte[] data = newPreFilledByteArray(100 + 6 * chunk);
+    QueueExecutor executor = new QueueExecutor();
+    FileBackedOutputStream out = new FileBackedOutputStream(100, 0, executor);
+    ByteSource source = out.asByteSource();
+    out.write(data, 0, 100 + 2 * chunk);
+    InputStream before = source.openStream();
+    executor.runAll();
+
+    // the buffer of the spilled chunk now holds later data, which mustn't be read in its place
+    for (int off = 100 + 2 * chunk; off < data.length; off += chunk) {
+      out.write(data, off, chunk);
+      executor.runAll();
+    }
+    out.close();
+    assertTrue(
+        Arrays.equals(Arrays.copyOf(data, 100 + 2 * chunk), ByteStreams.toByteArray(before)));
+    assertTrue(Arrays.equals(data, source.read()));
+
+    // streams opened before a reset don't read the reused buffers either
+    InputStream stale = source.openStream();
+    out.reset();
+    out.write(new byte[100 + 2 * chunk]);
+    stale.skip(200);
+    try {
+      ByteStreams.exhaust(stale);
+      fail("expected exception");
+    } catch (IOException expected) {
+    }
+    out.close();
+    executor.runAll();
+    out.reset();
+  }
+
+  public void testTiered_readWhileWriting() throws Exception {
+    int chunk = SpillingOutputStream.CHUNK_SIZE;
+    byte[] data = newPreFilledByteArray(20 * chunk);
+    FileBackedOutputStream out = new FileBackedOutputStream(chunk, 0, directExecutor());
+    ByteSource source = out.asByteSource();
+    for (int i = 0; i < 20; i++) {
+      out.write(data, i * chunk, chunk);
+      InputStream in = source.openStream();
+      assertTrue(ByteSource.wrap(data).slice(0, (i + 1) * chunk).contentEquals(source));
+      assertEquals((i + 1) * chunk, ByteStreams.exhaust(in));
+    }
+    out.close();
+    out.reset();
+  }
+
+  public void testTiered_writeErrorAfterClose() throws Exception {
+    FileBackedOutputStream out = new FileBackedOutputStream(50, 0, directExecutor());
+    out.write(newPreFilledByteArray(100));
+    out.close();
+    try {
+      out.write(42);
+      fail("expected exception");
+    } catch (IOException expected) {
+    }
+    assertEquals(100, out.asByteSource().size());
+    out.reset();
+    out.write(42);
+    assertEquals(1, out.asByteSource().size());
+  }
+
+  public void testTiered_spillFailure() throws Exception {
+    int chunk = SpillingOutputStream.CHUNK_SIZE;
+    Executor rejecting =
+        new Executor() {
+          @Override
+          public void execute(Runnable command) {
+            throw new RejectedExecutionException();
+          }
+        };
+    FileBackedOutputStream out = new FileBackedOutputStream(0, 0, rejecting);
+    out.write(new byte[chunk]);
+    try {
+      out.write(new byte[chunk]);
+      fail("expected exception");
+    } catch (IOException expected) {
+    }
+    out.reset();
+  }
+
+  /** An executor that runs its tasks when it's told to. */
+  private static final class QueueExecutor implements Executor {
+    final Queue<Runnable> tasks = new ArrayDeque<>();
+
+    @Override
+    public void execute(Runnable command) {
+      tasks.add(command);
+    }
+
+    void runAll() {
+      while (!tasks.isEmpty()) {
+        tasks.remove().run();
+      }
+    }
+  }
 }
@@ -16,6 +16,7 @@
 
 package com.google.common.io;
 
+import static com.google.common.io.FileWriteMode.APPEND;
 import static com.google.common.io.Files.touch;
 import static com.google.common.truth.Truth.assertThat;
 
@@ -28,16 +29,19 @@ import java.io.BufferedWriter;
 import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.PrintWriter;
 import java.io.RandomAccessFile;
 import java.nio.ByteBuffer;
 import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
 import java.nio.channels.FileChannel.MapMode;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Random;
+import java.util.stream.Stream;
 import junit.framework.TestSuite;
 
 /**
@@ -55,6 +59,11 @@ public class FilesTest extends IoTestCase {
     suite.addTest(
         ByteSourceTester.tests(
             "Files.asByteSource[File]", SourceSinkFactories.fileByteSourceFactory(), true));
+    suite.addTest(
+        ByteSourceTester.tests(
+            "Files.mapAsByteSource[File]",
+            SourceSinkFactories.mappedFileByteSourceFactory(),
+            true));
     suite.addTest(
         ByteSinkTester.tests("Files.asByteSink[File]", SourceSinkFactories.fileByteSinkFactory()));
     suite.addTest(
@@ -166,6 +175,50 @@ public class FilesTest extends IoTestCase {
     assertEquals(I18N, Files.toString(temp, Charsets.UTF_8));
   }
 
+  public void testCopyFile_large() throws IOException {
+    // larger than the chunks that ByteStreams.copy transfers at a time
+    byte[] bytes = newPreFilledByteArray(3 * 512 * 1024 + 17);
+    File from = createTempFile();
+    File to = createTempFile();
+    Files.write(bytes, from);
+    Files.copy(from, to);
+    assertTrue(Arrays.equals(bytes, Files.toByteArray(to)));
+
+    assertEquals(bytes.length, Files.asByteSource(from).copyTo(Files.asByteSink(to, APPEND)));
+    assertTrue(Arrays.equals(Bytes.concat(bytes, bytes), Files.toByteArray(to)));
+  }
+
+  public void testCopyFile_empty() throws IOException {
+    File from = createTempFile();
+    File to = createTempFile();
+    Files.write(new byte[] {1, 2, 3}, to);
+    assertEquals(0, Files.asByteSource(from).copyTo(Files.asByteSink(to)));
+    assertEquals(0, to.length());
+  }
+
+  public void testCopyToFileOutputStream() throws IOException {
+    byte[] bytes = newPreFilledByteArray(1000);
+    File from = createTempFile();
+    File to = createTempFile();
+    Files.write(bytes, from);
+    try (FileOutputStream out = new FileOutputStream(to)) {
+      out.write(1);
+      assertEquals(bytes.length, Files.asByteSource(from).copyTo(out));
+      out.write(2);
+    }
+    byte[] expected = Bytes.concat(new byte[] {1}, bytes, new byte[] {2});
+    assertTrue(Arrays.equals(expected, Files.toByteArray(to)));
+  }
+
+  public void testCopyToChannel() throws IOException {
+    byte[] bytes = newPreFilledByteArray(1000);
+    File from = createTempFile();
+    Files.write(bytes, from);
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    assertEquals(bytes.length, Files.asByteSource(from).copyTo(Channels.newChannel(out)));
+    assertTrue(Arrays.equals(bytes, out.toByteArray()));
+  }
+
   public void testCopyEqualFiles() throws IOException {
     File temp1 = createTempFile();
     File temp2 = file(temp1.getPath());
@@ -461,6 +514,39 @@ public class FilesTest extends IoTestCase {
     assertTrue(temp.delete());
   }
 
+  public void testParallelLines() throws IOException {
+    File temp = createTempFile();
+    try (Stream<String> lines = Files.asCharSource(temp, Charsets.UTF_8).parallelLines()) {
+      assertEquals(0, lines.count());
+    }
+
+    // large enough to be split, with all kinds of line terminators and multi-byte characters
+    Random random = new Random(42);
+    String[] terminators = {"\n", "\r", "\r\n", "\n\n", "\r\r\n"};
+    StringBuilder builder = new StringBuilder();
+    while (builder.length() < 1_000_000) {
+      builder.append(I18N, 0, random.nextInt(I18N.length()));
+      builder.append(terminators[random.nextInt(terminators.length)]);
+    }
+    builder.append("no terminator");
+    Files.asCharSink(temp, Charsets.UTF_8).write(builder);
+
+    for (CharSource source :
+        ImmutableList.of(
+            Files.asCharSource(temp, Charsets.UTF_8),
+            MoreFiles.asCharSource(temp.toPath(), Charsets.UTF_8))) {
+      ImmutableList<String> expected = source.readLines();
+      try (Stream<String> lines = source.parallelLines()) {
+        assertTrue(lines.isParallel());
+        assertEquals(expected, lines.collect(ImmutableList.toImmutableList()));
+      }
+      try (Stream<String> lines = source.parallelLines()) {
+        assertEquals(expected.size(), lines.unordered().count());
+      }
+    }
+    assertTrue(temp.delete());
+  }
+
   public void testReadLines_withLineProcessor() throws IOException {
     File temp = createTempFile();
     LineProcessor<List<String>> collect =
@@ -0,0 +1,148 @@
+/*
+ * Copyright (C) 2019 The Guava Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.common.io;
+
+import static org.junit.Assert.assertArrayEquals;
+
+import com.google.common.hash.Hashing;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.channels.Channels;
+import java.util.Arrays;
+
+/**
+ * Tests for {@link MappedByteSource}, mapping files in regions small enough that reads cross from
+ * one region to the next. {@link Files#mapAsByteSource} is tested by {@link FilesTest}.
+ */
+public class MappedByteSourceTest extends IoTestCase {
+  private static final int REGION_SIZE = 7;
+
+  private byte[] bytes;
+  private MappedByteSource source;
+
+  @Override
+  protected void setUp() throws Exception {
+    super.setUp();
+    bytes = newPreFilledByteArray(100);
+    File file = createTempFile();
+    Files.write(bytes, file);
+    source = map(file);
+  }
+
+  private static MappedByteSource map(File file) throws IOException {
+    try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+      return MappedByteSource.map(raf.getChannel(), REGION_SIZE, "mapped");
+    }
+  }
+
+  public void testRead() throws IOException {
+    assertEquals(100, source.size());
+    assertArrayEquals(bytes, source.read());
+    assertArrayEquals(bytes, ByteStreams.toByteArray(source.openStream()));
+  }
+
+  public void testSlice() throws IOException {
+    for (int offset = 0; offset <= 20; offset++) {
+      for (int length = 0; length <= 20; length++) {
+        ByteSource slice = source.slice(offset, length);
+        byte[] expected = Arrays.copyOfRange(bytes, offset, offset + length);
+        assertArrayEquals(expected, slice.read());
+        assertArrayEquals(expected, slice.slice(0, length).read());
+        assertEquals(length, slice.size());
+      }
+    }
+    assertArrayEquals(Arrays.copyOfRange(bytes, 95, 100), source.slice(95, 10).read());
+    assertTrue(source.slice(100, 10).isEmpty());
+    assertEquals("mapped.slice(3, 4).slice(1, 2)", source.slice(3, 4).slice(1, 2).toString());
+  }
+
+  public void testStream() throws IOException {
+    InputStream in = source.slice(5, 20).openStream();
+    assertEquals(5, in.read());
+    assertEquals(10, in.skip(10));
+    in.mark(0);
+    byte[] buf = new byte[20];
+    assertEquals(5, in.read(buf, 0, 20)); // stops at the end of the region
+    assertEquals(16, buf[0]);
+    assertEquals(4, ByteStreams.read(in, buf, 5, 15));
+    assertEquals(-1, in.read());
+    in.reset();
+    assertEquals(16, in.read());
+    assertEquals(8, in.available());
+  }
+
+  public void testReadWithProcessor() throws IOException {
+    final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    source.slice(3, 50).read(
+        new ByteProcessor<Void>() {
+          @Override
+          public boolean processBytes(byte[] buf, int off, int len) {
+            out.write(buf, off, len);
+            return true;
+          }
+
+          @Override
+          public Void getResult() {
+            return null;
+          }
+        });
+    assertArrayEquals(Arrays.copyOfRange(bytes, 3, 53), out.toByteArray());
+  }
+
+  public void testCopyTo() throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    assertEquals(30, source.slice(10, 30).copyTo(out));
+    assertArrayEquals(Arrays.copyOfRange(bytes, 10, 40), out.toByteArray());
+
+    out.reset();
+    assertEquals(30, source.slice(10, 30).copyTo(Channels.newChannel(out)));
+    assertArrayEquals(Arrays.copyOfRange(bytes, 10, 40), out.toByteArray());
+  }
+
+  public void testHash() throws IOException {
+    assertEquals(Hashing.sha256().hashBytes(bytes), source.hash(Hashing.sha256()));
+    assertEquals(
+        Hashing.crc32().hashBytes(bytes, 9, 40), source.slice(9, 40).hash(Hashing.crc32()));
+  }
+
+  public void testContentEquals() throws IOException {
+    File copy = createTempFile();
+    Files.write(bytes, copy);
+    MappedByteSource other = map(copy);
+    assertTrue(source.contentEquals(other));
+    assertTrue(source.slice(3, 40).contentEquals(other.slice(3, 40)));
+    assertTrue(source.slice(3, 40).contentEquals(ByteSource.wrap(bytes).slice(3, 40)));
+
+    // the same data at different offsets in the regions of the two sources
+    File shifted = createTempFile();
+    Files.write(Arrays.copyOfRange(bytes, 3, 100), shifted);
+    assertTrue(source.slice(3, 90).contentEquals(map(shifted).slice(0, 90)));
+    assertFalse(source.slice(4, 90).contentEquals(map(shifted).slice(0, 90)));
+    assertFalse(source.slice(3, 40).contentEquals(other.slice(4, 40)));
+    assertFalse(source.slice(3, 40).contentEquals(other.slice(3, 41)));
+    assertTrue(source.slice(7, 0).contentEquals(other.slice(3, 0)));
+  }
+
+  public void testEmptyFile() throws IOException {
+    MappedByteSource empty = map(createTempFile());
+    assertTrue(empty.isEmpty());
+    assertArrayEquals(new byte[0], empty.read());
+    assertEquals(-1, empty.openStream().read());
+    assertEquals(Hashing.crc32().hashBytes(new byte[0]), empty.hash(Hashing.crc32()));
+  }
+}
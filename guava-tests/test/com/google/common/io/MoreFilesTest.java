@@ -22,11 +22,17 @@ import static com.google.common.jimfs.Feature.SYMBOLIC_LINKS;
 import static com.google.common.truth.Truth.assertThat;
 import static java.nio.charset.StandardCharsets.UTF_8;
 import static java.nio.file.LinkOption.NOFOLLOW_LINKS;
+import static java.nio.file.StandardOpenOption.APPEND;
+import static java.nio.file.StandardOpenOption.READ;
 
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ObjectArrays;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
 import com.google.common.jimfs.Configuration;
 import com.google.common.jimfs.Feature;
 import com.google.common.jimfs.Jimfs;
+import com.google.common.primitives.Bytes;
 import java.io.IOException;
 import java.nio.file.FileAlreadyExistsException;
 import java.nio.file.FileSystem;
@@ -39,8 +45,13 @@ import java.nio.file.SimpleFileVisitor;
 import java.nio.file.attribute.BasicFileAttributes;
 import java.nio.file.attribute.FileTime;
 import java.util.EnumSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.Future;
 import junit.framework.TestCase;
 import junit.framework.TestSuite;
@@ -196,6 +207,44 @@ public class MoreFilesTest extends TestCase {
     }
   }
 
+  public void testByteSource_copyTo_byteSink() throws IOException {
+    // larger than the chunks that ByteStreams.copy transfers at a time
+    byte[] bytes = new byte[3 * 512 * 1024 + 17];
+    new Random(42).nextBytes(bytes);
+    Path from = createTempFile();
+    Path to = createTempFile();
+    Files.write(from, bytes);
+    Files.write(to, new byte[] {1, 2, 3});
+
+    assertEquals(bytes.length, MoreFiles.asByteSource(from).copyTo(MoreFiles.asByteSink(to)));
+    assertThat(Files.readAllBytes(to)).isEqualTo(bytes);
+
+    assertEquals(
+        bytes.length, MoreFiles.asByteSource(from).copyTo(MoreFiles.asByteSink(to, APPEND)));
+    assertThat(Files.readAllBytes(to)).isEqualTo(Bytes.concat(bytes, bytes));
+
+    Path created = tempDir.resolve("created");
+    assertEquals(bytes.length, MoreFiles.asByteSource(from).copyTo(MoreFiles.asByteSink(created)));
+    assertThat(Files.readAllBytes(created)).isEqualTo(bytes);
+
+    try {
+      MoreFiles.asByteSource(from).copyTo(MoreFiles.asByteSink(to, READ));
+      fail();
+    } catch (IllegalArgumentException expected) {
+    }
+  }
+
+  public void testByteSource_copyTo_fromJimfs() throws IOException {
+    try (FileSystem fs = Jimfs.newFileSystem(Configuration.unix())) {
+      Path from = fs.getPath("from");
+      Files.write(from, new byte[] {1, 2, 3});
+      Path to = createTempFile();
+
+      assertEquals(3, MoreFiles.asByteSource(from).copyTo(MoreFiles.asByteSink(to)));
+      assertThat(Files.readAllBytes(to)).isEqualTo(new byte[] {1, 2, 3});
+    }
+  }
+
   public void testEqual() throws IOException {
     try (FileSystem fs = Jimfs.newFileSystem(Configuration.unix())) {
       Path fooPath = fs.getPath("foo");
@@ -239,6 +288,43 @@ public class MoreFilesTest extends TestCase {
     }
   }
 
+  public void testHash() throws IOException {
+    byte[] bytes = new byte[100_000];
+    new Random(0).nextBytes(bytes);
+    Path file = createTempFile();
+    Files.write(file, bytes);
+    Path emptyFile = createTempFile();
+    for (HashFunction hashFunction :
+        ImmutableList.of(
+            Hashing.murmur3_128(),
+            Hashing.crc32c(),
+            Hashing.farmHashFingerprint64(),
+            Hashing.sha256())) {
+      assertThat(MoreFiles.hash(file, hashFunction)).isEqualTo(hashFunction.hashBytes(bytes));
+      assertThat(MoreFiles.hash(emptyFile, hashFunction))
+          .isEqualTo(hashFunction.hashBytes(new byte[0]));
+    }
+  }
+
+  public void testHash_fileSystemWithoutMapping() throws IOException {
+    try (FileSystem fs = Jimfs.newFileSystem(Configuration.unix())) {
+      Path path = fs.getPath("foo");
+      MoreFiles.asCharSink(path, UTF_8).write("foo");
+      assertThat(MoreFiles.hash(path, Hashing.murmur3_128()))
+          .isEqualTo(Hashing.murmur3_128().hashString("foo", UTF_8));
+    }
+  }
+
+  public void testHash_fileSystemWithoutFileChannels() throws IOException {
+    try (FileSystem fs =
+        Jimfs.newFileSystem(Configuration.unix().toBuilder().setSupportedFeatures().build())) {
+      Path path = fs.getPath("foo");
+      MoreFiles.asCharSink(path, UTF_8).write("foo");
+      assertThat(MoreFiles.hash(path, Hashing.murmur3_128()))
+          .isEqualTo(Hashing.murmur3_128().hashString("foo", UTF_8));
+    }
+  }
+
   public void testTouch() throws IOException {
     Path temp = createTempFile();
     assertTrue(Files.exists(temp));
@@ -641,6 +727,85 @@ public class MoreFilesTest extends TestCase {
     }
   }
 
+  public void testDirectoryDeletion_parallel_largeDirectory() throws IOException {
+    for (DirectoryDeleteMethod method :
+        EnumSet.of(
+            DirectoryDeleteMethod.PARALLEL_DELETE_DIRECTORY_CONTENTS,
+            DirectoryDeleteMethod.PARALLEL_DELETE_RECURSIVELY)) {
+      for (Feature[] features : new Feature[][] {{SECURE_DIRECTORY_STREAM}, {}}) {
+        try (FileSystem fs = newTestFileSystem(features)) {
+          // enough entries that some of them are processed by other threads
+          Path dir = fs.getPath("dir/e");
+          for (int i = 0; i < 1000; i++) {
+            Path child = dir.resolve("child" + i);
+            if (i % 10 == 0) {
+              Files.createDirectory(child);
+              Files.createFile(child.resolve("file"));
+              Files.createSymbolicLink(child.resolve("link"), fs.getPath("/dontdelete"));
+            } else {
+              Files.createFile(child);
+            }
+          }
+
+          method.delete(dir, ALLOW_INSECURE);
+          method.assertDeleteSucceeded(dir);
+          assertEquals(3, MoreFiles.listFiles(fs.getPath("/dontdelete")).size());
+        }
+      }
+    }
+  }
+
+  public void testWalkFileTree() throws IOException {
+    for (Feature[] features : new Feature[][] {{SECURE_DIRECTORY_STREAM}, {}}) {
+      try (FileSystem fs = newTestFileSystem(features)) {
+        Path dir = fs.getPath("/work/dir");
+        for (int i = 0; i < 200; i++) {
+          Files.createFile(dir.resolve("e/file" + i));
+        }
+
+        Set<Path> visited = ConcurrentHashMap.newKeySet();
+        MoreFiles.walkFileTree(
+            dir, DirectoryDeleteMethod.POOL, path -> assertTrue(visited.add(path)));
+
+        List<Path> expected =
+            ImmutableList.copyOf(MoreFiles.fileTraverser().depthFirstPreOrder(dir));
+        assertThat(visited).containsExactlyElementsIn(expected);
+        // symbolic links are visited, but not followed
+        assertTrue(visited.contains(dir.resolve("f")));
+        assertFalse(visited.contains(dir.resolve("f/a")));
+      }
+    }
+  }
+
+  public void testWalkFileTree_notDirectory() throws IOException {
+    try (FileSystem fs = newTestFileSystem(SECURE_DIRECTORY_STREAM)) {
+      for (Path path :
+          ImmutableList.of(fs.getPath("dir/a"), fs.getPath("dir/f"), fs.getPath("missing"))) {
+        Set<Path> visited = ConcurrentHashMap.newKeySet();
+        MoreFiles.walkFileTree(path, DirectoryDeleteMethod.POOL, visited::add);
+        assertThat(visited).containsExactly(path);
+      }
+    }
+  }
+
+  public void testWalkFileTree_visitorThrows() throws IOException {
+    try (FileSystem fs = newTestFileSystem(SECURE_DIRECTORY_STREAM)) {
+      Path dir = fs.getPath("dir");
+      try {
+        MoreFiles.walkFileTree(
+            dir,
+            DirectoryDeleteMethod.POOL,
+            path -> {
+              if (path.endsWith("k")) {
+                throw new IllegalStateException("k");
+              }
+            });
+        fail("expected IllegalStateException");
+      } catch (IllegalStateException expected) {
+      }
+    }
+  }
+
   /**
    * Starts a new task on the given executor that switches (deletes and replaces) a file between
    * being a directory and being a symlink. The given {@code file} is the file that should switch
@@ -677,7 +842,7 @@ public class MoreFilesTest extends TestCase {
             });
   }
 
-  /** Enum defining the two MoreFiles methods that delete directory contents. */
+  /** Enum defining the MoreFiles methods that delete directory contents. */
   private enum DirectoryDeleteMethod {
     DELETE_DIRECTORY_CONTENTS {
       @Override
@@ -703,8 +868,32 @@ public class MoreFilesTest extends TestCase {
       public void assertDeleteSucceeded(Path path) throws IOException {
         assertFalse("file " + path + " not deleted with delete method " + this, Files.exists(path));
       }
+    },
+    PARALLEL_DELETE_DIRECTORY_CONTENTS {
+      @Override
+      public void delete(Path path, RecursiveDeleteOption... options) throws IOException {
+        MoreFiles.deleteDirectoryContents(path, POOL, options);
+      }
+
+      @Override
+      public void assertDeleteSucceeded(Path path) throws IOException {
+        DELETE_DIRECTORY_CONTENTS.assertDeleteSucceeded(path);
+      }
+    },
+    PARALLEL_DELETE_RECURSIVELY {
+      @Override
+      public void delete(Path path, RecursiveDeleteOption... options) throws IOException {
+        MoreFiles.deleteRecursively(path, POOL, options);
+      }
+
+      @Override
+      public void assertDeleteSucceeded(Path path) throws IOException {
+        DELETE_RECURSIVELY.assertDeleteSucceeded(path);
+      }
     };
 
+    static final ForkJoinPool POOL = new ForkJoinPool(4);
+
     public abstract void delete(Path path, RecursiveDeleteOption... options) throws IOException;
 
     public abstract void assertDeleteSucceeded(Path path) throws IOException;
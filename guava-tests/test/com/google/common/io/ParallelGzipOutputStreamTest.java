@@ -0,0 +1,182 @@
+/*
+ * Copyright (C) 2019 The Guava Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.common.io;
+
+import static com.google.common.truth.Truth.assertThat;
+import static com.google.common.util.concurrent.MoreExecutors.directExecutor;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Random;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import junit.framework.TestCase;
+
+/** Tests for {@link ParallelGzipOutputStream}. */
+public class ParallelGzipOutputStreamTest extends TestCase {
+
+  public void testEmpty() throws IOException {
+    assertRoundTrip(new byte[0], ParallelGzipOutputStream.BLOCK_SIZE);
+  }
+
+  public void testSingleByte() throws IOException {
+    ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+    ParallelGzipOutputStream out = new ParallelGzipOutputStream(compressed, directExecutor());
+    out.write(42);
+    out.close();
+    assertThat(gunzip(compressed.toByteArray())).isEqualTo(new byte[] {42});
+  }
+
+  public void testBlockBoundaries() throws IOException {
+    int blockSize = 1000;
+    for (int size : new int[] {1, blockSize - 1, blockSize, blockSize + 1, 10 * blockSize + 7}) {
+      assertRoundTrip(text(size), blockSize);
+      assertRoundTrip(random(size), blockSize);
+    }
+  }
+
+  public void testLarge() throws IOException {
+    int blockSize = ParallelGzipOutputStream.BLOCK_SIZE;
+    assertRoundTrip(text(5 * blockSize + 123), blockSize);
+  }
+
+  public void testDictionaryKeepsOutputSmall() throws IOException {
+    byte[] data = text(20 * ParallelGzipOutputStream.BLOCK_SIZE);
+    ByteArrayOutputStream sequential = new ByteArrayOutputStream();
+    try (GZIPOutputStream out = new GZIPOutputStream(sequential)) {
+      out.write(data);
+    }
+    byte[] parallel = compress(data, ParallelGzipOutputStream.BLOCK_SIZE, directExecutor());
+    assertTrue(parallel.length < sequential.size() * 1.05);
+  }
+
+  public void testThreadPool() throws IOException {
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      byte[] data = text(30 * 1000 + 5);
+      for (int i = 0; i < 20; i++) {
+        assertThat(gunzip(compress(data, 1000, executor))).isEqualTo(data);
+      }
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  public void testWriteAfterClose() throws IOException {
+    ParallelGzipOutputStream out =
+        new ParallelGzipOutputStream(new ByteArrayOutputStream(), directExecutor());
+    out.close();
+    out.close();
+    try {
+      out.write(1);
+      fail();
+    } catch (IOException expected) {
+    }
+  }
+
+  public void testRejectingExecutor() throws IOException {
+    final AtomicInteger executions = new AtomicInteger();
+    Executor rejectsSecond =
+        new Executor() {
+          @Override
+          public void execute(Runnable command) {
+            if (executions.incrementAndGet() == 2) {
+              throw new RejectedExecutionException();
+            }
+            command.run();
+          }
+        };
+    final AtomicBoolean underlyingClosed = new AtomicBoolean();
+    OutputStream compressed =
+        new ByteArrayOutputStream() {
+          @Override
+          public void close() {
+            underlyingClosed.set(true);
+          }
+        };
+    ParallelGzipOutputStream out = new ParallelGzipOutputStream(compressed, rejectsSecond, 100, 3);
+    try {
+      out.write(new byte[250]);
+      fail();
+    } catch (IOException expected) {
+    }
+    try {
+      out.write(1);
+      fail();
+    } catch (IOException expected) {
+    }
+    // fails instead of waiting for the rejected block
+    try {
+      out.close();
+      fail();
+    } catch (IOException expected) {
+    }
+    assertTrue(underlyingClosed.get());
+  }
+
+  private static void assertRoundTrip(byte[] data, int blockSize) throws IOException {
+    byte[] compressed = compress(data, blockSize, directExecutor());
+    assertThat(gunzip(compressed)).isEqualTo(data);
+  }
+
+  private static byte[] compress(byte[] data, int blockSize, Executor executor)
+      throws IOException {
+    ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+    try (ParallelGzipOutputStream out =
+        new ParallelGzipOutputStream(compressed, executor, blockSize, 3)) {
+      // write in odd-sized pieces that straddle the blocks
+      for (int off = 0; off < data.length; off += 777) {
+        out.write(data, off, Math.min(777, data.length - off));
+      }
+    }
+    return compressed.toByteArray();
+  }
+
+  private static byte[] gunzip(byte[] compressed) throws IOException {
+    return ByteStreams.toByteArray(new GZIPInputStream(new ByteArrayInputStream(compressed)));
+  }
+
+  /** Returns compressible bytes, with repeats further apart than a small block. */
+  private static byte[] text(int size) {
+    Random random = new Random(size);
+    String[] words = new String[500];
+    for (int i = 0; i < words.length; i++) {
+      words[i] = Integer.toString(random.nextInt(), 36) + ' ';
+    }
+    StringBuilder builder = new StringBuilder();
+    while (builder.length() < size) {
+      builder.append(words[random.nextInt(words.length)]);
+    }
+    byte[] bytes = new byte[size];
+    for (int i = 0; i < size; i++) {
+      bytes[i] = (byte) builder.charAt(i);
+    }
+    return bytes;
+  }
+
+  private static byte[] random(int size) {
+    byte[] bytes = new byte[size];
+    new Random(size).nextBytes(bytes);
+    return bytes;
+  }
+}
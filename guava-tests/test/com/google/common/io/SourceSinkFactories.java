@@ -71,6 +71,10 @@ public class SourceSinkFactories {
     return new FileByteSourceFactory();
   }
 
+  public static ByteSourceFactory mappedFileByteSourceFactory() {
+    return new MappedFileByteSourceFactory();
+  }
+
   public static ByteSinkFactory fileByteSinkFactory() {
     return new FileByteSinkFactory(null);
   }
@@ -450,6 +454,16 @@ public class SourceSinkFactories {
     }
   }
 
+  private static class MappedFileByteSourceFactory extends FileByteSourceFactory {
+
+    @SuppressWarnings("CheckReturnValue") // only using super.createSource to create a file
+    @Override
+    public ByteSource createSource(byte[] bytes) throws IOException {
+      super.createSource(bytes);
+      return Files.mapAsByteSource(getFile());
+    }
+  }
+
   private static class UrlByteSourceFactory extends FileByteSourceFactory {
 
     @SuppressWarnings("CheckReturnValue") // only using super.createSource to create a file
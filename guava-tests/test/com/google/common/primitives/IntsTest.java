@@ -536,6 +536,34 @@ public class IntsTest extends TestCase {
     assertEquals(expected, Ints.tryParse(value));
   }
 
+  public void testParseAscii() {
+    assertEquals(0, parseAscii("0"));
+    assertEquals(-1, parseAscii("-1"));
+    assertEquals(8900, parseAscii("8900"));
+    assertEquals(Integer.MAX_VALUE, parseAscii(Integer.toString(Integer.MAX_VALUE)));
+    assertEquals(Integer.MIN_VALUE, parseAscii(Integer.toString(Integer.MIN_VALUE)));
+    assertParseAsciiFails("");
+    assertParseAsciiFails("-");
+    assertParseAsciiFails("+1");
+    assertParseAsciiFails("x");
+    assertParseAsciiFails(Long.toString(Integer.MAX_VALUE + 1L));
+    assertParseAsciiFails(Long.toString(Integer.MIN_VALUE - 1L));
+    assertParseAsciiFails("999999999999999999999999");
+  }
+
+  private static int parseAscii(String value) {
+    byte[] bytes = LongsTest.asciiBytes(value);
+    return Ints.parseAscii(bytes, 0, bytes.length);
+  }
+
+  private static void assertParseAsciiFails(String value) {
+    try {
+      parseAscii(value);
+      fail(value);
+    } catch (NumberFormatException expected) {
+    }
+  }
+
   public void testTryParse_radix() {
     for (int radix = Character.MIN_RADIX; radix <= Character.MAX_RADIX; radix++) {
       radixEncodeParseAndAssertEquals(0, radix);
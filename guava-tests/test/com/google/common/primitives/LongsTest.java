@@ -556,6 +556,67 @@ public class LongsTest extends TestCase {
     assertEquals(expected, Longs.tryParse(value));
   }
 
+  public void testParseAscii() {
+    parseAsciiAndAssertEquals(0L, "0");
+    parseAsciiAndAssertEquals(0L, "-0");
+    parseAsciiAndAssertEquals(1L, "1");
+    parseAsciiAndAssertEquals(-1L, "-1");
+    parseAsciiAndAssertEquals(8900L, "8900");
+    parseAsciiAndAssertEquals(-8900L, "-8900");
+    parseAsciiAndAssertEquals(MAX_VALUE, Long.toString(MAX_VALUE));
+    parseAsciiAndAssertEquals(MIN_VALUE, Long.toString(MIN_VALUE));
+    assertParseAsciiFails("");
+    assertParseAsciiFails("-");
+    assertParseAsciiFails("+1");
+    assertParseAsciiFails("1 ");
+    assertParseAsciiFails("1.0");
+    assertParseAsciiFails("999999999999999999999999");
+    assertParseAsciiFails(BigInteger.valueOf(MAX_VALUE).add(BigInteger.ONE).toString());
+    assertParseAsciiFails(BigInteger.valueOf(MAX_VALUE).multiply(BigInteger.TEN).toString());
+    assertParseAsciiFails(BigInteger.valueOf(MIN_VALUE).subtract(BigInteger.ONE).toString());
+    assertParseAsciiFails(BigInteger.valueOf(MIN_VALUE).multiply(BigInteger.TEN).toString());
+  }
+
+  public void testParseAscii_range() {
+    byte[] bytes = asciiBytes("12,-345,6");
+    assertEquals(12L, Longs.parseAscii(bytes, 0, 2));
+    assertEquals(-345L, Longs.parseAscii(bytes, 3, 4));
+    assertEquals(6L, Longs.parseAscii(bytes, 8, 1));
+    try {
+      Longs.parseAscii(bytes, 8, 2);
+      fail();
+    } catch (IndexOutOfBoundsException expected) {
+    }
+    try {
+      Longs.parseAscii(bytes, 0, 3);
+      fail();
+    } catch (NumberFormatException expected) {
+      assertEquals("For input: \"12,\"", expected.getMessage());
+    }
+  }
+
+  private static void parseAsciiAndAssertEquals(long expected, String value) {
+    byte[] bytes = asciiBytes("," + value + ",");
+    assertEquals(expected, Longs.parseAscii(bytes, 1, value.length()));
+  }
+
+  private static void assertParseAsciiFails(String value) {
+    byte[] bytes = asciiBytes(value);
+    try {
+      Longs.parseAscii(bytes, 0, bytes.length);
+      fail(value);
+    } catch (NumberFormatException expected) {
+    }
+  }
+
+  static byte[] asciiBytes(String string) {
+    byte[] bytes = new byte[string.length()];
+    for (int i = 0; i < bytes.length; i++) {
+      bytes[i] = (byte) string.charAt(i);
+    }
+    return bytes;
+  }
+
   public void testTryParse_radix() {
     for (int radix = Character.MIN_RADIX; radix <= Character.MAX_RADIX; radix++) {
       radixEncodeParseAndAssertEquals((long) 0, radix);
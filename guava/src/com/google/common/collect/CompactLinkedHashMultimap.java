@@ -0,0 +1,1026 @@
+/*
+ * Copyright (C) 2019 The Guava Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.common.collect;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.collect.CollectPreconditions.checkNonnegative;
+import static com.google.common.collect.CollectPreconditions.checkRemove;
+import static com.google.common.collect.Hashing.smearedHash;
+
+import com.google.common.annotations.Beta;
+import com.google.common.annotations.GwtIncompatible;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Objects;
+import com.google.common.math.IntMath;
+import com.google.errorprone.annotations.CanIgnoreReturnValue;
+import com.google.j2objc.annotations.WeakOuter;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.BiConsumer;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * Implementation of {@code Multimap} that does not allow duplicate key-value entries and that
+ * returns collections whose iterators follow the ordering in which the data was added to the
+ * multimap, with the same ordering guarantees as {@link LinkedHashMultimap}.
+ *
+ * <p>The collections returned by {@code keySet}, {@code keys}, and {@code asMap} iterate through
+ * the keys in the order they were first added to the multimap. Similarly, {@code get}, {@code
+ * removeAll}, and {@code replaceValues} return collections that iterate through the values in the
+ * order they were added. The collections generated by {@code entries} and {@code values} iterate
+ * across the key-value mappings in the order they were added to the multimap. If you remove all
+ * values associated with a key and then add the key back to the multimap, that key will come last
+ * in the key iteration order.
+ *
+ * <p>Unlike {@code LinkedHashMultimap}, which allocates an entry object with four links for every
+ * mapping and a hash table for every key, this implementation keeps all of its state in a constant
+ * number of flat arrays, in the manner of {@link CompactLinkedHashMap}. The links of the two
+ * orderings are array indexes packed into {@code long}s. This places significantly reduced load on
+ * the garbage collector and typically uses well under half the memory of a {@code
+ * LinkedHashMultimap}. Iterating over all entries walks those arrays, without chasing a pointer per
+ * entry. Removing a mapping moves the last entry in the arrays into the vacated position, so the
+ * arrays stay dense.
+ *
+ * <p>This class should not be assumed to be universally superior to {@code LinkedHashMultimap}.
+ * Generally speaking, this class reduces object allocation and memory consumption at the price of
+ * moderately increased constant factors of CPU on updates. In particular, the entries returned by
+ * {@link #entries} are created on demand.
+ *
+ * <p>Keys and values may be null. All optional multimap methods are supported, and all returned
+ * views are modifiable. The entries returned by {@link #entries} do not support {@link
+ * Entry#setValue}.
+ *
+ * <p>This class is not threadsafe when any concurrent operations update the multimap. Concurrent
+ * read operations will work correctly. To allow concurrent update operations, wrap your multimap
+ * with a call to {@link Multimaps#synchronizedSetMultimap}.
+ *
+ * @since NEXT
+ */
+@Beta
+@GwtIncompatible
+public final class CompactLinkedHashMultimap<K, V> extends AbstractMultimap<K, V>
+    implements SetMultimap<K, V>, Serializable {
+
+  /** Creates a new, empty {@code CompactLinkedHashMultimap} with the default initial capacities. */
+  public static <K, V> CompactLinkedHashMultimap<K, V> create() {
+    return new CompactLinkedHashMultimap<>(DEFAULT_KEY_CAPACITY, DEFAULT_ENTRY_CAPACITY);
+  }
+
+  /**
+   * Constructs an empty {@code CompactLinkedHashMultimap} with enough capacity to hold the specified
+   * numbers of keys and values without resizing.
+   *
+   * @param expectedKeys the expected number of distinct keys
+   * @param expectedValuesPerKey the expected average number of values per key
+   * @throws IllegalArgumentException if {@code expectedKeys} or {@code expectedValuesPerKey} is
+   *     negative
+   */
+  public static <K, V> CompactLinkedHashMultimap<K, V> create(
+      int expectedKeys, int expectedValuesPerKey) {
+    checkNonnegative(expectedKeys, "expectedKeys");
+    checkNonnegative(expectedValuesPerKey, "expectedValuesPerKey");
+    return new CompactLinkedHashMultimap<>(
+        expectedKeys, IntMath.saturatedMultiply(expectedKeys, expectedValuesPerKey));
+  }
+
+  /**
+   * Constructs a {@code CompactLinkedHashMultimap} with the same mappings as the specified
+   * multimap. If a key-value mapping appears multiple times in the input multimap, it only appears
+   * once in the constructed multimap. The new multimap has the same {@link Multimap#entries()}
+   * iteration order as the input multimap, except for excluding duplicate mappings.
+   *
+   * @param multimap the multimap whose contents are copied to this multimap
+   */
+  public static <K, V> CompactLinkedHashMultimap<K, V> create(
+      Multimap<? extends K, ? extends V> multimap) {
+    CompactLinkedHashMultimap<K, V> result =
+        new CompactLinkedHashMultimap<>(multimap.keySet().size(), multimap.size());
+    result.putAll(multimap);
+    return result;
+  }
+
+  private static final int DEFAULT_KEY_CAPACITY = 8;
+  private static final int DEFAULT_ENTRY_CAPACITY = 16;
+
+  private static final float LOAD_FACTOR = 1.0f;
+
+  // used to indicate blank table entries and free key slots
+  private static final int UNSET = -1;
+
+  // used to indicate the ends of the linked lists
+  private static final int ENDPOINT = -2;
+
+  /*
+   * There are two sets of parallel arrays. The entry arrays hold the key-value mappings in the
+   * range [0, size), in no particular order; removing an entry moves the last entry into its place.
+   * The key arrays hold the distinct keys in "slots" that stay put for as long as the key has
+   * values, so that entries can refer to their key by slot index. Freed key slots form a free list
+   * and are reused.
+   *
+   * Links of the doubly linked lists are packed into longs: the high 32 bits point to the
+   * predecessor and the low 32 bits to the successor. Hash chains are packed the same way, with the
+   * smeared hash in the high bits and the next index in the chain in the low bits.
+   */
+
+  /** Hash table of the entries, keyed on both key and value. Its size is a power of two. */
+  private transient int[] table;
+
+  /** Per entry: the hash of the key-value pair, and the next entry in the same bucket. */
+  @VisibleForTesting transient long[] entries;
+
+  /** Per entry: the value. */
+  private transient Object[] values;
+
+  /** Per entry: the slot of the entry's key. */
+  private transient int[] keySlots;
+
+  /** Per entry: the previous and next entries in the multimap iteration order. */
+  private transient long[] links;
+
+  /** Per entry: the previous and next entries with the same key. */
+  private transient long[] keyLinks;
+
+  private transient int size;
+  private transient int firstEntry;
+  private transient int lastEntry;
+
+  /** Hash table of the key slots. Its size is a power of two. */
+  private transient int[] keyTable;
+
+  /**
+   * Per key slot: the smeared hash of the key and the next slot in the same bucket, or for a free
+   * slot, the next free slot.
+   */
+  private transient long[] keyEntries;
+
+  /** Per key slot: the key. */
+  @VisibleForTesting transient Object[] keys;
+
+  /** Per key slot: the first and last entries with that key. */
+  private transient long[] keyEnds;
+
+  /** Per key slot: the number of entries with that key. */
+  private transient int[] valueCounts;
+
+  /** Per key slot: the previous and next slots in the key iteration order. */
+  private transient long[] keyOrder;
+
+  private transient int keyCount;
+  private transient int keySlotsUsed;
+  private transient int freeKeySlot;
+  private transient int firstKey;
+  private transient int lastKey;
+
+  /**
+   * Keeps track of modifications of this multimap, to make it possible to throw
+   * ConcurrentModificationException in the iterators.
+   */
+  private transient int modCount;
+
+  private CompactLinkedHashMultimap(int expectedKeys, int expectedEntries) {
+    init(expectedKeys, expectedEntries);
+  }
+
+  /** Pseudoconstructor for serialization support. */
+  private void init(int expectedKeys, int expectedEntries) {
+    int keyCapacity = Math.max(expectedKeys, 1);
+    this.keyTable = newTable(Hashing.closedTableSize(keyCapacity, LOAD_FACTOR));
+    this.keyEntries = new long[keyCapacity];
+    this.keys = new Object[keyCapacity];
+    this.keyEnds = new long[keyCapacity];
+    this.valueCounts = new int[keyCapacity];
+    this.keyOrder = new long[keyCapacity];
+    this.freeKeySlot = UNSET;
+    this.firstKey = ENDPOINT;
+    this.lastKey = ENDPOINT;
+
+    int entryCapacity = Math.max(expectedEntries, 1);
+    this.table = newTable(Hashing.closedTableSize(entryCapacity, LOAD_FACTOR));
+    this.entries = new long[entryCapacity];
+    this.values = new Object[entryCapacity];
+    this.keySlots = new int[entryCapacity];
+    this.links = new long[entryCapacity];
+    this.keyLinks = new long[entryCapacity];
+    this.firstEntry = ENDPOINT;
+    this.lastEntry = ENDPOINT;
+  }
+
+  private static int[] newTable(int size) {
+    int[] array = new int[size];
+    Arrays.fill(array, UNSET);
+    return array;
+  }
+
+  private static int high(long pair) {
+    return (int) (pair >>> 32);
+  }
+
+  private static int low(long pair) {
+    return (int) pair;
+  }
+
+  private static long pair(int high, int low) {
+    return ((long) high << 32) | (low & 0xFFFFFFFFL);
+  }
+
+  /** Returns the capacity to grow an array of the specified length to when it is full. */
+  private static int grownCapacity(int length) {
+    if (length == Integer.MAX_VALUE) {
+      throw new IllegalStateException("Cannot contain more than Integer.MAX_VALUE elements!");
+    }
+    int newCapacity = length + Math.max(1, length >>> 1);
+    return (newCapacity < 0) ? Integer.MAX_VALUE : newCapacity;
+  }
+
+  private static int pairHash(int smearedKeyHash, @Nullable Object value) {
+    return Hashing.smear(31 * smearedKeyHash + (value == null ? 0 : value.hashCode()));
+  }
+
+  // Linked list maintenance
+
+  private void setSucceeds(int pred, int succ) {
+    if (pred == ENDPOINT) {
+      firstEntry = succ;
+    } else {
+      links[pred] = pair(high(links[pred]), succ);
+    }
+    if (succ == ENDPOINT) {
+      lastEntry = pred;
+    } else {
+      links[succ] = pair(pred, low(links[succ]));
+    }
+  }
+
+  private void setSucceedsInKey(int slot, int pred, int succ) {
+    long ends = keyEnds[slot];
+    if (pred == ENDPOINT) {
+      ends = pair(succ, low(ends));
+    } else {
+      keyLinks[pred] = pair(high(keyLinks[pred]), succ);
+    }
+    if (succ == ENDPOINT) {
+      ends = pair(high(ends), pred);
+    } else {
+      keyLinks[succ] = pair(pred, low(keyLinks[succ]));
+    }
+    keyEnds[slot] = ends;
+  }
+
+  private void setKeySucceeds(int pred, int succ) {
+    if (pred == ENDPOINT) {
+      firstKey = succ;
+    } else {
+      keyOrder[pred] = pair(high(keyOrder[pred]), succ);
+    }
+    if (succ == ENDPOINT) {
+      lastKey = pred;
+    } else {
+      keyOrder[succ] = pair(pred, low(keyOrder[succ]));
+    }
+  }
+
+  // Key slots
+
+  private int keySlot(@Nullable Object key) {
+    return keySlot(key, smearedHash(key));
+  }
+
+  /** Returns the slot of the specified key, or {@code UNSET} if it has no values. */
+  private int keySlot(@Nullable Object key, int smearedKeyHash) {
+    int next = keyTable[smearedKeyHash & (keyTable.length - 1)];
+    while (next != UNSET) {
+      long entry = keyEntries[next];
+      if (high(entry) == smearedKeyHash && Objects.equal(key, keys[next])) {
+        return next;
+      }
+      next = low(entry);
+    }
+    return UNSET;
+  }
+
+  /** Adds a slot for a key that is not yet present, at the end of the key iteration order. */
+  private int addKey(@Nullable K key, int smearedKeyHash) {
+    int slot;
+    if (freeKeySlot != UNSET) {
+      slot = freeKeySlot;
+      freeKeySlot = low(keyEntries[slot]);
+    } else {
+      slot = keySlotsUsed++;
+      if (slot == keys.length) {
+        resizeKeys(grownCapacity(slot));
+      }
+    }
+    int bucket = smearedKeyHash & (keyTable.length - 1);
+    keyEntries[slot] = pair(smearedKeyHash, keyTable[bucket]);
+    keyTable[bucket] = slot;
+    keys[slot] = key;
+    keyEnds[slot] = pair(ENDPOINT, ENDPOINT);
+    valueCounts[slot] = 0;
+    keyOrder[slot] = pair(ENDPOINT, ENDPOINT);
+    setKeySucceeds(lastKey, slot);
+    setKeySucceeds(slot, ENDPOINT);
+    keyCount++;
+    if (Hashing.needsResizing(keyCount, keyTable.length, LOAD_FACTOR)) {
+      resizeKeyTable(keyTable.length * 2);
+    }
+    return slot;
+  }
+
+  /** Frees the slot of a key that no longer has any values. */
+  private void removeKey(int slot) {
+    long entry = keyEntries[slot];
+    int bucket = high(entry) & (keyTable.length - 1);
+    int next = keyTable[bucket];
+    if (next == slot) {
+      keyTable[bucket] = low(entry);
+    } else {
+      int previous;
+      do {
+        previous = next;
+        next = low(keyEntries[previous]);
+      } while (next != slot);
+      keyEntries[previous] = pair(high(keyEntries[previous]), low(entry));
+    }
+    setKeySucceeds(high(keyOrder[slot]), low(keyOrder[slot]));
+    keys[slot] = null;
+    keyEntries[slot] = pair(0, freeKeySlot);
+    freeKeySlot = slot;
+    keyCount--;
+  }
+
+  private void resizeKeys(int newCapacity) {
+    keyEntries = Arrays.copyOf(keyEntries, newCapacity);
+    keys = Arrays.copyOf(keys, newCapacity);
+    keyEnds = Arrays.copyOf(keyEnds, newCapacity);
+    valueCounts = Arrays.copyOf(valueCounts, newCapacity);
+    keyOrder = Arrays.copyOf(keyOrder, newCapacity);
+  }
+
+  private void resizeKeyTable(int newCapacity) {
+    int[] newTable = newTable(newCapacity);
+    int mask = newCapacity - 1;
+    for (int slot = firstKey; slot != ENDPOINT; slot = low(keyOrder[slot])) {
+      int hash = high(keyEntries[slot]);
+      int bucket = hash & mask;
+      keyEntries[slot] = pair(hash, newTable[bucket]);
+      newTable[bucket] = slot;
+    }
+    keyTable = newTable;
+  }
+
+  // Entries
+
+  /** Returns the index of the specified mapping, or {@code UNSET} if it is not present. */
+  private int indexOf(@Nullable Object key, @Nullable Object value) {
+    int hash = pairHash(smearedHash(key), value);
+    int next = table[hash & (table.length - 1)];
+    while (next != UNSET) {
+      long entry = entries[next];
+      if (high(entry) == hash
+          && Objects.equal(value, values[next])
+          && Objects.equal(key, keys[keySlots[next]])) {
+        return next;
+      }
+      next = low(entry);
+    }
+    return UNSET;
+  }
+
+  private void resizeEntries(int newCapacity) {
+    entries = Arrays.copyOf(entries, newCapacity);
+    values = Arrays.copyOf(values, newCapacity);
+    keySlots = Arrays.copyOf(keySlots, newCapacity);
+    links = Arrays.copyOf(links, newCapacity);
+    keyLinks = Arrays.copyOf(keyLinks, newCapacity);
+  }
+
+  private void resizeTable(int newCapacity) {
+    int[] newTable = newTable(newCapacity);
+    int mask = newCapacity - 1;
+    for (int i = 0; i < size; i++) {
+      int hash = high(entries[i]);
+      int bucket = hash & mask;
+      entries[i] = pair(hash, newTable[bucket]);
+      newTable[bucket] = i;
+    }
+    table = newTable;
+  }
+
+  /**
+   * Removes the entry at the specified index. If it was the last entry with its key, the key is
+   * removed as well, unless {@code keepEmptyKey} is set.
+   */
+  private void removeEntry(int index, boolean keepEmptyKey) {
+    long entry = entries[index];
+    int bucket = high(entry) & (table.length - 1);
+    int next = table[bucket];
+    if (next == index) {
+      table[bucket] = low(entry);
+    } else {
+      int previous;
+      do {
+        previous = next;
+        next = low(entries[previous]);
+      } while (next != index);
+      entries[previous] = pair(high(entries[previous]), low(entry));
+    }
+
+    setSucceeds(high(links[index]), low(links[index]));
+    int slot = keySlots[index];
+    setSucceedsInKey(slot, high(keyLinks[index]), low(keyLinks[index]));
+    if (--valueCounts[slot] == 0 && !keepEmptyKey) {
+      removeKey(slot);
+    }
+
+    moveLastEntry(index);
+    size--;
+    modCount++;
+  }
+
+  /**
+   * Moves the last entry in the entry arrays into {@code dstIndex}, which has been unlinked from
+   * all of the lists and chains, and nulls out its old position.
+   */
+  private void moveLastEntry(int dstIndex) {
+    int srcIndex = size - 1;
+    if (dstIndex < srcIndex) {
+      long entry = entries[srcIndex];
+      int bucket = high(entry) & (table.length - 1);
+      int next = table[bucket];
+      if (next == srcIndex) {
+        table[bucket] = dstIndex;
+      } else {
+        int previous;
+        do {
+          previous = next;
+          next = low(entries[previous]);
+        } while (next != srcIndex);
+        entries[previous] = pair(high(entries[previous]), dstIndex);
+      }
+      entries[dstIndex] = entry;
+      values[dstIndex] = values[srcIndex];
+      int slot = keySlots[srcIndex];
+      keySlots[dstIndex] = slot;
+
+      long link = links[srcIndex];
+      links[dstIndex] = link;
+      setSucceeds(high(link), dstIndex);
+      setSucceeds(dstIndex, low(link));
+
+      long keyLink = keyLinks[srcIndex];
+      keyLinks[dstIndex] = keyLink;
+      setSucceedsInKey(slot, high(keyLink), dstIndex);
+      setSucceedsInKey(slot, dstIndex, low(keyLink));
+    }
+    values[srcIndex] = null;
+  }
+
+  /** Removes all the entries in the specified key slot, along with the key. */
+  private void removeAllEntries(int slot) {
+    for (int remaining = valueCounts[slot]; remaining > 0; remaining--) {
+      removeEntry(high(keyEnds[slot]), false);
+    }
+  }
+
+  /** Returns a copy of the values in the specified key slot, in order. */
+  private Set<V> copyValues(int slot) {
+    Set<V> result = CompactLinkedHashSet.createWithExpectedSize(valueCounts[slot]);
+    for (int i = high(keyEnds[slot]); i != ENDPOINT; i = low(keyLinks[i])) {
+      @SuppressWarnings("unchecked") // values only contains Vs
+      V value = (V) values[i];
+      result.add(value);
+    }
+    return Collections.unmodifiableSet(result);
+  }
+
+  // Query operations
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  @Override
+  public boolean containsKey(@Nullable Object key) {
+    return keySlot(key) != UNSET;
+  }
+
+  @Override
+  public boolean containsValue(@Nullable Object value) {
+    for (int i = 0; i < size; i++) {
+      if (Objects.equal(value, values[i])) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  @Override
+  public boolean containsEntry(@Nullable Object key, @Nullable Object value) {
+    return indexOf(key, value) != UNSET;
+  }
+
+  // Modification operations
+
+  /**
+   * Stores a key-value pair in the multimap.
+   *
+   * @param key key to store in the multimap
+   * @param value value to store in the multimap
+   * @return {@code true} if the method increased the size of the multimap, or {@code false} if the
+   *     multimap already contained the key-value pair
+   */
+  @CanIgnoreReturnValue
+  @Override
+  public boolean put(@Nullable K key, @Nullable V value) {
+    int smearedKeyHash = smearedHash(key);
+    int hash = pairHash(smearedKeyHash, value);
+    int bucket = hash & (table.length - 1);
+    for (int next = table[bucket]; next != UNSET; next = low(entries[next])) {
+      if (high(entries[next]) == hash
+          && Objects.equal(value, values[next])
+          && Objects.equal(key, keys[keySlots[next]])) {
+        return false;
+      }
+    }
+    int slot = keySlot(key, smearedKeyHash);
+    if (slot == UNSET) {
+      slot = addKey(key, smearedKeyHash);
+    }
+
+    int index = size;
+    if (index == values.length) {
+      resizeEntries(grownCapacity(index));
+    }
+    entries[index] = pair(hash, table[bucket]);
+    table[bucket] = index;
+    values[index] = value;
+    keySlots[index] = slot;
+    links[index] = pair(ENDPOINT, ENDPOINT);
+    setSucceeds(lastEntry, index);
+    setSucceeds(index, ENDPOINT);
+    keyLinks[index] = pair(ENDPOINT, ENDPOINT);
+    setSucceedsInKey(slot, low(keyEnds[slot]), index);
+    setSucceedsInKey(slot, index, ENDPOINT);
+    valueCounts[slot]++;
+    size++;
+    modCount++;
+    if (Hashing.needsResizing(size, table.length, LOAD_FACTOR)) {
+      resizeTable(table.length * 2);
+    }
+    return true;
+  }
+
+  @CanIgnoreReturnValue
+  @Override
+  public boolean remove(@Nullable Object key, @Nullable Object value) {
+    int index = indexOf(key, value);
+    if (index == UNSET) {
+      return false;
+    }
+    removeEntry(index, false);
+    return true;
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * <p>The returned collection is immutable.
+   */
+  @CanIgnoreReturnValue
+  @Override
+  public Set<V> removeAll(@Nullable Object key) {
+    int slot = keySlot(key);
+    if (slot == UNSET) {
+      return Collections.emptySet();
+    }
+    Set<V> oldValues = copyValues(slot);
+    removeAllEntries(slot);
+    return oldValues;
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * <p>If {@code values} is not empty and the multimap already contains a mapping for {@code key},
+   * the {@code keySet()} ordering is unchanged. However, the provided values always come last in
+   * the {@link #entries()} and {@link #values()} iteration orderings.
+   *
+   * <p>The returned collection is immutable.
+   */
+  @CanIgnoreReturnValue
+  @Override
+  public Set<V> replaceValues(@Nullable K key, Iterable<? extends V> values) {
+    checkNotNull(values);
+    // copy first, in case values is a view of this multimap
+    List<V> newValues = Lists.newArrayList(values);
+    if (newValues.isEmpty()) {
+      return removeAll(key);
+    }
+    int smearedKeyHash = smearedHash(key);
+    int slot = keySlot(key, smearedKeyHash);
+    Set<V> oldValues;
+    if (slot == UNSET) {
+      oldValues = Collections.emptySet();
+      addKey(key, smearedKeyHash);
+    } else {
+      oldValues = copyValues(slot);
+      for (int remaining = valueCounts[slot]; remaining > 0; remaining--) {
+        removeEntry(high(keyEnds[slot]), true);
+      }
+    }
+    for (V value : newValues) {
+      put(key, value);
+    }
+    return oldValues;
+  }
+
+  @Override
+  public void clear() {
+    Arrays.fill(table, UNSET);
+    Arrays.fill(values, 0, size, null);
+    Arrays.fill(keyTable, UNSET);
+    Arrays.fill(keys, 0, keySlotsUsed, null);
+    size = 0;
+    firstEntry = ENDPOINT;
+    lastEntry = ENDPOINT;
+    keyCount = 0;
+    keySlotsUsed = 0;
+    freeKeySlot = UNSET;
+    firstKey = ENDPOINT;
+    lastKey = ENDPOINT;
+    modCount++;
+  }
+
+  // Views
+
+  /**
+   * {@inheritDoc}
+   *
+   * <p>The returned collection is a view of the values associated with {@code key}, in the order
+   * they were added. Changes to the multimap write through to the returned set, and vice versa.
+   */
+  @Override
+  public Set<V> get(@Nullable K key) {
+    return new ValueSet(key);
+  }
+
+  @WeakOuter
+  private final class ValueSet extends Sets.ImprovedAbstractSet<V> {
+    final @Nullable K key;
+
+    ValueSet(@Nullable K key) {
+      this.key = key;
+    }
+
+    @Override
+    public Iterator<V> iterator() {
+      int slot = keySlot(key);
+      return new Itr<V>((slot == UNSET) ? ENDPOINT : high(keyEnds[slot])) {
+        @Override
+        int successor(int entry) {
+          return low(keyLinks[entry]);
+        }
+
+        @Override
+        V output(int entry) {
+          @SuppressWarnings("unchecked") // values only contains Vs
+          V value = (V) values[entry];
+          return value;
+        }
+      };
+    }
+
+    @Override
+    public Spliterator<V> spliterator() {
+      return Spliterators.spliterator(this, Spliterator.DISTINCT | Spliterator.ORDERED);
+    }
+
+    @Override
+    public int size() {
+      int slot = keySlot(key);
+      return (slot == UNSET) ? 0 : valueCounts[slot];
+    }
+
+    @Override
+    public boolean contains(@Nullable Object o) {
+      return containsEntry(key, o);
+    }
+
+    @Override
+    public boolean add(@Nullable V value) {
+      return put(key, value);
+    }
+
+    @Override
+    public boolean remove(@Nullable Object o) {
+      return CompactLinkedHashMultimap.this.remove(key, o);
+    }
+
+    @Override
+    public void clear() {
+      int slot = keySlot(key);
+      if (slot != UNSET) {
+        removeAllEntries(slot);
+      }
+    }
+  }
+
+  /** An iterator over one of the linked lists of entries. */
+  private abstract class Itr<T> implements Iterator<T> {
+    int next;
+    int toRemove = UNSET;
+    int expectedModCount = modCount;
+
+    Itr(int first) {
+      this.next = first;
+    }
+
+    abstract int successor(int entry);
+
+    abstract T output(int entry);
+
+    @Override
+    public boolean hasNext() {
+      return next != ENDPOINT;
+    }
+
+    @Override
+    public T next() {
+      checkForConcurrentModification();
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      toRemove = next;
+      T result = output(next);
+      next = successor(next);
+      return result;
+    }
+
+    @Override
+    public void remove() {
+      checkForConcurrentModification();
+      checkRemove(toRemove != UNSET);
+      removeEntry(toRemove, false);
+      if (next == size) {
+        // the entry that was last in the arrays has been moved into the removed entry's place
+        next = toRemove;
+      }
+      toRemove = UNSET;
+      expectedModCount = modCount;
+    }
+
+    void checkForConcurrentModification() {
+      if (modCount != expectedModCount) {
+        throw new ConcurrentModificationException();
+      }
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * <p>The iterator generated by the returned set traverses the entries in the order they were
+   * added to the multimap.
+   */
+  @Override
+  public Set<Entry<K, V>> entries() {
+    return (Set<Entry<K, V>>) super.entries();
+  }
+
+  @Override
+  Collection<Entry<K, V>> createEntries() {
+    return new EntrySet();
+  }
+
+  @Override
+  Iterator<Entry<K, V>> entryIterator() {
+    return new Itr<Entry<K, V>>(firstEntry) {
+      @Override
+      int successor(int entry) {
+        return low(links[entry]);
+      }
+
+      @Override
+      Entry<K, V> output(int entry) {
+        @SuppressWarnings("unchecked") // keys only contains Ks and values only contains Vs
+        Entry<K, V> result = Maps.immutableEntry((K) keys[keySlots[entry]], (V) values[entry]);
+        return result;
+      }
+    };
+  }
+
+  @Override
+  Spliterator<Entry<K, V>> entrySpliterator() {
+    return Spliterators.spliterator(entries(), Spliterator.DISTINCT | Spliterator.ORDERED);
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * <p>The iterator generated by the returned collection traverses the values in the order they
+   * were added to the multimap.
+   */
+  @Override
+  public Collection<V> values() {
+    return super.values();
+  }
+
+  @Override
+  Collection<V> createValues() {
+    return new Values();
+  }
+
+  @Override
+  Iterator<V> valueIterator() {
+    return new Itr<V>(firstEntry) {
+      @Override
+      int successor(int entry) {
+        return low(links[entry]);
+      }
+
+      @Override
+      V output(int entry) {
+        @SuppressWarnings("unchecked") // values only contains Vs
+        V value = (V) values[entry];
+        return value;
+      }
+    };
+  }
+
+  @Override
+  Spliterator<V> valueSpliterator() {
+    return Spliterators.spliterator(valueIterator(), size, Spliterator.ORDERED);
+  }
+
+  @Override
+  public void forEach(BiConsumer<? super K, ? super V> action) {
+    checkNotNull(action);
+    for (int i = firstEntry; i != ENDPOINT; i = low(links[i])) {
+      @SuppressWarnings("unchecked") // keys only contains Ks
+      K key = (K) keys[keySlots[i]];
+      @SuppressWarnings("unchecked") // values only contains Vs
+      V value = (V) values[i];
+      action.accept(key, value);
+    }
+  }
+
+  @Override
+  Set<K> createKeySet() {
+    return new KeySet();
+  }
+
+  @WeakOuter
+  private final class KeySet extends Sets.ImprovedAbstractSet<K> {
+    @Override
+    public Iterator<K> iterator() {
+      return new Iterator<K>() {
+        int next = firstKey;
+        int toRemove = UNSET;
+        int expectedModCount = modCount;
+
+        @Override
+        public boolean hasNext() {
+          return next != ENDPOINT;
+        }
+
+        @Override
+        public K next() {
+          checkForConcurrentModification();
+          if (!hasNext()) {
+            throw new NoSuchElementException();
+          }
+          toRemove = next;
+          @SuppressWarnings("unchecked") // keys only contains Ks
+          K key = (K) keys[next];
+          next = low(keyOrder[next]);
+          return key;
+        }
+
+        @Override
+        public void remove() {
+          checkForConcurrentModification();
+          checkRemove(toRemove != UNSET);
+          // key slots are never moved, so next is still valid
+          removeAllEntries(toRemove);
+          toRemove = UNSET;
+          expectedModCount = modCount;
+        }
+
+        void checkForConcurrentModification() {
+          if (modCount != expectedModCount) {
+            throw new ConcurrentModificationException();
+          }
+        }
+      };
+    }
+
+    @Override
+    public Spliterator<K> spliterator() {
+      return Spliterators.spliterator(this, Spliterator.DISTINCT | Spliterator.ORDERED);
+    }
+
+    @Override
+    public int size() {
+      return keyCount;
+    }
+
+    @Override
+    public boolean contains(@Nullable Object o) {
+      return containsKey(o);
+    }
+
+    @Override
+    public boolean remove(@Nullable Object o) {
+      int slot = keySlot(o);
+      if (slot == UNSET) {
+        return false;
+      }
+      removeAllEntries(slot);
+      return true;
+    }
+
+    @Override
+    public void clear() {
+      CompactLinkedHashMultimap.this.clear();
+    }
+  }
+
+  @Override
+  Multiset<K> createKeys() {
+    return new Multimaps.Keys<K, V>(this);
+  }
+
+  @Override
+  Map<K, Collection<V>> createAsMap() {
+    return new Multimaps.AsMap<>(this);
+  }
+
+  /**
+   * @serialData the number of distinct keys, the keys in order, the number of entries, and the
+   *     entries in order
+   */
+  private void writeObject(ObjectOutputStream stream) throws IOException {
+    stream.defaultWriteObject();
+    stream.writeInt(keyCount);
+    for (int slot = firstKey; slot != ENDPOINT; slot = low(keyOrder[slot])) {
+      stream.writeObject(keys[slot]);
+    }
+    stream.writeInt(size);
+    for (int i = firstEntry; i != ENDPOINT; i = low(links[i])) {
+      stream.writeObject(keys[keySlots[i]]);
+      stream.writeObject(values[i]);
+    }
+  }
+
+  private void readObject(ObjectInputStream stream) throws IOException, ClassNotFoundException {
+    stream.defaultReadObject();
+    int distinctKeys = stream.readInt();
+    init(distinctKeys, DEFAULT_ENTRY_CAPACITY);
+    for (int i = 0; i < distinctKeys; i++) {
+      @SuppressWarnings("unchecked") // reading data stored by writeObject
+      K key = (K) stream.readObject();
+      addKey(key, smearedHash(key));
+    }
+    int entries = stream.readInt();
+    resizeEntries(Math.max(entries, 1));
+    resizeTable(Hashing.closedTableSize(entries, LOAD_FACTOR));
+    for (int i = 0; i < entries; i++) {
+      @SuppressWarnings("unchecked") // reading data stored by writeObject
+      K key = (K) stream.readObject();
+      @SuppressWarnings("unchecked") // reading data stored by writeObject
+      V value = (V) stream.readObject();
+      put(key, value);
+    }
+  }
+
+  private static final long serialVersionUID = 0;
+}
@@ -0,0 +1,295 @@
+/*
+ * Copyright (C) 2019 The Guava Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.common.collect;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.collect.CollectPreconditions.checkNonnegative;
+
+import com.google.common.annotations.GwtIncompatible;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.math.IntMath;
+import com.google.common.primitives.Ints;
+import com.google.errorprone.annotations.CanIgnoreReturnValue;
+import java.util.AbstractQueue;
+import java.util.Iterator;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * A bounded, lock-free queue backed by a ring buffer. Null elements are not supported.
+ *
+ * <p>The implementation follows Dmitry Vyukov's bounded MPMC queue: every slot carries a sequence
+ * number that tells producers and consumers whether the slot is ready for them, so that a claim of
+ * the head or tail index is the only contended operation. When the queue is created for a single
+ * producer (or a single consumer), the corresponding index is advanced with an ordered store
+ * instead of a compare-and-set. It is the caller's responsibility to honor that restriction.
+ *
+ * <p>An <i>evicting</i> queue never rejects an element: when it is full, {@link #offer} removes the
+ * element at the head of the queue to make room, in the manner of {@link EvictingQueue}.
+ *
+ * <p>The queue is non-blocking and its operations are weakly consistent: {@link #poll} may return
+ * {@code null} while a concurrent {@link #offer} has claimed a slot but not yet published its
+ * element, {@link #size} is only an estimate under concurrent modification, and iterators reflect
+ * the state of the queue at some point at or since their creation. Iterators do not support
+ * removal.
+ *
+ * @see Queues#newConcurrentArrayQueue(int)
+ * @see Queues#newConcurrentEvictingQueue(int)
+ */
+@GwtIncompatible
+final class ConcurrentArrayQueue<E> extends AbstractQueue<E> {
+  /** Whether producers must claim slots with a compare-and-set. */
+  private final boolean multiProducer;
+
+  /** Whether consumers must claim slots with a compare-and-set. */
+  private final boolean multiConsumer;
+
+  private final boolean evicting;
+
+  @VisibleForTesting final int capacity;
+
+  private final int mask;
+  private final AtomicReferenceArray<E> elements;
+
+  /**
+   * Per-slot sequence numbers. A slot whose sequence equals a position {@code p} may be written by
+   * the producer of {@code p}; a slot whose sequence equals {@code p + 1} holds the element at
+   * position {@code p}.
+   */
+  private final AtomicLongArray sequences;
+
+  /** The position of the next element to be consumed. */
+  private final AtomicLong head = new AtomicLong();
+
+  /** The position of the next element to be produced. */
+  private final AtomicLong tail = new AtomicLong();
+
+  ConcurrentArrayQueue(
+      int capacity, boolean multiProducer, boolean multiConsumer, boolean evicting) {
+    if (evicting) {
+      checkNonnegative(capacity, "capacity");
+      checkArgument(multiConsumer, "an evicting queue must support multiple consumers");
+    } else {
+      checkArgument(capacity > 0, "capacity (%s) must be positive", capacity);
+    }
+    checkArgument(
+        capacity <= Ints.MAX_POWER_OF_TWO, "capacity (%s) must be <= 2^30", capacity);
+    this.capacity = capacity;
+    this.multiProducer = multiProducer;
+    this.multiConsumer = multiConsumer;
+    this.evicting = evicting;
+    // The sequence scheme needs at least two slots to tell "full" from "empty"; any extra slots
+    // beyond the requested capacity are kept free by comparing against the head index.
+    int length = IntMath.ceilingPowerOfTwo(Math.max(capacity, 2));
+    this.mask = length - 1;
+    this.elements = new AtomicReferenceArray<E>(length);
+    this.sequences = new AtomicLongArray(length);
+    for (int i = 0; i < length; i++) {
+      sequences.set(i, i);
+    }
+  }
+
+  /**
+   * Inserts the specified element at the tail of this queue. If the queue is full, returns {@code
+   * false}, unless this is an evicting queue, in which case elements are removed from the head of
+   * the queue until the new element fits.
+   */
+  @CanIgnoreReturnValue
+  @Override
+  public boolean offer(E e) {
+    checkNotNull(e);
+    if (!evicting) {
+      return tryOffer(e);
+    }
+    if (capacity == 0) {
+      return true;
+    }
+    while (!tryOffer(e)) {
+      poll();
+    }
+    return true;
+  }
+
+  private boolean tryOffer(E e) {
+    boolean exactCapacity = capacity == mask + 1;
+    long pos = tail.get();
+    int index;
+    while (true) {
+      index = (int) pos & mask;
+      long difference = sequences.get(index) - pos;
+      if (difference == 0) {
+        if (!exactCapacity && pos - head.get() >= capacity) {
+          return false;
+        }
+        if (!multiProducer) {
+          tail.lazySet(pos + 1);
+          break;
+        }
+        if (tail.compareAndSet(pos, pos + 1)) {
+          break;
+        }
+        pos = tail.get();
+      } else if (difference < 0) {
+        return false; // the slot still holds the element from the previous lap
+      } else {
+        pos = tail.get(); // another producer claimed this position
+      }
+    }
+    elements.lazySet(index, e);
+    sequences.lazySet(index, pos + 1);
+    return true;
+  }
+
+  @Override
+  public @Nullable E poll() {
+    long pos = head.get();
+    int index;
+    while (true) {
+      index = (int) pos & mask;
+      long difference = sequences.get(index) - (pos + 1);
+      if (difference == 0) {
+        if (!multiConsumer) {
+          head.lazySet(pos + 1);
+          break;
+        }
+        if (head.compareAndSet(pos, pos + 1)) {
+          break;
+        }
+        pos = head.get();
+      } else if (difference < 0) {
+        return null; // nothing has been published at this position yet
+      } else {
+        pos = head.get(); // another consumer claimed this position
+      }
+    }
+    return release(index, pos);
+  }
+
+  /** Takes the element out of a claimed slot and hands the slot to the producer of the next lap. */
+  private E release(int index, long pos) {
+    E e = elements.get(index);
+    elements.lazySet(index, null);
+    sequences.lazySet(index, pos + mask + 1);
+    return e;
+  }
+
+  @Override
+  public @Nullable E peek() {
+    while (true) {
+      long pos = head.get();
+      int index = (int) pos & mask;
+      long difference = sequences.get(index) - (pos + 1);
+      if (difference < 0) {
+        return null;
+      } else if (difference == 0) {
+        E e = elements.get(index);
+        // If the head has not moved, the slot could not have been reused and e is the head element.
+        if (e != null && head.get() == pos) {
+          return e;
+        }
+      }
+    }
+  }
+
+  /**
+   * Removes up to {@code maxElements} elements from the head of this queue and passes them to
+   * {@code consumer}, returning the number of elements removed.
+   */
+  @CanIgnoreReturnValue
+  int drain(Consumer<? super E> consumer, int maxElements) {
+    checkNotNull(consumer);
+    if (multiConsumer) {
+      int drained = 0;
+      E e;
+      while (drained < maxElements && (e = poll()) != null) {
+        consumer.accept(e);
+        drained++;
+      }
+      return drained;
+    }
+    // A single consumer owns the head index, so it can release each slot individually and publish
+    // the new head just once for the whole batch.
+    long start = head.get();
+    long pos = start;
+    try {
+      while (pos - start < maxElements) {
+        int index = (int) pos & mask;
+        if (sequences.get(index) != pos + 1) {
+          break;
+        }
+        E e = release(index, pos);
+        pos++;
+        consumer.accept(e);
+      }
+    } finally {
+      head.lazySet(pos);
+    }
+    return (int) (pos - start);
+  }
+
+  @Override
+  public int size() {
+    long after = head.get();
+    while (true) {
+      long before = after;
+      long currentTail = tail.get();
+      after = head.get();
+      if (before == after) {
+        long size = currentTail - after;
+        return (int) Math.max(0, Math.min(size, capacity));
+      }
+    }
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return peek() == null;
+  }
+
+  /** Returns the number of additional elements that this queue can accept without being full. */
+  int remainingCapacity() {
+    return capacity - size();
+  }
+
+  @Override
+  public Iterator<E> iterator() {
+    return new AbstractIterator<E>() {
+      long pos = head.get();
+      final long end = tail.get();
+
+      @Override
+      protected E computeNext() {
+        while (pos < end) {
+          long current = pos++;
+          int index = (int) current & mask;
+          if (sequences.get(index) == current + 1) {
+            E e = elements.get(index);
+            // Re-check that the slot was not consumed (and possibly reused) while reading it.
+            if (e != null && sequences.get(index) == current + 1) {
+              return e;
+            }
+          }
+        }
+        return endOfData();
+      }
+    };
+  }
+}
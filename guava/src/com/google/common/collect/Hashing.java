@@ -17,7 +17,9 @@
 package com.google.common.collect;
 
 import com.google.common.annotations.GwtCompatible;
+import com.google.common.annotations.GwtIncompatible;
 import com.google.common.primitives.Ints;
+import java.util.concurrent.ThreadLocalRandom;
 import org.checkerframework.checker.nullness.qual.Nullable;
 
 /**
@@ -54,6 +56,38 @@ final class Hashing {
     return smear((o == null) ? 0 : o.hashCode());
   }
 
+  private static final long C3 = 0x85ebca6bL;
+  private static final long C4 = 0xc2b2ae35L;
+
+  /**
+   * Smears a hash code for a table built with the specified seed. A seed of zero gives the same
+   * result as {@link #smear}. Any other seed selects a fully avalanching mix (the finalization step
+   * of MurmurHash3) of the hash code and the seed, so that hash codes which were chosen to collide
+   * after smearing are no more likely to collide than any others. This lets a hash table recover
+   * from apparent hash flooding by rebuilding itself with a random seed.
+   */
+  static int seededSmear(int hashCode, int seed) {
+    if (seed == 0) {
+      return smear(hashCode);
+    }
+    int h = hashCode ^ seed;
+    h ^= h >>> 16;
+    h = (int) (h * C3);
+    h ^= h >>> 13;
+    h = (int) (h * C4);
+    return h ^ (h >>> 16);
+  }
+
+  /** Returns a random, nonzero seed for {@link #seededSmear}. */
+  @GwtIncompatible // ThreadLocalRandom
+  static int randomSeed() {
+    int seed;
+    do {
+      seed = ThreadLocalRandom.current().nextInt();
+    } while (seed == 0);
+    return seed;
+  }
+
   private static final int MAX_TABLE_SIZE = Ints.MAX_POWER_OF_TWO;
 
   static int closedTableSize(int expectedEntries, double loadFactor) {
@@ -0,0 +1,812 @@
+/*
+ * Copyright (C) 2019 The Guava Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.common.collect;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.collect.CollectPreconditions.checkEntryNotNull;
+import static com.google.common.collect.CollectPreconditions.checkNonnegative;
+
+import com.google.common.annotations.Beta;
+import com.google.common.annotations.GwtIncompatible;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.errorprone.annotations.CanIgnoreReturnValue;
+import java.io.InvalidObjectException;
+import java.io.ObjectInputStream;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.function.BiConsumer;
+import java.util.function.BinaryOperator;
+import java.util.function.Function;
+import java.util.stream.Collector;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * A persistent {@link ImmutableMap} backed by a hash array mapped trie. Besides the usual immutable
+ * map operations, it supports deriving a modified copy with {@link #with} and {@link #without} in
+ * O(log<sub>32</sub> n) time and space: the derived map shares all of its structure with the
+ * original except for the path to the modified entry. This makes it well suited to maintaining a
+ * series of large snapshots that differ by a few entries each, where rebuilding a regular {@code
+ * ImmutableMap} would copy every entry.
+ *
+ * <p>Lookups are slower than in a regular {@code ImmutableMap}, because they visit one trie node
+ * per 5 bits of hash code needed to tell keys apart. Keys with identical hash codes are stored
+ * together in a collision node and compared linearly.
+ *
+ * <p>Unlike most immutable maps, the iteration order of a hash trie map is <b>not</b> the order in
+ * which entries were inserted: it is determined by the hash codes of the keys. Two maps with the
+ * same keys iterate in the same order, however entries were added to them, except that keys with
+ * identical hash codes appear in the order in which they were added.
+ *
+ * <p>As with other immutable maps, null keys and values are not supported.
+ *
+ * @since NEXT
+ */
+@Beta
+@GwtIncompatible
+public final class ImmutableHashTrieMap<K, V>
+    extends ImmutableMap.IteratorBasedImmutableMap<K, V> {
+  /**
+   * Returns a {@link Collector} that accumulates elements into an {@code ImmutableHashTrieMap}
+   * whose keys and values are the result of applying the provided mapping functions to the input
+   * elements.
+   *
+   * <p>If the mapped keys contain duplicates (according to {@link Object#equals(Object)}), an
+   * {@code IllegalArgumentException} is thrown when the collection operation is performed.
+   */
+  public static <T, K, V> Collector<T, ?, ImmutableHashTrieMap<K, V>> toImmutableHashTrieMap(
+      Function<? super T, ? extends K> keyFunction,
+      Function<? super T, ? extends V> valueFunction) {
+    checkNotNull(keyFunction);
+    checkNotNull(valueFunction);
+    return Collector.of(
+        Builder<K, V>::new,
+        (builder, input) -> builder.put(keyFunction.apply(input), valueFunction.apply(input)),
+        Builder::combine,
+        Builder::build);
+  }
+
+  /**
+   * Not supported. Use {@link #toImmutableHashTrieMap} instead. This method exists only to hide
+   * {@link ImmutableMap#toImmutableMap(Function, Function)} from consumers of {@code
+   * ImmutableHashTrieMap}.
+   *
+   * @throws UnsupportedOperationException always
+   * @deprecated Use {@link #toImmutableHashTrieMap}.
+   */
+  @Deprecated
+  public static <T, K, V> Collector<T, ?, ImmutableMap<K, V>> toImmutableMap(
+      Function<? super T, ? extends K> keyFunction,
+      Function<? super T, ? extends V> valueFunction) {
+    throw new UnsupportedOperationException();
+  }
+
+  /**
+   * Not supported. Use {@link #toImmutableHashTrieMap} instead. This method exists only to hide
+   * {@link ImmutableMap#toImmutableMap(Function, Function, BinaryOperator)} from consumers of
+   * {@code ImmutableHashTrieMap}.
+   *
+   * @throws UnsupportedOperationException always
+   * @deprecated Use {@link #toImmutableHashTrieMap}.
+   */
+  @Deprecated
+  public static <T, K, V> Collector<T, ?, ImmutableMap<K, V>> toImmutableMap(
+      Function<? super T, ? extends K> keyFunction,
+      Function<? super T, ? extends V> valueFunction,
+      BinaryOperator<V> mergeFunction) {
+    throw new UnsupportedOperationException();
+  }
+
+  private static final ImmutableHashTrieMap<Object, Object> EMPTY =
+      new ImmutableHashTrieMap<>(BitmapNode.EMPTY, 0);
+
+  /** Returns the empty hash trie map. */
+  @SuppressWarnings("unchecked") // the empty map holds no keys or values
+  public static <K, V> ImmutableHashTrieMap<K, V> of() {
+    return (ImmutableHashTrieMap<K, V>) EMPTY;
+  }
+
+  /** Returns an immutable hash trie map containing a single entry. */
+  public static <K, V> ImmutableHashTrieMap<K, V> of(K k1, V v1) {
+    return ImmutableHashTrieMap.<K, V>of().with(k1, v1);
+  }
+
+  /**
+   * Returns an immutable hash trie map containing the given entries.
+   *
+   * @throws IllegalArgumentException if duplicate keys are provided
+   */
+  public static <K, V> ImmutableHashTrieMap<K, V> of(K k1, V v1, K k2, V v2) {
+    return new Builder<K, V>(2).put(k1, v1).put(k2, v2).build();
+  }
+
+  /**
+   * Returns an immutable hash trie map containing the given entries.
+   *
+   * @throws IllegalArgumentException if duplicate keys are provided
+   */
+  public static <K, V> ImmutableHashTrieMap<K, V> of(K k1, V v1, K k2, V v2, K k3, V v3) {
+    return new Builder<K, V>(3).put(k1, v1).put(k2, v2).put(k3, v3).build();
+  }
+
+  /**
+   * Returns an immutable hash trie map containing the given entries.
+   *
+   * @throws IllegalArgumentException if duplicate keys are provided
+   */
+  public static <K, V> ImmutableHashTrieMap<K, V> of(
+      K k1, V v1, K k2, V v2, K k3, V v3, K k4, V v4) {
+    return new Builder<K, V>(4).put(k1, v1).put(k2, v2).put(k3, v3).put(k4, v4).build();
+  }
+
+  /**
+   * Returns an immutable hash trie map containing the given entries.
+   *
+   * @throws IllegalArgumentException if duplicate keys are provided
+   */
+  public static <K, V> ImmutableHashTrieMap<K, V> of(
+      K k1, V v1, K k2, V v2, K k3, V v3, K k4, V v4, K k5, V v5) {
+    return new Builder<K, V>(5)
+        .put(k1, v1)
+        .put(k2, v2)
+        .put(k3, v3)
+        .put(k4, v4)
+        .put(k5, v5)
+        .build();
+  }
+
+  // looking for of() with > 5 entries? Use the builder instead.
+
+  /**
+   * Returns an immutable hash trie map containing the same entries as {@code map}. If {@code map}
+   * is itself an {@code ImmutableHashTrieMap}, it is returned without copying.
+   *
+   * @throws NullPointerException if any key or value in {@code map} is null
+   */
+  public static <K, V> ImmutableHashTrieMap<K, V> copyOf(Map<? extends K, ? extends V> map) {
+    if (map instanceof ImmutableHashTrieMap) {
+      @SuppressWarnings("unchecked") // safe since map is not writable
+      ImmutableHashTrieMap<K, V> kvMap = (ImmutableHashTrieMap<K, V>) map;
+      return kvMap;
+    }
+    return copyOf(map.entrySet());
+  }
+
+  /**
+   * Returns an immutable hash trie map containing the specified entries.
+   *
+   * @throws IllegalArgumentException if two entries have the same key
+   * @throws NullPointerException if any key, value, or entry is null
+   */
+  public static <K, V> ImmutableHashTrieMap<K, V> copyOf(
+      Iterable<? extends Entry<? extends K, ? extends V>> entries) {
+    return new Builder<K, V>().putAll(entries).build();
+  }
+
+  /** Returns a new builder for an {@code ImmutableHashTrieMap}. */
+  public static <K, V> Builder<K, V> builder() {
+    return new Builder<>();
+  }
+
+  /**
+   * Returns a new builder, expecting the specified number of entries to be added.
+   *
+   * <p>If {@code expectedSize} is exactly the number of entries added to the builder before {@link
+   * Builder#build} is called, the builder is likely to perform better than an unsized {@link
+   * #builder()} would have.
+   */
+  public static <K, V> Builder<K, V> builderWithExpectedSize(int expectedSize) {
+    checkNonnegative(expectedSize, "expectedSize");
+    return new Builder<>(expectedSize);
+  }
+
+  /**
+   * A builder for creating immutable hash trie maps. Duplicate keys are not allowed, and will
+   * cause {@link #build} to fail.
+   *
+   * <p>Builder instances can be reused - it is safe to call {@link #build} multiple times to build
+   * multiple maps in series. Each map is a superset of the maps created before it.
+   */
+  public static final class Builder<K, V> extends ImmutableMap.Builder<K, V> {
+    /**
+     * Creates a new builder. The returned builder is equivalent to the builder generated by {@link
+     * ImmutableHashTrieMap#builder}.
+     */
+    public Builder() {}
+
+    Builder(int initialCapacity) {
+      super(initialCapacity);
+    }
+
+    @CanIgnoreReturnValue
+    @Override
+    public Builder<K, V> put(K key, V value) {
+      super.put(key, value);
+      return this;
+    }
+
+    @CanIgnoreReturnValue
+    @Override
+    public Builder<K, V> put(Entry<? extends K, ? extends V> entry) {
+      super.put(entry);
+      return this;
+    }
+
+    @CanIgnoreReturnValue
+    @Override
+    public Builder<K, V> putAll(Map<? extends K, ? extends V> map) {
+      super.putAll(map);
+      return this;
+    }
+
+    @CanIgnoreReturnValue
+    @Override
+    public Builder<K, V> putAll(Iterable<? extends Entry<? extends K, ? extends V>> entries) {
+      super.putAll(entries);
+      return this;
+    }
+
+    /**
+     * Throws an {@code UnsupportedOperationException}: the iteration order of a hash trie map is
+     * determined by the hash codes of its keys.
+     *
+     * @throws UnsupportedOperationException always
+     * @deprecated Unsupported by ImmutableHashTrieMap.Builder.
+     */
+    @CanIgnoreReturnValue
+    @Deprecated
+    @Override
+    public Builder<K, V> orderEntriesByValue(Comparator<? super V> valueComparator) {
+      throw new UnsupportedOperationException("Not available on ImmutableHashTrieMap.Builder");
+    }
+
+    @CanIgnoreReturnValue
+    @Override
+    Builder<K, V> combine(ImmutableMap.Builder<K, V> other) {
+      super.combine(other);
+      return this;
+    }
+
+    /**
+     * Returns a newly-created immutable hash trie map.
+     *
+     * @throws IllegalArgumentException if duplicate keys were added
+     */
+    @Override
+    public ImmutableHashTrieMap<K, V> build() {
+      Node root = BitmapNode.EMPTY;
+      boolean[] added = new boolean[1];
+      for (int i = 0; i < size; i++) {
+        Entry<K, V> entry = entries[i];
+        K key = entry.getKey();
+        added[0] = false;
+        root = root.with(key, entry.getValue(), hash(key), 0, added);
+        if (!added[0]) {
+          throw new IllegalArgumentException("Multiple entries with same key: " + key);
+        }
+      }
+      return size == 0 ? ImmutableHashTrieMap.<K, V>of() : new ImmutableHashTrieMap<>(root, size);
+    }
+  }
+
+  private final transient Node root;
+  private final transient int size;
+
+  private ImmutableHashTrieMap(Node root, int size) {
+    this.root = root;
+    this.size = size;
+  }
+
+  /**
+   * Returns a map which associates {@code key} with {@code value}, and which otherwise contains the
+   * same entries as this map. If this map already maps {@code key} to {@code value}, it is
+   * returned as is.
+   *
+   * <p>This takes O(log<sub>32</sub> n) time and space; the returned map shares the rest of its
+   * structure with this map.
+   */
+  public ImmutableHashTrieMap<K, V> with(K key, V value) {
+    checkEntryNotNull(key, value);
+    boolean[] added = new boolean[1];
+    Node newRoot = root.with(key, value, hash(key), 0, added);
+    if (newRoot == root) {
+      return this;
+    }
+    return new ImmutableHashTrieMap<K, V>(newRoot, added[0] ? size + 1 : size);
+  }
+
+  /**
+   * Returns a map which contains the same entries as this map, except for any entry for {@code
+   * key}. If this map does not contain {@code key}, it is returned as is.
+   *
+   * <p>This takes O(log<sub>32</sub> n) time and space; the returned map shares the rest of its
+   * structure with this map.
+   */
+  public ImmutableHashTrieMap<K, V> without(Object key) {
+    checkNotNull(key);
+    Node newRoot = root.without(key, hash(key), 0);
+    if (newRoot == root) {
+      return this;
+    }
+    return (size == 1)
+        ? ImmutableHashTrieMap.<K, V>of()
+        : new ImmutableHashTrieMap<K, V>(newRoot, size - 1);
+  }
+
+  @Override
+  public @Nullable V get(@Nullable Object key) {
+    if (key == null) {
+      return null;
+    }
+    @SuppressWarnings("unchecked") // only keys of type K are ever added
+    V value = (V) root.get(key, hash(key), 0);
+    return value;
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  @Override
+  public void forEach(BiConsumer<? super K, ? super V> action) {
+    checkNotNull(action);
+    root.forEach(action);
+  }
+
+  @Override
+  UnmodifiableIterator<Entry<K, V>> entryIterator() {
+    return new NodeIterator<Entry<K, V>>(root) {
+      @Override
+      @SuppressWarnings("unchecked") // only keys of type K and values of type V are ever added
+      Entry<K, V> output(Object key, Object value) {
+        return Maps.immutableEntry((K) key, (V) value);
+      }
+    };
+  }
+
+  @Override
+  UnmodifiableIterator<K> keyIterator() {
+    return new NodeIterator<K>(root) {
+      @Override
+      @SuppressWarnings("unchecked") // only keys of type K are ever added
+      K output(Object key, Object value) {
+        return (K) key;
+      }
+    };
+  }
+
+  @Override
+  boolean isPartialView() {
+    return false;
+  }
+
+  @VisibleForTesting
+  static int hash(Object key) {
+    return Hashing.smear(key.hashCode());
+  }
+
+  private static final int BITS_PER_LEVEL = 5;
+  private static final int LEVEL_MASK = (1 << BITS_PER_LEVEL) - 1;
+
+  private static int bitFor(int hash, int shift) {
+    return 1 << ((hash >>> shift) & LEVEL_MASK);
+  }
+
+  /**
+   * A node of the trie. Each node holds some entries inline, and some child nodes, each of which
+   * holds the entries whose hashes share a longer prefix.
+   */
+  abstract static class Node {
+    abstract @Nullable Object get(Object key, int hash, int shift);
+
+    /**
+     * Returns a node with the given mapping added, or this node if it already holds exactly that
+     * mapping. Sets {@code added[0]} if {@code key} was not previously present.
+     */
+    abstract Node with(Object key, Object value, int hash, int shift, boolean[] added);
+
+    /**
+     * Returns a node without the mapping for {@code key}, or this node if there was no such
+     * mapping. A node that is left with a single entry is returned in the form of a single-entry
+     * {@link BitmapNode} valid at {@code shift}, so that the parent can inline the entry.
+     */
+    abstract Node without(Object key, int hash, int shift);
+
+    abstract int entryCount();
+
+    abstract Object keyAt(int i);
+
+    abstract Object valueAt(int i);
+
+    abstract int nodeCount();
+
+    abstract Node nodeAt(int i);
+
+    @SuppressWarnings("unchecked") // only keys of type K and values of type V are ever added
+    final <K, V> void forEach(BiConsumer<? super K, ? super V> action) {
+      for (int i = 0; i < entryCount(); i++) {
+        action.accept((K) keyAt(i), (V) valueAt(i));
+      }
+      for (int i = 0; i < nodeCount(); i++) {
+        nodeAt(i).forEach(action);
+      }
+    }
+  }
+
+  /**
+   * A node that holds up to 32 slots, selected by 5 bits of the hash code. {@code dataMap} has a
+   * bit set for each slot that holds an inline entry, and {@code nodeMap} for each slot that holds
+   * a child node. The array holds the inline entries as key-value pairs from the front, in slot
+   * order, followed by the child nodes in reverse slot order.
+   */
+  static final class BitmapNode extends Node {
+    static final BitmapNode EMPTY = new BitmapNode(0, 0, new Object[0]);
+
+    final int dataMap;
+    final int nodeMap;
+    final Object[] array;
+
+    BitmapNode(int dataMap, int nodeMap, Object[] array) {
+      this.dataMap = dataMap;
+      this.nodeMap = nodeMap;
+      this.array = array;
+    }
+
+    private int dataIndex(int bit) {
+      return Integer.bitCount(dataMap & (bit - 1));
+    }
+
+    private int nodeSlot(int bit) {
+      return array.length - 1 - Integer.bitCount(nodeMap & (bit - 1));
+    }
+
+    @Override
+    @Nullable
+    Object get(Object key, int hash, int shift) {
+      int bit = bitFor(hash, shift);
+      if ((dataMap & bit) != 0) {
+        int index = 2 * dataIndex(bit);
+        return key.equals(array[index]) ? array[index + 1] : null;
+      } else if ((nodeMap & bit) != 0) {
+        return ((Node) array[nodeSlot(bit)]).get(key, hash, shift + BITS_PER_LEVEL);
+      }
+      return null;
+    }
+
+    @Override
+    Node with(Object key, Object value, int hash, int shift, boolean[] added) {
+      int bit = bitFor(hash, shift);
+      if ((dataMap & bit) != 0) {
+        int index = 2 * dataIndex(bit);
+        Object existingKey = array[index];
+        if (key.equals(existingKey)) {
+          if (array[index + 1] == value) {
+            return this;
+          }
+          Object[] newArray = array.clone();
+          newArray[index + 1] = value;
+          return new BitmapNode(dataMap, nodeMap, newArray);
+        }
+        added[0] = true;
+        Node child =
+            merge(
+                existingKey,
+                array[index + 1],
+                hash(existingKey),
+                key,
+                value,
+                hash,
+                shift + BITS_PER_LEVEL);
+        return replaceEntryWithNode(bit, index, child);
+      } else if ((nodeMap & bit) != 0) {
+        int slot = nodeSlot(bit);
+        Node child = (Node) array[slot];
+        Node newChild = child.with(key, value, hash, shift + BITS_PER_LEVEL, added);
+        if (newChild == child) {
+          return this;
+        }
+        Object[] newArray = array.clone();
+        newArray[slot] = newChild;
+        return new BitmapNode(dataMap, nodeMap, newArray);
+      }
+      added[0] = true;
+      int index = 2 * dataIndex(bit);
+      Object[] newArray = new Object[array.length + 2];
+      System.arraycopy(array, 0, newArray, 0, index);
+      newArray[index] = key;
+      newArray[index + 1] = value;
+      System.arraycopy(array, index, newArray, index + 2, array.length - index);
+      return new BitmapNode(dataMap | bit, nodeMap, newArray);
+    }
+
+    private Node replaceEntryWithNode(int bit, int index, Node child) {
+      Object[] newArray = new Object[array.length - 1];
+      int slot = array.length - 2 - Integer.bitCount(nodeMap & (bit - 1));
+      // entries before the removed one, then entries after it up to the new node's slot
+      System.arraycopy(array, 0, newArray, 0, index);
+      System.arraycopy(array, index + 2, newArray, index, slot - index);
+      newArray[slot] = child;
+      System.arraycopy(array, slot + 2, newArray, slot + 1, array.length - slot - 2);
+      return new BitmapNode(dataMap ^ bit, nodeMap | bit, newArray);
+    }
+
+    private Node replaceNodeWithEntry(int bit, int slot, Object key, Object value) {
+      int index = 2 * dataIndex(bit);
+      Object[] newArray = new Object[array.length + 1];
+      System.arraycopy(array, 0, newArray, 0, index);
+      newArray[index] = key;
+      newArray[index + 1] = value;
+      System.arraycopy(array, index, newArray, index + 2, slot - index);
+      System.arraycopy(array, slot + 1, newArray, slot + 2, array.length - slot - 1);
+      return new BitmapNode(dataMap | bit, nodeMap ^ bit, newArray);
+    }
+
+    @Override
+    Node without(Object key, int hash, int shift) {
+      int bit = bitFor(hash, shift);
+      if ((dataMap & bit) != 0) {
+        int index = 2 * dataIndex(bit);
+        if (!key.equals(array[index])) {
+          return this;
+        }
+        Object[] newArray = new Object[array.length - 2];
+        System.arraycopy(array, 0, newArray, 0, index);
+        System.arraycopy(array, index + 2, newArray, index, array.length - index - 2);
+        return new BitmapNode(dataMap ^ bit, nodeMap, newArray);
+      } else if ((nodeMap & bit) != 0) {
+        int slot = nodeSlot(bit);
+        Node child = (Node) array[slot];
+        Node newChild = child.without(key, hash, shift + BITS_PER_LEVEL);
+        if (newChild == child) {
+          return this;
+        }
+        if (newChild.nodeCount() == 0 && newChild.entryCount() == 1) {
+          if (dataMap == 0 && array.length == 1) {
+            // This node would hold nothing but the single entry; pass it further up instead.
+            return new BitmapNode(bit, 0, new Object[] {newChild.keyAt(0), newChild.valueAt(0)});
+          }
+          return replaceNodeWithEntry(bit, slot, newChild.keyAt(0), newChild.valueAt(0));
+        }
+        Object[] newArray = array.clone();
+        newArray[slot] = newChild;
+        return new BitmapNode(dataMap, nodeMap, newArray);
+      }
+      return this;
+    }
+
+    @Override
+    int entryCount() {
+      return Integer.bitCount(dataMap);
+    }
+
+    @Override
+    Object keyAt(int i) {
+      return array[2 * i];
+    }
+
+    @Override
+    Object valueAt(int i) {
+      return array[2 * i + 1];
+    }
+
+    @Override
+    int nodeCount() {
+      return Integer.bitCount(nodeMap);
+    }
+
+    @Override
+    Node nodeAt(int i) {
+      return (Node) array[array.length - 1 - i];
+    }
+  }
+
+  /** A node holding the entries of several keys with exactly the same hash. */
+  static final class CollisionNode extends Node {
+    final int hash;
+    final Object[] array;
+
+    CollisionNode(int hash, Object[] array) {
+      this.hash = hash;
+      this.array = array;
+    }
+
+    private int indexOf(Object key) {
+      for (int i = 0; i < array.length; i += 2) {
+        if (key.equals(array[i])) {
+          return i;
+        }
+      }
+      return -1;
+    }
+
+    @Override
+    @Nullable
+    Object get(Object key, int hash, int shift) {
+      if (hash != this.hash) {
+        return null;
+      }
+      int index = indexOf(key);
+      return index < 0 ? null : array[index + 1];
+    }
+
+    @Override
+    Node with(Object key, Object value, int hash, int shift, boolean[] added) {
+      if (hash != this.hash) {
+        // Push this node one level down, next to the new entry.
+        return new BitmapNode(0, bitFor(this.hash, shift), new Object[] {this})
+            .with(key, value, hash, shift, added);
+      }
+      int index = indexOf(key);
+      if (index >= 0) {
+        if (array[index + 1] == value) {
+          return this;
+        }
+        Object[] newArray = array.clone();
+        newArray[index + 1] = value;
+        return new CollisionNode(hash, newArray);
+      }
+      added[0] = true;
+      Object[] newArray = Arrays.copyOf(array, array.length + 2);
+      newArray[array.length] = key;
+      newArray[array.length + 1] = value;
+      return new CollisionNode(hash, newArray);
+    }
+
+    @Override
+    Node without(Object key, int hash, int shift) {
+      int index = hash == this.hash ? indexOf(key) : -1;
+      if (index < 0) {
+        return this;
+      }
+      if (array.length == 4) {
+        int remaining = 2 - index;
+        return new BitmapNode(
+            bitFor(hash, shift), 0, new Object[] {array[remaining], array[remaining + 1]});
+      }
+      Object[] newArray = new Object[array.length - 2];
+      System.arraycopy(array, 0, newArray, 0, index);
+      System.arraycopy(array, index + 2, newArray, index, array.length - index - 2);
+      return new CollisionNode(hash, newArray);
+    }
+
+    @Override
+    int entryCount() {
+      return array.length / 2;
+    }
+
+    @Override
+    Object keyAt(int i) {
+      return array[2 * i];
+    }
+
+    @Override
+    Object valueAt(int i) {
+      return array[2 * i + 1];
+    }
+
+    @Override
+    int nodeCount() {
+      return 0;
+    }
+
+    @Override
+    Node nodeAt(int i) {
+      throw new AssertionError();
+    }
+  }
+
+  /** Returns a node holding two entries whose keys are distinct. */
+  private static Node merge(
+      Object key1, Object value1, int hash1, Object key2, Object value2, int hash2, int shift) {
+    if (hash1 == hash2) {
+      return new CollisionNode(hash1, new Object[] {key1, value1, key2, value2});
+    }
+    int bit1 = bitFor(hash1, shift);
+    int bit2 = bitFor(hash2, shift);
+    if (bit1 == bit2) {
+      Node child = merge(key1, value1, hash1, key2, value2, hash2, shift + BITS_PER_LEVEL);
+      return new BitmapNode(0, bit1, new Object[] {child});
+    }
+    return (Integer.compareUnsigned(bit1, bit2) < 0)
+        ? new BitmapNode(bit1 | bit2, 0, new Object[] {key1, value1, key2, value2})
+        : new BitmapNode(bit1 | bit2, 0, new Object[] {key2, value2, key1, value1});
+  }
+
+  /** Iterates over the entries of a trie depth-first, inline entries before child nodes. */
+  abstract static class NodeIterator<T> extends UnmodifiableIterator<T> {
+    // A trie over 32-bit hashes is at most 7 levels deep, plus a collision node.
+    private final Node[] nodes = new Node[8];
+    private final int[] entryIndexes = new int[8];
+    private final int[] nodeIndexes = new int[8];
+    private int depth;
+    private @Nullable Node next;
+    private int nextIndex;
+
+    NodeIterator(Node root) {
+      nodes[0] = root;
+      advance();
+    }
+
+    abstract T output(Object key, Object value);
+
+    private void advance() {
+      while (depth >= 0) {
+        Node node = nodes[depth];
+        if (entryIndexes[depth] < node.entryCount()) {
+          next = node;
+          nextIndex = entryIndexes[depth]++;
+          return;
+        }
+        if (nodeIndexes[depth] < node.nodeCount()) {
+          Node child = node.nodeAt(nodeIndexes[depth]++);
+          depth++;
+          nodes[depth] = child;
+          entryIndexes[depth] = 0;
+          nodeIndexes[depth] = 0;
+        } else {
+          nodes[depth] = null;
+          depth--;
+        }
+      }
+      next = null;
+    }
+
+    @Override
+    public boolean hasNext() {
+      return next != null;
+    }
+
+    @Override
+    public T next() {
+      Node node = next;
+      if (node == null) {
+        throw new NoSuchElementException();
+      }
+      T result = output(node.keyAt(nextIndex), node.valueAt(nextIndex));
+      advance();
+      return result;
+    }
+  }
+
+  /*
+   * Serializes the logical contents of the map, which are reassembled through the builder on
+   * deserialization.
+   */
+  private static class SerializedForm extends ImmutableMap.SerializedForm {
+    SerializedForm(ImmutableHashTrieMap<?, ?> map) {
+      super(map);
+    }
+
+    @Override
+    Object readResolve() {
+      return createMap(new Builder<Object, Object>());
+    }
+
+    private static final long serialVersionUID = 0;
+  }
+
+  @Override
+  Object writeReplace() {
+    return new SerializedForm(this);
+  }
+
+  private void readObject(ObjectInputStream stream) throws InvalidObjectException {
+    throw new InvalidObjectException("Use SerializedForm");
+  }
+}
@@ -0,0 +1,361 @@
+/*
+ * Copyright (C) 2019 The Guava Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.common.collect;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.collect.CollectPreconditions.checkNonnegative;
+
+import com.google.common.annotations.Beta;
+import com.google.common.annotations.GwtIncompatible;
+import com.google.errorprone.annotations.CanIgnoreReturnValue;
+import java.io.InvalidObjectException;
+import java.io.ObjectInputStream;
+import java.io.Serializable;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.function.Consumer;
+import java.util.stream.Collector;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * A persistent {@link ImmutableSet} backed by a hash array mapped trie. Besides the usual immutable
+ * set operations, it supports deriving a modified copy with {@link #with} and {@link #without} in
+ * O(log<sub>32</sub> n) time and space, sharing all other structure with the original set. See
+ * {@link ImmutableHashTrieMap} for details.
+ *
+ * <p>Unlike most immutable sets, the iteration order of a hash trie set is <b>not</b> the order in
+ * which elements were inserted: it is determined by the hash codes of the elements.
+ *
+ * <p>As with other immutable sets, null elements are not supported.
+ *
+ * @since NEXT
+ */
+@Beta
+@GwtIncompatible
+public final class ImmutableHashTrieSet<E> extends ImmutableSet<E> {
+  /**
+   * Returns a {@code Collector} that accumulates the input elements into a new {@code
+   * ImmutableHashTrieSet}. Duplicate elements are allowed and only the first is kept.
+   */
+  public static <E> Collector<E, ?, ImmutableHashTrieSet<E>> toImmutableHashTrieSet() {
+    return Collector.of(
+        Builder<E>::new,
+        Builder::add,
+        Builder::combine,
+        Builder::build,
+        Collector.Characteristics.UNORDERED);
+  }
+
+  /**
+   * Not supported. Use {@link #toImmutableHashTrieSet} instead. This method exists only to hide
+   * {@link ImmutableSet#toImmutableSet} from consumers of {@code ImmutableHashTrieSet}.
+   *
+   * @throws UnsupportedOperationException always
+   * @deprecated Use {@link #toImmutableHashTrieSet}.
+   */
+  @Deprecated
+  public static <E> Collector<E, ?, ImmutableSet<E>> toImmutableSet() {
+    throw new UnsupportedOperationException();
+  }
+
+  private static final ImmutableHashTrieSet<Object> EMPTY =
+      new ImmutableHashTrieSet<>(ImmutableHashTrieMap.<Object, Boolean>of());
+
+  /** Returns the empty hash trie set. */
+  @SuppressWarnings("unchecked") // the empty set holds no elements
+  public static <E> ImmutableHashTrieSet<E> of() {
+    return (ImmutableHashTrieSet<E>) EMPTY;
+  }
+
+  /** Returns an immutable hash trie set containing {@code element}. */
+  public static <E> ImmutableHashTrieSet<E> of(E element) {
+    return ImmutableHashTrieSet.<E>of().with(element);
+  }
+
+  /**
+   * Returns an immutable hash trie set containing the given elements, minus duplicates.
+   *
+   * @throws NullPointerException if any element is null
+   */
+  public static <E> ImmutableHashTrieSet<E> of(E e1, E e2) {
+    return construct(e1, e2);
+  }
+
+  /**
+   * Returns an immutable hash trie set containing the given elements, minus duplicates.
+   *
+   * @throws NullPointerException if any element is null
+   */
+  public static <E> ImmutableHashTrieSet<E> of(E e1, E e2, E e3) {
+    return construct(e1, e2, e3);
+  }
+
+  /**
+   * Returns an immutable hash trie set containing the given elements, minus duplicates.
+   *
+   * @throws NullPointerException if any element is null
+   */
+  public static <E> ImmutableHashTrieSet<E> of(E e1, E e2, E e3, E e4) {
+    return construct(e1, e2, e3, e4);
+  }
+
+  /**
+   * Returns an immutable hash trie set containing the given elements, minus duplicates.
+   *
+   * @throws NullPointerException if any element is null
+   */
+  public static <E> ImmutableHashTrieSet<E> of(E e1, E e2, E e3, E e4, E e5) {
+    return construct(e1, e2, e3, e4, e5);
+  }
+
+  /**
+   * Returns an immutable hash trie set containing the given elements, minus duplicates.
+   *
+   * @throws NullPointerException if any element is null
+   */
+  @SafeVarargs // For Eclipse. For internal javac we have disabled this pointless type of warning.
+  public static <E> ImmutableHashTrieSet<E> of(E e1, E e2, E e3, E e4, E e5, E e6, E... others) {
+    ImmutableHashTrieSet<E> set = construct(e1, e2, e3, e4, e5, e6);
+    for (E element : others) {
+      set = set.with(element);
+    }
+    return set;
+  }
+
+  /**
+   * Returns an immutable hash trie set containing {@code elements}, which must all be {@code E}s.
+   * The fixed-arity {@code of} methods go through here so as not to create generic arrays.
+   */
+  private static <E> ImmutableHashTrieSet<E> construct(Object... elements) {
+    ImmutableHashTrieSet<E> set = of();
+    for (Object element : elements) {
+      @SuppressWarnings("unchecked") // the callers only pass Es
+      E e = (E) element;
+      set = set.with(e);
+    }
+    return set;
+  }
+
+  /**
+   * Returns an immutable hash trie set containing each of {@code elements}, minus duplicates. If
+   * {@code elements} is itself an {@code ImmutableHashTrieSet}, it is returned without copying.
+   *
+   * @throws NullPointerException if any of {@code elements} is null
+   */
+  public static <E> ImmutableHashTrieSet<E> copyOf(Collection<? extends E> elements) {
+    return copyOf((Iterable<? extends E>) elements);
+  }
+
+  /**
+   * Returns an immutable hash trie set containing each of {@code elements}, minus duplicates. If
+   * {@code elements} is itself an {@code ImmutableHashTrieSet}, it is returned without copying.
+   *
+   * @throws NullPointerException if any of {@code elements} is null
+   */
+  public static <E> ImmutableHashTrieSet<E> copyOf(Iterable<? extends E> elements) {
+    if (elements instanceof ImmutableHashTrieSet) {
+      @SuppressWarnings("unchecked") // all supported methods are covariant
+      ImmutableHashTrieSet<E> set = (ImmutableHashTrieSet<E>) elements;
+      return set;
+    }
+    return new Builder<E>().addAll(elements).build();
+  }
+
+  /**
+   * Returns an immutable hash trie set containing each of {@code elements}, minus duplicates.
+   *
+   * @throws NullPointerException if any of {@code elements} is null
+   */
+  public static <E> ImmutableHashTrieSet<E> copyOf(Iterator<? extends E> elements) {
+    return new Builder<E>().addAll(elements).build();
+  }
+
+  /**
+   * Returns an immutable hash trie set containing each of {@code elements}, minus duplicates.
+   *
+   * @throws NullPointerException if any of {@code elements} is null
+   */
+  public static <E> ImmutableHashTrieSet<E> copyOf(E[] elements) {
+    return new Builder<E>().add(elements).build();
+  }
+
+  /** Returns a new builder for an {@code ImmutableHashTrieSet}. */
+  public static <E> Builder<E> builder() {
+    return new Builder<>();
+  }
+
+  /**
+   * Returns a new builder. Hash trie sets grow one element at a time, so {@code expectedSize} has
+   * no effect beyond being validated.
+   */
+  public static <E> Builder<E> builderWithExpectedSize(int expectedSize) {
+    checkNonnegative(expectedSize, "expectedSize");
+    return new Builder<>();
+  }
+
+  /**
+   * A builder for creating immutable hash trie sets. Duplicate elements are ignored.
+   *
+   * <p>Builder instances can be reused; it is safe to call {@link #build} multiple times to build
+   * multiple sets in series. Each set is a superset of the sets created before it, and shares
+   * structure with them.
+   */
+  public static final class Builder<E> extends ImmutableSet.Builder<E> {
+    private ImmutableHashTrieSet<E> set = ImmutableHashTrieSet.of();
+
+    /**
+     * Creates a new builder. The returned builder is equivalent to the builder generated by {@link
+     * ImmutableHashTrieSet#builder}.
+     */
+    public Builder() {
+      super(true); // don't construct guts of hash-based set builder
+    }
+
+    @Override
+    void copy() {
+      // the accumulated set is persistent, so it never needs to be copied
+    }
+
+    @CanIgnoreReturnValue
+    @Override
+    public Builder<E> add(E element) {
+      set = set.with(element);
+      return this;
+    }
+
+    @CanIgnoreReturnValue
+    @Override
+    @SuppressWarnings("unchecked") // the array is only read, so it can't pollute the heap
+    public Builder<E> add(E... elements) {
+      super.add(elements);
+      return this;
+    }
+
+    @CanIgnoreReturnValue
+    @Override
+    public Builder<E> addAll(Iterable<? extends E> elements) {
+      super.addAll(elements);
+      return this;
+    }
+
+    @CanIgnoreReturnValue
+    @Override
+    public Builder<E> addAll(Iterator<? extends E> elements) {
+      super.addAll(elements);
+      return this;
+    }
+
+    @CanIgnoreReturnValue
+    @Override
+    Builder<E> combine(ImmutableSet.Builder<E> builder) {
+      addAll(((Builder<E>) builder).set);
+      return this;
+    }
+
+    @Override
+    public ImmutableHashTrieSet<E> build() {
+      return set;
+    }
+  }
+
+  private final transient ImmutableHashTrieMap<E, Boolean> map;
+
+  private ImmutableHashTrieSet(ImmutableHashTrieMap<E, Boolean> map) {
+    this.map = map;
+  }
+
+  /**
+   * Returns a set which contains {@code element} and all the elements of this set. If this set
+   * already contains {@code element}, it is returned as is.
+   *
+   * <p>This takes O(log<sub>32</sub> n) time and space; the returned set shares the rest of its
+   * structure with this set.
+   */
+  public ImmutableHashTrieSet<E> with(E element) {
+    checkNotNull(element);
+    ImmutableHashTrieMap<E, Boolean> newMap = map.with(element, true);
+    return (newMap == map) ? this : new ImmutableHashTrieSet<E>(newMap);
+  }
+
+  /**
+   * Returns a set which contains all the elements of this set except {@code element}. If this set
+   * does not contain {@code element}, it is returned as is.
+   *
+   * <p>This takes O(log<sub>32</sub> n) time and space; the returned set shares the rest of its
+   * structure with this set.
+   */
+  public ImmutableHashTrieSet<E> without(Object element) {
+    ImmutableHashTrieMap<E, Boolean> newMap = map.without(element);
+    if (newMap == map) {
+      return this;
+    }
+    return newMap.isEmpty() ? ImmutableHashTrieSet.<E>of() : new ImmutableHashTrieSet<E>(newMap);
+  }
+
+  @Override
+  public boolean contains(@Nullable Object object) {
+    return map.containsKey(object);
+  }
+
+  @Override
+  public int size() {
+    return map.size();
+  }
+
+  @Override
+  public UnmodifiableIterator<E> iterator() {
+    return map.keyIterator();
+  }
+
+  @Override
+  public void forEach(Consumer<? super E> action) {
+    checkNotNull(action);
+    map.forEach((e, present) -> action.accept(e));
+  }
+
+  @Override
+  boolean isPartialView() {
+    return false;
+  }
+
+  /*
+   * Serializes the logical contents of the set, which are reassembled through the builder on
+   * deserialization.
+   */
+  private static class SerializedForm implements Serializable {
+    final Object[] elements;
+
+    SerializedForm(Object[] elements) {
+      this.elements = elements;
+    }
+
+    Object readResolve() {
+      return copyOf(elements);
+    }
+
+    private static final long serialVersionUID = 0;
+  }
+
+  @Override
+  Object writeReplace() {
+    return new SerializedForm(toArray());
+  }
+
+  private void readObject(ObjectInputStream stream) throws InvalidObjectException {
+    throw new InvalidObjectException("Use SerializedForm");
+  }
+}
@@ -438,11 +438,19 @@ public abstract class ImmutableSet<E> extends ImmutableCollection<E> implements
 
   /** Builds a new open-addressed hash table from the first n objects in elements. */
   static Object[] rebuildHashTable(int newTableSize, Object[] elements, int n) {
+    return rebuildHashTable(newTableSize, elements, n, 0);
+  }
+
+  /**
+   * Builds a new open-addressed hash table from the first n objects in elements, placing them
+   * according to {@link Hashing#seededSmear} with the specified seed.
+   */
+  static Object[] rebuildHashTable(int newTableSize, Object[] elements, int n, int seed) {
     Object[] hashTable = new Object[newTableSize];
     int mask = hashTable.length - 1;
     for (int i = 0; i < n; i++) {
       Object e = elements[i];
-      int j0 = Hashing.smear(e.hashCode());
+      int j0 = Hashing.seededSmear(e.hashCode(), seed);
       for (int j = j0; ; j++) {
         int index = j & mask;
         if (hashTable[index] == null) {
@@ -656,7 +664,10 @@ public abstract class ImmutableSet<E> extends ImmutableCollection<E> implements
   }
 
   /**
-   * We attempt to detect deliberate hash flooding attempts, and if one is detected, fall back to a
+   * We attempt to detect deliberate hash flooding attempts. The first time one is detected, the
+   * hash table is rebuilt with a random seed for {@link Hashing#seededSmear}, which defeats hash
+   * codes chosen to collide after smearing while keeping the compact open-addressed table. If
+   * flooding is detected again, the hash codes themselves must be colliding, and we fall back to a
    * wrapper around j.u.HashSet, which has built in flooding protection. HASH_FLOODING_FPP is the
    * maximum allowed probability of falsely detecting a hash flooding attack if the input is
    * randomly generated.
@@ -746,7 +757,8 @@ public abstract class ImmutableSet<E> extends ImmutableCollection<E> implements
    * table and deduplicating elements as they come, so it only allocates O(max(distinct,
    * expectedCapacity)) rather than O(calls to add).
    *
-   * <p>This implementation attempts to detect hash flooding, and if it's identified, falls back to
+   * <p>This implementation attempts to detect hash flooding. If it's identified, the table is
+   * rebuilt once with a random seed; if it's identified again, this falls back to
    * JdkBackedSetBuilderImpl.
    */
   private static final class RegularSetBuilderImpl<E> extends SetBuilderImpl<E> {
@@ -754,6 +766,8 @@ public abstract class ImmutableSet<E> extends ImmutableCollection<E> implements
     private int maxRunBeforeFallback;
     private int expandTableThreshold;
     private int hashCode;
+    // the seed for Hashing.seededSmear; zero until hash flooding is first detected
+    private int seed;
 
     RegularSetBuilderImpl(int expectedCapacity) {
       super(expectedCapacity);
@@ -769,12 +783,13 @@ public abstract class ImmutableSet<E> extends ImmutableCollection<E> implements
       this.maxRunBeforeFallback = toCopy.maxRunBeforeFallback;
       this.expandTableThreshold = toCopy.expandTableThreshold;
       this.hashCode = toCopy.hashCode;
+      this.seed = toCopy.seed;
     }
 
     void ensureTableCapacity(int minCapacity) {
       if (minCapacity > expandTableThreshold && hashTable.length < MAX_TABLE_SIZE) {
         int newTableSize = hashTable.length * 2;
-        hashTable = rebuildHashTable(newTableSize, dedupedElements, distinct);
+        hashTable = rebuildHashTable(newTableSize, dedupedElements, distinct, seed);
         maxRunBeforeFallback = maxRunBeforeFallback(newTableSize);
         expandTableThreshold = (int) (DESIRED_LOAD_FACTOR * newTableSize);
       }
@@ -784,7 +799,7 @@ public abstract class ImmutableSet<E> extends ImmutableCollection<E> implements
     SetBuilderImpl<E> add(E e) {
       checkNotNull(e);
       int eHash = e.hashCode();
-      int i0 = Hashing.smear(eHash);
+      int i0 = Hashing.seededSmear(eHash, seed);
       int mask = hashTable.length - 1;
       for (int i = i0; i - i0 < maxRunBeforeFallback; i++) {
         int index = i & mask;
@@ -799,10 +814,21 @@ public abstract class ImmutableSet<E> extends ImmutableCollection<E> implements
           return this;
         }
       }
-      // we fell out of the loop due to a long run; fall back to JDK impl
+      // we fell out of the loop due to a long run; reseed the table, or fall back to JDK impl if
+      // that has already been tried
+      if (seed == 0) {
+        reseed();
+        return add(e);
+      }
       return new JdkBackedSetBuilderImpl<E>(this).add(e);
     }
 
+    /** Rebuilds the hash table with a random seed, to recover from apparent hash flooding. */
+    private void reseed() {
+      seed = Hashing.randomSeed();
+      hashTable = rebuildHashTable(hashTable.length, dedupedElements, distinct, seed);
+    }
+
     @Override
     SetBuilderImpl<E> copy() {
       return new RegularSetBuilderImpl<E>(this);
@@ -812,11 +838,20 @@ public abstract class ImmutableSet<E> extends ImmutableCollection<E> implements
     SetBuilderImpl<E> review() {
       int targetTableSize = chooseTableSize(distinct);
       if (targetTableSize * 2 < hashTable.length) {
-        hashTable = rebuildHashTable(targetTableSize, dedupedElements, distinct);
+        hashTable = rebuildHashTable(targetTableSize, dedupedElements, distinct, seed);
         maxRunBeforeFallback = maxRunBeforeFallback(targetTableSize);
         expandTableThreshold = (int) (DESIRED_LOAD_FACTOR * targetTableSize);
       }
-      return hashFloodingDetected(hashTable) ? new JdkBackedSetBuilderImpl<E>(this) : this;
+      if (hashFloodingDetected(hashTable)) {
+        if (seed != 0) {
+          return new JdkBackedSetBuilderImpl<E>(this);
+        }
+        reseed();
+        if (hashFloodingDetected(hashTable)) {
+          return new JdkBackedSetBuilderImpl<E>(this);
+        }
+      }
+      return this;
     }
 
     @Override
@@ -831,7 +866,8 @@ public abstract class ImmutableSet<E> extends ImmutableCollection<E> implements
               (distinct == dedupedElements.length)
                   ? dedupedElements
                   : Arrays.copyOf(dedupedElements, distinct);
-          return new RegularImmutableSet<E>(elements, hashCode, hashTable, hashTable.length - 1);
+          return new RegularImmutableSet<E>(
+              elements, hashCode, hashTable, hashTable.length - 1, seed);
       }
     }
   }
@@ -0,0 +1,621 @@
+/*
+ * Copyright (C) 2019 The Guava Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.common.collect;
+
+import static com.google.common.base.Preconditions.checkElementIndex;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+import static com.google.common.collect.ObjectArrays.checkElementsNotNull;
+
+import com.google.common.annotations.Beta;
+import com.google.common.annotations.GwtIncompatible;
+import java.io.InvalidObjectException;
+import java.io.ObjectInputStream;
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.Consumer;
+import java.util.stream.Collector;
+
+/**
+ * A persistent {@link ImmutableList} backed by a trie of 32-element arrays. Besides the usual
+ * immutable list operations, it supports deriving a modified copy with {@link #with(int, Object)},
+ * {@link #withAdded} and {@link #withoutLast} in O(log<sub>32</sub> n) time and space: the derived
+ * list shares all of its structure with the original except for the path to the modified element.
+ * This makes it well suited to maintaining a series of large snapshots that differ by a few
+ * elements each, where rebuilding a regular {@code ImmutableList} would copy every element.
+ *
+ * <p>The last (up to) 32 elements are kept in a separate tail array, so appending elements and
+ * removing the last element usually copy no more than that array. Random access visits one array
+ * per 5 bits of index, and iteration visits each array once.
+ *
+ * <p>As with other immutable lists, null elements are not supported.
+ *
+ * @since NEXT
+ */
+@Beta
+@GwtIncompatible
+public final class ImmutableTrieList<E> extends ImmutableList<E> {
+  /**
+   * Returns a {@code Collector} that accumulates the input elements into a new {@code
+   * ImmutableTrieList}, in encounter order.
+   */
+  public static <E> Collector<E, ?, ImmutableTrieList<E>> toImmutableTrieList() {
+    return Collector.of(
+        ImmutableList.Builder<E>::new,
+        ImmutableList.Builder::add,
+        ImmutableList.Builder::combine,
+        builder -> ImmutableTrieList.<E>copyOf(builder.build()));
+  }
+
+  /**
+   * Not supported. Use {@link #toImmutableTrieList} instead. This method exists only to hide
+   * {@link ImmutableList#toImmutableList} from consumers of {@code ImmutableTrieList}.
+   *
+   * @throws UnsupportedOperationException always
+   * @deprecated Use {@link #toImmutableTrieList}.
+   */
+  @Deprecated
+  public static <E> Collector<E, ?, ImmutableList<E>> toImmutableList() {
+    throw new UnsupportedOperationException();
+  }
+
+  private static final int BITS_PER_LEVEL = 5;
+  private static final int BRANCH_FACTOR = 1 << BITS_PER_LEVEL;
+  private static final int LEVEL_MASK = BRANCH_FACTOR - 1;
+
+  private static final Object[] EMPTY_NODE = new Object[BRANCH_FACTOR];
+
+  private static final ImmutableTrieList<Object> EMPTY =
+      new ImmutableTrieList<>(0, BITS_PER_LEVEL, EMPTY_NODE, new Object[0]);
+
+  /** Returns the empty trie list. */
+  @SuppressWarnings("unchecked") // the empty list holds no elements
+  public static <E> ImmutableTrieList<E> of() {
+    return (ImmutableTrieList<E>) EMPTY;
+  }
+
+  /**
+   * Returns an immutable trie list containing a single element.
+   *
+   * @throws NullPointerException if {@code element} is null
+   */
+  public static <E> ImmutableTrieList<E> of(E element) {
+    return construct(element);
+  }
+
+  /**
+   * Returns an immutable trie list containing the given elements, in order.
+   *
+   * @throws NullPointerException if any element is null
+   */
+  public static <E> ImmutableTrieList<E> of(E e1, E e2) {
+    return construct(e1, e2);
+  }
+
+  /**
+   * Returns an immutable trie list containing the given elements, in order.
+   *
+   * @throws NullPointerException if any element is null
+   */
+  public static <E> ImmutableTrieList<E> of(E e1, E e2, E e3) {
+    return construct(e1, e2, e3);
+  }
+
+  /**
+   * Returns an immutable trie list containing the given elements, in order.
+   *
+   * @throws NullPointerException if any element is null
+   */
+  public static <E> ImmutableTrieList<E> of(E e1, E e2, E e3, E e4) {
+    return construct(e1, e2, e3, e4);
+  }
+
+  /**
+   * Returns an immutable trie list containing the given elements, in order.
+   *
+   * @throws NullPointerException if any element is null
+   */
+  public static <E> ImmutableTrieList<E> of(E e1, E e2, E e3, E e4, E e5) {
+    return construct(e1, e2, e3, e4, e5);
+  }
+
+  /**
+   * Returns an immutable trie list containing the given elements, in order.
+   *
+   * @throws NullPointerException if any element is null
+   */
+  public static <E> ImmutableTrieList<E> of(E e1, E e2, E e3, E e4, E e5, E e6) {
+    return construct(e1, e2, e3, e4, e5, e6);
+  }
+
+  /**
+   * Returns an immutable trie list containing the given elements, in order.
+   *
+   * @throws NullPointerException if any element is null
+   */
+  public static <E> ImmutableTrieList<E> of(E e1, E e2, E e3, E e4, E e5, E e6, E e7) {
+    return construct(e1, e2, e3, e4, e5, e6, e7);
+  }
+
+  /**
+   * Returns an immutable trie list containing the given elements, in order.
+   *
+   * @throws NullPointerException if any element is null
+   */
+  public static <E> ImmutableTrieList<E> of(E e1, E e2, E e3, E e4, E e5, E e6, E e7, E e8) {
+    return construct(e1, e2, e3, e4, e5, e6, e7, e8);
+  }
+
+  /**
+   * Returns an immutable trie list containing the given elements, in order.
+   *
+   * @throws NullPointerException if any element is null
+   */
+  public static <E> ImmutableTrieList<E> of(
+      E e1, E e2, E e3, E e4, E e5, E e6, E e7, E e8, E e9) {
+    return construct(e1, e2, e3, e4, e5, e6, e7, e8, e9);
+  }
+
+  /**
+   * Returns an immutable trie list containing the given elements, in order.
+   *
+   * @throws NullPointerException if any element is null
+   */
+  public static <E> ImmutableTrieList<E> of(
+      E e1, E e2, E e3, E e4, E e5, E e6, E e7, E e8, E e9, E e10) {
+    return construct(e1, e2, e3, e4, e5, e6, e7, e8, e9, e10);
+  }
+
+  /**
+   * Returns an immutable trie list containing the given elements, in order.
+   *
+   * @throws NullPointerException if any element is null
+   */
+  public static <E> ImmutableTrieList<E> of(
+      E e1, E e2, E e3, E e4, E e5, E e6, E e7, E e8, E e9, E e10, E e11) {
+    return construct(e1, e2, e3, e4, e5, e6, e7, e8, e9, e10, e11);
+  }
+
+  /**
+   * Returns an immutable trie list containing the given elements, in order.
+   *
+   * @throws NullPointerException if any element is null
+   */
+  @SafeVarargs // For Eclipse. For internal javac we have disabled this pointless type of warning.
+  public static <E> ImmutableTrieList<E> of(
+      E e1, E e2, E e3, E e4, E e5, E e6, E e7, E e8, E e9, E e10, E e11, E e12, E... others) {
+    Object[] array = new Object[12 + others.length];
+    array[0] = e1;
+    array[1] = e2;
+    array[2] = e3;
+    array[3] = e4;
+    array[4] = e5;
+    array[5] = e6;
+    array[6] = e7;
+    array[7] = e8;
+    array[8] = e9;
+    array[9] = e10;
+    array[10] = e11;
+    array[11] = e12;
+    System.arraycopy(others, 0, array, 12, others.length);
+    return construct(array);
+  }
+
+  /**
+   * Returns an immutable trie list containing the given elements, in order. If {@code elements} is
+   * itself an {@code ImmutableTrieList}, it is returned without copying.
+   *
+   * @throws NullPointerException if any of {@code elements} is null
+   */
+  public static <E> ImmutableTrieList<E> copyOf(Iterable<? extends E> elements) {
+    checkNotNull(elements);
+    return (elements instanceof Collection)
+        ? copyOf((Collection<? extends E>) elements)
+        : copyOf(elements.iterator());
+  }
+
+  /**
+   * Returns an immutable trie list containing the given elements, in order. If {@code elements} is
+   * itself an {@code ImmutableTrieList}, it is returned without copying.
+   *
+   * @throws NullPointerException if any of {@code elements} is null
+   */
+  public static <E> ImmutableTrieList<E> copyOf(Collection<? extends E> elements) {
+    if (elements instanceof ImmutableTrieList) {
+      @SuppressWarnings("unchecked") // all supported methods are covariant
+      ImmutableTrieList<E> list = (ImmutableTrieList<E>) elements;
+      return list;
+    }
+    return construct(elements.toArray());
+  }
+
+  /**
+   * Returns an immutable trie list containing the given elements, in order.
+   *
+   * @throws NullPointerException if any of {@code elements} is null
+   */
+  public static <E> ImmutableTrieList<E> copyOf(Iterator<? extends E> elements) {
+    return construct(Iterators.toArray(elements, Object.class));
+  }
+
+  /**
+   * Returns an immutable trie list containing the given elements, in order.
+   *
+   * @throws NullPointerException if any of {@code elements} is null
+   */
+  public static <E> ImmutableTrieList<E> copyOf(E[] elements) {
+    return construct(elements.clone());
+  }
+
+  /**
+   * Returns an immutable trie list containing the given elements, sorted according to their
+   * natural order. The sorting algorithm used is stable, so elements that compare as equal will
+   * stay in the order in which they appear in the input.
+   *
+   * @throws NullPointerException if any element in the input is null
+   */
+  public static <E extends Comparable<? super E>> ImmutableTrieList<E> sortedCopyOf(
+      Iterable<? extends E> elements) {
+    Comparable<?>[] array = Iterables.toArray(elements, new Comparable<?>[0]);
+    checkElementsNotNull((Object[]) array);
+    Arrays.sort(array);
+    return construct((Object[]) array);
+  }
+
+  /**
+   * Returns an immutable trie list containing the given elements, in sorted order relative to the
+   * specified comparator. The sorting algorithm used is stable, so elements that compare as equal
+   * will stay in the order in which they appear in the input.
+   *
+   * @throws NullPointerException if any element in the input is null
+   */
+  public static <E> ImmutableTrieList<E> sortedCopyOf(
+      Comparator<? super E> comparator, Iterable<? extends E> elements) {
+    checkNotNull(comparator);
+    @SuppressWarnings("unchecked") // all supported methods are covariant
+    E[] array = (E[]) Iterables.toArray(elements);
+    checkElementsNotNull(array);
+    Arrays.sort(array, comparator);
+    return construct(array);
+  }
+
+  /**
+   * Not supported. Build an {@link ImmutableList} and pass it to {@link #copyOf(Collection)}, or
+   * add to an {@code ImmutableTrieList} directly with {@link #withAdded}. This method exists only
+   * to hide {@link ImmutableList#builder} from consumers of {@code ImmutableTrieList}.
+   *
+   * @throws UnsupportedOperationException always
+   * @deprecated Not supported by ImmutableTrieList.
+   */
+  @Deprecated
+  public static <E> ImmutableList.Builder<E> builder() {
+    throw new UnsupportedOperationException();
+  }
+
+  /**
+   * Not supported. This method exists only to hide {@link ImmutableList#builderWithExpectedSize}
+   * from consumers of {@code ImmutableTrieList}.
+   *
+   * @throws UnsupportedOperationException always
+   * @deprecated Not supported by ImmutableTrieList.
+   */
+  @Deprecated
+  public static <E> ImmutableList.Builder<E> builderWithExpectedSize(int expectedSize) {
+    throw new UnsupportedOperationException();
+  }
+
+  /** Builds the trie bottom-up from an array that the caller no longer uses. */
+  private static <E> ImmutableTrieList<E> construct(Object... elements) {
+    checkElementsNotNull(elements);
+    int size = elements.length;
+    if (size == 0) {
+      return of();
+    }
+    int tailOffset = tailOffset(size);
+    Object[] tail = Arrays.copyOfRange(elements, tailOffset, size);
+    int leafCount = tailOffset >>> BITS_PER_LEVEL;
+    int shift = BITS_PER_LEVEL;
+    while (leafCount > (1 << shift)) {
+      shift += BITS_PER_LEVEL;
+    }
+    if (leafCount == 0) {
+      return new ImmutableTrieList<>(size, shift, EMPTY_NODE, tail);
+    }
+    Object[] level = new Object[leafCount];
+    for (int i = 0; i < leafCount; i++) {
+      level[i] = Arrays.copyOfRange(elements, i << BITS_PER_LEVEL, (i + 1) << BITS_PER_LEVEL);
+    }
+    for (int height = BITS_PER_LEVEL; height <= shift; height += BITS_PER_LEVEL) {
+      Object[] parents = new Object[(level.length + LEVEL_MASK) >>> BITS_PER_LEVEL];
+      for (int i = 0; i < parents.length; i++) {
+        Object[] parent = new Object[BRANCH_FACTOR];
+        int from = i << BITS_PER_LEVEL;
+        System.arraycopy(level, from, parent, 0, Math.min(BRANCH_FACTOR, level.length - from));
+        parents[i] = parent;
+      }
+      level = parents;
+    }
+    return new ImmutableTrieList<>(size, shift, (Object[]) level[0], tail);
+  }
+
+  private final transient int size;
+
+  /** The number of index bits consumed above the leaf level. */
+  private final transient int shift;
+
+  private final transient Object[] root;
+
+  /** The last 1 to 32 elements, or no elements if the list is empty. */
+  private final transient Object[] tail;
+
+  private ImmutableTrieList(int size, int shift, Object[] root, Object[] tail) {
+    this.size = size;
+    this.shift = shift;
+    this.root = root;
+    this.tail = tail;
+  }
+
+  /** Returns the index of the first element held in the tail array of a list of this size. */
+  private static int tailOffset(int size) {
+    return (size == 0) ? 0 : ((size - 1) >>> BITS_PER_LEVEL) << BITS_PER_LEVEL;
+  }
+
+  /** Returns the leaf array that holds the element at {@code index}. */
+  private Object[] leafFor(int index) {
+    if (index >= tailOffset(size)) {
+      return tail;
+    }
+    Object[] node = root;
+    for (int level = shift; level > 0; level -= BITS_PER_LEVEL) {
+      node = (Object[]) node[(index >>> level) & LEVEL_MASK];
+    }
+    return node;
+  }
+
+  @Override
+  public E get(int index) {
+    checkElementIndex(index, size);
+    @SuppressWarnings("unchecked") // only elements of type E are ever added
+    E element = (E) leafFor(index)[index & LEVEL_MASK];
+    return element;
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Returns a list which is identical to this one, except that the element at {@code index} is
+   * {@code element}. If that position already holds {@code element}, this list is returned as is.
+   *
+   * <p>This takes O(log<sub>32</sub> n) time and space; the returned list shares the rest of its
+   * structure with this list.
+   *
+   * @throws IndexOutOfBoundsException if {@code index} is negative or is not less than {@link
+   *     #size}
+   */
+  public ImmutableTrieList<E> with(int index, E element) {
+    checkElementIndex(index, size);
+    checkNotNull(element);
+    if (leafFor(index)[index & LEVEL_MASK] == element) {
+      return this;
+    }
+    if (index >= tailOffset(size)) {
+      Object[] newTail = tail.clone();
+      newTail[index & LEVEL_MASK] = element;
+      return new ImmutableTrieList<E>(size, shift, root, newTail);
+    }
+    return new ImmutableTrieList<E>(size, shift, replace(shift, root, index, element), tail);
+  }
+
+  private static Object[] replace(int level, Object[] node, int index, Object element) {
+    Object[] newNode = node.clone();
+    if (level == 0) {
+      newNode[index & LEVEL_MASK] = element;
+    } else {
+      int childIndex = (index >>> level) & LEVEL_MASK;
+      newNode[childIndex] =
+          replace(level - BITS_PER_LEVEL, (Object[]) node[childIndex], index, element);
+    }
+    return newNode;
+  }
+
+  /**
+   * Returns a list which holds the elements of this list followed by {@code element}.
+   *
+   * <p>This takes O(log<sub>32</sub> n) time and space; the returned list shares the rest of its
+   * structure with this list.
+   */
+  public ImmutableTrieList<E> withAdded(E element) {
+    checkNotNull(element);
+    if (size - tailOffset(size) < BRANCH_FACTOR) {
+      Object[] newTail = Arrays.copyOf(tail, tail.length + 1);
+      newTail[tail.length] = element;
+      return new ImmutableTrieList<E>(size + 1, shift, root, newTail);
+    }
+    // The tail is full: move it into the trie, growing a new root if the trie is full too.
+    Object[] newRoot;
+    int newShift = shift;
+    if ((size >>> BITS_PER_LEVEL) > (1 << shift)) {
+      newRoot = new Object[BRANCH_FACTOR];
+      newRoot[0] = root;
+      newRoot[1] = newPath(shift, tail);
+      newShift += BITS_PER_LEVEL;
+    } else {
+      newRoot = pushTail(shift, root);
+    }
+    return new ImmutableTrieList<E>(size + 1, newShift, newRoot, new Object[] {element});
+  }
+
+  private Object[] pushTail(int level, Object[] parent) {
+    int childIndex = ((size - 1) >>> level) & LEVEL_MASK;
+    Object[] newParent = parent.clone();
+    if (level == BITS_PER_LEVEL) {
+      newParent[childIndex] = tail;
+    } else {
+      Object[] child = (Object[]) parent[childIndex];
+      newParent[childIndex] =
+          (child == null)
+              ? newPath(level - BITS_PER_LEVEL, tail)
+              : pushTail(level - BITS_PER_LEVEL, child);
+    }
+    return newParent;
+  }
+
+  private static Object[] newPath(int level, Object[] leaf) {
+    if (level == 0) {
+      return leaf;
+    }
+    Object[] node = new Object[BRANCH_FACTOR];
+    node[0] = newPath(level - BITS_PER_LEVEL, leaf);
+    return node;
+  }
+
+  /**
+   * Returns a list which holds all the elements of this list but the last one.
+   *
+   * <p>This takes O(log<sub>32</sub> n) time and space; the returned list shares the rest of its
+   * structure with this list.
+   *
+   * @throws IllegalStateException if this list is empty
+   */
+  public ImmutableTrieList<E> withoutLast() {
+    checkState(size > 0, "list is empty");
+    if (size == 1) {
+      return of();
+    }
+    if (size - tailOffset(size) > 1) {
+      return new ImmutableTrieList<E>(size - 1, shift, root, Arrays.copyOf(tail, tail.length - 1));
+    }
+    // The tail becomes empty: the last leaf of the trie becomes the new tail.
+    Object[] newTail = leafFor(size - 2);
+    Object[] newRoot = popTail(shift, root);
+    int newShift = shift;
+    if (newRoot == null) {
+      newRoot = EMPTY_NODE;
+    }
+    if (shift > BITS_PER_LEVEL && newRoot[1] == null) {
+      newRoot = (Object[]) newRoot[0];
+      newShift -= BITS_PER_LEVEL;
+    }
+    return new ImmutableTrieList<E>(size - 1, newShift, newRoot, newTail);
+  }
+
+  /** Returns {@code node} without the last leaf, or null if that leaves it with no children. */
+  private Object[] popTail(int level, Object[] node) {
+    int childIndex = ((size - 2) >>> level) & LEVEL_MASK;
+    if (level > BITS_PER_LEVEL) {
+      Object[] newChild = popTail(level - BITS_PER_LEVEL, (Object[]) node[childIndex]);
+      if (newChild == null && childIndex == 0) {
+        return null;
+      }
+      Object[] newNode = node.clone();
+      newNode[childIndex] = newChild;
+      return newNode;
+    } else if (childIndex == 0) {
+      return null;
+    } else {
+      Object[] newNode = node.clone();
+      newNode[childIndex] = null;
+      return newNode;
+    }
+  }
+
+  @Override
+  public UnmodifiableIterator<E> iterator() {
+    return new UnmodifiableIterator<E>() {
+      int index = 0;
+      Object[] leaf = tail;
+
+      @Override
+      public boolean hasNext() {
+        return index < size;
+      }
+
+      @Override
+      @SuppressWarnings("unchecked") // only elements of type E are ever added
+      public E next() {
+        if (!hasNext()) {
+          throw new NoSuchElementException();
+        }
+        if ((index & LEVEL_MASK) == 0) {
+          leaf = leafFor(index);
+        }
+        return (E) leaf[index++ & LEVEL_MASK];
+      }
+    };
+  }
+
+  @Override
+  @SuppressWarnings("unchecked") // only elements of type E are ever added
+  public void forEach(Consumer<? super E> consumer) {
+    checkNotNull(consumer);
+    for (int start = 0; start < size; start += BRANCH_FACTOR) {
+      Object[] leaf = leafFor(start);
+      int end = Math.min(BRANCH_FACTOR, size - start);
+      for (int i = 0; i < end; i++) {
+        consumer.accept((E) leaf[i]);
+      }
+    }
+  }
+
+  @Override
+  int copyIntoArray(Object[] dst, int offset) {
+    for (int start = 0; start < size; start += BRANCH_FACTOR) {
+      int length = Math.min(BRANCH_FACTOR, size - start);
+      System.arraycopy(leafFor(start), 0, dst, offset + start, length);
+    }
+    return offset + size;
+  }
+
+  @Override
+  boolean isPartialView() {
+    return false;
+  }
+
+  /*
+   * Serializes the logical contents of the list, which are reassembled into a trie on
+   * deserialization.
+   */
+  private static class SerializedForm implements Serializable {
+    final Object[] elements;
+
+    SerializedForm(Object[] elements) {
+      this.elements = elements;
+    }
+
+    Object readResolve() {
+      return construct(elements);
+    }
+
+    private static final long serialVersionUID = 0;
+  }
+
+  @Override
+  Object writeReplace() {
+    return new SerializedForm(toArray());
+  }
+
+  private void readObject(ObjectInputStream stream) throws InvalidObjectException {
+    throw new InvalidObjectException("Use SerializedForm");
+  }
+}
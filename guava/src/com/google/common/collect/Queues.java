@@ -32,6 +32,7 @@ import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.PriorityBlockingQueue;
 import java.util.concurrent.SynchronousQueue;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
 /**
  * Static utility methods pertaining to {@link Queue} and {@link Deque} instances. Also see this
@@ -81,6 +82,82 @@ public final class Queues {
     return deque;
   }
 
+  // ConcurrentArrayQueue
+
+  /**
+   * Creates an empty, bounded, lock-free queue with the given (fixed) capacity, backed by a ring
+   * buffer. The queue may be used by any number of producer and consumer threads. Unlike {@link
+   * ArrayBlockingQueue}, it never blocks: {@link Queue#offer} returns {@code false} when the queue
+   * is full and {@link Queue#poll} returns {@code null} when it is empty.
+   *
+   * <p>The returned queue does not accept null elements. Its {@code size()} is an estimate while
+   * the queue is being concurrently modified, and its iterators are weakly consistent and do not
+   * support removal. Use {@link #drain(Queue, Consumer, int)} to consume elements in batches.
+   *
+   * @throws IllegalArgumentException if {@code capacity} is less than 1 or greater than 2^30
+   * @since NEXT
+   */
+  @Beta
+  @GwtIncompatible // ConcurrentArrayQueue
+  public static <E> Queue<E> newConcurrentArrayQueue(int capacity) {
+    return new ConcurrentArrayQueue<E>(capacity, true, true, false);
+  }
+
+  /**
+   * Creates an empty, bounded, lock-free queue like {@link #newConcurrentArrayQueue(int)}, but
+   * which allows only a single thread at a time to remove elements. Any number of threads may add
+   * elements. Elements are removed with less coordination than in the multi-consumer queue.
+   *
+   * <p><b>Warning:</b> concurrently removing elements from more than one thread (through {@code
+   * poll}, {@code remove}, {@code clear} or {@link #drain(Queue, Consumer, int)}) corrupts the
+   * queue.
+   *
+   * @throws IllegalArgumentException if {@code capacity} is less than 1 or greater than 2^30
+   * @since NEXT
+   */
+  @Beta
+  @GwtIncompatible // ConcurrentArrayQueue
+  public static <E> Queue<E> newSingleConsumerArrayQueue(int capacity) {
+    return new ConcurrentArrayQueue<E>(capacity, true, false, false);
+  }
+
+  /**
+   * Creates an empty, bounded, lock-free queue like {@link #newConcurrentArrayQueue(int)}, but
+   * which allows only a single thread at a time to add elements and a single thread at a time to
+   * remove them. This is the cheapest of the ring buffer queues, suited to handing elements from
+   * one thread to another.
+   *
+   * <p><b>Warning:</b> concurrently adding elements from more than one thread, or concurrently
+   * removing elements from more than one thread, corrupts the queue.
+   *
+   * @throws IllegalArgumentException if {@code capacity} is less than 1 or greater than 2^30
+   * @since NEXT
+   */
+  @Beta
+  @GwtIncompatible // ConcurrentArrayQueue
+  public static <E> Queue<E> newSingleProducerSingleConsumerArrayQueue(int capacity) {
+    return new ConcurrentArrayQueue<E>(capacity, false, false, false);
+  }
+
+  /**
+   * Creates an empty, thread-safe, lock-free queue which holds up to {@code maxSize} elements and
+   * automatically evicts elements from its head when a new element is added while it is full. This
+   * is the concurrent counterpart of {@link EvictingQueue}: {@link Queue#offer} and {@link
+   * Queue#add} always succeed, and any number of threads may add and remove elements.
+   *
+   * <p>The returned queue does not accept null elements. Under concurrent additions to a full
+   * queue, more than one element may be evicted to make room for a single new one. When {@code
+   * maxSize} is zero, elements are evicted immediately after being added to the queue.
+   *
+   * @throws IllegalArgumentException if {@code maxSize} is negative or greater than 2^30
+   * @since NEXT
+   */
+  @Beta
+  @GwtIncompatible // ConcurrentArrayQueue
+  public static <E> Queue<E> newConcurrentEvictingQueue(int maxSize) {
+    return new ConcurrentArrayQueue<E>(maxSize, true, true, true);
+  }
+
   // ConcurrentLinkedQueue
 
   /** Creates an empty {@code ConcurrentLinkedQueue}. */
@@ -403,6 +480,41 @@ public final class Queues {
     return added;
   }
 
+  /**
+   * Removes up to {@code maxElements} elements from the head of the queue, passing each to {@code
+   * consumer} in order. Unlike {@link #drain(BlockingQueue, Collection, int, Duration)}, this never
+   * waits: it stops as soon as the queue is empty. Queues created by {@link
+   * #newConcurrentArrayQueue(int)} and its variants are drained in a single batch, without
+   * intermediate copies.
+   *
+   * <p>If {@code consumer} throws an exception, the element it was passed has already been removed
+   * from the queue and the exception is propagated.
+   *
+   * @param q the queue to be drained
+   * @param consumer receives the removed elements
+   * @param maxElements the maximum number of elements to remove
+   * @return the number of elements removed
+   * @throws IllegalArgumentException if {@code maxElements} is negative
+   * @since NEXT
+   */
+  @Beta
+  @CanIgnoreReturnValue
+  @GwtIncompatible // Consumer
+  public static <E> int drain(Queue<E> q, Consumer<? super E> consumer, int maxElements) {
+    Preconditions.checkNotNull(consumer);
+    Preconditions.checkArgument(maxElements >= 0, "maxElements (%s) must be >= 0", maxElements);
+    if (q instanceof ConcurrentArrayQueue) {
+      return ((ConcurrentArrayQueue<E>) q).drain(consumer, maxElements);
+    }
+    int drained = 0;
+    E e;
+    while (drained < maxElements && (e = q.poll()) != null) {
+      consumer.accept(e);
+      drained++;
+    }
+    return drained;
+  }
+
   /**
    * Returns a synchronized (thread-safe) queue backed by the specified queue. In order to guarantee
    * serial access, it is critical that <b>all</b> access to the backing queue is accomplished
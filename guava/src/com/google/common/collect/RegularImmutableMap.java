@@ -41,7 +41,8 @@ import org.checkerframework.checker.nullness.qual.Nullable;
 final class RegularImmutableMap<K, V> extends ImmutableMap<K, V> {
   @SuppressWarnings("unchecked")
   static final ImmutableMap<Object, Object> EMPTY =
-      new RegularImmutableMap<>((Entry<Object, Object>[]) ImmutableMap.EMPTY_ENTRY_ARRAY, null, 0);
+      new RegularImmutableMap<>(
+          (Entry<Object, Object>[]) ImmutableMap.EMPTY_ENTRY_ARRAY, null, 0, 0);
 
   /**
    * Closed addressing tends to perform well even with high load factors. Being conservative here
@@ -57,8 +58,9 @@ final class RegularImmutableMap<K, V> extends ImmutableMap<K, V> {
   @VisibleForTesting static final double HASH_FLOODING_FPP = 0.001;
 
   /**
-   * Maximum allowed length of a hash table bucket before falling back to a j.u.HashMap based
-   * implementation. Experimentally determined.
+   * Maximum allowed length of a hash table bucket before rebuilding the table with a random seed
+   * and, if that fails too, falling back to a j.u.HashMap based implementation. Experimentally
+   * determined.
    */
   @VisibleForTesting static final int MAX_HASH_BUCKET_LENGTH = 8;
 
@@ -68,6 +70,8 @@ final class RegularImmutableMap<K, V> extends ImmutableMap<K, V> {
   private final transient ImmutableMapEntry<K, V>[] table;
   // 'and' with an int to get a table index
   private final transient int mask;
+  // the seed for Hashing.seededSmear; nonzero only if the table was rebuilt after hash flooding
+  private final transient int seed;
 
   static <K, V> ImmutableMap<K, V> fromEntries(Entry<K, V>... entries) {
     return fromEntryArray(entries.length, entries);
@@ -83,6 +87,27 @@ final class RegularImmutableMap<K, V> extends ImmutableMap<K, V> {
     if (n == 0) {
       return (RegularImmutableMap<K, V>) EMPTY;
     }
+    ImmutableMap<K, V> map = fromEntryArray(n, entryArray, 0);
+    if (map == null) {
+      // probable hash flooding attack; retry with a random seed, which defeats hash codes that were
+      // chosen to collide after smearing
+      map = fromEntryArray(n, entryArray, Hashing.randomSeed());
+    }
+    if (map == null) {
+      // the hash codes themselves collide, fall back to j.u.HM based implementation and use its
+      // implementation of hash flooding protection
+      map = JdkBackedImmutableMap.create(n, entryArray);
+    }
+    return map;
+  }
+
+  /**
+   * Creates a RegularImmutableMap from the first n entries in entryArray, with its table laid out
+   * according to {@link Hashing#seededSmear} with the specified seed, or returns null if a hash
+   * table bucket grows longer than {@link #MAX_HASH_BUCKET_LENGTH}.
+   */
+  private static <K, V> @Nullable RegularImmutableMap<K, V> fromEntryArray(
+      int n, Entry<K, V>[] entryArray, int seed) {
     Entry<K, V>[] entries;
     if (n == entryArray.length) {
       entries = entryArray;
@@ -97,7 +122,7 @@ final class RegularImmutableMap<K, V> extends ImmutableMap<K, V> {
       K key = entry.getKey();
       V value = entry.getValue();
       checkEntryNotNull(key, value);
-      int tableIndex = Hashing.smear(key.hashCode()) & mask;
+      int tableIndex = Hashing.seededSmear(key.hashCode(), seed) & mask;
       @Nullable ImmutableMapEntry<K, V> existing = table[tableIndex];
       // prepend, not append, so the entries can be immutable
       ImmutableMapEntry<K, V> newEntry =
@@ -108,12 +133,10 @@ final class RegularImmutableMap<K, V> extends ImmutableMap<K, V> {
       entries[entryIndex] = newEntry;
       int bucketSize = checkNoConflictInKeyBucket(key, newEntry, existing);
       if (bucketSize > MAX_HASH_BUCKET_LENGTH) {
-        // probable hash flooding attack, fall back to j.u.HM based implementation and use its
-        // implementation of hash flooding protection
-        return JdkBackedImmutableMap.create(n, entryArray);
+        return null;
       }
     }
-    return new RegularImmutableMap<>(entries, table, mask);
+    return new RegularImmutableMap<>(entries, table, mask, seed);
   }
 
   /** Makes an entry usable internally by a new ImmutableMap without rereading its contents. */
@@ -128,10 +151,12 @@ final class RegularImmutableMap<K, V> extends ImmutableMap<K, V> {
     return makeImmutable(entry, entry.getKey(), entry.getValue());
   }
 
-  private RegularImmutableMap(Entry<K, V>[] entries, ImmutableMapEntry<K, V>[] table, int mask) {
+  private RegularImmutableMap(
+      Entry<K, V>[] entries, ImmutableMapEntry<K, V>[] table, int mask, int seed) {
     this.entries = entries;
     this.table = table;
     this.mask = mask;
+    this.seed = seed;
   }
 
   /**
@@ -151,15 +176,20 @@ final class RegularImmutableMap<K, V> extends ImmutableMap<K, V> {
 
   @Override
   public V get(@Nullable Object key) {
-    return get(key, table, mask);
+    return get(key, table, mask, seed);
   }
 
   static <V> @Nullable V get(
       @Nullable Object key, ImmutableMapEntry<?, V> @Nullable [] keyTable, int mask) {
+    return get(key, keyTable, mask, 0);
+  }
+
+  private static <V> @Nullable V get(
+      @Nullable Object key, ImmutableMapEntry<?, V> @Nullable [] keyTable, int mask, int seed) {
     if (key == null || keyTable == null) {
       return null;
     }
-    int index = Hashing.smear(key.hashCode()) & mask;
+    int index = Hashing.seededSmear(key.hashCode(), seed) & mask;
     for (ImmutableMapEntry<?, V> entry = keyTable[index];
         entry != null;
         entry = entry.getNextInKeyBucket()) {
@@ -31,7 +31,7 @@ import org.checkerframework.checker.nullness.qual.Nullable;
 @SuppressWarnings("serial") // uses writeReplace(), not default serialization
 final class RegularImmutableSet<E> extends ImmutableSet<E> {
   static final RegularImmutableSet<Object> EMPTY =
-      new RegularImmutableSet<>(new Object[0], 0, null, 0);
+      new RegularImmutableSet<>(new Object[0], 0, null, 0, 0);
 
   private final transient Object[] elements;
   // the same elements in hashed positions (plus nulls)
@@ -39,12 +39,15 @@ final class RegularImmutableSet<E> extends ImmutableSet<E> {
   // 'and' with an int to get a valid table index.
   private final transient int mask;
   private final transient int hashCode;
+  // the seed for Hashing.seededSmear; nonzero only if the table was rebuilt after hash flooding
+  private final transient int seed;
 
-  RegularImmutableSet(Object[] elements, int hashCode, Object[] table, int mask) {
+  RegularImmutableSet(Object[] elements, int hashCode, Object[] table, int mask, int seed) {
     this.elements = elements;
     this.table = table;
     this.mask = mask;
     this.hashCode = hashCode;
+    this.seed = seed;
   }
 
   @Override
@@ -53,7 +56,7 @@ final class RegularImmutableSet<E> extends ImmutableSet<E> {
     if (target == null || table == null) {
       return false;
     }
-    for (int i = Hashing.smearedHash(target); ; i++) {
+    for (int i = Hashing.seededSmear(target.hashCode(), seed); ; i++) {
       i &= mask;
       Object candidate = table[i];
       if (candidate == null) {
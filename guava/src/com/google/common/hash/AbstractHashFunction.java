@@ -65,6 +65,22 @@ abstract class AbstractHashFunction implements HashFunction {
     return newHasher(len).putBytes(input, off, len).hash();
   }
 
+  @Override
+  public int hashBytesToInt(byte[] input) {
+    return hashBytesToInt(input, 0, input.length);
+  }
+
+  @Override
+  public int hashBytesToInt(byte[] input, int off, int len) {
+    // asInt() is always the low half of padToLong()
+    return (int) hashBytesToLong(input, off, len);
+  }
+
+  @Override
+  public long hashBytesToLong(byte[] input) {
+    return hashBytesToLong(input, 0, input.length);
+  }
+
   @Override
   public HashCode hashBytes(ByteBuffer input) {
     return newHasher(input.remaining()).putBytes(input).hash();
@@ -115,13 +115,16 @@ abstract class AbstractStreamingHasher extends AbstractHasher {
     }
 
     // First add just enough to fill buffer size, and munch that
-    int bytesToCopy = bufferSize - buffer.position();
-    for (int i = 0; i < bytesToCopy; i++) {
-      buffer.put(readBuffer.get());
+    if (buffer.position() > 0) {
+      int limit = readBuffer.limit();
+      readBuffer.limit(readBuffer.position() + bufferSize - buffer.position());
+      buffer.put(readBuffer);
+      readBuffer.limit(limit);
+      munch(); // buffer becomes empty here, since chunkSize divides bufferSize
     }
-    munch(); // buffer becomes empty here, since chunkSize divides bufferSize
 
-    // Now process directly from the rest of the input buffer
+    // Now process directly from the rest of the input buffer. If that is a direct or memory-mapped
+    // buffer, it is read in place rather than copied to the heap first.
     while (readBuffer.remaining() >= chunkSize) {
       process(readBuffer);
     }
@@ -23,14 +23,17 @@ import com.google.common.base.Objects;
 import com.google.common.base.Predicate;
 import com.google.common.hash.BloomFilterStrategies.LockFreeBitArray;
 import com.google.common.math.DoubleMath;
+import com.google.common.math.LongMath;
 import com.google.common.primitives.SignedBytes;
 import com.google.common.primitives.UnsignedBytes;
 import com.google.errorprone.annotations.CanIgnoreReturnValue;
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.io.RandomAccessFile;
 import java.io.Serializable;
 import java.math.RoundingMode;
 import java.util.stream.Collector;
@@ -158,10 +161,12 @@ public final class BloomFilter<T> implements Predicate<T>, Serializable {
    *     filter. If the bits haven't changed, this <i>might</i> be the first time {@code object} has
    *     been added to the filter. Note that {@code put(t)} always returns the <i>opposite</i>
    *     result to what {@code mightContain(t)} would have returned at the time it is called.
+   * @throws UnsupportedOperationException if this Bloom filter was {@linkplain #map mapped}
    * @since 12.0 (present in 11.0 with {@code void} return type})
    */
   @CanIgnoreReturnValue
   public boolean put(T object) {
+    bits.checkWritable();
     return strategy.put(object, funnel, numHashFunctions, bits);
   }
 
@@ -240,6 +245,7 @@ public final class BloomFilter<T> implements Predicate<T>, Serializable {
    *
    * @param that The Bloom filter to combine this Bloom filter with. It is not mutated.
    * @throws IllegalArgumentException if {@code isCompatible(that) == false}
+   * @throws UnsupportedOperationException if this Bloom filter was {@linkplain #map mapped}
    * @since 15.0
    */
   public void putAll(BloomFilter<T> that) {
@@ -423,8 +429,15 @@ public final class BloomFilter<T> implements Predicate<T>, Serializable {
      * is proportional to -log(p), but there is not much of a point after all, e.g.
      * optimalM(1000, 0.0000000000000001) = 76680 which is less than 10kb. Who cares!
      */
-    long numBits = optimalNumOfBits(expectedInsertions, fpp);
-    int numHashFunctions = optimalNumOfHashFunctions(expectedInsertions, numBits);
+    long numBits;
+    int numHashFunctions;
+    if (strategy == BloomFilterStrategies.MURMUR128_BLOCKED_512) {
+      numBits = optimalNumOfBlockedBits(expectedInsertions, fpp);
+      numHashFunctions = optimalNumOfBlockedHashFunctions(expectedInsertions, numBits);
+    } else {
+      numBits = optimalNumOfBits(expectedInsertions, fpp);
+      numHashFunctions = optimalNumOfHashFunctions(expectedInsertions, numBits);
+    }
     try {
       return new BloomFilter<T>(new LockFreeBitArray(numBits), numHashFunctions, funnel, strategy);
     } catch (IllegalArgumentException e) {
@@ -479,6 +492,34 @@ public final class BloomFilter<T> implements Predicate<T>, Serializable {
     return create(funnel, expectedInsertions, 0.03); // FYI, for 3%, we always get 5 hash functions
   }
 
+  /**
+   * Creates a <i>blocked</i> {@link BloomFilter} with the expected number of insertions and
+   * expected false positive probability.
+   *
+   * <p>A blocked Bloom filter chooses all the bits for an element within a single 512-bit block,
+   * the size of a typical cache line, so that {@link #put} and {@link #mightContain} cost at most
+   * one cache miss however many hash functions the filter uses. This makes queries against large
+   * filters considerably faster. Since the bits of a block fill up less evenly than those of the
+   * whole filter, a blocked filter needs more bits to achieve the same false positive probability;
+   * it is sized accordingly. Compared to a filter returned by {@link #create(Funnel, long,
+   * double)}, that takes a few percent more memory for a false positive probability of 1%, about
+   * 25% more for 0.001%, and more still for lower probabilities.
+   *
+   * <p>Blocked filters are compatible only with other blocked filters. They support the same
+   * serialized forms as other filters.
+   *
+   * @param funnel the funnel of T's that the constructed {@code BloomFilter} will use
+   * @param expectedInsertions the number of expected insertions to the constructed {@code
+   *     BloomFilter}; must be positive
+   * @param fpp the desired false positive probability (must be positive and less than 1.0)
+   * @return a {@code BloomFilter}
+   * @since NEXT
+   */
+  public static <T> BloomFilter<T> createBlocked(
+      Funnel<? super T> funnel, long expectedInsertions, double fpp) {
+    return create(funnel, expectedInsertions, fpp, BloomFilterStrategies.MURMUR128_BLOCKED_512);
+  }
+
   // Cheat sheet:
   //
   // m: total bits
@@ -524,6 +565,83 @@ public final class BloomFilter<T> implements Predicate<T>, Serializable {
     return (long) (-n * Math.log(p) / (Math.log(2) * Math.log(2)));
   }
 
+  /**
+   * Computes m (total bits of a blocked Bloom filter, a multiple of the block size) which is
+   * expected to achieve, for the specified expected insertions, the required false positive
+   * probability when used with {@code optimalNumOfBlockedHashFunctions(n, m)} hash functions.
+   *
+   * <p>Starts from the size of an unblocked filter and grows it until the false positive
+   * probability, as computed by {@link #blockedFpp}, is low enough.
+   *
+   * @param n expected insertions (must be positive)
+   * @param p false positive rate (must be 0 < p < 1)
+   */
+  @VisibleForTesting
+  static long optimalNumOfBlockedBits(long n, double p) {
+    long numBits = roundUpToBlocks(Math.max(optimalNumOfBits(n, p), 1));
+    while (blockedFpp(n, numBits, optimalNumOfBlockedHashFunctions(n, numBits)) > p) {
+      numBits = roundUpToBlocks(numBits + numBits / 32);
+    }
+    return numBits;
+  }
+
+  /**
+   * Computes the optimal k for a blocked Bloom filter. Because some blocks receive more elements
+   * than others, it is usually lower than the optimal k of an unblocked filter of the same size,
+   * which is where the search starts from.
+   *
+   * @param n expected insertions (must be positive)
+   * @param m total number of bits in the Bloom filter (a positive multiple of the block size)
+   */
+  @VisibleForTesting
+  static int optimalNumOfBlockedHashFunctions(long n, long m) {
+    int k = Math.min(optimalNumOfHashFunctions(n, m), 255);
+    double fpp = blockedFpp(n, m, k);
+    while (k > 1) {
+      double fewerFpp = blockedFpp(n, m, k - 1);
+      if (fewerFpp > fpp) {
+        break;
+      }
+      k--;
+      fpp = fewerFpp;
+    }
+    return k;
+  }
+
+  private static long roundUpToBlocks(long numBits) {
+    int log2 = BloomFilterStrategies.BLOCK_BITS_LOG2;
+    return LongMath.divide(numBits, 1L << log2, RoundingMode.CEILING) << log2;
+  }
+
+  /**
+   * Computes the false positive probability of a blocked Bloom filter of m bits with k hash
+   * functions after n insertions. The number of elements in a block follows a Poisson
+   * distribution, and the false positive probability is that of a standard Bloom filter of one
+   * block holding that many elements, weighted accordingly.
+   *
+   * @param n expected insertions (must be positive)
+   * @param m total number of bits in the Bloom filter (a positive multiple of the block size)
+   * @param k number of hash functions
+   */
+  @VisibleForTesting
+  static double blockedFpp(long n, long m, int k) {
+    int log2 = BloomFilterStrategies.BLOCK_BITS_LOG2;
+    double lambda = (double) n / (m >>> log2);
+    if (lambda > 600) {
+      // The filter is hopelessly overloaded (and e^-lambda would underflow)
+      return 1.0;
+    }
+    double bitUnsetPerHash = 1.0 - 1.0 / (1 << log2);
+    double fpp = 0;
+    double poisson = Math.exp(-lambda);
+    long maxElements = (long) (lambda + 20 * Math.sqrt(lambda) + 20);
+    for (long i = 0; i <= maxElements; i++) {
+      fpp += poisson * Math.pow(1 - Math.pow(bitUnsetPerHash, (double) i * k), k);
+      poisson *= lambda / (i + 1);
+    }
+    return fpp;
+  }
+
   private Object writeReplace() {
     return new SerialForm<T>(this);
   }
@@ -535,7 +653,7 @@ public final class BloomFilter<T> implements Predicate<T>, Serializable {
     final Strategy strategy;
 
     SerialForm(BloomFilter<T> bf) {
-      this.data = LockFreeBitArray.toPlainArray(bf.bits.data);
+      this.data = bf.bits.toPlainArray();
       this.numHashFunctions = bf.numHashFunctions;
       this.funnel = bf.funnel;
       this.strategy = bf.strategy;
@@ -564,9 +682,9 @@ public final class BloomFilter<T> implements Predicate<T>, Serializable {
     DataOutputStream dout = new DataOutputStream(out);
     dout.writeByte(SignedBytes.checkedCast(strategy.ordinal()));
     dout.writeByte(UnsignedBytes.checkedCast(numHashFunctions)); // note: checked at the c'tor
-    dout.writeInt(bits.data.length());
-    for (int i = 0; i < bits.data.length(); i++) {
-      dout.writeLong(bits.data.get(i));
+    dout.writeInt(bits.longLength());
+    for (int i = 0; i < bits.longLength(); i++) {
+      dout.writeLong(bits.getLong(i));
     }
   }
 
@@ -615,4 +733,68 @@ public final class BloomFilter<T> implements Predicate<T>, Serializable {
       throw new IOException(message, e);
     }
   }
+
+  /**
+   * Maps a file, which was written by {@linkplain #writeTo(OutputStream)}, into memory as a
+   * read-only {@code BloomFilter}. Unlike {@link #readFrom(InputStream, Funnel)}, this does not
+   * read the bits of the filter onto the heap: {@link #mightContain} probes the mapped file
+   * directly, and the operating system pages in only the parts that are queried. This makes
+   * opening even very large filters nearly instantaneous.
+   *
+   * <p>The returned filter cannot be modified: {@link #put} and {@link #putAll} throw {@link
+   * UnsupportedOperationException}. Its {@link #copy} is an ordinary, mutable Bloom filter on the
+   * heap. The file must not be modified or truncated while the filter is in use.
+   *
+   * <p>The {@code Funnel} to be used is not encoded in the file, so it must be provided here.
+   * <b>Warning:</b> the funnel provided <b>must</b> behave identically to the one used to populate
+   * the original Bloom filter!
+   *
+   * @throws IOException if the file cannot be read, or if its contents do not appear to be a
+   *     BloomFilter serialized using the {@linkplain #writeTo(OutputStream)} method.
+   * @since NEXT
+   */
+  public static <T> BloomFilter<T> map(File file, Funnel<? super T> funnel) throws IOException {
+    checkNotNull(file, "File");
+    checkNotNull(funnel, "Funnel");
+    // See writeTo for the serial form
+    int headerSize = 2 + Integer.BYTES;
+    int strategyOrdinal = -1;
+    int numHashFunctions = -1;
+    int dataLength = -1;
+    try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+      strategyOrdinal = raf.readByte();
+      numHashFunctions = raf.readUnsignedByte();
+      dataLength = raf.readInt();
+      long fileLength = raf.length();
+      if (fileLength < headerSize + (long) dataLength * Long.BYTES) {
+        throw new IOException(
+            "Unable to map BloomFilter from file "
+                + file
+                + ": expected "
+                + dataLength
+                + " longs but the file has only "
+                + fileLength
+                + " bytes");
+      }
+
+      Strategy strategy = BloomFilterStrategies.values()[strategyOrdinal];
+      return new BloomFilter<T>(
+          new LockFreeBitArray(raf.getChannel(), headerSize, dataLength),
+          numHashFunctions,
+          funnel,
+          strategy);
+    } catch (RuntimeException e) {
+      String message =
+          "Unable to map BloomFilter from file "
+              + file
+              + "."
+              + " strategyOrdinal: "
+              + strategyOrdinal
+              + " numHashFunctions: "
+              + numHashFunctions
+              + " dataLength: "
+              + dataLength;
+      throw new IOException(message, e);
+    }
+  }
 }
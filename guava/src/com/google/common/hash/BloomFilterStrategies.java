@@ -19,7 +19,11 @@ import static com.google.common.base.Preconditions.checkArgument;
 import com.google.common.math.LongMath;
 import com.google.common.primitives.Ints;
 import com.google.common.primitives.Longs;
+import java.io.IOException;
 import java.math.RoundingMode;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
 import java.util.Arrays;
 import java.util.concurrent.atomic.AtomicLongArray;
 import org.checkerframework.checker.nullness.qual.Nullable;
@@ -133,22 +137,103 @@ enum BloomFilterStrategies implements BloomFilter.Strategy {
           bytes[7], bytes[6], bytes[5], bytes[4], bytes[3], bytes[2], bytes[1], bytes[0]);
     }
 
+    private /* static */ long upperEight(byte[] bytes) {
+      return Longs.fromBytes(
+          bytes[15], bytes[14], bytes[13], bytes[12], bytes[11], bytes[10], bytes[9], bytes[8]);
+    }
+  },
+  /**
+   * A blocked Bloom filter: the lower 64 bits of {@link Hashing#murmur3_128} select one block of
+   * 512 bits, the size of a typical cache line, and all {@code numHashFunctions} bits for the
+   * element are chosen within that block from the upper 64 bits. A query then costs at most one
+   * cache miss, regardless of the number of hash functions, at the price of a somewhat higher false
+   * positive probability for the same number of bits; see "Cache-, Hash- and Space-Efficient Bloom
+   * Filters" by Felix Putze, Peter Sanders and Johannes Singler.
+   *
+   * <p>The bit array of a filter using this strategy should be a whole number of blocks; any
+   * trailing partial block is unused.
+   */
+  MURMUR128_BLOCKED_512() {
+    @Override
+    public <T> boolean put(
+        T object, Funnel<? super T> funnel, int numHashFunctions, LockFreeBitArray bits) {
+      byte[] bytes = Hashing.murmur3_128().hashObject(object, funnel).getBytesInternal();
+      long blockStart = blockStart(bytes, bits);
+      long combinedHash = upperEight(bytes);
+
+      boolean bitsChanged = false;
+      for (int i = 0; i < numHashFunctions; i++) {
+        bitsChanged |= bits.set(blockStart + (combinedHash >>> (Long.SIZE - BLOCK_BITS_LOG2)));
+        combinedHash = nextProbe(combinedHash);
+      }
+      return bitsChanged;
+    }
+
+    @Override
+    public <T> boolean mightContain(
+        T object, Funnel<? super T> funnel, int numHashFunctions, LockFreeBitArray bits) {
+      byte[] bytes = Hashing.murmur3_128().hashObject(object, funnel).getBytesInternal();
+      long blockStart = blockStart(bytes, bits);
+      long combinedHash = upperEight(bytes);
+
+      for (int i = 0; i < numHashFunctions; i++) {
+        if (!bits.get(blockStart + (combinedHash >>> (Long.SIZE - BLOCK_BITS_LOG2)))) {
+          return false;
+        }
+        combinedHash = nextProbe(combinedHash);
+      }
+      return true;
+    }
+
+    /**
+     * Steps a linear congruential generator, whose top bits pick the next bit in the block. Within
+     * a block of only 512 bits, the arithmetic progressions of the other strategies would make the
+     * probes of different elements collide far too often.
+     */
+    private /* static */ long nextProbe(long combinedHash) {
+      return combinedHash * 0x5851F42D4C957F2DL + 0x14057B7EF767814FL;
+    }
+
+    /** Returns the index of the first bit of the block selected by the lower half of the hash. */
+    private /* static */ long blockStart(byte[] bytes, LockFreeBitArray bits) {
+      long hash1 =
+          Longs.fromBytes(
+              bytes[7], bytes[6], bytes[5], bytes[4], bytes[3], bytes[2], bytes[1], bytes[0]);
+      long numBlocks = bits.bitSize() >>> BLOCK_BITS_LOG2;
+      return ((hash1 & Long.MAX_VALUE) % numBlocks) << BLOCK_BITS_LOG2;
+    }
+
     private /* static */ long upperEight(byte[] bytes) {
       return Longs.fromBytes(
           bytes[15], bytes[14], bytes[13], bytes[12], bytes[11], bytes[10], bytes[9], bytes[8]);
     }
   };
 
+  /** The base 2 logarithm of the number of bits in a block of {@link #MURMUR128_BLOCKED_512}. */
+  static final int BLOCK_BITS_LOG2 = 9;
+
   /**
    * Models a lock-free array of bits.
    *
    * <p>We use this instead of java.util.BitSet because we need access to the array of longs and we
    * need compare-and-swap.
+   *
+   * <p>The bits are either held on the heap, or read directly from a memory-mapped file, in which
+   * case they cannot be changed.
    */
   static final class LockFreeBitArray {
     private static final int LONG_ADDRESSABLE_BITS = 6;
-    final AtomicLongArray data;
+
+    /** The number of longs in each buffer of a mapped array (1 GiB). */
+    private static final int MAPPED_CHUNK_LONGS_LOG2 = 27;
+
+    private static final int MAPPED_CHUNK_MASK = (1 << MAPPED_CHUNK_LONGS_LOG2) - 1;
+
+    final @Nullable AtomicLongArray data;
+    private final LongBuffer @Nullable [] mapped;
+    private final int longLength;
     private final LongAddable bitCount;
+    private volatile long mappedBitCount = -1;
 
     LockFreeBitArray(long bits) {
       checkArgument(bits > 0, "data length is zero!");
@@ -156,6 +241,8 @@ enum BloomFilterStrategies implements BloomFilter.Strategy {
       // thus double memory usage.
       this.data =
           new AtomicLongArray(Ints.checkedCast(LongMath.divide(bits, 64, RoundingMode.CEILING)));
+      this.mapped = null;
+      this.longLength = data.length();
       this.bitCount = LongAddables.create();
     }
 
@@ -163,6 +250,8 @@ enum BloomFilterStrategies implements BloomFilter.Strategy {
     LockFreeBitArray(long[] data) {
       checkArgument(data.length > 0, "data length is zero!");
       this.data = new AtomicLongArray(data);
+      this.mapped = null;
+      this.longLength = data.length;
       this.bitCount = LongAddables.create();
       long bitCount = 0;
       for (long value : data) {
@@ -171,11 +260,33 @@ enum BloomFilterStrategies implements BloomFilter.Strategy {
       this.bitCount.add(bitCount);
     }
 
+    /**
+     * Maps {@code longLength} big endian longs of a file, starting at {@code position}, without
+     * reading them. The mappings remain valid after the channel is closed.
+     */
+    LockFreeBitArray(FileChannel channel, long position, int longLength) throws IOException {
+      checkArgument(longLength > 0, "data length is zero!");
+      int numChunks = ((longLength - 1) >>> MAPPED_CHUNK_LONGS_LOG2) + 1;
+      this.data = null;
+      this.mapped = new LongBuffer[numChunks];
+      for (int i = 0; i < numChunks; i++) {
+        long firstLong = (long) i << MAPPED_CHUNK_LONGS_LOG2;
+        long chunkLongs = Math.min(longLength - firstLong, 1L << MAPPED_CHUNK_LONGS_LOG2);
+        mapped[i] =
+            channel
+                .map(MapMode.READ_ONLY, position + firstLong * Long.BYTES, chunkLongs * Long.BYTES)
+                .asLongBuffer();
+      }
+      this.longLength = longLength;
+      this.bitCount = LongAddables.create();
+    }
+
     /** Returns true if the bit changed value. */
     boolean set(long bitIndex) {
       if (get(bitIndex)) {
         return false;
       }
+      AtomicLongArray data = checkWritable();
 
       int longIndex = (int) (bitIndex >>> LONG_ADDRESSABLE_BITS);
       long mask = 1L << bitIndex; // only cares about low 6 bits of bitIndex
@@ -196,7 +307,32 @@ enum BloomFilterStrategies implements BloomFilter.Strategy {
     }
 
     boolean get(long bitIndex) {
-      return (data.get((int) (bitIndex >>> LONG_ADDRESSABLE_BITS)) & (1L << bitIndex)) != 0;
+      return (getLong((int) (bitIndex >>> LONG_ADDRESSABLE_BITS)) & (1L << bitIndex)) != 0;
+    }
+
+    /** Returns the long at {@code longIndex}, which holds bits {@code 64 * longIndex} onwards. */
+    long getLong(int longIndex) {
+      AtomicLongArray data = this.data;
+      if (data != null) {
+        return data.get(longIndex);
+      }
+      return mapped[longIndex >>> MAPPED_CHUNK_LONGS_LOG2].get(longIndex & MAPPED_CHUNK_MASK);
+    }
+
+    /** Number of longs */
+    int longLength() {
+      return longLength;
+    }
+
+    boolean isMapped() {
+      return mapped != null;
+    }
+
+    AtomicLongArray checkWritable() {
+      if (data == null) {
+        throw new UnsupportedOperationException("a memory-mapped BloomFilter is read-only");
+      }
+      return data;
     }
 
     /**
@@ -212,9 +348,18 @@ enum BloomFilterStrategies implements BloomFilter.Strategy {
       return array;
     }
 
+    /** Copies the bits to a new long[]; see {@link #toPlainArray(AtomicLongArray)}. */
+    long[] toPlainArray() {
+      long[] array = new long[longLength];
+      for (int i = 0; i < array.length; ++i) {
+        array[i] = getLong(i);
+      }
+      return array;
+    }
+
     /** Number of bits */
     long bitSize() {
-      return (long) data.length() * Long.SIZE;
+      return (long) longLength * Long.SIZE;
     }
 
     /**
@@ -224,13 +369,26 @@ enum BloomFilterStrategies implements BloomFilter.Strategy {
      * close *estimate* of the actual number of bits set. It's not possible to do better than an
      * estimate without locking. Note that the number, if not exactly accurate, is *always*
      * underestimating, never overestimating.
+     *
+     * <p>For a mapped array, the bits are counted on first use, so that mapping stays cheap.
      */
     long bitCount() {
-      return bitCount.sum();
+      if (mapped == null) {
+        return bitCount.sum();
+      }
+      long count = mappedBitCount;
+      if (count < 0) {
+        count = 0;
+        for (int i = 0; i < longLength; i++) {
+          count += Long.bitCount(getLong(i));
+        }
+        mappedBitCount = count;
+      }
+      return count;
     }
 
     LockFreeBitArray copy() {
-      return new LockFreeBitArray(toPlainArray(data));
+      return new LockFreeBitArray(toPlainArray());
     }
 
     /**
@@ -244,12 +402,13 @@ enum BloomFilterStrategies implements BloomFilter.Strategy {
      */
     void putAll(LockFreeBitArray other) {
       checkArgument(
-          data.length() == other.data.length(),
+          longLength == other.longLength,
           "BitArrays must be of equal length (%s != %s)",
-          data.length(),
-          other.data.length());
-      for (int i = 0; i < data.length(); i++) {
-        long otherLong = other.data.get(i);
+          longLength,
+          other.longLength);
+      AtomicLongArray data = checkWritable();
+      for (int i = 0; i < longLength; i++) {
+        long otherLong = other.getLong(i);
 
         long ourLongOld;
         long ourLongNew;
@@ -275,7 +434,7 @@ enum BloomFilterStrategies implements BloomFilter.Strategy {
       if (o instanceof LockFreeBitArray) {
         LockFreeBitArray lockFreeBitArray = (LockFreeBitArray) o;
         // TODO(lowasser): avoid allocation here
-        return Arrays.equals(toPlainArray(data), toPlainArray(lockFreeBitArray.data));
+        return Arrays.equals(toPlainArray(), lockFreeBitArray.toPlainArray());
       }
       return false;
     }
@@ -283,7 +442,7 @@ enum BloomFilterStrategies implements BloomFilter.Strategy {
     @Override
     public int hashCode() {
       // TODO(lowasser): avoid allocation here
-      return Arrays.hashCode(toPlainArray(data));
+      return Arrays.hashCode(toPlainArray());
     }
   }
 }
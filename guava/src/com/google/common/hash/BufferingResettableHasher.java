@@ -0,0 +1,210 @@
+/*
+ * Copyright (C) 2019 The Guava Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.common.hash;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkPositionIndexes;
+
+import com.google.common.base.Charsets;
+import com.google.errorprone.annotations.CanIgnoreReturnValue;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+
+/**
+ * A {@link ResettableHasher} that collects its input in a reusable array, and hashes it with the
+ * {@code byte[]} methods of a {@link HashFunction}.
+ */
+@CanIgnoreReturnValue
+final class BufferingResettableHasher implements ResettableHasher {
+  private final HashFunction hashFunction;
+  private byte[] buffer;
+  private int length;
+
+  BufferingResettableHasher(HashFunction hashFunction) {
+    this.hashFunction = checkNotNull(hashFunction);
+    this.buffer = new byte[64];
+  }
+
+  @Override
+  public ResettableHasher putByte(byte b) {
+    ensureCapacity(1);
+    buffer[length++] = b;
+    return this;
+  }
+
+  @Override
+  public ResettableHasher putBytes(byte[] bytes) {
+    return putBytes(bytes, 0, bytes.length);
+  }
+
+  @Override
+  public ResettableHasher putBytes(byte[] bytes, int off, int len) {
+    checkPositionIndexes(off, off + len, bytes.length);
+    ensureCapacity(len);
+    System.arraycopy(bytes, off, buffer, length, len);
+    length += len;
+    return this;
+  }
+
+  @Override
+  public ResettableHasher putBytes(ByteBuffer bytes) {
+    int remaining = bytes.remaining();
+    ensureCapacity(remaining);
+    bytes.get(buffer, length, remaining);
+    length += remaining;
+    return this;
+  }
+
+  @Override
+  public ResettableHasher putShort(short s) {
+    ensureCapacity(2);
+    putLittleEndian(s, 2);
+    return this;
+  }
+
+  @Override
+  public ResettableHasher putInt(int i) {
+    ensureCapacity(4);
+    putLittleEndian(i, 4);
+    return this;
+  }
+
+  @Override
+  public ResettableHasher putLong(long l) {
+    ensureCapacity(8);
+    putLittleEndian(l, 8);
+    return this;
+  }
+
+  @Override
+  public ResettableHasher putFloat(float f) {
+    return putInt(Float.floatToRawIntBits(f));
+  }
+
+  @Override
+  public ResettableHasher putDouble(double d) {
+    return putLong(Double.doubleToRawLongBits(d));
+  }
+
+  @Override
+  public ResettableHasher putBoolean(boolean b) {
+    return putByte(b ? (byte) 1 : (byte) 0);
+  }
+
+  @Override
+  public ResettableHasher putChar(char c) {
+    ensureCapacity(2);
+    putLittleEndian(c, 2);
+    return this;
+  }
+
+  @Override
+  public ResettableHasher putUnencodedChars(CharSequence charSequence) {
+    int len = charSequence.length();
+    ensureCapacity(len * 2);
+    for (int i = 0; i < len; i++) {
+      putLittleEndian(charSequence.charAt(i), 2);
+    }
+    return this;
+  }
+
+  @SuppressWarnings("deprecation") // need to use Charsets for Android tests to pass
+  @Override
+  public ResettableHasher putString(CharSequence charSequence, Charset charset) {
+    if (!Charsets.UTF_8.equals(charset)) {
+      return putBytes(charSequence.toString().getBytes(charset));
+    }
+    int len = charSequence.length();
+    ensureCapacity(len * 3); // no char takes more than 3 bytes; surrogate pairs take 4
+    for (int i = 0; i < len; i++) {
+      char c = charSequence.charAt(i);
+      if (c < 0x80) {
+        buffer[length++] = (byte) c;
+      } else if (c < 0x800) {
+        buffer[length++] = (byte) (0xC0 | (c >>> 6));
+        buffer[length++] = (byte) (0x80 | (c & 0x3F));
+      } else if (!Character.isSurrogate(c)) {
+        buffer[length++] = (byte) (0xE0 | (c >>> 12));
+        buffer[length++] = (byte) (0x80 | ((c >>> 6) & 0x3F));
+        buffer[length++] = (byte) (0x80 | (c & 0x3F));
+      } else {
+        int codePoint = Character.codePointAt(charSequence, i);
+        if (codePoint == c) {
+          // an unpaired surrogate, which String.getBytes replaces with '?'
+          buffer[length++] = (byte) '?';
+        } else {
+          i++;
+          buffer[length++] = (byte) (0xF0 | (codePoint >>> 18));
+          buffer[length++] = (byte) (0x80 | ((codePoint >>> 12) & 0x3F));
+          buffer[length++] = (byte) (0x80 | ((codePoint >>> 6) & 0x3F));
+          buffer[length++] = (byte) (0x80 | (codePoint & 0x3F));
+        }
+      }
+    }
+    return this;
+  }
+
+  @Override
+  public <T> ResettableHasher putObject(T instance, Funnel<? super T> funnel) {
+    funnel.funnel(instance, this);
+    return this;
+  }
+
+  @Override
+  public HashCode hash() {
+    HashCode hash = hashFunction.hashBytes(buffer, 0, length);
+    length = 0;
+    return hash;
+  }
+
+  @Override
+  public int hashToInt() {
+    int hash = hashFunction.hashBytesToInt(buffer, 0, length);
+    length = 0;
+    return hash;
+  }
+
+  @Override
+  public long hashToLong() {
+    long hash = hashFunction.hashBytesToLong(buffer, 0, length);
+    length = 0;
+    return hash;
+  }
+
+  @Override
+  public ResettableHasher reset() {
+    length = 0;
+    return this;
+  }
+
+  @Override
+  public String toString() {
+    return "ResettableHasher(" + hashFunction + ")";
+  }
+
+  private void ensureCapacity(int needed) {
+    if (needed > buffer.length - length) {
+      buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, length + needed));
+    }
+  }
+
+  /** Puts the low {@code bytes} bytes of {@code value}, which must fit, in little-endian order. */
+  private void putLittleEndian(long value, int bytes) {
+    for (int i = 0; i < bytes; i++) {
+      buffer[length++] = (byte) (value >>> (i * 8));
+    }
+  }
+}
@@ -16,6 +16,7 @@ package com.google.common.hash;
 
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkPositionIndexes;
 
 import com.google.errorprone.annotations.Immutable;
 import java.io.Serializable;
@@ -50,6 +51,30 @@ final class ChecksumHashFunction extends AbstractHashFunction implements Seriali
     return new ChecksumHasher(checksumSupplier.get());
   }
 
+  @Override
+  public long hashLongToLong(long input) {
+    Checksum checksum = checksumSupplier.get();
+    // little-endian, like Hasher.putLong
+    for (int i = 0; i < Long.SIZE; i += Byte.SIZE) {
+      checksum.update((int) (input >>> i));
+    }
+    return value(checksum);
+  }
+
+  @Override
+  public long hashBytesToLong(byte[] input, int off, int len) {
+    checkPositionIndexes(off, off + len, input.length);
+    Checksum checksum = checksumSupplier.get();
+    checksum.update(input, off, len);
+    return value(checksum);
+  }
+
+  /** Returns the value of {@code checksum} as {@link HashCode#padToLong} returns it. */
+  private long value(Checksum checksum) {
+    long value = checksum.getValue();
+    return (bits == 32) ? value & 0xFFFFFFFFL : value;
+  }
+
   @Override
   public String toString() {
     return toString;
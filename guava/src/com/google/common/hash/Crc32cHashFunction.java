@@ -14,18 +14,40 @@
 
 package com.google.common.hash;
 
+import static com.google.common.base.Preconditions.checkPositionIndexes;
+import static com.google.common.base.Throwables.throwIfUnchecked;
+import static com.google.common.hash.LittleEndianByteArray.load64;
+
 import com.google.errorprone.annotations.Immutable;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.zip.Checksum;
+import org.checkerframework.checker.nullness.qual.Nullable;
 
 /**
  * This class generates a CRC32C checksum, defined by RFC 3720, Section 12.1. The generator
  * polynomial for this checksum is {@code 0x11EDC6F41}.
  *
+ * <p>On Java 9 and later, this delegates to {@code java.util.zip.CRC32C}, which the JVM implements
+ * with the CRC instructions of the processor where they are available. Otherwise, it falls back to
+ * {@link Crc32cHasher}, a pure-Java implementation that processes 8 bytes at a time.
+ *
  * @author Kurt Alfred Kluever
  */
 @Immutable
 final class Crc32cHashFunction extends AbstractHashFunction {
   static final HashFunction CRC_32_C = new Crc32cHashFunction();
 
+  /** The no-argument constructor of {@code java.util.zip.CRC32C}, or null before Java 9. */
+  private static final @Nullable MethodHandle NEW_JDK_CRC32C = findJdkCrc32cConstructor();
+
+  /** {@code Checksum.update(ByteBuffer)}, or null before Java 9. */
+  private static final @Nullable MethodHandle CHECKSUM_UPDATE_BYTE_BUFFER =
+      findChecksumUpdateByteBuffer();
+
   @Override
   public int bits() {
     return 32;
@@ -33,7 +55,36 @@ final class Crc32cHashFunction extends AbstractHashFunction {
 
   @Override
   public Hasher newHasher() {
-    return new Crc32cHasher();
+    if (NEW_JDK_CRC32C == null || CHECKSUM_UPDATE_BYTE_BUFFER == null) {
+      return new Crc32cHasher();
+    }
+    return new JdkCrc32cHasher(newJdkCrc32c());
+  }
+
+  @Override
+  public long hashLongToLong(long input) {
+    // a single slicing step, which gives the same CRC as java.util.zip.CRC32C without a Checksum
+    return ~Crc32cHasher.update8(~0, input) & 0xFFFFFFFFL;
+  }
+
+  @Override
+  public long hashBytesToLong(byte[] input, int off, int len) {
+    checkPositionIndexes(off, off + len, input.length);
+    if (NEW_JDK_CRC32C == null || CHECKSUM_UPDATE_BYTE_BUFFER == null) {
+      return Crc32cHasher.update(0, input, off, len) & 0xFFFFFFFFL;
+    }
+    Checksum checksum = newJdkCrc32c();
+    checksum.update(input, off, len);
+    return checksum.getValue();
+  }
+
+  private static Checksum newJdkCrc32c() {
+    try {
+      return (Checksum) NEW_JDK_CRC32C.invokeExact();
+    } catch (Throwable t) {
+      throwIfUnchecked(t);
+      throw new AssertionError(t);
+    }
   }
 
   @Override
@@ -41,6 +92,65 @@ final class Crc32cHashFunction extends AbstractHashFunction {
     return "Hashing.crc32c()";
   }
 
+  private static @Nullable MethodHandle findJdkCrc32cConstructor() {
+    try {
+      return MethodHandles.publicLookup()
+          .findConstructor(Class.forName("java.util.zip.CRC32C"), MethodType.methodType(void.class))
+          .asType(MethodType.methodType(Checksum.class));
+    } catch (ReflectiveOperationException | RuntimeException e) {
+      return null;
+    }
+  }
+
+  private static @Nullable MethodHandle findChecksumUpdateByteBuffer() {
+    try {
+      return MethodHandles.publicLookup()
+          .findVirtual(
+              Checksum.class, "update", MethodType.methodType(void.class, ByteBuffer.class));
+    } catch (ReflectiveOperationException | RuntimeException e) {
+      return null;
+    }
+  }
+
+  /** Hasher that updates a {@code java.util.zip.CRC32C}. */
+  private static final class JdkCrc32cHasher extends AbstractByteHasher {
+    private final Checksum checksum;
+
+    JdkCrc32cHasher(Checksum checksum) {
+      this.checksum = checksum;
+    }
+
+    @Override
+    protected void update(byte b) {
+      checksum.update(b);
+    }
+
+    @Override
+    protected void update(byte[] bytes, int off, int len) {
+      checksum.update(bytes, off, len);
+    }
+
+    @Override
+    protected void update(ByteBuffer bytes) {
+      if (bytes.hasArray()) {
+        super.update(bytes);
+        return;
+      }
+      // The JVM computes the CRC of a direct buffer in place, too.
+      try {
+        CHECKSUM_UPDATE_BYTE_BUFFER.invokeExact(checksum, bytes);
+      } catch (Throwable t) {
+        throwIfUnchecked(t);
+        throw new AssertionError(t);
+      }
+    }
+
+    @Override
+    public HashCode hash() {
+      return HashCode.fromInt((int) checksum.getValue());
+    }
+  }
+
   static final class Crc32cHasher extends AbstractByteHasher {
 
     // The CRC table, generated from the polynomial 0x11EDC6F41.
@@ -111,6 +221,26 @@ final class Crc32cHashFunction extends AbstractHashFunction {
       0xbe2da0a5, 0x4c4623a6, 0x5f16d052, 0xad7d5351
     };
 
+    /**
+     * Tables for processing 8 bytes at a time ("slicing-by-8"). Entry {@code i} of table {@code k}
+     * is the CRC of byte {@code i} followed by {@code k} zero bytes, so that {@code CRC_TABLES[0]}
+     * is {@link #CRC_TABLE}.
+     */
+    private static final int[][] CRC_TABLES = slicingTables();
+
+    private static int[][] slicingTables() {
+      int[][] tables = new int[8][];
+      tables[0] = CRC_TABLE;
+      for (int k = 1; k < tables.length; k++) {
+        tables[k] = new int[256];
+        for (int i = 0; i < 256; i++) {
+          int crc = tables[k - 1][i];
+          tables[k][i] = (crc >>> 8) ^ CRC_TABLE[crc & 0xFF];
+        }
+      }
+      return tables;
+    }
+
     private int crc = 0;
 
     @Override
@@ -120,6 +250,62 @@ final class Crc32cHashFunction extends AbstractHashFunction {
       crc = ~((crc >>> 8) ^ CRC_TABLE[(crc ^ b) & 0xFF]);
     }
 
+    @Override
+    public void update(byte[] bytes, int off, int len) {
+      crc = update(crc, bytes, off, len);
+    }
+
+    /** Returns {@code crc} updated with the given bytes. */
+    static int update(int crc, byte[] bytes, int off, int len) {
+      // The same as update(byte) for each byte, but inverting the CRC only once for the whole
+      // array, and looking up 8 bytes at a time in the slicing tables.
+      crc = ~crc;
+      int end = off + len;
+      for (; off <= end - 8; off += 8) {
+        crc = update8(crc, load64(bytes, off));
+      }
+      for (; off < end; off++) {
+        crc = (crc >>> 8) ^ CRC_TABLE[(crc ^ bytes[off]) & 0xFF];
+      }
+      return ~crc;
+    }
+
+    @Override
+    public void update(ByteBuffer bytes) {
+      if (bytes.hasArray()) {
+        super.update(bytes);
+        return;
+      }
+      // Direct and memory-mapped buffers are read in place, with absolute gets.
+      ByteBuffer littleEndian = bytes.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+      int crc = ~this.crc;
+      int i = bytes.position();
+      int limit = bytes.limit();
+      for (; i <= limit - 8; i += 8) {
+        crc = update8(crc, littleEndian.getLong(i));
+      }
+      for (; i < limit; i++) {
+        crc = (crc >>> 8) ^ CRC_TABLE[(crc ^ bytes.get(i)) & 0xFF];
+      }
+      this.crc = ~crc;
+      bytes.position(limit);
+    }
+
+    /** Updates the (non-inverted) CRC with 8 bytes, given in little-endian order. */
+    private static int update8(int crc, long bytes) {
+      int[][] tables = CRC_TABLES;
+      int low = crc ^ (int) bytes;
+      int high = (int) (bytes >>> 32);
+      return tables[7][low & 0xFF]
+          ^ tables[6][(low >>> 8) & 0xFF]
+          ^ tables[5][(low >>> 16) & 0xFF]
+          ^ tables[4][low >>> 24]
+          ^ tables[3][high & 0xFF]
+          ^ tables[2][(high >>> 8) & 0xFF]
+          ^ tables[1][(high >>> 16) & 0xFF]
+          ^ tables[0][high >>> 24];
+    }
+
     @Override
     public HashCode hash() {
       return HashCode.fromInt(crc);
@@ -0,0 +1,750 @@
+/*
+ * Copyright (C) 2019 The Guava Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.common.hash;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.common.annotations.Beta;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Objects;
+import com.google.common.math.DoubleMath;
+import com.google.common.math.IntMath;
+import com.google.common.math.LongMath;
+import com.google.common.primitives.Ints;
+import com.google.common.primitives.Longs;
+import com.google.common.primitives.UnsignedBytes;
+import com.google.errorprone.annotations.CanIgnoreReturnValue;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.math.RoundingMode;
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * A cuckoo filter for instances of {@code T}. Like a {@link BloomFilter}, a cuckoo filter offers an
+ * approximate containment test with one-sided error: if it claims that an element is contained in
+ * it, this might be in error, but if it claims that an element is <i>not</i> contained in it, then
+ * this is definitely true. Unlike a Bloom filter, a cuckoo filter also supports {@linkplain #remove
+ * removing} elements.
+ *
+ * <p>A cuckoo filter stores a short <i>fingerprint</i> of every element in one of two buckets of
+ * four slots each, both determined by the hash of the element; see "Cuckoo Filter: Practically
+ * Better Than Bloom" by Bin Fan, David G. Andersen, Michael Kaminsky and Michael D. Mitzenmacher.
+ * When both buckets are full, fingerprints are moved to their alternate buckets to make room. Only
+ * when that fails does {@link #put} return {@code false}: unlike a Bloom filter, which degrades
+ * gracefully as it fills up, a cuckoo filter has a hard capacity, of about 95% of its slots.
+ *
+ * <p>Removal comes with a caveat: only remove elements that are known to have been put in the
+ * filter. Removing an element that was never put may instead remove the fingerprint of another
+ * element that happens to match, causing a false negative. Putting an element several times stores
+ * a fingerprint each time, so that it can be removed as many times; an element can be put at most
+ * eight times, or fewer if other elements share its buckets.
+ *
+ * <p>Cuckoo filters are serializable. They also support a more compact serial representation via
+ * the {@link #writeTo} and {@link #readFrom} methods.
+ *
+ * <p>This class is thread-safe. Buckets are guarded by a fixed number of striped read-write locks:
+ * queries take the read locks of their two buckets, and updates take the write locks, except when
+ * fingerprints must be relocated, which takes every lock.
+ *
+ * @param <T> the type of instances that the {@code CuckooFilter} accepts
+ * @since NEXT
+ */
+@Beta
+public final class CuckooFilter<T> implements Serializable {
+  /** The number of fingerprints in a bucket. */
+  @VisibleForTesting static final int BUCKET_SIZE = 4;
+
+  /** The fraction of the slots that can reliably be filled, used to size the filter. */
+  private static final double MAX_LOAD_FACTOR = 0.95;
+
+  /** The maximum number of fingerprints relocated to make room for a new one. */
+  private static final int MAX_KICKS = 500;
+
+  private static final int MIN_FINGERPRINT_BITS = 4;
+  private static final int MAX_FINGERPRINT_BITS = 32;
+
+  private static final int MAX_STRIPES = 64;
+
+  /** The fingerprints, each {@code fingerprintBits} wide; zero marks an empty slot. */
+  private final PackedArray slots;
+
+  /** The number of buckets; a power of two. */
+  private final int numBuckets;
+
+  private final int fingerprintBits;
+
+  /** The funnel to translate Ts to bytes */
+  private final Funnel<? super T> funnel;
+
+  /** The number of fingerprints in the filter. */
+  private final LongAddable count;
+
+  /** Locks guarding the buckets; bucket {@code i} is guarded by {@code locks[i % locks.length]}. */
+  private final transient ReentrantReadWriteLock[] locks;
+
+  private CuckooFilter(
+      PackedArray slots, int numBuckets, int fingerprintBits, Funnel<? super T> funnel) {
+    this.slots = slots;
+    this.numBuckets = numBuckets;
+    this.fingerprintBits = fingerprintBits;
+    this.funnel = checkNotNull(funnel);
+    this.count = LongAddables.create();
+    this.count.add(slots.countNonZero());
+    this.locks = new ReentrantReadWriteLock[Math.min(numBuckets, MAX_STRIPES)];
+    for (int i = 0; i < locks.length; i++) {
+      locks[i] = new ReentrantReadWriteLock();
+    }
+  }
+
+  /**
+   * Creates a {@link CuckooFilter} with room for the expected number of insertions and the
+   * expected false positive probability.
+   *
+   * <p>The false positive probability determines the size of the fingerprints, which is at most 32
+   * bits; probabilities below about 2 in a billion cannot be achieved.
+   *
+   * <p>The constructed {@code CuckooFilter} will be serializable if the provided {@code Funnel<T>}
+   * is. It is recommended that the funnel be implemented as a Java enum.
+   *
+   * @param funnel the funnel of T's that the constructed {@code CuckooFilter} will use
+   * @param expectedInsertions the number of expected insertions to the constructed {@code
+   *     CuckooFilter}; must be positive
+   * @param fpp the desired false positive probability (must be positive and less than 1.0)
+   * @return a {@code CuckooFilter}
+   */
+  public static <T> CuckooFilter<T> create(
+      Funnel<? super T> funnel, long expectedInsertions, double fpp) {
+    checkNotNull(funnel);
+    checkArgument(
+        expectedInsertions >= 0, "Expected insertions (%s) must be >= 0", expectedInsertions);
+    checkArgument(fpp > 0.0, "False positive probability (%s) must be > 0.0", fpp);
+    checkArgument(fpp < 1.0, "False positive probability (%s) must be < 1.0", fpp);
+    long minBuckets =
+        (long) Math.ceil(Math.max(expectedInsertions, 1) / (BUCKET_SIZE * MAX_LOAD_FACTOR));
+    checkArgument(
+        minBuckets <= Ints.MAX_POWER_OF_TWO,
+        "Could not create CuckooFilter for %s insertions",
+        expectedInsertions);
+    int numBuckets = IntMath.ceilingPowerOfTwo((int) minBuckets);
+    int fingerprintBits = optimalFingerprintBits(fpp);
+    return new CuckooFilter<T>(
+        new PackedArray((long) numBuckets * BUCKET_SIZE, fingerprintBits),
+        numBuckets,
+        fingerprintBits,
+        funnel);
+  }
+
+  /**
+   * Creates a {@link CuckooFilter} with room for the expected number of insertions and a default
+   * expected false positive probability of 3%.
+   *
+   * @param funnel the funnel of T's that the constructed {@code CuckooFilter} will use
+   * @param expectedInsertions the number of expected insertions to the constructed {@code
+   *     CuckooFilter}; must be positive
+   * @return a {@code CuckooFilter}
+   */
+  public static <T> CuckooFilter<T> create(Funnel<? super T> funnel, long expectedInsertions) {
+    return create(funnel, expectedInsertions, 0.03);
+  }
+
+  /**
+   * Computes the number of fingerprint bits f for which a full filter has the required false
+   * positive probability. A query compares 2 * BUCKET_SIZE fingerprints, each of which matches
+   * with probability 1 / (2^f - 1).
+   */
+  @VisibleForTesting
+  static int optimalFingerprintBits(double fpp) {
+    int bits = (int) Math.ceil(DoubleMath.log2(2 * BUCKET_SIZE / fpp + 1));
+    return Math.max(MIN_FINGERPRINT_BITS, Math.min(MAX_FINGERPRINT_BITS, bits));
+  }
+
+  /**
+   * Creates a new {@code CuckooFilter} that's a copy of this instance. The new instance is equal to
+   * this instance but shares no mutable state.
+   */
+  public CuckooFilter<T> copy() {
+    lockAll();
+    try {
+      return new CuckooFilter<T>(slots.copy(), numBuckets, fingerprintBits, funnel);
+    } finally {
+      unlockAll();
+    }
+  }
+
+  // Hashing
+
+  private int fingerprint(byte[] hash) {
+    long upper =
+        Longs.fromBytes(
+            hash[15], hash[14], hash[13], hash[12], hash[11], hash[10], hash[9], hash[8]);
+    int fingerprint = (int) (upper >>> (Long.SIZE - fingerprintBits));
+    return (fingerprint == 0) ? 1 : fingerprint;
+  }
+
+  private int index(byte[] hash) {
+    return Ints.fromBytes(hash[3], hash[2], hash[1], hash[0]) & (numBuckets - 1);
+  }
+
+  /** Returns the other bucket of a fingerprint in {@code bucket}. Applying it twice is a no-op. */
+  private int alternateIndex(int bucket, int fingerprint) {
+    int mixed = (int) ((fingerprint * 0xC6A4A7935BD1E995L) >>> 32);
+    return (bucket ^ mixed) & (numBuckets - 1);
+  }
+
+  private byte[] hash(T object) {
+    return Hashing.murmur3_128().hashObject(object, funnel).getBytesInternal();
+  }
+
+  // Buckets; callers must hold the appropriate locks
+
+  private int get(int bucket, int slot) {
+    return (int) slots.get((long) bucket * BUCKET_SIZE + slot);
+  }
+
+  private void set(int bucket, int slot, int fingerprint) {
+    slots.set((long) bucket * BUCKET_SIZE + slot, fingerprint & 0xFFFFFFFFL);
+  }
+
+  private boolean bucketContains(int bucket, int fingerprint) {
+    for (int slot = 0; slot < BUCKET_SIZE; slot++) {
+      if (get(bucket, slot) == fingerprint) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private boolean insertIntoBucket(int bucket, int fingerprint) {
+    for (int slot = 0; slot < BUCKET_SIZE; slot++) {
+      if (get(bucket, slot) == 0) {
+        set(bucket, slot, fingerprint);
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private boolean removeFromBucket(int bucket, int fingerprint) {
+    for (int slot = 0; slot < BUCKET_SIZE; slot++) {
+      if (get(bucket, slot) == fingerprint) {
+        set(bucket, slot, 0);
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Inserts a fingerprint by relocating others, as in cuckoo hashing. If no empty slot is found in
+   * {@code MAX_KICKS} moves, the moves are undone and the filter is left unchanged.
+   */
+  private boolean insertWithKicks(int bucket, int fingerprint) {
+    int[] buckets = new int[MAX_KICKS];
+    int[] slotIndexes = new int[MAX_KICKS];
+    int[] victims = new int[MAX_KICKS];
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    for (int kick = 0; kick < MAX_KICKS; kick++) {
+      int slot = random.nextInt(BUCKET_SIZE);
+      int victim = get(bucket, slot);
+      set(bucket, slot, fingerprint);
+      buckets[kick] = bucket;
+      slotIndexes[kick] = slot;
+      victims[kick] = victim;
+      fingerprint = victim;
+      bucket = alternateIndex(bucket, fingerprint);
+      if (insertIntoBucket(bucket, fingerprint)) {
+        return true;
+      }
+    }
+    for (int kick = MAX_KICKS - 1; kick >= 0; kick--) {
+      set(buckets[kick], slotIndexes[kick], victims[kick]);
+    }
+    return false;
+  }
+
+  // Locking
+
+  private void lock(int bucket1, int bucket2, boolean write) {
+    int stripe1 = bucket1 & (locks.length - 1);
+    int stripe2 = bucket2 & (locks.length - 1);
+    // always lock the lower stripe first, to avoid deadlocks
+    lockStripe(Math.min(stripe1, stripe2), write);
+    if (stripe1 != stripe2) {
+      lockStripe(Math.max(stripe1, stripe2), write);
+    }
+  }
+
+  private void unlock(int bucket1, int bucket2, boolean write) {
+    int stripe1 = bucket1 & (locks.length - 1);
+    int stripe2 = bucket2 & (locks.length - 1);
+    unlockStripe(stripe1, write);
+    if (stripe1 != stripe2) {
+      unlockStripe(stripe2, write);
+    }
+  }
+
+  private void lockStripe(int stripe, boolean write) {
+    if (write) {
+      locks[stripe].writeLock().lock();
+    } else {
+      locks[stripe].readLock().lock();
+    }
+  }
+
+  private void unlockStripe(int stripe, boolean write) {
+    if (write) {
+      locks[stripe].writeLock().unlock();
+    } else {
+      locks[stripe].readLock().unlock();
+    }
+  }
+
+  private void lockAll() {
+    for (ReentrantReadWriteLock lock : locks) {
+      lock.writeLock().lock();
+    }
+  }
+
+  private void unlockAll() {
+    for (int i = locks.length - 1; i >= 0; i--) {
+      locks[i].writeLock().unlock();
+    }
+  }
+
+  // Public operations
+
+  /**
+   * Returns {@code true} if the element <i>might</i> have been put in this filter, {@code false} if
+   * this is <i>definitely</i> not the case.
+   */
+  public boolean mightContain(T object) {
+    byte[] hash = hash(object);
+    int fingerprint = fingerprint(hash);
+    int bucket1 = index(hash);
+    int bucket2 = alternateIndex(bucket1, fingerprint);
+    lock(bucket1, bucket2, false);
+    try {
+      return bucketContains(bucket1, fingerprint) || bucketContains(bucket2, fingerprint);
+    } finally {
+      unlock(bucket1, bucket2, false);
+    }
+  }
+
+  /**
+   * Puts an element into this {@code CuckooFilter}. If this returns {@code true}, subsequent
+   * invocations of {@link #mightContain(Object)} with the same element will return {@code true},
+   * until the element is {@linkplain #remove removed}.
+   *
+   * @return true if the element was added. False if the filter is too full to make room for it, in
+   *     which case the filter is unchanged.
+   */
+  @CanIgnoreReturnValue
+  public boolean put(T object) {
+    byte[] hash = hash(object);
+    return putFingerprint(index(hash), fingerprint(hash));
+  }
+
+  private boolean putFingerprint(int bucket1, int fingerprint) {
+    int bucket2 = alternateIndex(bucket1, fingerprint);
+    lock(bucket1, bucket2, true);
+    try {
+      if (insertIntoBucket(bucket1, fingerprint) || insertIntoBucket(bucket2, fingerprint)) {
+        count.increment();
+        return true;
+      }
+    } finally {
+      unlock(bucket1, bucket2, true);
+    }
+    // Relocations may touch any bucket. This is rare until the filter is nearly full.
+    lockAll();
+    try {
+      if (insertIntoBucket(bucket1, fingerprint)
+          || insertIntoBucket(bucket2, fingerprint)
+          || insertWithKicks(
+              ThreadLocalRandom.current().nextBoolean() ? bucket1 : bucket2, fingerprint)) {
+        count.increment();
+        return true;
+      }
+      return false;
+    } finally {
+      unlockAll();
+    }
+  }
+
+  /**
+   * Removes one occurrence of an element from this filter, if its fingerprint is present.
+   *
+   * <p><b>Warning:</b> only remove elements that have been put in this filter (and not removed as
+   * many times since). Removing any other element may remove the fingerprint of a different
+   * element, which then becomes a false negative.
+   *
+   * @return true if a matching fingerprint was removed
+   */
+  @CanIgnoreReturnValue
+  public boolean remove(T object) {
+    byte[] hash = hash(object);
+    int fingerprint = fingerprint(hash);
+    int bucket1 = index(hash);
+    int bucket2 = alternateIndex(bucket1, fingerprint);
+    lock(bucket1, bucket2, true);
+    try {
+      if (removeFromBucket(bucket1, fingerprint) || removeFromBucket(bucket2, fingerprint)) {
+        count.add(-1);
+        return true;
+      }
+      return false;
+    } finally {
+      unlock(bucket1, bucket2, true);
+    }
+  }
+
+  /**
+   * Returns the number of elements in this filter: the number of successful puts minus the number
+   * of successful removals. This is exact unless the filter is concurrently modified.
+   */
+  public long approximateElementCount() {
+    return count.sum();
+  }
+
+  /** Returns the maximum number of fingerprints that this filter can hold. */
+  @VisibleForTesting
+  long capacity() {
+    return (long) numBuckets * BUCKET_SIZE;
+  }
+
+  /**
+   * Returns the probability that {@linkplain #mightContain(Object)} will erroneously return {@code
+   * true} for an object that has not actually been put in the {@code CuckooFilter}, given the
+   * number of elements currently in the filter.
+   */
+  public double expectedFpp() {
+    double loadFactor = (double) approximateElementCount() / capacity();
+    double fingerprintMatch = 1.0 / ((1L << fingerprintBits) - 1);
+    return 1 - Math.pow(1 - fingerprintMatch, 2 * BUCKET_SIZE * loadFactor);
+  }
+
+  /**
+   * Determines whether a given cuckoo filter is compatible with this cuckoo filter. For two cuckoo
+   * filters to be compatible, they must:
+   *
+   * <ul>
+   *   <li>not be the same instance
+   *   <li>have the same number of buckets
+   *   <li>have the same fingerprint size
+   *   <li>have equal funnels
+   * </ul>
+   *
+   * @param that The cuckoo filter to check for compatibility.
+   */
+  public boolean isCompatible(CuckooFilter<T> that) {
+    checkNotNull(that);
+    return this != that
+        && this.numBuckets == that.numBuckets
+        && this.fingerprintBits == that.fingerprintBits
+        && this.funnel.equals(that.funnel);
+  }
+
+  /**
+   * Puts all the elements of another cuckoo filter into this one, as if each element put in {@code
+   * that} (and not removed) had been put in this filter. The mutations happen to <b>this</b>
+   * instance.
+   *
+   * <p>Unlike combining Bloom filters, this can fail if the combined elements do not fit. In that
+   * case, this filter is left holding some of the elements of {@code that}.
+   *
+   * @param that The cuckoo filter to combine this cuckoo filter with. It is not mutated.
+   * @return true if all the elements of {@code that} were added to this filter
+   * @throws IllegalArgumentException if {@code isCompatible(that) == false}
+   */
+  @CanIgnoreReturnValue
+  public boolean putAll(CuckooFilter<T> that) {
+    checkNotNull(that);
+    checkArgument(this != that, "Cannot combine a CuckooFilter with itself.");
+    checkArgument(
+        this.numBuckets == that.numBuckets,
+        "CuckooFilters must have the same number of buckets (%s != %s)",
+        this.numBuckets,
+        that.numBuckets);
+    checkArgument(
+        this.fingerprintBits == that.fingerprintBits,
+        "CuckooFilters must have the same fingerprint size (%s != %s)",
+        this.fingerprintBits,
+        that.fingerprintBits);
+    checkArgument(
+        this.funnel.equals(that.funnel),
+        "CuckooFilters must have equal funnels (%s != %s)",
+        this.funnel,
+        that.funnel);
+    PackedArray theirs;
+    that.lockAll();
+    try {
+      theirs = that.slots.copy();
+    } finally {
+      that.unlockAll();
+    }
+    boolean allAdded = true;
+    for (long i = 0; i < theirs.length; i++) {
+      int fingerprint = (int) theirs.get(i);
+      if (fingerprint != 0) {
+        // either bucket of the fingerprint will do
+        allAdded &= putFingerprint((int) (i / BUCKET_SIZE), fingerprint);
+      }
+    }
+    return allAdded;
+  }
+
+  @Override
+  public boolean equals(@Nullable Object object) {
+    if (object == this) {
+      return true;
+    }
+    if (object instanceof CuckooFilter) {
+      CuckooFilter<?> that = (CuckooFilter<?>) object;
+      return this.numBuckets == that.numBuckets
+          && this.fingerprintBits == that.fingerprintBits
+          && this.funnel.equals(that.funnel)
+          && this.slots.equals(that.slots);
+    }
+    return false;
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hashCode(numBuckets, fingerprintBits, funnel, slots);
+  }
+
+  /**
+   * A lock-free array of unsigned integers of a fixed number of bits, packed into longs. Writes to
+   * distinct entries never interfere with each other, even if they share a long.
+   */
+  @VisibleForTesting
+  static final class PackedArray {
+    final AtomicLongArray data;
+    final long length;
+    final int bitsPerEntry;
+    private final long mask;
+
+    PackedArray(long length, int bitsPerEntry) {
+      this(
+          new AtomicLongArray(
+              Ints.checkedCast(
+                  LongMath.divide(length * bitsPerEntry, Long.SIZE, RoundingMode.CEILING))),
+          length,
+          bitsPerEntry);
+    }
+
+    PackedArray(AtomicLongArray data, long length, int bitsPerEntry) {
+      checkArgument(
+          data.length() == LongMath.divide(length * bitsPerEntry, Long.SIZE, RoundingMode.CEILING),
+          "data length (%s) does not match %s entries of %s bits",
+          data.length(),
+          length,
+          bitsPerEntry);
+      this.data = data;
+      this.length = length;
+      this.bitsPerEntry = bitsPerEntry;
+      this.mask = (bitsPerEntry == Long.SIZE) ? -1L : (1L << bitsPerEntry) - 1;
+    }
+
+    long get(long index) {
+      long bitIndex = index * bitsPerEntry;
+      int word = (int) (bitIndex >>> 6);
+      int offset = (int) (bitIndex & 63);
+      long value = data.get(word) >>> offset;
+      if (offset + bitsPerEntry > Long.SIZE) {
+        value |= data.get(word + 1) << (Long.SIZE - offset);
+      }
+      return value & mask;
+    }
+
+    void set(long index, long value) {
+      long bitIndex = index * bitsPerEntry;
+      int word = (int) (bitIndex >>> 6);
+      int offset = (int) (bitIndex & 63);
+      setBits(word, mask << offset, value << offset);
+      if (offset + bitsPerEntry > Long.SIZE) {
+        int shift = Long.SIZE - offset;
+        setBits(word + 1, mask >>> shift, value >>> shift);
+      }
+    }
+
+    private void setBits(int word, long bitMask, long bits) {
+      long oldValue;
+      long newValue;
+      do {
+        oldValue = data.get(word);
+        newValue = (oldValue & ~bitMask) | (bits & bitMask);
+      } while (oldValue != newValue && !data.compareAndSet(word, oldValue, newValue));
+    }
+
+    long countNonZero() {
+      long count = 0;
+      for (long i = 0; i < length; i++) {
+        if (get(i) != 0) {
+          count++;
+        }
+      }
+      return count;
+    }
+
+    PackedArray copy() {
+      return new PackedArray(new AtomicLongArray(toPlainArray()), length, bitsPerEntry);
+    }
+
+    long[] toPlainArray() {
+      long[] array = new long[data.length()];
+      for (int i = 0; i < array.length; i++) {
+        array[i] = data.get(i);
+      }
+      return array;
+    }
+
+    @Override
+    public boolean equals(@Nullable Object o) {
+      if (o instanceof PackedArray) {
+        PackedArray that = (PackedArray) o;
+        return this.bitsPerEntry == that.bitsPerEntry
+            && Arrays.equals(this.toPlainArray(), that.toPlainArray());
+      }
+      return false;
+    }
+
+    @Override
+    public int hashCode() {
+      return Arrays.hashCode(toPlainArray());
+    }
+  }
+
+  private Object writeReplace() {
+    return new SerialForm<T>(this);
+  }
+
+  private static class SerialForm<T> implements Serializable {
+    final long[] data;
+    final int numBuckets;
+    final int fingerprintBits;
+    final Funnel<? super T> funnel;
+
+    SerialForm(CuckooFilter<T> cf) {
+      cf.lockAll();
+      try {
+        this.data = cf.slots.toPlainArray();
+      } finally {
+        cf.unlockAll();
+      }
+      this.numBuckets = cf.numBuckets;
+      this.fingerprintBits = cf.fingerprintBits;
+      this.funnel = cf.funnel;
+    }
+
+    Object readResolve() {
+      return new CuckooFilter<T>(
+          new PackedArray(
+              new AtomicLongArray(data), (long) numBuckets * BUCKET_SIZE, fingerprintBits),
+          numBuckets,
+          fingerprintBits,
+          funnel);
+    }
+
+    private static final long serialVersionUID = 0;
+  }
+
+  /**
+   * Writes this {@code CuckooFilter} to an output stream, with a custom format (not Java
+   * serialization).
+   *
+   * <p>Use {@linkplain #readFrom(InputStream, Funnel)} to reconstruct the written CuckooFilter.
+   */
+  public void writeTo(OutputStream out) throws IOException {
+    // Serial form:
+    // 1 unsigned byte for the number of bits of a fingerprint
+    // 1 big endian int, the number of buckets
+    // N big endian longs of the packed fingerprints
+    long[] data;
+    lockAll();
+    try {
+      data = slots.toPlainArray();
+    } finally {
+      unlockAll();
+    }
+    DataOutputStream dout = new DataOutputStream(out);
+    dout.writeByte(UnsignedBytes.checkedCast(fingerprintBits));
+    dout.writeInt(numBuckets);
+    for (long value : data) {
+      dout.writeLong(value);
+    }
+  }
+
+  /**
+   * Reads a byte stream, which was written by {@linkplain #writeTo(OutputStream)}, into a {@code
+   * CuckooFilter}.
+   *
+   * <p>The {@code Funnel} to be used is not encoded in the stream, so it must be provided here.
+   * <b>Warning:</b> the funnel provided <b>must</b> behave identically to the one used to populate
+   * the original cuckoo filter!
+   *
+   * @throws IOException if the InputStream throws an {@code IOException}, or if its data does not
+   *     appear to be a CuckooFilter serialized using the {@linkplain #writeTo(OutputStream)}
+   *     method.
+   */
+  public static <T> CuckooFilter<T> readFrom(InputStream in, Funnel<? super T> funnel)
+      throws IOException {
+    checkNotNull(in, "InputStream");
+    checkNotNull(funnel, "Funnel");
+    int fingerprintBits = -1;
+    int numBuckets = -1;
+    try {
+      DataInputStream din = new DataInputStream(in);
+      fingerprintBits = UnsignedBytes.toInt(din.readByte());
+      numBuckets = din.readInt();
+      checkArgument(
+          fingerprintBits >= MIN_FINGERPRINT_BITS && fingerprintBits <= MAX_FINGERPRINT_BITS,
+          "invalid fingerprint size");
+      checkArgument(
+          numBuckets > 0 && (numBuckets & (numBuckets - 1)) == 0,
+          "the number of buckets must be a power of two");
+      long length = (long) numBuckets * BUCKET_SIZE;
+      long[] data =
+          new long
+              [Ints.checkedCast(
+                  LongMath.divide(length * fingerprintBits, Long.SIZE, RoundingMode.CEILING))];
+      for (int i = 0; i < data.length; i++) {
+        data[i] = din.readLong();
+      }
+      return new CuckooFilter<T>(
+          new PackedArray(new AtomicLongArray(data), length, fingerprintBits),
+          numBuckets,
+          fingerprintBits,
+          funnel);
+    } catch (RuntimeException e) {
+      String message =
+          "Unable to deserialize CuckooFilter from InputStream."
+              + " fingerprintBits: "
+              + fingerprintBits
+              + " numBuckets: "
+              + numBuckets;
+      throw new IOException(message, e);
+    }
+  }
+}
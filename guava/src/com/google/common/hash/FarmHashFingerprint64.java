@@ -20,6 +20,8 @@ import static com.google.common.hash.LittleEndianByteArray.load64;
 import static java.lang.Long.rotateRight;
 
 import com.google.common.annotations.VisibleForTesting;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 
 /**
  * Implementation of FarmHash Fingerprint64, an open-source fingerprinting algorithm for strings.
@@ -46,10 +48,39 @@ final class FarmHashFingerprint64 extends AbstractNonStreamingHashFunction {
   private static final long K1 = 0xb492b66fbe98f273L;
   private static final long K2 = 0x9ae16a3b2f90404fL;
 
+  @Override
+  public HashCode hashLong(long input) {
+    return HashCode.fromLong(hashLongToLong(input));
+  }
+
+  @Override
+  public long hashLongToLong(long input) {
+    return hashLength8to16(input, input, Long.BYTES);
+  }
+
   @Override
   public HashCode hashBytes(byte[] input, int off, int len) {
+    return HashCode.fromLong(hashBytesToLong(input, off, len));
+  }
+
+  @Override
+  public long hashBytesToLong(byte[] input, int off, int len) {
     checkPositionIndexes(off, off + len, input.length);
-    return HashCode.fromLong(fingerprint(input, off, len));
+    return fingerprint(input, off, len);
+  }
+
+  @Override
+  public HashCode hashBytes(ByteBuffer input) {
+    int position = input.position();
+    int length = input.remaining();
+    long hash;
+    if (input.hasArray()) {
+      hash = fingerprint(input.array(), input.arrayOffset() + position, length);
+    } else {
+      hash = fingerprint(input.duplicate().order(ByteOrder.LITTLE_ENDIAN), position, length);
+    }
+    input.position(input.limit());
+    return HashCode.fromLong(hash);
   }
 
   @Override
@@ -116,12 +147,7 @@ final class FarmHashFingerprint64 extends AbstractNonStreamingHashFunction {
 
   private static long hashLength0to16(byte[] bytes, int offset, int length) {
     if (length >= 8) {
-      long mul = K2 + length * 2;
-      long a = load64(bytes, offset) + K2;
-      long b = load64(bytes, offset + length - 8);
-      long c = rotateRight(b, 37) * mul + a;
-      long d = (rotateRight(a, 25) + b) * mul;
-      return hashLength16(c, d, mul);
+      return hashLength8to16(load64(bytes, offset), load64(bytes, offset + length - 8), length);
     }
     if (length >= 4) {
       long mul = K2 + length * 2;
@@ -139,6 +165,15 @@ final class FarmHashFingerprint64 extends AbstractNonStreamingHashFunction {
     return K2;
   }
 
+  /** Hashes 8 to 16 bytes, given their first 8 and last 8 bytes, which may overlap. */
+  private static long hashLength8to16(long first, long last, int length) {
+    long mul = K2 + length * 2;
+    long a = first + K2;
+    long c = rotateRight(last, 37) * mul + a;
+    long d = (rotateRight(a, 25) + last) * mul;
+    return hashLength16(c, d, mul);
+  }
+
   private static long hashLength17to32(byte[] bytes, int offset, int length) {
     long mul = K2 + length * 2;
     long a = load64(bytes, offset) * K1;
@@ -213,4 +248,130 @@ final class FarmHashFingerprint64 extends AbstractNonStreamingHashFunction {
         hashLength16(v[1], w[1], mul) + z,
         mul);
   }
+
+  /** As {@link #fingerprint(byte[], int, int)}, for a little-endian buffer, read in place. */
+  @VisibleForTesting
+  static long fingerprint(ByteBuffer bytes, int offset, int length) {
+    if (length <= 32) {
+      if (length <= 16) {
+        return hashLength0to16(bytes, offset, length);
+      } else {
+        return hashLength17to32(bytes, offset, length);
+      }
+    } else if (length <= 64) {
+      return hashLength33To64(bytes, offset, length);
+    } else {
+      return hashLength65Plus(bytes, offset, length);
+    }
+  }
+
+  private static void weakHashLength32WithSeeds(
+      ByteBuffer bytes, int offset, long seedA, long seedB, long[] output) {
+    long part1 = bytes.getLong(offset);
+    long part2 = bytes.getLong(offset + 8);
+    long part3 = bytes.getLong(offset + 16);
+    long part4 = bytes.getLong(offset + 24);
+
+    seedA += part1;
+    seedB = rotateRight(seedB + seedA + part4, 21);
+    long c = seedA;
+    seedA += part2;
+    seedA += part3;
+    seedB += rotateRight(seedA, 44);
+    output[0] = seedA + part4;
+    output[1] = seedB + c;
+  }
+
+  private static long hashLength0to16(ByteBuffer bytes, int offset, int length) {
+    if (length >= 8) {
+      return hashLength8to16(bytes.getLong(offset), bytes.getLong(offset + length - 8), length);
+    }
+    if (length >= 4) {
+      long mul = K2 + length * 2;
+      long a = bytes.getInt(offset) & 0xFFFFFFFFL;
+      long b = bytes.getInt(offset + length - 4) & 0xFFFFFFFFL;
+      return hashLength16(length + (a << 3), b, mul);
+    }
+    if (length > 0) {
+      byte a = bytes.get(offset);
+      byte b = bytes.get(offset + (length >> 1));
+      byte c = bytes.get(offset + (length - 1));
+      int y = (a & 0xFF) + ((b & 0xFF) << 8);
+      int z = length + ((c & 0xFF) << 2);
+      return shiftMix(y * K2 ^ z * K0) * K2;
+    }
+    return K2;
+  }
+
+  private static long hashLength17to32(ByteBuffer bytes, int offset, int length) {
+    long mul = K2 + length * 2;
+    long a = bytes.getLong(offset) * K1;
+    long b = bytes.getLong(offset + 8);
+    long c = bytes.getLong(offset + length - 8) * mul;
+    long d = bytes.getLong(offset + length - 16) * K2;
+    return hashLength16(
+        rotateRight(a + b, 43) + rotateRight(c, 30) + d, a + rotateRight(b + K2, 18) + c, mul);
+  }
+
+  private static long hashLength33To64(ByteBuffer bytes, int offset, int length) {
+    long mul = K2 + length * 2;
+    long a = bytes.getLong(offset) * K2;
+    long b = bytes.getLong(offset + 8);
+    long c = bytes.getLong(offset + length - 8) * mul;
+    long d = bytes.getLong(offset + length - 16) * K2;
+    long y = rotateRight(a + b, 43) + rotateRight(c, 30) + d;
+    long z = hashLength16(y, a + rotateRight(b + K2, 18) + c, mul);
+    long e = bytes.getLong(offset + 16) * mul;
+    long f = bytes.getLong(offset + 24);
+    long g = (y + bytes.getLong(offset + length - 32)) * mul;
+    long h = (z + bytes.getLong(offset + length - 24)) * mul;
+    return hashLength16(
+        rotateRight(e + f, 43) + rotateRight(g, 30) + h, e + rotateRight(f + a, 18) + g, mul);
+  }
+
+  private static long hashLength65Plus(ByteBuffer bytes, int offset, int length) {
+    final int seed = 81;
+    // For strings over 64 bytes we loop. Internal state consists of 56 bytes: v, w, x, y, and z.
+    long x = seed;
+    @SuppressWarnings("ConstantOverflow")
+    long y = seed * K1 + 113;
+    long z = shiftMix(y * K2 + 113) * K2;
+    long[] v = new long[2];
+    long[] w = new long[2];
+    x = x * K2 + bytes.getLong(offset);
+
+    // Set end so that after the loop we have 1 to 64 bytes left to process.
+    int end = offset + ((length - 1) / 64) * 64;
+    int last64offset = end + ((length - 1) & 63) - 63;
+    do {
+      x = rotateRight(x + y + v[0] + bytes.getLong(offset + 8), 37) * K1;
+      y = rotateRight(y + v[1] + bytes.getLong(offset + 48), 42) * K1;
+      x ^= w[1];
+      y += v[0] + bytes.getLong(offset + 40);
+      z = rotateRight(z + w[0], 33) * K1;
+      weakHashLength32WithSeeds(bytes, offset, v[1] * K1, x + w[0], v);
+      weakHashLength32WithSeeds(bytes, offset + 32, z + w[1], y + bytes.getLong(offset + 16), w);
+      long tmp = x;
+      x = z;
+      z = tmp;
+      offset += 64;
+    } while (offset != end);
+    long mul = K1 + ((z & 0xFF) << 1);
+    // Operate on the last 64 bytes of input.
+    offset = last64offset;
+    w[0] += ((length - 1) & 63);
+    v[0] += w[0];
+    w[0] += v[0];
+    x = rotateRight(x + y + v[0] + bytes.getLong(offset + 8), 37) * mul;
+    y = rotateRight(y + v[1] + bytes.getLong(offset + 48), 42) * mul;
+    x ^= w[1] * 9;
+    y += v[0] * 9 + bytes.getLong(offset + 40);
+    z = rotateRight(z + w[0], 33) * mul;
+    weakHashLength32WithSeeds(bytes, offset, v[1] * mul, x + w[0], v);
+    weakHashLength32WithSeeds(bytes, offset + 32, z + w[1], y + bytes.getLong(offset + 16), w);
+    return hashLength16(
+        hashLength16(v[0], w[0], mul) + shiftMix(y) * K0 + x,
+        hashLength16(v[1], w[1], mul) + z,
+        mul);
+  }
 }
@@ -213,6 +213,90 @@ public interface HashFunction {
    */
   <T> HashCode hashObject(T instance, Funnel<? super T> funnel);
 
+  /**
+   * Shortcut for {@code hashLong(input).padToLong()}. The non-cryptographic hash functions
+   * provided by {@link Hashing} compute the result without allocating, except for {@link
+   * Hashing#crc32} and {@link Hashing#adler32}, which allocate a {@link java.util.zip.Checksum}.
+   *
+   * @since NEXT
+   */
+  default long hashLongToLong(long input) {
+    return hashLong(input).padToLong();
+  }
+
+  /**
+   * Shortcut for {@code hashBytes(input).asInt()}. The non-cryptographic hash functions provided
+   * by {@link Hashing} compute the result without allocating, except for the checksums, which may
+   * allocate a {@link java.util.zip.Checksum}.
+   *
+   * @since NEXT
+   */
+  default int hashBytesToInt(byte[] input) {
+    return hashBytes(input).asInt();
+  }
+
+  /**
+   * Shortcut for {@code hashBytes(input, off, len).asInt()}. The non-cryptographic hash functions
+   * provided by {@link Hashing} compute the result without allocating, except for the checksums,
+   * which may allocate a {@link java.util.zip.Checksum}.
+   *
+   * @throws IndexOutOfBoundsException if {@code off < 0} or {@code off + len > bytes.length} or
+   *     {@code len < 0}
+   * @since NEXT
+   */
+  default int hashBytesToInt(byte[] input, int off, int len) {
+    return hashBytes(input, off, len).asInt();
+  }
+
+  /**
+   * Shortcut for {@code hashBytes(input).padToLong()}. The non-cryptographic hash functions
+   * provided by {@link Hashing} compute the result without allocating, except for the checksums,
+   * which may allocate a {@link java.util.zip.Checksum}.
+   *
+   * @since NEXT
+   */
+  default long hashBytesToLong(byte[] input) {
+    return hashBytes(input).padToLong();
+  }
+
+  /**
+   * Shortcut for {@code hashBytes(input, off, len).padToLong()}. The non-cryptographic hash
+   * functions provided by {@link Hashing} compute the result without allocating, except for the
+   * checksums, which may allocate a {@link java.util.zip.Checksum}.
+   *
+   * @throws IndexOutOfBoundsException if {@code off < 0} or {@code off + len > bytes.length} or
+   *     {@code len < 0}
+   * @since NEXT
+   */
+  default long hashBytesToLong(byte[] input, int off, int len) {
+    return hashBytes(input, off, len).padToLong();
+  }
+
+  /**
+   * Shortcut for {@code hashUnencodedChars(input).padToLong()}. The implementation <i>might</i>
+   * avoid allocating; to hash strings without allocating using the non-cryptographic hash functions
+   * provided by {@link Hashing} other than the checksums, put them into a {@linkplain
+   * #newResettableHasher resettable hasher}.
+   *
+   * @since NEXT
+   */
+  default long hashUnencodedCharsToLong(CharSequence input) {
+    return hashUnencodedChars(input).padToLong();
+  }
+
+  /**
+   * Returns a {@link ResettableHasher}, which can be reused for any number of hash code
+   * computations. Its {@link ResettableHasher#hashToInt hashToInt} and {@link
+   * ResettableHasher#hashToLong hashToLong} methods return the same values as {@link
+   * #hashBytesToInt(byte[], int, int)} and {@link #hashBytesToLong(byte[], int, int)} would for the
+   * bytes put into it, and so allocate nothing if those do not.
+   *
+   * @since NEXT
+   */
+  default ResettableHasher newResettableHasher() {
+    return new BufferingResettableHasher(this);
+  }
+
   /**
    * Returns the number of bits (a multiple of 32) that each hash code produced by this hash
    * function has.
@@ -430,6 +430,84 @@ public final class Hashing {
     return FarmHashFingerprint64.FARMHASH_FINGERPRINT_64;
   }
 
+  /**
+   * Returns a hash function implementing <a href="https://github.com/Cyan4973/xxHash">xxHash's</a>
+   * 64-bit XXH64 algorithm, using a seed value of zero.
+   *
+   * <p>XXH64 hashes are encoded by {@link HashCode#asBytes} in little-endian order. This means
+   * {@link HashCode#asLong} returns the same value that {@code XXH64()} would for the same input.
+   *
+   * <p>Like the other functions here that return 64-bit non-cryptographic hashes, this is much
+   * faster than {@link #murmur3_128()} on large inputs. {@linkplain HashFunction#hashBytes(
+   * java.nio.ByteBuffer) Hashing a ByteBuffer} reads direct buffers in place, without copying them.
+   *
+   * @since NEXT
+   */
+  public static HashFunction xxHash64() {
+    return XxHash64HashFunction.XX_HASH_64;
+  }
+
+  /**
+   * Returns a hash function implementing <a href="https://github.com/Cyan4973/xxHash">xxHash's</a>
+   * 64-bit XXH64 algorithm, using the given seed value.
+   *
+   * @since NEXT
+   */
+  public static HashFunction xxHash64(long seed) {
+    return new XxHash64HashFunction(seed);
+  }
+
+  /**
+   * Returns a hash function implementing the 64-bit variant of <a
+   * href="https://github.com/Cyan4973/xxHash">xxHash's</a> XXH3 algorithm, as stabilized in xxHash
+   * 0.8, using a seed value of zero.
+   *
+   * <p>XXH3 hashes are encoded by {@link HashCode#asBytes} in little-endian order. This means
+   * {@link HashCode#asLong} returns the same value that {@code XXH3_64bits()} would for the same
+   * input. XXH3 is designed to be faster than XXH64 on inputs of all sizes.
+   *
+   * @since NEXT
+   */
+  public static HashFunction xxh3_64() {
+    return Xxh3HashFunction.XXH3_64;
+  }
+
+  /**
+   * Returns a hash function implementing the 64-bit variant of <a
+   * href="https://github.com/Cyan4973/xxHash">xxHash's</a> XXH3 algorithm, as stabilized in xxHash
+   * 0.8, using the given seed value. The exact C equivalent is {@code XXH3_64bits_withSeed()}.
+   *
+   * @since NEXT
+   */
+  public static HashFunction xxh3_64(long seed) {
+    return new Xxh3HashFunction(seed);
+  }
+
+  /**
+   * Returns a hash function implementing <a
+   * href="https://github.com/wangyi-fudan/wyhash">wyhash</a> (its "final version 4", with the
+   * default secret), using a seed value of zero.
+   *
+   * <p>wyhash hashes are encoded by {@link HashCode#asBytes} in little-endian order. This means
+   * {@link HashCode#asLong} returns the same value that {@code wyhash()} would for the same input.
+   *
+   * @since NEXT
+   */
+  public static HashFunction wyHash() {
+    return WyHashFunction.WY_HASH;
+  }
+
+  /**
+   * Returns a hash function implementing <a
+   * href="https://github.com/wangyi-fudan/wyhash">wyhash</a> (its "final version 4", with the
+   * default secret), using the given seed value.
+   *
+   * @since NEXT
+   */
+  public static HashFunction wyHash(long seed) {
+    return new WyHashFunction(seed);
+  }
+
   /**
    * Assigns to {@code hashCode} a "bucket" in the range {@code [0, buckets)}, in a uniform manner
    * that minimizes the need for remapping as {@code buckets} grows. That is, {@code
@@ -657,6 +735,20 @@ public final class Hashing {
     }
   }
 
+  /**
+   * Returns the high 64 bits of the 128-bit product of two unsigned longs, like {@code
+   * Math.unsignedMultiplyHigh} in newer JDKs.
+   */
+  static long multiplyHighUnsigned(long x, long y) {
+    long x0 = x & 0xFFFFFFFFL;
+    long x1 = x >>> 32;
+    long y0 = y & 0xFFFFFFFFL;
+    long y1 = y >>> 32;
+    long t = x1 * y0 + ((x0 * y0) >>> 32);
+    long w1 = x0 * y1 + (t & 0xFFFFFFFFL);
+    return x1 * y1 + (t >>> 32) + (w1 >>> 32);
+  }
+
   /**
    * Linear CongruentialGenerator to use for consistent hashing. See
    * http://en.wikipedia.org/wiki/Linear_congruential_generator
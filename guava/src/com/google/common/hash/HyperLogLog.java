@@ -0,0 +1,776 @@
+/*
+ * Copyright (C) 2019 The Guava Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.common.hash;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.common.annotations.Beta;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Objects;
+import com.google.common.math.DoubleMath;
+import com.google.common.primitives.UnsignedInts;
+import com.google.errorprone.annotations.CanIgnoreReturnValue;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.math.RoundingMode;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collector;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * A HyperLogLog sketch for instances of {@code T}. A HyperLogLog sketch estimates the number of
+ * distinct elements that have been put in it, using a small, fixed amount of memory regardless of
+ * how many elements that is.
+ *
+ * <p>The accuracy of the sketch is determined by its <i>precision</i> {@code p}: a sketch keeps
+ * 2<sup>p</sup> registers, and its estimates have a relative standard error of about {@code
+ * 1.04 / sqrt(2^p)} (see {@link #relativeStandardError}). The default precision of 14 gives an
+ * error of about 0.8%, using 16KB of memory.
+ *
+ * <p>This implementation follows HyperLogLog++: elements are hashed to 64 bits with a {@link
+ * HashFunction} of at least 64 bits, and small sketches use a sparse representation that is both
+ * smaller and more accurate than the registers, switching to the registers once those become the
+ * smaller of the two. Instead of the empirical bias correction of HyperLogLog++, estimates from the
+ * registers are computed with Otmar Ertl's improved estimator, which is nearly unbiased over the
+ * whole range of cardinalities.
+ *
+ * <p>Sketches with the same precision, funnel and hash function can be combined with {@link
+ * #putAll}; the result estimates the number of distinct elements in the union of their inputs.
+ *
+ * <p>HyperLogLog sketches are serializable. They also support a more compact serial representation
+ * via the {@link #writeTo} and {@link #readFrom} methods.
+ *
+ * <p>This class is thread-safe and lock-free. Estimates computed while other threads are putting
+ * elements reflect some, but not necessarily all, of the concurrent updates.
+ *
+ * @param <T> the type of instances that the {@code HyperLogLog} accepts
+ * @since NEXT
+ */
+@Beta
+public final class HyperLogLog<T> implements Serializable {
+  /** The smallest supported precision. */
+  static final int MIN_PRECISION = 4;
+
+  /** The largest supported precision. */
+  static final int MAX_PRECISION = 18;
+
+  private static final int DEFAULT_PRECISION = 14;
+
+  /** The precision of the indexes in the sparse representation. */
+  @VisibleForTesting static final int SPARSE_PRECISION = 25;
+
+  private static final int INITIAL_SPARSE_CAPACITY = 16;
+
+  private static final byte SPARSE_FORMAT = 0;
+  private static final byte DENSE_FORMAT = 1;
+
+  private final int precision;
+
+  /** The funnel to translate Ts to bytes */
+  private final Funnel<? super T> funnel;
+
+  /** The hash function applied to the funneled bytes; produces at least 64 bits. */
+  private final HashFunction hashFunction;
+
+  /**
+   * The current representation of the sketch. It starts as a {@link SparseSet} and is replaced, by
+   * compare-and-set, with larger sparse sets and eventually with {@link DenseRegisters}. Writers
+   * re-check it after every update: see {@link #insert}.
+   */
+  private final AtomicReference<Representation> representation;
+
+  private HyperLogLog(int precision, Funnel<? super T> funnel, HashFunction hashFunction) {
+    checkArgument(
+        precision >= MIN_PRECISION && precision <= MAX_PRECISION,
+        "precision (%s) must be between %s and %s",
+        precision,
+        MIN_PRECISION,
+        MAX_PRECISION);
+    checkArgument(
+        hashFunction.bits() >= 64,
+        "hashFunction (%s) must produce at least 64 bits",
+        hashFunction);
+    this.precision = precision;
+    this.funnel = checkNotNull(funnel);
+    this.hashFunction = hashFunction;
+    this.representation =
+        new AtomicReference<Representation>(
+            new SparseSet(Math.min(INITIAL_SPARSE_CAPACITY, maxSparseCapacity(precision))));
+  }
+
+  /**
+   * Creates a {@code HyperLogLog} sketch with the default precision of 14, hashing elements with
+   * {@link Hashing#murmur3_128()}.
+   *
+   * <p>The constructed sketch will be serializable if the provided {@code Funnel<T>} is. It is
+   * recommended that the funnel be implemented as a Java enum.
+   *
+   * @param funnel the funnel of T's that the constructed {@code HyperLogLog} will use
+   */
+  public static <T> HyperLogLog<T> create(Funnel<? super T> funnel) {
+    return create(funnel, DEFAULT_PRECISION);
+  }
+
+  /**
+   * Creates a {@code HyperLogLog} sketch with the specified precision, hashing elements with {@link
+   * Hashing#murmur3_128()}.
+   *
+   * @param funnel the funnel of T's that the constructed {@code HyperLogLog} will use
+   * @param precision the base 2 logarithm of the number of registers; must be between 4 and 18
+   */
+  public static <T> HyperLogLog<T> create(Funnel<? super T> funnel, int precision) {
+    return create(funnel, precision, Hashing.murmur3_128());
+  }
+
+  /**
+   * Creates a {@code HyperLogLog} sketch with the specified precision, hashing elements with the
+   * specified hash function. Only the first 64 bits of each hash code are used.
+   *
+   * <p>The constructed sketch will be serializable if the provided {@code Funnel<T>} and {@code
+   * HashFunction} are.
+   *
+   * @param funnel the funnel of T's that the constructed {@code HyperLogLog} will use
+   * @param precision the base 2 logarithm of the number of registers; must be between 4 and 18
+   * @param hashFunction a hash function producing at least 64 bits
+   * @throws IllegalArgumentException if {@code precision} is out of range, or {@code hashFunction}
+   *     produces fewer than 64 bits
+   */
+  public static <T> HyperLogLog<T> create(
+      Funnel<? super T> funnel, int precision, HashFunction hashFunction) {
+    return new HyperLogLog<T>(precision, funnel, checkNotNull(hashFunction));
+  }
+
+  /**
+   * Returns a {@code Collector} yielding a {@link HyperLogLog} sketch of the specified precision
+   * over the received elements.
+   *
+   * @param funnel the funnel of T's that the constructed {@code HyperLogLog} will use
+   * @param precision the base 2 logarithm of the number of registers; must be between 4 and 18
+   */
+  public static <T> Collector<T, ?, HyperLogLog<T>> toHyperLogLog(
+      Funnel<? super T> funnel, int precision) {
+    checkNotNull(funnel);
+    checkArgument(
+        precision >= MIN_PRECISION && precision <= MAX_PRECISION,
+        "precision (%s) must be between %s and %s",
+        precision,
+        MIN_PRECISION,
+        MAX_PRECISION);
+    return Collector.of(
+        () -> HyperLogLog.create(funnel, precision),
+        HyperLogLog::put,
+        (hll1, hll2) -> {
+          hll1.putAll(hll2);
+          return hll1;
+        },
+        Collector.Characteristics.UNORDERED,
+        Collector.Characteristics.CONCURRENT);
+  }
+
+  /**
+   * Creates a new {@code HyperLogLog} that's a copy of this instance. The new instance is equal to
+   * this instance but shares no mutable state.
+   */
+  public HyperLogLog<T> copy() {
+    HyperLogLog<T> copy = new HyperLogLog<T>(precision, funnel, hashFunction);
+    copy.putAll(this);
+    return copy;
+  }
+
+  /** Returns the precision of this sketch: the base 2 logarithm of its number of registers. */
+  public int precision() {
+    return precision;
+  }
+
+  /**
+   * Returns the relative standard error of the estimates of this sketch once it uses its full
+   * registers, {@code 1.04 / sqrt(2^precision)}. Estimates of small cardinalities, which are
+   * computed from the sparse representation, are considerably more accurate.
+   */
+  public double relativeStandardError() {
+    return 1.04 / Math.sqrt(1 << precision);
+  }
+
+  /**
+   * Puts an element into this sketch.
+   *
+   * @return true if the state of the sketch changed as a result of this operation. If it did not
+   *     change, {@code object} may or may not have been put in the sketch before.
+   */
+  @CanIgnoreReturnValue
+  public boolean put(T object) {
+    long hash = hashFunction.hashObject(object, funnel).asLong();
+    Representation current = representation.get();
+    if (current instanceof DenseRegisters) {
+      // fast path: dense sketches never change representation again
+      int index = (int) (hash >>> (64 - precision));
+      int rank = Long.numberOfLeadingZeros((hash << precision) | (1L << (precision - 1))) + 1;
+      return ((DenseRegisters) current).max(index, rank);
+    }
+    return insert(encode(hash), current);
+  }
+
+  /**
+   * Returns an estimate of the number of distinct elements that have been put in this sketch.
+   *
+   * <p>The relative standard error of the estimate is {@link #relativeStandardError}, or better.
+   */
+  public long approximateElementCount() {
+    Representation current = representation.get();
+    double estimate;
+    if (current instanceof SparseSet) {
+      // linear counting over the 2^25 buckets of the sparse indexes
+      int m = 1 << SPARSE_PRECISION;
+      int occupied = ((SparseSet) current).distinctIndexes();
+      estimate = m * Math.log((double) m / (m - occupied));
+    } else {
+      estimate = ((DenseRegisters) current).estimate(precision);
+    }
+    return DoubleMath.roundToLong(estimate, RoundingMode.HALF_UP);
+  }
+
+  /**
+   * Determines whether a given sketch is compatible with this sketch. For two sketches to be
+   * compatible, they must:
+   *
+   * <ul>
+   *   <li>not be the same instance
+   *   <li>have the same precision
+   *   <li>have equal funnels
+   *   <li>have equal hash functions
+   * </ul>
+   *
+   * @param that The sketch to check for compatibility.
+   */
+  public boolean isCompatible(HyperLogLog<T> that) {
+    checkNotNull(that);
+    return this != that
+        && this.precision == that.precision
+        && this.funnel.equals(that.funnel)
+        && this.hashFunction.equals(that.hashFunction);
+  }
+
+  /**
+   * Combines this sketch with another sketch, so that this sketch estimates the number of distinct
+   * elements put in either one. The mutations happen to <b>this</b> instance.
+   *
+   * @param that The sketch to combine this sketch with. It is not mutated.
+   * @throws IllegalArgumentException if {@code isCompatible(that) == false}
+   */
+  public void putAll(HyperLogLog<T> that) {
+    checkNotNull(that);
+    checkArgument(this != that, "Cannot combine a HyperLogLog with itself.");
+    checkArgument(
+        this.precision == that.precision,
+        "HyperLogLogs must have the same precision (%s != %s)",
+        this.precision,
+        that.precision);
+    checkArgument(
+        this.funnel.equals(that.funnel),
+        "HyperLogLogs must have equal funnels (%s != %s)",
+        this.funnel,
+        that.funnel);
+    checkArgument(
+        this.hashFunction.equals(that.hashFunction),
+        "HyperLogLogs must have equal hash functions (%s != %s)",
+        this.hashFunction,
+        that.hashFunction);
+    Representation theirs = that.representation.get();
+    if (theirs instanceof SparseSet) {
+      AtomicIntegerArray table = ((SparseSet) theirs).table;
+      for (int i = 0; i < table.length(); i++) {
+        int encoded = table.get(i);
+        if (encoded != 0) {
+          insert(encoded, representation.get());
+        }
+      }
+    } else {
+      DenseRegisters registers = toDense();
+      AtomicLongArray data = ((DenseRegisters) theirs).data;
+      for (int i = 0; i < data.length(); i++) {
+        registers.putAll(i, data.get(i));
+      }
+    }
+  }
+
+  /*
+   * Sparse encoding. The top 25 bits of the hash are the sparse index. If the bits of the sparse
+   * index that follow the first `precision` bits are not all zero, they determine the rank of the
+   * hash in the registers, and the index alone is stored. Otherwise the rank of the remaining 39
+   * bits of the hash is stored alongside the index, and the low bit is set. Either way, the encoded
+   * value is never zero, which marks an empty slot.
+   */
+
+  private int encode(long hash) {
+    int sparseIndex = (int) (hash >>> (64 - SPARSE_PRECISION));
+    int lowIndexBits = sparseIndex & ((1 << (SPARSE_PRECISION - precision)) - 1);
+    if (lowIndexBits != 0) {
+      return sparseIndex << 7;
+    }
+    int rank = Long.numberOfLeadingZeros((hash << SPARSE_PRECISION) | (1L << 24)) + 1;
+    return (sparseIndex << 7) | (rank << 1) | 1;
+  }
+
+  private static int sparseIndex(int encoded) {
+    return encoded >>> 7;
+  }
+
+  private static int registerIndex(int encoded, int precision) {
+    return encoded >>> (7 + SPARSE_PRECISION - precision);
+  }
+
+  private static int registerRank(int encoded, int precision) {
+    int extraBits = SPARSE_PRECISION - precision;
+    if ((encoded & 1) == 0) {
+      int lowIndexBits = sparseIndex(encoded) & ((1 << extraBits) - 1);
+      return Integer.numberOfLeadingZeros(lowIndexBits) - (32 - extraBits) + 1;
+    }
+    return extraBits + ((encoded >>> 1) & 0x3F);
+  }
+
+  /**
+   * Adds an encoded hash to the sketch, starting from the representation {@code current}.
+   *
+   * <p>When a representation is replaced, the thread that replaced it copies its contents into the
+   * new one, but may miss values that other threads add concurrently. So after adding a value to a
+   * representation, a writer checks whether that representation is still current, and if not, adds
+   * the value again to its replacement. Volatile reads and writes are sequentially consistent, so
+   * any value that the copying thread misses is re-added by its writer.
+   */
+  @CanIgnoreReturnValue
+  private boolean insert(int encoded, Representation current) {
+    boolean changed = false;
+    while (true) {
+      if (current instanceof DenseRegisters) {
+        return ((DenseRegisters) current)
+                .max(registerIndex(encoded, precision), registerRank(encoded, precision))
+            | changed;
+      }
+      SparseSet sparse = (SparseSet) current;
+      int result = sparse.add(encoded);
+      if (result == SparseSet.ADDED) {
+        changed = true;
+        if (sparse.size.get() >= sparse.table.length() / 2) {
+          replace(sparse, grow(sparse));
+        }
+      } else if (result == SparseSet.FULL) {
+        replace(sparse, grow(sparse));
+      }
+      Representation latest = representation.get();
+      if (latest == current) {
+        return changed;
+      }
+      current = latest;
+    }
+  }
+
+  private Representation grow(SparseSet sparse) {
+    int newCapacity = sparse.table.length() * 2;
+    return (newCapacity <= maxSparseCapacity(precision))
+        ? new SparseSet(newCapacity)
+        : new DenseRegisters(precision);
+  }
+
+  /**
+   * The largest capacity of a sparse set, beyond which the registers are smaller. Registers take a
+   * byte each, and a sparse set four bytes per slot.
+   */
+  private static int maxSparseCapacity(int precision) {
+    return (1 << precision) / 4;
+  }
+
+  /** Replaces a sparse set with {@code replacement}, unless another thread already replaced it. */
+  private void replace(SparseSet sparse, Representation replacement) {
+    if (representation.compareAndSet(sparse, replacement)) {
+      AtomicIntegerArray table = sparse.table;
+      for (int i = 0; i < table.length(); i++) {
+        int encoded = table.get(i);
+        if (encoded != 0) {
+          insert(encoded, representation.get());
+        }
+      }
+    }
+  }
+
+  /** Switches this sketch to its registers, if it is not using them already, and returns them. */
+  private DenseRegisters toDense() {
+    while (true) {
+      Representation current = representation.get();
+      if (current instanceof DenseRegisters) {
+        return (DenseRegisters) current;
+      }
+      replace((SparseSet) current, new DenseRegisters(precision));
+    }
+  }
+
+  private abstract static class Representation {}
+
+  /**
+   * A lock-free open-addressing hash set of encoded hashes. Its capacity is a power of two, and
+   * zero marks an empty slot. Values are never removed.
+   */
+  private static final class SparseSet extends Representation {
+    static final int PRESENT = 0;
+    static final int ADDED = 1;
+    static final int FULL = 2;
+
+    final AtomicIntegerArray table;
+    final AtomicInteger size = new AtomicInteger();
+
+    SparseSet(int capacity) {
+      this.table = new AtomicIntegerArray(capacity);
+    }
+
+    /** Adds {@code encoded}, returning one of {@link #PRESENT}, {@link #ADDED} or {@link #FULL}. */
+    int add(int encoded) {
+      int mask = table.length() - 1;
+      int index = (encoded * 0x9E3779B9 >>> 16) & mask;
+      for (int probes = 0; probes <= mask; probes++) {
+        int existing = table.get(index);
+        if (existing == 0) {
+          if (table.compareAndSet(index, 0, encoded)) {
+            size.incrementAndGet();
+            return ADDED;
+          }
+          existing = table.get(index);
+        }
+        if (existing == encoded) {
+          return PRESENT;
+        }
+        index = (index + 1) & mask;
+      }
+      return FULL;
+    }
+
+    /** Returns the values of this set in ascending unsigned order. */
+    int[] sortedValues() {
+      int[] values = new int[table.length()];
+      int count = 0;
+      for (int i = 0; i < table.length(); i++) {
+        int encoded = table.get(i);
+        if (encoded != 0) {
+          values[count++] = encoded;
+        }
+      }
+      values = Arrays.copyOf(values, count);
+      UnsignedInts.sort(values);
+      return values;
+    }
+
+    /** Returns the number of distinct sparse indexes among the values of this set. */
+    int distinctIndexes() {
+      int[] values = sortedValues();
+      int distinct = 0;
+      int previous = -1;
+      for (int encoded : values) {
+        int index = sparseIndex(encoded);
+        if (index != previous) {
+          distinct++;
+          previous = index;
+        }
+      }
+      return distinct;
+    }
+  }
+
+  /** The registers of the sketch, one byte each, packed eight to a long. */
+  private static final class DenseRegisters extends Representation {
+    final AtomicLongArray data;
+
+    DenseRegisters(int precision) {
+      this.data = new AtomicLongArray((1 << precision) / 8);
+    }
+
+    int get(int index) {
+      return (int) (data.get(index >>> 3) >>> ((index & 7) << 3)) & 0xFF;
+    }
+
+    /** Raises the register at {@code index} to {@code rank}, returning whether it changed. */
+    boolean max(int index, int rank) {
+      int longIndex = index >>> 3;
+      int shift = (index & 7) << 3;
+      long oldData;
+      long newData;
+      do {
+        oldData = data.get(longIndex);
+        if (((oldData >>> shift) & 0xFF) >= rank) {
+          return false;
+        }
+        newData = (oldData & ~(0xFFL << shift)) | ((long) rank << shift);
+      } while (!data.compareAndSet(longIndex, oldData, newData));
+      return true;
+    }
+
+    /** Raises the eight registers packed at {@code longIndex} to those packed in {@code other}. */
+    void putAll(int longIndex, long other) {
+      for (int i = 0; i < 8; i++) {
+        int rank = (int) (other >>> (i << 3)) & 0xFF;
+        if (rank != 0) {
+          max((longIndex << 3) + i, rank);
+        }
+      }
+    }
+
+    /**
+     * Estimates the cardinality from the histogram of the register values, as described in Otmar
+     * Ertl, "New cardinality estimation algorithms for HyperLogLog sketches" (2017).
+     */
+    double estimate(int precision) {
+      int m = 1 << precision;
+      int q = 64 - precision;
+      int[] histogram = new int[q + 2];
+      for (int i = 0; i < m; i++) {
+        histogram[get(i)]++;
+      }
+      double z = m * tau(1 - (double) histogram[q + 1] / m);
+      for (int k = q; k >= 1; k--) {
+        z = 0.5 * (z + histogram[k]);
+      }
+      z += m * sigma((double) histogram[0] / m);
+      return m / (2 * Math.log(2)) * m / z;
+    }
+
+    private static double sigma(double x) {
+      if (x == 1) {
+        return Double.POSITIVE_INFINITY;
+      }
+      double y = 1;
+      double z = x;
+      double previous;
+      do {
+        x *= x;
+        previous = z;
+        z += x * y;
+        y += y;
+      } while (z != previous);
+      return z;
+    }
+
+    private static double tau(double x) {
+      if (x == 0 || x == 1) {
+        return 0;
+      }
+      double y = 1;
+      double z = 1 - x;
+      double previous;
+      do {
+        x = Math.sqrt(x);
+        previous = z;
+        y *= 0.5;
+        z -= (1 - x) * (1 - x) * y;
+      } while (z != previous);
+      return z / 3;
+    }
+  }
+
+  /** Returns whether this sketch currently uses the sparse representation. */
+  @VisibleForTesting
+  boolean isSparse() {
+    return representation.get() instanceof SparseSet;
+  }
+
+  @Override
+  public boolean equals(@Nullable Object object) {
+    if (object == this) {
+      return true;
+    }
+    if (object instanceof HyperLogLog) {
+      HyperLogLog<?> that = (HyperLogLog<?>) object;
+      return this.precision == that.precision
+          && this.funnel.equals(that.funnel)
+          && this.hashFunction.equals(that.hashFunction)
+          && Arrays.equals(this.toByteArray(), that.toByteArray());
+    }
+    return false;
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hashCode(precision, funnel, hashFunction, Arrays.hashCode(toByteArray()));
+  }
+
+  private byte[] toByteArray() {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    try {
+      writeTo(out);
+    } catch (IOException impossible) {
+      throw new AssertionError(impossible);
+    }
+    return out.toByteArray();
+  }
+
+  private Object writeReplace() {
+    return new SerialForm<T>(this);
+  }
+
+  private static class SerialForm<T> implements Serializable {
+    final byte[] data;
+    final Funnel<? super T> funnel;
+    final HashFunction hashFunction;
+
+    SerialForm(HyperLogLog<T> hll) {
+      this.data = hll.toByteArray();
+      this.funnel = hll.funnel;
+      this.hashFunction = hll.hashFunction;
+    }
+
+    Object readResolve() throws IOException {
+      return readFrom(new ByteArrayInputStream(data), funnel, hashFunction);
+    }
+
+    private static final long serialVersionUID = 0;
+  }
+
+  /**
+   * Writes this {@code HyperLogLog} to an output stream, with a custom format (not Java
+   * serialization). A sparse sketch takes a few bytes per distinct element; a dense one takes six
+   * bits per register.
+   *
+   * <p>Use {@linkplain #readFrom(InputStream, Funnel, HashFunction)} to reconstruct the written
+   * sketch.
+   */
+  public void writeTo(OutputStream out) throws IOException {
+    // Serial form:
+    // 1 byte for the representation: 0 for sparse, 1 for dense
+    // 1 byte for the precision
+    // if sparse:
+    //   1 big endian int, the number of encoded hashes
+    //   the encoded hashes in ascending order, each as a varint of the difference from the last
+    // if dense:
+    //   the registers, 6 bits each, packed big endian 4 to every 3 bytes
+    DataOutputStream dout = new DataOutputStream(out);
+    Representation current = representation.get();
+    dout.writeByte(current instanceof SparseSet ? SPARSE_FORMAT : DENSE_FORMAT);
+    dout.writeByte(precision);
+    if (current instanceof SparseSet) {
+      int[] values = ((SparseSet) current).sortedValues();
+      dout.writeInt(values.length);
+      int previous = 0;
+      for (int encoded : values) {
+        int delta = encoded - previous;
+        while ((delta & ~0x7F) != 0) {
+          dout.writeByte((delta & 0x7F) | 0x80);
+          delta >>>= 7;
+        }
+        dout.writeByte(delta);
+        previous = encoded;
+      }
+    } else {
+      DenseRegisters registers = (DenseRegisters) current;
+      for (int i = 0; i < (1 << precision); i += 4) {
+        int packed =
+            (registers.get(i) << 18)
+                | (registers.get(i + 1) << 12)
+                | (registers.get(i + 2) << 6)
+                | registers.get(i + 3);
+        dout.writeByte(packed >>> 16);
+        dout.writeByte(packed >>> 8);
+        dout.writeByte(packed);
+      }
+    }
+  }
+
+  /**
+   * Reads a byte stream, which was written by {@linkplain #writeTo(OutputStream)}, into a {@code
+   * HyperLogLog} that hashes elements with {@link Hashing#murmur3_128()}.
+   *
+   * <p>The {@code Funnel} to be used is not encoded in the stream, so it must be provided here.
+   * <b>Warning:</b> the funnel provided <b>must</b> behave identically to the one used to populate
+   * the original sketch!
+   *
+   * @throws IOException if the InputStream throws an {@code IOException}, or if its data does not
+   *     appear to be a HyperLogLog serialized using the {@linkplain #writeTo(OutputStream)} method.
+   */
+  public static <T> HyperLogLog<T> readFrom(InputStream in, Funnel<? super T> funnel)
+      throws IOException {
+    return readFrom(in, funnel, Hashing.murmur3_128());
+  }
+
+  /**
+   * Reads a byte stream, which was written by {@linkplain #writeTo(OutputStream)}, into a {@code
+   * HyperLogLog}.
+   *
+   * <p>Neither the {@code Funnel} nor the {@code HashFunction} to be used are encoded in the
+   * stream, so they must be provided here. <b>Warning:</b> they <b>must</b> behave identically to
+   * the ones used to populate the original sketch!
+   *
+   * @throws IOException if the InputStream throws an {@code IOException}, or if its data does not
+   *     appear to be a HyperLogLog serialized using the {@linkplain #writeTo(OutputStream)} method.
+   */
+  public static <T> HyperLogLog<T> readFrom(
+      InputStream in, Funnel<? super T> funnel, HashFunction hashFunction) throws IOException {
+    checkNotNull(in, "InputStream");
+    checkNotNull(funnel, "Funnel");
+    checkNotNull(hashFunction, "HashFunction");
+    int format = -1;
+    int precision = -1;
+    try {
+      DataInputStream din = new DataInputStream(in);
+      format = din.readByte();
+      precision = din.readByte();
+      HyperLogLog<T> hll = new HyperLogLog<T>(precision, funnel, hashFunction);
+      if (format == SPARSE_FORMAT) {
+        int count = din.readInt();
+        int encoded = 0;
+        for (int i = 0; i < count; i++) {
+          int delta = 0;
+          int shift = 0;
+          int b;
+          do {
+            checkArgument(shift < 32, "malformed varint");
+            b = din.readUnsignedByte();
+            delta |= (b & 0x7F) << shift;
+            shift += 7;
+          } while ((b & 0x80) != 0);
+          encoded += delta;
+          checkArgument(encoded != 0, "malformed encoded hash");
+          hll.insert(encoded, hll.representation.get());
+        }
+      } else {
+        checkArgument(format == DENSE_FORMAT, "unknown format");
+        DenseRegisters registers = hll.toDense();
+        for (int i = 0; i < (1 << precision); i += 4) {
+          int packed = din.readUnsignedByte() << 16;
+          packed |= din.readUnsignedByte() << 8;
+          packed |= din.readUnsignedByte();
+          registers.max(i, packed >>> 18);
+          registers.max(i + 1, (packed >>> 12) & 0x3F);
+          registers.max(i + 2, (packed >>> 6) & 0x3F);
+          registers.max(i + 3, packed & 0x3F);
+        }
+      }
+      return hll;
+    } catch (RuntimeException e) {
+      String message =
+          "Unable to deserialize HyperLogLog from InputStream."
+              + " format: "
+              + format
+              + " precision: "
+              + precision;
+      throw new IOException(message, e);
+    }
+  }
+}
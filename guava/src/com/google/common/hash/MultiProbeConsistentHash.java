@@ -0,0 +1,193 @@
+/*
+ * Copyright (C) 2019 The Guava Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.common.hash;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.hash.Murmur3_128HashFunction.fmix64;
+
+import com.google.common.annotations.Beta;
+import com.google.common.base.MoreObjects;
+import com.google.common.collect.ImmutableSet;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Assigns keys to a set of nodes using <a href="https://arxiv.org/abs/1505.00062">multi-probe
+ * consistent hashing</a>. Each node is placed at a single point of a ring of 64-bit hash values.
+ * Each key is hashed to several probe points, and is assigned to the node that follows one of them
+ * most closely on the ring.
+ *
+ * <p>As with {@link RendezvousHash}, any node can be removed, in which case only the keys that were
+ * assigned to it are reassigned, and adding a node only takes keys away from other nodes. Finding
+ * the node for a key takes time logarithmic in the number of nodes, which makes this the better
+ * choice for many thousands of nodes, and {@link #get(long)} does not allocate. The more probes,
+ * the more evenly the keys are spread: with the default of 21 probes, the most loaded node is
+ * typically assigned about 1.15 times its fair share of keys, although some nodes may be assigned
+ * much less than theirs. Nodes cannot be weighted, though; use {@link RendezvousHash} for weights
+ * or replica sets.
+ *
+ * <p>Instances are immutable and thread-safe.
+ *
+ * @param <N> the type of the nodes
+ * @since NEXT
+ */
+@Beta
+public final class MultiProbeConsistentHash<N> {
+  private static final int DEFAULT_PROBES = 21;
+
+  /**
+   * Returns a multi-probe consistent hash of the given nodes, which are hashed by funneling them
+   * into {@code hashFunction}, probing 21 points for each key.
+   *
+   * @throws IllegalArgumentException if {@code nodes} is empty or contains duplicates
+   */
+  public static <N> MultiProbeConsistentHash<N> create(
+      HashFunction hashFunction, Funnel<? super N> nodeFunnel, Iterable<? extends N> nodes) {
+    return create(hashFunction, nodeFunnel, nodes, DEFAULT_PROBES);
+  }
+
+  /**
+   * Returns a multi-probe consistent hash of the given nodes, which are hashed by funneling them
+   * into {@code hashFunction}, probing {@code probes} points for each key.
+   *
+   * @throws IllegalArgumentException if {@code nodes} is empty or contains duplicates, or if
+   *     {@code probes} is not positive
+   */
+  public static <N> MultiProbeConsistentHash<N> create(
+      HashFunction hashFunction,
+      Funnel<? super N> nodeFunnel,
+      Iterable<? extends N> nodes,
+      int probes) {
+    checkNotNull(hashFunction);
+    checkNotNull(nodeFunnel);
+    checkArgument(probes > 0, "probes (%s) must be positive", probes);
+    Set<N> nodeSet = new LinkedHashSet<>();
+    for (N node : nodes) {
+      checkArgument(nodeSet.add(checkNotNull(node)), "duplicate node: %s", node);
+    }
+    checkArgument(!nodeSet.isEmpty(), "a multi-probe consistent hash needs at least one node");
+    return new MultiProbeConsistentHash<N>(
+        hashFunction, nodeFunnel, ImmutableSet.copyOf(nodeSet), probes);
+  }
+
+  private final HashFunction hashFunction;
+  private final Funnel<? super N> nodeFunnel;
+  private final ImmutableSet<N> nodes;
+  private final int probes;
+  /** The points of the nodes on the ring, in ascending (signed) order. */
+  private final long[] points;
+  /** The node at each of the points. */
+  private final Object[] owners;
+
+  private MultiProbeConsistentHash(
+      HashFunction hashFunction, Funnel<? super N> nodeFunnel, ImmutableSet<N> nodes, int probes) {
+    this.hashFunction = hashFunction;
+    this.nodeFunnel = nodeFunnel;
+    this.nodes = nodes;
+    this.probes = probes;
+    int size = nodes.size();
+    long[][] pointsAndIndices = new long[size][];
+    int i = 0;
+    for (N node : nodes) {
+      // Mixed like the probes, so that hash functions of fewer than 64 bits cover the whole ring.
+      long point = fmix64(hashFunction.hashObject(node, nodeFunnel).padToLong());
+      pointsAndIndices[i] = new long[] {point, i};
+      i++;
+    }
+    // Signed order is as good as unsigned order for a ring: it only starts at a different point.
+    Arrays.sort(pointsAndIndices, (a, b) -> Long.compare(a[0], b[0]));
+    this.points = new long[size];
+    this.owners = new Object[size];
+    for (i = 0; i < size; i++) {
+      points[i] = pointsAndIndices[i][0];
+      owners[i] = nodes.asList().get((int) pointsAndIndices[i][1]);
+    }
+  }
+
+  /** Returns the nodes of this consistent hash, in the order they were given. */
+  public ImmutableSet<N> nodes() {
+    return nodes;
+  }
+
+  /**
+   * Returns the node to which the key with the given hash code is assigned. Equivalent to {@code
+   * get(keyHash.padToLong())}.
+   */
+  public N get(HashCode keyHash) {
+    return get(keyHash.padToLong());
+  }
+
+  /** Returns the node to which the key with the given hash code is assigned. */
+  @SuppressWarnings("unchecked") // owners only contains Ns
+  public N get(long keyHash) {
+    long[] points = this.points;
+    int best = 0;
+    long bestDistance = -1; // the largest unsigned value
+    for (int probe = 0; probe < probes; probe++) {
+      long point = fmix64(keyHash + probe * 0x9E3779B97F4A7C15L);
+      int successor = Arrays.binarySearch(points, point);
+      if (successor < 0) {
+        successor = -successor - 1;
+        if (successor == points.length) {
+          successor = 0; // wrap around the ring
+        }
+      }
+      long distance = points[successor] - point;
+      if (Long.compareUnsigned(distance, bestDistance) < 0) {
+        bestDistance = distance;
+        best = successor;
+      }
+    }
+    return (N) owners[best];
+  }
+
+  /**
+   * Returns a multi-probe consistent hash with the nodes of this one but {@code node}. Only the
+   * keys that were assigned to {@code node} are assigned to different nodes by the result.
+   *
+   * @throws IllegalArgumentException if {@code node} is not a node of this consistent hash, or is
+   *     its only node
+   */
+  public MultiProbeConsistentHash<N> withoutNode(N node) {
+    checkArgument(nodes.contains(node), "not a node: %s", node);
+    Set<N> newNodes = new LinkedHashSet<>(nodes);
+    newNodes.remove(node);
+    return create(hashFunction, nodeFunnel, newNodes, probes);
+  }
+
+  /**
+   * Returns a multi-probe consistent hash with the nodes of this one and {@code node}. The result
+   * assigns keys to the same nodes as this one does, except for the keys that it assigns to {@code
+   * node}.
+   *
+   * @throws IllegalArgumentException if {@code node} is already a node of this consistent hash
+   */
+  public MultiProbeConsistentHash<N> withNode(N node) {
+    Set<N> newNodes = new LinkedHashSet<>(nodes);
+    checkArgument(newNodes.add(checkNotNull(node)), "duplicate node: %s", node);
+    return create(hashFunction, nodeFunnel, newNodes, probes);
+  }
+
+  @Override
+  public String toString() {
+    return MoreObjects.toStringHelper(this)
+        .add("hashFunction", hashFunction)
+        .add("nodes", nodes)
+        .add("probes", probes)
+        .toString();
+  }
+}
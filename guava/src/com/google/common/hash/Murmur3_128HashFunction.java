@@ -25,6 +25,7 @@
 
 package com.google.common.hash;
 
+import static com.google.common.base.Preconditions.checkPositionIndexes;
 import static com.google.common.primitives.UnsignedBytes.toInt;
 
 import com.google.errorprone.annotations.Immutable;
@@ -83,8 +84,76 @@ final class Murmur3_128HashFunction extends AbstractHashFunction implements Seri
     return getClass().hashCode() ^ seed;
   }
 
+  // The shortcuts below compute the first half of the hash code without a Murmur3_128Hasher.
+
+  @Override
+  public long hashLongToLong(long input) {
+    long h1 = seed ^ Murmur3_128Hasher.mixK1(input);
+    return finalMix(h1, seed, Long.BYTES);
+  }
+
+  @Override
+  public long hashBytesToLong(byte[] input, int off, int len) {
+    checkPositionIndexes(off, off + len, input.length);
+    long h1 = seed;
+    long h2 = seed;
+    int i = 0;
+    for (; i + CHUNK_SIZE <= len; i += CHUNK_SIZE) {
+      h1 ^= Murmur3_128Hasher.mixK1(LittleEndianByteArray.load64(input, off + i));
+      h1 = Long.rotateLeft(h1, 27);
+      h1 += h2;
+      h1 = h1 * 5 + 0x52dce729;
+
+      h2 ^= Murmur3_128Hasher.mixK2(LittleEndianByteArray.load64(input, off + i + 8));
+      h2 = Long.rotateLeft(h2, 31);
+      h2 += h1;
+      h2 = h2 * 5 + 0x38495ab5;
+    }
+
+    long k1 = 0;
+    long k2 = 0;
+    for (int shift = 0; i < len; i++, shift += 8) {
+      if (shift < 64) {
+        k1 ^= (long) toInt(input[off + i]) << shift;
+      } else {
+        k2 ^= (long) toInt(input[off + i]) << (shift - 64);
+      }
+    }
+    h1 ^= Murmur3_128Hasher.mixK1(k1);
+    h2 ^= Murmur3_128Hasher.mixK2(k2);
+    return finalMix(h1, h2, len);
+  }
+
+  /** Returns the first half of the hash code, as {@link Murmur3_128Hasher#makeHash} computes it. */
+  private static long finalMix(long h1, long h2, int length) {
+    h1 ^= length;
+    h2 ^= length;
+
+    h1 += h2;
+    h2 += h1;
+
+    h1 = fmix64(h1);
+    h2 = fmix64(h2);
+
+    return h1 + h2;
+  }
+
+  /**
+   * The 64-bit finalization mix of MurmurHash3, which turns similar inputs into unrelated outputs.
+   * Also used by {@link RendezvousHash} and {@link MultiProbeConsistentHash}.
+   */
+  static long fmix64(long k) {
+    k ^= k >>> 33;
+    k *= 0xff51afd7ed558ccdL;
+    k ^= k >>> 33;
+    k *= 0xc4ceb9fe1a85ec53L;
+    k ^= k >>> 33;
+    return k;
+  }
+
+  private static final int CHUNK_SIZE = 16;
+
   private static final class Murmur3_128Hasher extends AbstractStreamingHasher {
-    private static final int CHUNK_SIZE = 16;
     private static final long C1 = 0x87c37b91114253d5L;
     private static final long C2 = 0x4cf5ad432745937fL;
     private long h1;
@@ -187,15 +256,6 @@ final class Murmur3_128HashFunction extends AbstractHashFunction implements Seri
               .array());
     }
 
-    private static long fmix64(long k) {
-      k ^= k >>> 33;
-      k *= 0xff51afd7ed558ccdL;
-      k ^= k >>> 33;
-      k *= 0xc4ceb9fe1a85ec53L;
-      k ^= k >>> 33;
-      return k;
-    }
-
     private static long mixK1(long k1) {
       k1 *= C1;
       k1 = Long.rotateLeft(k1, 31);
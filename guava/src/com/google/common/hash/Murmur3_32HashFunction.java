@@ -33,6 +33,7 @@ import com.google.common.base.Charsets;
 import com.google.common.primitives.Chars;
 import com.google.common.primitives.Ints;
 import com.google.common.primitives.Longs;
+import com.google.common.primitives.UnsignedInts;
 import com.google.errorprone.annotations.CanIgnoreReturnValue;
 import com.google.errorprone.annotations.Immutable;
 import java.io.Serializable;
@@ -102,11 +103,20 @@ final class Murmur3_32HashFunction extends AbstractHashFunction implements Seria
     int k1 = mixK1(input);
     int h1 = mixH1(seed, k1);
 
-    return fmix(h1, Ints.BYTES);
+    return HashCode.fromInt(fmix(h1, Ints.BYTES));
   }
 
   @Override
   public HashCode hashLong(long input) {
+    return HashCode.fromInt(hashLongToInt(input));
+  }
+
+  @Override
+  public long hashLongToLong(long input) {
+    return UnsignedInts.toLong(hashLongToInt(input));
+  }
+
+  private int hashLongToInt(long input) {
     int low = (int) input;
     int high = (int) (input >>> 32);
 
@@ -121,6 +131,15 @@ final class Murmur3_32HashFunction extends AbstractHashFunction implements Seria
 
   @Override
   public HashCode hashUnencodedChars(CharSequence input) {
+    return HashCode.fromInt(hashUnencodedCharsToInt(input));
+  }
+
+  @Override
+  public long hashUnencodedCharsToLong(CharSequence input) {
+    return UnsignedInts.toLong(hashUnencodedCharsToInt(input));
+  }
+
+  private int hashUnencodedCharsToInt(CharSequence input) {
     int h1 = seed;
 
     // step through the CharSequence 2 chars at a time
@@ -203,7 +222,7 @@ final class Murmur3_32HashFunction extends AbstractHashFunction implements Seria
 
       int k1 = mixK1((int) buffer);
       h1 ^= k1;
-      return fmix(h1, len);
+      return HashCode.fromInt(fmix(h1, len));
     } else {
       return hashBytes(input.toString().getBytes(charset));
     }
@@ -211,6 +230,16 @@ final class Murmur3_32HashFunction extends AbstractHashFunction implements Seria
 
   @Override
   public HashCode hashBytes(byte[] input, int off, int len) {
+    return HashCode.fromInt(hashBytesToInt(input, off, len));
+  }
+
+  @Override
+  public long hashBytesToLong(byte[] input, int off, int len) {
+    return UnsignedInts.toLong(hashBytesToInt(input, off, len));
+  }
+
+  @Override
+  public int hashBytesToInt(byte[] input, int off, int len) {
     checkPositionIndexes(off, off + len, input.length);
     int h1 = seed;
     int i;
@@ -246,14 +275,14 @@ final class Murmur3_32HashFunction extends AbstractHashFunction implements Seria
   }
 
   // Finalization mix - force all bits of a hash block to avalanche
-  private static HashCode fmix(int h1, int length) {
+  private static int fmix(int h1, int length) {
     h1 ^= length;
     h1 ^= h1 >>> 16;
     h1 *= 0x85ebca6b;
     h1 ^= h1 >>> 13;
     h1 *= 0xc2b2ae35;
     h1 ^= h1 >>> 16;
-    return HashCode.fromInt(h1);
+    return h1;
   }
 
   @CanIgnoreReturnValue
@@ -386,7 +415,7 @@ final class Murmur3_32HashFunction extends AbstractHashFunction implements Seria
       checkState(!isDone);
       isDone = true;
       h1 ^= mixK1((int) buffer);
-      return fmix(h1, length);
+      return HashCode.fromInt(fmix(h1, length));
     }
   }
 
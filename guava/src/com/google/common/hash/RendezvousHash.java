@@ -0,0 +1,292 @@
+/*
+ * Copyright (C) 2019 The Guava Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.common.hash;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+import static com.google.common.hash.Murmur3_128HashFunction.fmix64;
+
+import com.google.common.annotations.Beta;
+import com.google.common.base.MoreObjects;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.errorprone.annotations.CanIgnoreReturnValue;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * Assigns keys to a set of weighted nodes using <a
+ * href="https://en.wikipedia.org/wiki/Rendezvous_hashing">rendezvous hashing</a>, also known as
+ * highest random weight (HRW) hashing. Every node gets a pseudo-random score for each key, and the
+ * key is assigned to the node with the best score.
+ *
+ * <p>Unlike {@link Hashing#consistentHash(long, int)}, rendezvous hashing lets any node be removed:
+ * only the keys that were assigned to the removed node are reassigned, and they are spread over
+ * the remaining nodes in proportion to their weights. Likewise, adding a node only takes keys away
+ * from other nodes. A node with weight {@code w} is assigned a fraction {@code w / W} of all keys,
+ * where {@code W} is the total weight of all nodes, using the logarithmic method of Schindelhauer
+ * and Schomaker. The nodes with the next best scores for a key make up its {@linkplain
+ * #getReplicas replica set}, which changes just as little when nodes come and go.
+ *
+ * <p>Each node is hashed once, with the {@link HashFunction} and {@link Funnel} given to {@link
+ * #builder}. Keys are given as hash codes, which callers can compute with any hash function; {@link
+ * #get(long)} does not allocate. Finding the node for a key takes time linear in the number of
+ * nodes: a few nanoseconds per node, and several times that if the nodes have different weights.
+ * For thousands of nodes, {@link MultiProbeConsistentHash} is faster, but does not support weights
+ * or replica sets.
+ *
+ * <p>Instances are immutable and thread-safe.
+ *
+ * @param <N> the type of the nodes
+ * @since NEXT
+ */
+@Beta
+public final class RendezvousHash<N> {
+
+  /**
+   * Returns a new builder of a rendezvous hash whose nodes are hashed by funneling them into
+   * {@code hashFunction}.
+   */
+  public static <N> Builder<N> builder(HashFunction hashFunction, Funnel<? super N> nodeFunnel) {
+    return new Builder<N>(checkNotNull(hashFunction), checkNotNull(nodeFunnel));
+  }
+
+  /**
+   * A builder for creating {@link RendezvousHash} instances.
+   *
+   * @since NEXT
+   */
+  public static final class Builder<N> {
+    private final HashFunction hashFunction;
+    private final Funnel<? super N> nodeFunnel;
+    private final Map<N, Double> weights = new LinkedHashMap<>();
+
+    Builder(HashFunction hashFunction, Funnel<? super N> nodeFunnel) {
+      this.hashFunction = hashFunction;
+      this.nodeFunnel = nodeFunnel;
+    }
+
+    /**
+     * Adds a node with a weight of 1.
+     *
+     * @throws IllegalArgumentException if {@code node} was already added
+     */
+    @CanIgnoreReturnValue
+    public Builder<N> add(N node) {
+      return add(node, 1.0);
+    }
+
+    /**
+     * Adds a node with the given weight. The fraction of keys assigned to the node is proportional
+     * to its weight.
+     *
+     * @throws IllegalArgumentException if {@code node} was already added, or if {@code weight} is
+     *     not positive and finite
+     */
+    @CanIgnoreReturnValue
+    public Builder<N> add(N node, double weight) {
+      checkNotNull(node);
+      checkArgument(
+          weight > 0 && weight < Double.POSITIVE_INFINITY,
+          "weight (%s) must be positive and finite",
+          weight);
+      checkArgument(weights.put(node, weight) == null, "duplicate node: %s", node);
+      return this;
+    }
+
+    /**
+     * Returns a rendezvous hash of the nodes added to this builder.
+     *
+     * @throws IllegalStateException if no nodes were added
+     */
+    public RendezvousHash<N> build() {
+      checkState(!weights.isEmpty(), "a rendezvous hash needs at least one node");
+      return new RendezvousHash<N>(hashFunction, nodeFunnel, ImmutableMap.copyOf(weights));
+    }
+  }
+
+  private final HashFunction hashFunction;
+  private final Funnel<? super N> nodeFunnel;
+  private final ImmutableMap<N, Double> weights;
+  private final Object[] nodes;
+  private final long[] nodeHashes;
+  /** The reciprocals of the weights of the nodes, or null if all nodes have the same weight. */
+  private final double @Nullable [] inverseWeights;
+
+  private RendezvousHash(
+      HashFunction hashFunction, Funnel<? super N> nodeFunnel, ImmutableMap<N, Double> weights) {
+    this.hashFunction = hashFunction;
+    this.nodeFunnel = nodeFunnel;
+    this.weights = weights;
+    int size = weights.size();
+    this.nodes = new Object[size];
+    this.nodeHashes = new long[size];
+    double[] inverseWeights = new double[size];
+    boolean uniform = true;
+    int i = 0;
+    for (Map.Entry<N, Double> entry : weights.entrySet()) {
+      nodes[i] = entry.getKey();
+      nodeHashes[i] = hashFunction.hashObject(entry.getKey(), nodeFunnel).padToLong();
+      inverseWeights[i] = 1.0 / entry.getValue();
+      uniform &= inverseWeights[i] == inverseWeights[0];
+      i++;
+    }
+    this.inverseWeights = uniform ? null : inverseWeights;
+  }
+
+  /** Returns the nodes of this rendezvous hash and their weights, in the order they were added. */
+  public ImmutableMap<N, Double> weights() {
+    return weights;
+  }
+
+  /**
+   * Returns the node to which the key with the given hash code is assigned. Equivalent to {@code
+   * get(keyHash.padToLong())}.
+   */
+  public N get(HashCode keyHash) {
+    return get(keyHash.padToLong());
+  }
+
+  /** Returns the node to which the key with the given hash code is assigned. */
+  @SuppressWarnings("unchecked") // nodes only contains Ns
+  public N get(long keyHash) {
+    long key = fmix64(keyHash);
+    int best = 0;
+    if (inverseWeights == null) {
+      // With equal weights, comparing the scores themselves is equivalent to, and much cheaper
+      // than, comparing their weighted logarithms.
+      long bestScore = score(key, 0);
+      for (int i = 1; i < nodes.length; i++) {
+        long score = score(key, i);
+        if (score > bestScore) {
+          bestScore = score;
+          best = i;
+        }
+      }
+    } else {
+      double bestScore = weightedScore(key, 0);
+      for (int i = 1; i < nodes.length; i++) {
+        double score = weightedScore(key, i);
+        if (score < bestScore) {
+          bestScore = score;
+          best = i;
+        }
+      }
+    }
+    return (N) nodes[best];
+  }
+
+  /**
+   * Returns the {@code count} nodes with the best scores for the key with the given hash code, best
+   * first, or all nodes if there are fewer than {@code count}. The first of them is {@link
+   * #get(long) get(keyHash)}, and if it is removed, the second becomes the first, and so on.
+   *
+   * @throws IllegalArgumentException if {@code count} is negative
+   */
+  public ImmutableList<N> getReplicas(long keyHash, int count) {
+    checkArgument(count >= 0, "count (%s) may not be negative", count);
+    count = Math.min(count, nodes.length);
+    long key = fmix64(keyHash);
+    // Lower is better: the weighted scores, or the complements of the unweighted scores.
+    double[] bestScores = new double[count];
+    int[] best = new int[count];
+    int found = 0;
+    for (int i = 0; i < nodes.length; i++) {
+      double score = inverseWeights == null ? -score(key, i) : weightedScore(key, i);
+      if (found == count && (count == 0 || score >= bestScores[count - 1])) {
+        continue;
+      }
+      // insertion into the sorted arrays of the best nodes so far
+      int j = found < count ? found++ : count - 1;
+      for (; j > 0 && bestScores[j - 1] > score; j--) {
+        bestScores[j] = bestScores[j - 1];
+        best[j] = best[j - 1];
+      }
+      bestScores[j] = score;
+      best[j] = i;
+    }
+    ImmutableList.Builder<N> replicas = ImmutableList.builder();
+    for (int i = 0; i < count; i++) {
+      @SuppressWarnings("unchecked") // nodes only contains Ns
+      N node = (N) nodes[best[i]];
+      replicas.add(node);
+    }
+    return replicas.build();
+  }
+
+  /**
+   * Returns a rendezvous hash with the nodes of this one but {@code node}. Only the keys that were
+   * assigned to {@code node} are assigned to different nodes by the result.
+   *
+   * @throws IllegalArgumentException if {@code node} is not a node of this rendezvous hash, or is
+   *     its only node
+   */
+  public RendezvousHash<N> withoutNode(N node) {
+    checkArgument(weights.containsKey(node), "not a node: %s", node);
+    checkArgument(weights.size() > 1, "cannot remove the only node: %s", node);
+    Map<N, Double> newWeights = new LinkedHashMap<>(weights);
+    newWeights.remove(node);
+    return new RendezvousHash<N>(hashFunction, nodeFunnel, ImmutableMap.copyOf(newWeights));
+  }
+
+  /**
+   * Returns a rendezvous hash with the nodes of this one and {@code node}, with the given weight.
+   * The result assigns keys to the same nodes as this one does, except for the keys that it
+   * assigns to {@code node}.
+   *
+   * @throws IllegalArgumentException if {@code node} is already a node of this rendezvous hash, or
+   *     if {@code weight} is not positive and finite
+   */
+  public RendezvousHash<N> withNode(N node, double weight) {
+    Builder<N> builder = new Builder<N>(hashFunction, nodeFunnel);
+    for (Map.Entry<N, Double> entry : weights.entrySet()) {
+      builder.add(entry.getKey(), entry.getValue());
+    }
+    return builder.add(node, weight).build();
+  }
+
+  @Override
+  public String toString() {
+    return MoreObjects.toStringHelper(this)
+        .add("hashFunction", hashFunction)
+        .add("weights", weights)
+        .toString();
+  }
+
+  /**
+   * Returns the score of node {@code i} for the mixed key hash {@code key}, a uniformly distributed
+   * non-negative 53-bit value, so that it converts to a {@code double} exactly; higher is better.
+   */
+  private long score(long key, int i) {
+    return fmix64(key ^ nodeHashes[i]) >>> 11;
+  }
+
+  /**
+   * Returns the weighted score of node {@code i} for the mixed key hash {@code key}; lower is
+   * better. For a uniformly distributed score {@code u} in (0, 1), {@code -ln(u) / weight} is
+   * exponentially distributed with rate {@code weight}, and the minimum of such values over all
+   * nodes belongs to each node with a probability proportional to its weight.
+   */
+  private double weightedScore(long key, int i) {
+    return -Math.log(toUnitInterval(score(key, i))) * inverseWeights[i];
+  }
+
+  /** Maps a score uniformly into the open interval (0, 1), preserving its order. */
+  private static double toUnitInterval(long score) {
+    return (score + 0.5) * 0x1.0p-53;
+  }
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright (C) 2019 The Guava Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.common.hash;
+
+import com.google.common.annotations.Beta;
+import com.google.errorprone.annotations.CanIgnoreReturnValue;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+
+/**
+ * A {@link Hasher} that can be reused for any number of hash code computations. Each of {@link
+ * #hash}, {@link #hashToInt} and {@link #hashToLong} hashes the data that have been provided since
+ * the hasher was created or last reset, and then resets it, so that a single instance can hash a
+ * stream of keys:
+ *
+ * <pre>{@code
+ * ResettableHasher hasher = Hashing.murmur3_128().newResettableHasher();
+ * for (Order order : orders) {
+ *   long hash = hasher.putLong(order.customerId()).putInt(order.region()).hashToLong();
+ *   ...
+ * }
+ * }</pre>
+ *
+ * <p>For the non-cryptographic hash functions provided by {@link Hashing}, putting primitives and
+ * {@linkplain #putUnencodedChars unencoded chars} into a resettable hasher and calling {@link
+ * #hashToInt} or {@link #hashToLong} allocates nothing once the hasher has seen its longest input,
+ * except that the checksums may allocate a {@link java.util.zip.Checksum} for each hash.
+ * Resettable hashers buffer their input, so they are best suited to short inputs.
+ *
+ * <p>Resettable hashers are not thread-safe; each thread should use its own.
+ *
+ * @since NEXT
+ */
+@Beta
+@CanIgnoreReturnValue
+public interface ResettableHasher extends Hasher {
+  @Override
+  ResettableHasher putByte(byte b);
+
+  @Override
+  ResettableHasher putBytes(byte[] bytes);
+
+  @Override
+  ResettableHasher putBytes(byte[] bytes, int off, int len);
+
+  @Override
+  ResettableHasher putBytes(ByteBuffer bytes);
+
+  @Override
+  ResettableHasher putShort(short s);
+
+  @Override
+  ResettableHasher putInt(int i);
+
+  @Override
+  ResettableHasher putLong(long l);
+
+  @Override
+  ResettableHasher putFloat(float f);
+
+  @Override
+  ResettableHasher putDouble(double d);
+
+  @Override
+  ResettableHasher putBoolean(boolean b);
+
+  @Override
+  ResettableHasher putChar(char c);
+
+  @Override
+  ResettableHasher putUnencodedChars(CharSequence charSequence);
+
+  @Override
+  ResettableHasher putString(CharSequence charSequence, Charset charset);
+
+  @Override
+  <T> ResettableHasher putObject(T instance, Funnel<? super T> funnel);
+
+  /**
+   * Computes a hash code based on the data that have been provided to this hasher since it was
+   * last reset, and resets it.
+   */
+  @Override
+  HashCode hash();
+
+  /**
+   * Returns {@code hash().asInt()}, and resets this hasher. The implementation <i>might</i> avoid
+   * creating a {@link HashCode}.
+   */
+  int hashToInt();
+
+  /**
+   * Returns {@code hash().padToLong()}, and resets this hasher. The implementation <i>might</i>
+   * avoid creating a {@link HashCode}.
+   */
+  long hashToLong();
+
+  /** Discards the data that have been provided to this hasher since it was last reset. */
+  ResettableHasher reset();
+}
@@ -0,0 +1,370 @@
+/*
+ * Copyright (C) 2019 The Guava Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.common.hash;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.common.annotations.Beta;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Objects;
+import com.google.common.collect.ImmutableList;
+import com.google.common.math.LongMath;
+import com.google.errorprone.annotations.CanIgnoreReturnValue;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.List;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * A Bloom filter for instances of {@code T} that grows as elements are put into it, so that it need
+ * not be sized for the worst case up front. Like a {@link BloomFilter}, it offers an approximate
+ * containment test with one-sided error: if it claims that an element is contained in it, this
+ * might be in error, but if it claims that an element is <i>not</i> contained in it, then this is
+ * definitely true.
+ *
+ * <p>A scalable Bloom filter is a chain of Bloom filters; see "Scalable Bloom Filters" by Paulo
+ * Sérgio Almeida, Carlos Baquero, Nuno Preguiça and David Hutchison. Elements are put into the
+ * last filter of the chain, and once that holds as many elements as it was sized for, a new filter
+ * of twice the size is appended. The false positive probabilities of the successive filters form a
+ * geometric series that adds up to the probability given to {@link #create}, so that, unlike that
+ * of an overfull {@code BloomFilter}, the overall false positive probability stays below it however
+ * many elements are put. The price is that queries check every filter of the chain, of which there
+ * are about {@code log2(n / initialExpectedInsertions)} for {@code n} elements, and that the
+ * filter uses somewhat more memory than a {@code BloomFilter} sized for {@code n} elements would.
+ *
+ * <p>Scalable Bloom filters are serializable. They also support a more compact serial
+ * representation via the {@link #writeTo} and {@link #readFrom} methods.
+ *
+ * <p>This class is thread-safe. Queries and puts are lock-free, except when a put fills up the last
+ * filter of the chain and a new one is appended.
+ *
+ * @param <T> the type of instances that the {@code ScalableBloomFilter} accepts
+ * @since NEXT
+ */
+@Beta
+public final class ScalableBloomFilter<T> implements Serializable {
+  /** The factor by which the expected insertions of each filter exceed those of the previous. */
+  private static final int GROWTH_FACTOR = 2;
+
+  /**
+   * The factor by which the false positive probability of each filter is lower than that of the
+   * previous one. The authors of the paper recommend 0.8 to 0.9 for a growth factor of 2.
+   */
+  private static final double TIGHTENING_RATIO = 0.8;
+
+  /** The funnel to translate Ts to bytes */
+  private final Funnel<? super T> funnel;
+
+  /** The number of expected insertions of the first filter. */
+  private final long initialExpectedInsertions;
+
+  /** The bound on the overall false positive probability. */
+  private final double fpp;
+
+  /** The filters of the chain, oldest first; replaced as a whole when a filter is appended. */
+  private volatile BloomFilter<T>[] filters;
+
+  private ScalableBloomFilter(
+      Funnel<? super T> funnel,
+      long initialExpectedInsertions,
+      double fpp,
+      BloomFilter<T>[] filters) {
+    this.funnel = funnel;
+    this.initialExpectedInsertions = initialExpectedInsertions;
+    this.fpp = fpp;
+    this.filters = filters;
+  }
+
+  /**
+   * Creates a {@link ScalableBloomFilter} whose first filter is sized for {@code
+   * initialExpectedInsertions} elements, and whose false positive probability stays below {@code
+   * fpp} however many elements are put into it.
+   *
+   * <p>The constructed {@code ScalableBloomFilter} will be serializable if the provided {@code
+   * Funnel<T>} is. It is recommended that the funnel be implemented as a Java enum.
+   *
+   * @param funnel the funnel of T's that the constructed {@code ScalableBloomFilter} will use
+   * @param initialExpectedInsertions the number of insertions after which the constructed {@code
+   *     ScalableBloomFilter} first grows; must be positive
+   * @param fpp the desired bound on the false positive probability (must be positive and less than
+   *     1.0)
+   * @return a {@code ScalableBloomFilter}
+   */
+  public static <T> ScalableBloomFilter<T> create(
+      Funnel<? super T> funnel, long initialExpectedInsertions, double fpp) {
+    checkNotNull(funnel);
+    checkArgument(
+        initialExpectedInsertions > 0,
+        "Initial expected insertions (%s) must be > 0",
+        initialExpectedInsertions);
+    checkArgument(fpp > 0.0, "False positive probability (%s) must be > 0.0", fpp);
+    checkArgument(fpp < 1.0, "False positive probability (%s) must be < 1.0", fpp);
+    @SuppressWarnings({"unchecked", "rawtypes"}) // only contains BloomFilter<T>s
+    BloomFilter<T>[] filters = new BloomFilter[1];
+    filters[0] = newFilter(funnel, initialExpectedInsertions, fpp, 0);
+    return new ScalableBloomFilter<T>(funnel, initialExpectedInsertions, fpp, filters);
+  }
+
+  /**
+   * Creates a {@link ScalableBloomFilter} whose first filter is sized for {@code
+   * initialExpectedInsertions} elements, and whose false positive probability stays below 3%
+   * however many elements are put into it.
+   *
+   * @param funnel the funnel of T's that the constructed {@code ScalableBloomFilter} will use
+   * @param initialExpectedInsertions the number of insertions after which the constructed {@code
+   *     ScalableBloomFilter} first grows; must be positive
+   * @return a {@code ScalableBloomFilter}
+   */
+  public static <T> ScalableBloomFilter<T> create(
+      Funnel<? super T> funnel, long initialExpectedInsertions) {
+    return create(funnel, initialExpectedInsertions, 0.03);
+  }
+
+  /** Returns the number of expected insertions of filter {@code index} of the chain. */
+  private static long expectedInsertions(long initialExpectedInsertions, int index) {
+    return LongMath.saturatedMultiply(
+        initialExpectedInsertions, LongMath.saturatedPow(GROWTH_FACTOR, index));
+  }
+
+  /**
+   * Returns the false positive probability of filter {@code index} of the chain. These add up to
+   * {@code fpp}.
+   */
+  private static double fpp(double fpp, int index) {
+    return fpp * (1 - TIGHTENING_RATIO) * Math.pow(TIGHTENING_RATIO, index);
+  }
+
+  private static <T> BloomFilter<T> newFilter(
+      Funnel<? super T> funnel, long initialExpectedInsertions, double fpp, int index) {
+    return BloomFilter.create(
+        funnel, expectedInsertions(initialExpectedInsertions, index), fpp(fpp, index));
+  }
+
+  /**
+   * Creates a new {@code ScalableBloomFilter} that's a copy of this instance. The new instance is
+   * equal to this instance but shares no mutable state.
+   */
+  public ScalableBloomFilter<T> copy() {
+    BloomFilter<T>[] filters = this.filters.clone();
+    for (int i = 0; i < filters.length; i++) {
+      filters[i] = filters[i].copy();
+    }
+    return new ScalableBloomFilter<T>(funnel, initialExpectedInsertions, fpp, filters);
+  }
+
+  /**
+   * Returns {@code true} if the element <i>might</i> have been put in this scalable Bloom filter,
+   * {@code false} if this is <i>definitely</i> not the case.
+   */
+  public boolean mightContain(T object) {
+    BloomFilter<T>[] filters = this.filters;
+    // the newest filters are the largest, so they are the most likely to contain the object
+    for (int i = filters.length - 1; i >= 0; i--) {
+      if (filters[i].mightContain(object)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Puts an element into this {@code ScalableBloomFilter}. Ensures that subsequent invocations of
+   * {@link #mightContain(Object)} with the same element will always return {@code true}. An
+   * element that this filter already might contain is not put again, so that it does not use up
+   * capacity.
+   *
+   * @return true if this filter changed as a result of this operation, in which case this is
+   *     <i>definitely</i> the first time {@code object} has been added to the filter. As for {@link
+   *     BloomFilter#put}, {@code put(t)} always returns the <i>opposite</i> result to what {@code
+   *     mightContain(t)} would have returned at the time it is called.
+   */
+  @CanIgnoreReturnValue
+  public boolean put(T object) {
+    BloomFilter<T>[] filters = this.filters;
+    int last = filters.length - 1;
+    for (int i = 0; i < last; i++) {
+      if (filters[i].mightContain(object)) {
+        return false;
+      }
+    }
+    BloomFilter<T> filter = filters[last];
+    if (!filter.put(object)) {
+      return false;
+    }
+    if (filter.approximateElementCount() >= expectedInsertions(initialExpectedInsertions, last)) {
+      grow(filters);
+    }
+    return true;
+  }
+
+  /** Appends a filter to the chain, unless another thread already did since it was read. */
+  private synchronized void grow(BloomFilter<T>[] full) {
+    if (filters == full) {
+      BloomFilter<T>[] grown = Arrays.copyOf(full, full.length + 1);
+      grown[full.length] = newFilter(funnel, initialExpectedInsertions, fpp, full.length);
+      filters = grown;
+    }
+  }
+
+  /**
+   * Returns an estimate for the total number of distinct elements that have been added to this
+   * scalable Bloom filter.
+   */
+  public long approximateElementCount() {
+    long count = 0;
+    for (BloomFilter<T> filter : filters) {
+      count += filter.approximateElementCount();
+    }
+    return count;
+  }
+
+  /**
+   * Returns the probability that {@linkplain #mightContain(Object)} will erroneously return {@code
+   * true} for an object that has not actually been put in the {@code ScalableBloomFilter}. This is
+   * below the {@code fpp} passed to {@link #create(Funnel, long, double)}.
+   */
+  public double expectedFpp() {
+    double allNegative = 1.0;
+    for (BloomFilter<T> filter : filters) {
+      allNegative *= 1 - filter.expectedFpp();
+    }
+    return 1 - allNegative;
+  }
+
+  /** Returns the filters of the chain, oldest first. */
+  @VisibleForTesting
+  List<BloomFilter<T>> filters() {
+    return ImmutableList.copyOf(filters);
+  }
+
+  @Override
+  public boolean equals(@Nullable Object object) {
+    if (object == this) {
+      return true;
+    }
+    if (object instanceof ScalableBloomFilter) {
+      ScalableBloomFilter<?> that = (ScalableBloomFilter<?>) object;
+      return this.initialExpectedInsertions == that.initialExpectedInsertions
+          && this.fpp == that.fpp
+          && this.funnel.equals(that.funnel)
+          && Arrays.equals(this.filters, that.filters);
+    }
+    return false;
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hashCode(initialExpectedInsertions, fpp, funnel, Arrays.hashCode(filters));
+  }
+
+  private Object writeReplace() {
+    return new SerialForm<T>(this);
+  }
+
+  private static class SerialForm<T> implements Serializable {
+    final Funnel<? super T> funnel;
+    final long initialExpectedInsertions;
+    final double fpp;
+    final BloomFilter<T>[] filters;
+
+    SerialForm(ScalableBloomFilter<T> sbf) {
+      this.funnel = sbf.funnel;
+      this.initialExpectedInsertions = sbf.initialExpectedInsertions;
+      this.fpp = sbf.fpp;
+      this.filters = sbf.filters;
+    }
+
+    Object readResolve() {
+      return new ScalableBloomFilter<T>(funnel, initialExpectedInsertions, fpp, filters);
+    }
+
+    private static final long serialVersionUID = 0;
+  }
+
+  /**
+   * Writes this {@code ScalableBloomFilter} to an output stream, with a custom format (not Java
+   * serialization).
+   *
+   * <p>Use {@linkplain #readFrom(InputStream, Funnel)} to reconstruct the written
+   * ScalableBloomFilter.
+   */
+  public void writeTo(OutputStream out) throws IOException {
+    // Serial form:
+    // 1 big endian long, the number of expected insertions of the first filter
+    // 1 big endian double, the bound on the false positive probability
+    // 1 big endian int, the number of filters
+    // the filters, oldest first, in the serial form of BloomFilter.writeTo
+    BloomFilter<T>[] filters = this.filters;
+    DataOutputStream dout = new DataOutputStream(out);
+    dout.writeLong(initialExpectedInsertions);
+    dout.writeDouble(fpp);
+    dout.writeInt(filters.length);
+    for (BloomFilter<T> filter : filters) {
+      filter.writeTo(dout);
+    }
+  }
+
+  /**
+   * Reads a byte stream, which was written by {@linkplain #writeTo(OutputStream)}, into a {@code
+   * ScalableBloomFilter}.
+   *
+   * <p>The {@code Funnel} to be used is not encoded in the stream, so it must be provided here.
+   * <b>Warning:</b> the funnel provided <b>must</b> behave identically to the one used to populate
+   * the original scalable Bloom filter!
+   *
+   * @throws IOException if the InputStream throws an {@code IOException}, or if its data does not
+   *     appear to be a ScalableBloomFilter serialized using the {@linkplain #writeTo(OutputStream)}
+   *     method.
+   */
+  public static <T> ScalableBloomFilter<T> readFrom(InputStream in, Funnel<? super T> funnel)
+      throws IOException {
+    checkNotNull(in, "InputStream");
+    checkNotNull(funnel, "Funnel");
+    long initialExpectedInsertions = -1;
+    double fpp = -1;
+    int filterCount = -1;
+    try {
+      DataInputStream din = new DataInputStream(in);
+      initialExpectedInsertions = din.readLong();
+      fpp = din.readDouble();
+      filterCount = din.readInt();
+      checkArgument(initialExpectedInsertions > 0, "invalid initial expected insertions");
+      checkArgument(fpp > 0.0 && fpp < 1.0, "invalid false positive probability");
+      checkArgument(filterCount > 0, "invalid number of filters");
+      @SuppressWarnings({"unchecked", "rawtypes"}) // only contains BloomFilter<T>s
+      BloomFilter<T>[] filters = new BloomFilter[filterCount];
+      for (int i = 0; i < filterCount; i++) {
+        filters[i] = BloomFilter.readFrom(din, funnel);
+      }
+      return new ScalableBloomFilter<T>(funnel, initialExpectedInsertions, fpp, filters);
+    } catch (RuntimeException e) {
+      String message =
+          "Unable to deserialize ScalableBloomFilter from InputStream."
+              + " initialExpectedInsertions: "
+              + initialExpectedInsertions
+              + " fpp: "
+              + fpp
+              + " filterCount: "
+              + filterCount;
+      throw new IOException(message, e);
+    }
+  }
+}
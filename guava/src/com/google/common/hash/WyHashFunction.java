@@ -0,0 +1,241 @@
+/*
+ * Copyright (C) 2019 The Guava Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.common.hash;
+
+import static com.google.common.base.Preconditions.checkPositionIndexes;
+import static com.google.common.hash.Hashing.multiplyHighUnsigned;
+import static com.google.common.hash.LittleEndianByteArray.load32;
+import static com.google.common.hash.LittleEndianByteArray.load64;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.errorprone.annotations.Immutable;
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * Implementation of wyhash by Wang Yi, as of its "final version 4", with the default secret. See <a
+ * href="https://github.com/wangyi-fudan/wyhash">the reference implementation</a>.
+ *
+ * <p>Byte arrays are read with {@link LittleEndianByteArray}, and direct {@link ByteBuffer}s are
+ * read in place, without being copied to the heap first.
+ *
+ * <p>Note to maintainers: This implementation relies on signed arithmetic being bit-wise equivalent
+ * to unsigned arithmetic in all cases except comparisons, division and (unsigned) right shifts.
+ */
+@Immutable
+final class WyHashFunction extends AbstractNonStreamingHashFunction implements Serializable {
+  static final HashFunction WY_HASH = new WyHashFunction(0);
+
+  private static final long SECRET0 = 0x2d358dccaa6c78a5L;
+  private static final long SECRET1 = 0x8bb84b93962eacc9L;
+  private static final long SECRET2 = 0x4b33a62ed433d4a3L;
+  private static final long SECRET3 = 0x4d5a2da51de1aa47L;
+
+  private final long seed;
+
+  WyHashFunction(long seed) {
+    this.seed = seed;
+  }
+
+  @Override
+  public int bits() {
+    return 64;
+  }
+
+  @Override
+  public HashCode hashInt(int input) {
+    long a = ((input & 0xFFFFFFFFL) << 32) | (input & 0xFFFFFFFFL);
+    return HashCode.fromLong(finish(a, a, Integer.BYTES, mixSeed(seed)));
+  }
+
+  @Override
+  public HashCode hashLong(long input) {
+    return HashCode.fromLong(hashLongToLong(input));
+  }
+
+  @Override
+  public long hashLongToLong(long input) {
+    long a = (input << 32) | (input >>> 32);
+    return finish(a, input, Long.BYTES, mixSeed(seed));
+  }
+
+  @Override
+  public HashCode hashBytes(byte[] input, int off, int len) {
+    return HashCode.fromLong(hashBytesToLong(input, off, len));
+  }
+
+  @Override
+  public long hashBytesToLong(byte[] input, int off, int len) {
+    checkPositionIndexes(off, off + len, input.length);
+    return hash(input, off, len, seed);
+  }
+
+  @Override
+  public HashCode hashBytes(ByteBuffer input) {
+    int position = input.position();
+    int length = input.remaining();
+    long hash;
+    if (input.hasArray()) {
+      hash = hash(input.array(), input.arrayOffset() + position, length, seed);
+    } else {
+      hash = hash(input.duplicate().order(ByteOrder.LITTLE_ENDIAN), position, length, seed);
+    }
+    input.position(input.limit());
+    return HashCode.fromLong(hash);
+  }
+
+  @Override
+  public String toString() {
+    return "Hashing.wyHash(" + seed + ")";
+  }
+
+  @Override
+  public boolean equals(@Nullable Object object) {
+    if (object instanceof WyHashFunction) {
+      WyHashFunction other = (WyHashFunction) object;
+      return seed == other.seed;
+    }
+    return false;
+  }
+
+  @Override
+  public int hashCode() {
+    return (int) (getClass().hashCode() ^ seed ^ (seed >>> 32));
+  }
+
+  // End of public functions.
+
+  @VisibleForTesting
+  static long hash(byte[] input, int offset, int length, long seed) {
+    seed = mixSeed(seed);
+    long a;
+    long b;
+    if (length <= 16) {
+      if (length >= 4) {
+        int shift = (length >>> 3) << 2;
+        a = (load32Unsigned(input, offset) << 32) | load32Unsigned(input, offset + shift);
+        int last = offset + length - 4;
+        b = (load32Unsigned(input, last) << 32) | load32Unsigned(input, last - shift);
+      } else if (length > 0) {
+        a =
+            ((input[offset] & 0xFFL) << 16)
+                | ((input[offset + (length >>> 1)] & 0xFFL) << 8)
+                | (input[offset + length - 1] & 0xFFL);
+        b = 0;
+      } else {
+        a = 0;
+        b = 0;
+      }
+    } else {
+      int remaining = length;
+      if (remaining > 48) {
+        long see1 = seed;
+        long see2 = seed;
+        do {
+          seed = mix(load64(input, offset) ^ SECRET1, load64(input, offset + 8) ^ seed);
+          see1 = mix(load64(input, offset + 16) ^ SECRET2, load64(input, offset + 24) ^ see1);
+          see2 = mix(load64(input, offset + 32) ^ SECRET3, load64(input, offset + 40) ^ see2);
+          offset += 48;
+          remaining -= 48;
+        } while (remaining > 48);
+        seed ^= see1 ^ see2;
+      }
+      while (remaining > 16) {
+        seed = mix(load64(input, offset) ^ SECRET1, load64(input, offset + 8) ^ seed);
+        offset += 16;
+        remaining -= 16;
+      }
+      a = load64(input, offset + remaining - 16);
+      b = load64(input, offset + remaining - 8);
+    }
+    return finish(a, b, length, seed);
+  }
+
+  /** As {@link #hash(byte[], int, int, long)}, for a little-endian buffer, read in place. */
+  @VisibleForTesting
+  static long hash(ByteBuffer input, int offset, int length, long seed) {
+    seed = mixSeed(seed);
+    long a;
+    long b;
+    if (length <= 16) {
+      if (length >= 4) {
+        int shift = (length >>> 3) << 2;
+        a = (load32Unsigned(input, offset) << 32) | load32Unsigned(input, offset + shift);
+        int last = offset + length - 4;
+        b = (load32Unsigned(input, last) << 32) | load32Unsigned(input, last - shift);
+      } else if (length > 0) {
+        a =
+            ((input.get(offset) & 0xFFL) << 16)
+                | ((input.get(offset + (length >>> 1)) & 0xFFL) << 8)
+                | (input.get(offset + length - 1) & 0xFFL);
+        b = 0;
+      } else {
+        a = 0;
+        b = 0;
+      }
+    } else {
+      int remaining = length;
+      if (remaining > 48) {
+        long see1 = seed;
+        long see2 = seed;
+        do {
+          seed = mix(input.getLong(offset) ^ SECRET1, input.getLong(offset + 8) ^ seed);
+          see1 = mix(input.getLong(offset + 16) ^ SECRET2, input.getLong(offset + 24) ^ see1);
+          see2 = mix(input.getLong(offset + 32) ^ SECRET3, input.getLong(offset + 40) ^ see2);
+          offset += 48;
+          remaining -= 48;
+        } while (remaining > 48);
+        seed ^= see1 ^ see2;
+      }
+      while (remaining > 16) {
+        seed = mix(input.getLong(offset) ^ SECRET1, input.getLong(offset + 8) ^ seed);
+        offset += 16;
+        remaining -= 16;
+      }
+      a = input.getLong(offset + remaining - 16);
+      b = input.getLong(offset + remaining - 8);
+    }
+    return finish(a, b, length, seed);
+  }
+
+  private static long load32Unsigned(byte[] input, int offset) {
+    return load32(input, offset) & 0xFFFFFFFFL;
+  }
+
+  private static long load32Unsigned(ByteBuffer input, int offset) {
+    return input.getInt(offset) & 0xFFFFFFFFL;
+  }
+
+  private static long mixSeed(long seed) {
+    return seed ^ mix(seed ^ SECRET0, SECRET1);
+  }
+
+  private static long finish(long a, long b, int length, long seed) {
+    a ^= SECRET1;
+    b ^= seed;
+    long low = a * b;
+    long high = multiplyHighUnsigned(a, b);
+    return mix(low ^ SECRET0 ^ length, high ^ SECRET1);
+  }
+
+  /** Returns the xor of the low and high halves of the 128-bit product of two unsigned longs. */
+  private static long mix(long a, long b) {
+    return (a * b) ^ multiplyHighUnsigned(a, b);
+  }
+
+  private static final long serialVersionUID = 0L;
+}
@@ -0,0 +1,241 @@
+/*
+ * Copyright (C) 2019 The Guava Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.common.hash;
+
+import static com.google.common.base.Preconditions.checkPositionIndexes;
+import static com.google.common.hash.LittleEndianByteArray.load32;
+import static com.google.common.hash.LittleEndianByteArray.load64;
+import static java.lang.Long.rotateLeft;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.errorprone.annotations.Immutable;
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * Implementation of xxHash's XXH64, a fast non-cryptographic hash algorithm by Yann Collet. See
+ * <a href="https://github.com/Cyan4973/xxHash/blob/dev/doc/xxhash_spec.md">the specification</a>.
+ *
+ * <p>Byte arrays are read with {@link LittleEndianByteArray}, and direct {@link ByteBuffer}s are
+ * read in place, without being copied to the heap first.
+ *
+ * <p>Note to maintainers: This implementation relies on signed arithmetic being bit-wise equivalent
+ * to unsigned arithmetic in all cases except comparisons, division and (unsigned) right shifts.
+ */
+@Immutable
+final class XxHash64HashFunction extends AbstractNonStreamingHashFunction implements Serializable {
+  static final HashFunction XX_HASH_64 = new XxHash64HashFunction(0);
+
+  private static final long P1 = 0x9E3779B185EBCA87L;
+  private static final long P2 = 0xC2B2AE3D27D4EB4FL;
+  private static final long P3 = 0x165667B19E3779F9L;
+  private static final long P4 = 0x85EBCA77C2B2AE63L;
+  private static final long P5 = 0x27D4EB2F165667C5L;
+
+  private final long seed;
+
+  XxHash64HashFunction(long seed) {
+    this.seed = seed;
+  }
+
+  @Override
+  public int bits() {
+    return 64;
+  }
+
+  @Override
+  public HashCode hashInt(int input) {
+    long hash = seed + P5 + Integer.BYTES;
+    hash = mix4(hash, input);
+    return HashCode.fromLong(avalanche(hash));
+  }
+
+  @Override
+  public HashCode hashLong(long input) {
+    return HashCode.fromLong(hashLongToLong(input));
+  }
+
+  @Override
+  public long hashLongToLong(long input) {
+    long hash = seed + P5 + Long.BYTES;
+    hash = mix8(hash, input);
+    return avalanche(hash);
+  }
+
+  @Override
+  public HashCode hashBytes(byte[] input, int off, int len) {
+    return HashCode.fromLong(hashBytesToLong(input, off, len));
+  }
+
+  @Override
+  public long hashBytesToLong(byte[] input, int off, int len) {
+    checkPositionIndexes(off, off + len, input.length);
+    return hash(input, off, len, seed);
+  }
+
+  @Override
+  public HashCode hashBytes(ByteBuffer input) {
+    int position = input.position();
+    int length = input.remaining();
+    long hash;
+    if (input.hasArray()) {
+      hash = hash(input.array(), input.arrayOffset() + position, length, seed);
+    } else {
+      hash = hash(input.duplicate().order(ByteOrder.LITTLE_ENDIAN), position, length, seed);
+    }
+    input.position(input.limit());
+    return HashCode.fromLong(hash);
+  }
+
+  @Override
+  public String toString() {
+    return "Hashing.xxHash64(" + seed + ")";
+  }
+
+  @Override
+  public boolean equals(@Nullable Object object) {
+    if (object instanceof XxHash64HashFunction) {
+      XxHash64HashFunction other = (XxHash64HashFunction) object;
+      return seed == other.seed;
+    }
+    return false;
+  }
+
+  @Override
+  public int hashCode() {
+    return (int) (getClass().hashCode() ^ seed ^ (seed >>> 32));
+  }
+
+  // End of public functions.
+
+  @VisibleForTesting
+  static long hash(byte[] input, int offset, int length, long seed) {
+    int end = offset + length;
+    long hash;
+    if (length >= 32) {
+      long v1 = seed + P1 + P2;
+      long v2 = seed + P2;
+      long v3 = seed;
+      long v4 = seed - P1;
+      int limit = end - 32;
+      do {
+        v1 = round(v1, load64(input, offset));
+        v2 = round(v2, load64(input, offset + 8));
+        v3 = round(v3, load64(input, offset + 16));
+        v4 = round(v4, load64(input, offset + 24));
+        offset += 32;
+      } while (offset <= limit);
+      hash = mergeAccumulators(v1, v2, v3, v4);
+    } else {
+      hash = seed + P5;
+    }
+    hash += length;
+
+    for (; offset + 8 <= end; offset += 8) {
+      hash = mix8(hash, load64(input, offset));
+    }
+    if (offset + 4 <= end) {
+      hash = mix4(hash, load32(input, offset));
+      offset += 4;
+    }
+    for (; offset < end; offset++) {
+      hash = mix1(hash, input[offset]);
+    }
+    return avalanche(hash);
+  }
+
+  /** As {@link #hash(byte[], int, int, long)}, for a little-endian buffer, read in place. */
+  @VisibleForTesting
+  static long hash(ByteBuffer input, int offset, int length, long seed) {
+    int end = offset + length;
+    long hash;
+    if (length >= 32) {
+      long v1 = seed + P1 + P2;
+      long v2 = seed + P2;
+      long v3 = seed;
+      long v4 = seed - P1;
+      int limit = end - 32;
+      do {
+        v1 = round(v1, input.getLong(offset));
+        v2 = round(v2, input.getLong(offset + 8));
+        v3 = round(v3, input.getLong(offset + 16));
+        v4 = round(v4, input.getLong(offset + 24));
+        offset += 32;
+      } while (offset <= limit);
+      hash = mergeAccumulators(v1, v2, v3, v4);
+    } else {
+      hash = seed + P5;
+    }
+    hash += length;
+
+    for (; offset + 8 <= end; offset += 8) {
+      hash = mix8(hash, input.getLong(offset));
+    }
+    if (offset + 4 <= end) {
+      hash = mix4(hash, input.getInt(offset));
+      offset += 4;
+    }
+    for (; offset < end; offset++) {
+      hash = mix1(hash, input.get(offset));
+    }
+    return avalanche(hash);
+  }
+
+  private static long round(long accumulator, long input) {
+    accumulator += input * P2;
+    accumulator = rotateLeft(accumulator, 31);
+    return accumulator * P1;
+  }
+
+  private static long mergeAccumulators(long v1, long v2, long v3, long v4) {
+    long hash = rotateLeft(v1, 1) + rotateLeft(v2, 7) + rotateLeft(v3, 12) + rotateLeft(v4, 18);
+    hash = mergeRound(hash, v1);
+    hash = mergeRound(hash, v2);
+    hash = mergeRound(hash, v3);
+    return mergeRound(hash, v4);
+  }
+
+  private static long mergeRound(long hash, long accumulator) {
+    hash ^= round(0, accumulator);
+    return hash * P1 + P4;
+  }
+
+  private static long mix8(long hash, long input) {
+    hash ^= round(0, input);
+    return rotateLeft(hash, 27) * P1 + P4;
+  }
+
+  private static long mix4(long hash, int input) {
+    hash ^= (input & 0xFFFFFFFFL) * P1;
+    return rotateLeft(hash, 23) * P2 + P3;
+  }
+
+  private static long mix1(long hash, byte input) {
+    hash ^= (input & 0xFFL) * P5;
+    return rotateLeft(hash, 11) * P1;
+  }
+
+  static long avalanche(long hash) {
+    hash ^= hash >>> 33;
+    hash *= P2;
+    hash ^= hash >>> 29;
+    hash *= P3;
+    return hash ^ (hash >>> 32);
+  }
+
+  private static final long serialVersionUID = 0L;
+}
@@ -0,0 +1,487 @@
+/*
+ * Copyright (C) 2019 The Guava Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.common.hash;
+
+import static com.google.common.base.Preconditions.checkPositionIndexes;
+import static com.google.common.hash.Hashing.multiplyHighUnsigned;
+import static com.google.common.hash.LittleEndianByteArray.load32;
+import static com.google.common.hash.LittleEndianByteArray.load64;
+import static com.google.common.hash.LittleEndianByteArray.store64;
+import static java.lang.Long.rotateLeft;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.errorprone.annotations.Immutable;
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * Implementation of the 64-bit variant of xxHash's XXH3 (as of xxHash 0.8), a fast
+ * non-cryptographic hash algorithm by Yann Collet. See <a
+ * href="https://github.com/Cyan4973/xxHash/blob/dev/doc/xxhash_spec.md">the specification</a>.
+ *
+ * <p>Byte arrays are read with {@link LittleEndianByteArray}, and direct {@link ByteBuffer}s are
+ * read in place, without being copied to the heap first. The two code paths are otherwise
+ * identical.
+ *
+ * <p>Note to maintainers: This implementation relies on signed arithmetic being bit-wise equivalent
+ * to unsigned arithmetic in all cases except comparisons, division and (unsigned) right shifts.
+ */
+@Immutable
+final class Xxh3HashFunction extends AbstractNonStreamingHashFunction implements Serializable {
+  private static final byte[] DEFAULT_SECRET = {
+    (byte) 0xb8, (byte) 0xfe, (byte) 0x6c, (byte) 0x39, (byte) 0x23, (byte) 0xa4, (byte) 0x4b,
+    (byte) 0xbe, (byte) 0x7c, (byte) 0x01, (byte) 0x81, (byte) 0x2c, (byte) 0xf7, (byte) 0x21,
+    (byte) 0xad, (byte) 0x1c, (byte) 0xde, (byte) 0xd4, (byte) 0x6d, (byte) 0xe9, (byte) 0x83,
+    (byte) 0x90, (byte) 0x97, (byte) 0xdb, (byte) 0x72, (byte) 0x40, (byte) 0xa4, (byte) 0xa4,
+    (byte) 0xb7, (byte) 0xb3, (byte) 0x67, (byte) 0x1f, (byte) 0xcb, (byte) 0x79, (byte) 0xe6,
+    (byte) 0x4e, (byte) 0xcc, (byte) 0xc0, (byte) 0xe5, (byte) 0x78, (byte) 0x82, (byte) 0x5a,
+    (byte) 0xd0, (byte) 0x7d, (byte) 0xcc, (byte) 0xff, (byte) 0x72, (byte) 0x21, (byte) 0xb8,
+    (byte) 0x08, (byte) 0x46, (byte) 0x74, (byte) 0xf7, (byte) 0x43, (byte) 0x24, (byte) 0x8e,
+    (byte) 0xe0, (byte) 0x35, (byte) 0x90, (byte) 0xe6, (byte) 0x81, (byte) 0x3a, (byte) 0x26,
+    (byte) 0x4c, (byte) 0x3c, (byte) 0x28, (byte) 0x52, (byte) 0xbb, (byte) 0x91, (byte) 0xc3,
+    (byte) 0x00, (byte) 0xcb, (byte) 0x88, (byte) 0xd0, (byte) 0x65, (byte) 0x8b, (byte) 0x1b,
+    (byte) 0x53, (byte) 0x2e, (byte) 0xa3, (byte) 0x71, (byte) 0x64, (byte) 0x48, (byte) 0x97,
+    (byte) 0xa2, (byte) 0x0d, (byte) 0xf9, (byte) 0x4e, (byte) 0x38, (byte) 0x19, (byte) 0xef,
+    (byte) 0x46, (byte) 0xa9, (byte) 0xde, (byte) 0xac, (byte) 0xd8, (byte) 0xa8, (byte) 0xfa,
+    (byte) 0x76, (byte) 0x3f, (byte) 0xe3, (byte) 0x9c, (byte) 0x34, (byte) 0x3f, (byte) 0xf9,
+    (byte) 0xdc, (byte) 0xbb, (byte) 0xc7, (byte) 0xc7, (byte) 0x0b, (byte) 0x4f, (byte) 0x1d,
+    (byte) 0x8a, (byte) 0x51, (byte) 0xe0, (byte) 0x4b, (byte) 0xcd, (byte) 0xb4, (byte) 0x59,
+    (byte) 0x31, (byte) 0xc8, (byte) 0x9f, (byte) 0x7e, (byte) 0xc9, (byte) 0xd9, (byte) 0x78,
+    (byte) 0x73, (byte) 0x64, (byte) 0xea, (byte) 0xc5, (byte) 0xac, (byte) 0x83, (byte) 0x34,
+    (byte) 0xd3, (byte) 0xeb, (byte) 0xc3, (byte) 0xc5, (byte) 0x81, (byte) 0xa0, (byte) 0xff,
+    (byte) 0xfa, (byte) 0x13, (byte) 0x63, (byte) 0xeb, (byte) 0x17, (byte) 0x0d, (byte) 0xdd,
+    (byte) 0x51, (byte) 0xb7, (byte) 0xf0, (byte) 0xda, (byte) 0x49, (byte) 0xd3, (byte) 0x16,
+    (byte) 0x55, (byte) 0x26, (byte) 0x29, (byte) 0xd4, (byte) 0x68, (byte) 0x9e, (byte) 0x2b,
+    (byte) 0x16, (byte) 0xbe, (byte) 0x58, (byte) 0x7d, (byte) 0x47, (byte) 0xa1, (byte) 0xfc,
+    (byte) 0x8f, (byte) 0xf8, (byte) 0xb8, (byte) 0xd1, (byte) 0x7a, (byte) 0xd0, (byte) 0x31,
+    (byte) 0xce, (byte) 0x45, (byte) 0xcb, (byte) 0x3a, (byte) 0x8f, (byte) 0x95, (byte) 0x16,
+    (byte) 0x04, (byte) 0x28, (byte) 0xaf, (byte) 0xd7, (byte) 0xfb, (byte) 0xca, (byte) 0xbb,
+    (byte) 0x4b, (byte) 0x40, (byte) 0x7e,
+  };
+
+  static final HashFunction XXH3_64 = new Xxh3HashFunction(0);
+
+  private static final long PRIME32_1 = 0x9E3779B1L;
+  private static final long PRIME32_2 = 0x85EBCA77L;
+  private static final long PRIME32_3 = 0xC2B2AE3DL;
+  private static final long PRIME64_1 = 0x9E3779B185EBCA87L;
+  private static final long PRIME64_2 = 0xC2B2AE3D27D4EB4FL;
+  private static final long PRIME64_3 = 0x165667B19E3779F9L;
+  private static final long PRIME64_4 = 0x85EBCA77C2B2AE63L;
+  private static final long PRIME64_5 = 0x27D4EB2F165667C5L;
+  private static final long PRIME_MX1 = 0x165667919E3779F9L;
+  private static final long PRIME_MX2 = 0x9FB21C651E98DF25L;
+
+  private static final int SECRET_SIZE = 192;
+  private static final int SECRET_SIZE_MIN = 136;
+  private static final int STRIPE_LENGTH = 64;
+  private static final int SECRET_CONSUME_RATE = 8;
+  private static final int STRIPES_PER_BLOCK = (SECRET_SIZE - STRIPE_LENGTH) / SECRET_CONSUME_RATE;
+  private static final int BLOCK_LENGTH = STRIPE_LENGTH * STRIPES_PER_BLOCK;
+  private static final int MID_SIZE_MAX = 240;
+  private static final int MID_SIZE_START_OFFSET = 3;
+  private static final int MID_SIZE_LAST_OFFSET = 17;
+  private static final int SECRET_LAST_ACCUMULATOR_START = 7;
+  private static final int SECRET_MERGE_ACCUMULATORS_START = 11;
+
+  private final long seed;
+
+  /** The secret used for inputs longer than {@code MID_SIZE_MAX}, derived from the seed. */
+  @SuppressWarnings("Immutable") // array not modified after creation
+  private final byte[] longSecret;
+
+  Xxh3HashFunction(long seed) {
+    this.seed = seed;
+    this.longSecret = (seed == 0) ? DEFAULT_SECRET : deriveSecret(seed);
+  }
+
+  private static byte[] deriveSecret(long seed) {
+    byte[] secret = new byte[SECRET_SIZE];
+    for (int i = 0; i < SECRET_SIZE; i += 16) {
+      store64(secret, i, load64(DEFAULT_SECRET, i) + seed);
+      store64(secret, i + 8, load64(DEFAULT_SECRET, i + 8) - seed);
+    }
+    return secret;
+  }
+
+  @Override
+  public int bits() {
+    return 64;
+  }
+
+  @Override
+  public HashCode hashInt(int input) {
+    return HashCode.fromLong(hash4To8(input, input, Integer.BYTES, seed));
+  }
+
+  @Override
+  public HashCode hashLong(long input) {
+    return HashCode.fromLong(hashLongToLong(input));
+  }
+
+  @Override
+  public long hashLongToLong(long input) {
+    return hash4To8((int) input, (int) (input >>> 32), Long.BYTES, seed);
+  }
+
+  @Override
+  public HashCode hashBytes(byte[] input, int off, int len) {
+    return HashCode.fromLong(hashBytesToLong(input, off, len));
+  }
+
+  @Override
+  public long hashBytesToLong(byte[] input, int off, int len) {
+    checkPositionIndexes(off, off + len, input.length);
+    return hash(input, off, len, seed, longSecret);
+  }
+
+  @Override
+  public HashCode hashBytes(ByteBuffer input) {
+    int position = input.position();
+    int length = input.remaining();
+    long hash;
+    if (input.hasArray()) {
+      hash = hash(input.array(), input.arrayOffset() + position, length, seed, longSecret);
+    } else {
+      ByteBuffer littleEndian = input.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+      hash = hash(littleEndian, position, length, seed, longSecret);
+    }
+    input.position(input.limit());
+    return HashCode.fromLong(hash);
+  }
+
+  @Override
+  public String toString() {
+    return "Hashing.xxh3_64(" + seed + ")";
+  }
+
+  @Override
+  public boolean equals(@Nullable Object object) {
+    if (object instanceof Xxh3HashFunction) {
+      Xxh3HashFunction other = (Xxh3HashFunction) object;
+      return seed == other.seed;
+    }
+    return false;
+  }
+
+  @Override
+  public int hashCode() {
+    return (int) (getClass().hashCode() ^ seed ^ (seed >>> 32));
+  }
+
+  // End of public functions.
+
+  @VisibleForTesting
+  static long hash(byte[] input, int offset, int length, long seed) {
+    return hash(input, offset, length, seed, (seed == 0) ? DEFAULT_SECRET : deriveSecret(seed));
+  }
+
+  private static long hash(byte[] input, int offset, int length, long seed, byte[] longSecret) {
+    if (length <= 16) {
+      if (length > 8) {
+        return hash9To16(load64(input, offset), load64(input, offset + length - 8), length, seed);
+      } else if (length >= 4) {
+        return hash4To8(
+            load32(input, offset), load32(input, offset + length - 4), length, seed);
+      } else if (length > 0) {
+        return hash1To3(
+            input[offset], input[offset + (length >> 1)], input[offset + length - 1], length, seed);
+      } else {
+        return hash0(seed);
+      }
+    } else if (length <= 128) {
+      long accumulator = length * PRIME64_1;
+      if (length > 32) {
+        if (length > 64) {
+          if (length > 96) {
+            accumulator += mix16(input, offset + 48, 96, seed);
+            accumulator += mix16(input, offset + length - 64, 112, seed);
+          }
+          accumulator += mix16(input, offset + 32, 64, seed);
+          accumulator += mix16(input, offset + length - 48, 80, seed);
+        }
+        accumulator += mix16(input, offset + 16, 32, seed);
+        accumulator += mix16(input, offset + length - 32, 48, seed);
+      }
+      accumulator += mix16(input, offset, 0, seed);
+      accumulator += mix16(input, offset + length - 16, 16, seed);
+      return avalanche(accumulator);
+    } else if (length <= MID_SIZE_MAX) {
+      long accumulator = length * PRIME64_1;
+      int rounds = length / 16;
+      for (int i = 0; i < 8; i++) {
+        accumulator += mix16(input, offset + 16 * i, 16 * i, seed);
+      }
+      accumulator = avalanche(accumulator);
+      for (int i = 8; i < rounds; i++) {
+        accumulator += mix16(input, offset + 16 * i, 16 * (i - 8) + MID_SIZE_START_OFFSET, seed);
+      }
+      accumulator +=
+          mix16(input, offset + length - 16, SECRET_SIZE_MIN - MID_SIZE_LAST_OFFSET, seed);
+      return avalanche(accumulator);
+    } else {
+      return hashLong(input, offset, length, longSecret);
+    }
+  }
+
+  private static long hashLong(byte[] input, int offset, int length, byte[] secret) {
+    long[] accumulators = initialAccumulators();
+    int blocks = (length - 1) / BLOCK_LENGTH;
+    for (int block = 0; block < blocks; block++) {
+      int blockStart = offset + block * BLOCK_LENGTH;
+      for (int stripe = 0; stripe < STRIPES_PER_BLOCK; stripe++) {
+        accumulate(
+            accumulators,
+            input,
+            blockStart + stripe * STRIPE_LENGTH,
+            secret,
+            stripe * SECRET_CONSUME_RATE);
+      }
+      scramble(accumulators, secret);
+    }
+    int lastBlockStart = offset + blocks * BLOCK_LENGTH;
+    int stripes = ((length - 1) - blocks * BLOCK_LENGTH) / STRIPE_LENGTH;
+    for (int stripe = 0; stripe < stripes; stripe++) {
+      accumulate(
+          accumulators,
+          input,
+          lastBlockStart + stripe * STRIPE_LENGTH,
+          secret,
+          stripe * SECRET_CONSUME_RATE);
+    }
+    accumulate(
+        accumulators,
+        input,
+        offset + length - STRIPE_LENGTH,
+        secret,
+        SECRET_SIZE - STRIPE_LENGTH - SECRET_LAST_ACCUMULATOR_START);
+    return mergeAccumulators(accumulators, secret, length * PRIME64_1);
+  }
+
+  private static void accumulate(
+      long[] accumulators, byte[] input, int offset, byte[] secret, int secretOffset) {
+    for (int i = 0; i < 8; i++) {
+      long value = load64(input, offset + 8 * i);
+      long key = value ^ load64(secret, secretOffset + 8 * i);
+      accumulators[i ^ 1] += value;
+      accumulators[i] += (key & 0xFFFFFFFFL) * (key >>> 32);
+    }
+  }
+
+  private static long mix16(byte[] input, int offset, int secretOffset, long seed) {
+    return mix16(
+        load64(input, offset),
+        load64(input, offset + 8),
+        load64(DEFAULT_SECRET, secretOffset),
+        load64(DEFAULT_SECRET, secretOffset + 8),
+        seed);
+  }
+
+  /** As {@link #hash(byte[], int, int, long)}, for a little-endian buffer, read in place. */
+  @VisibleForTesting
+  static long hash(ByteBuffer input, int offset, int length, long seed) {
+    return hash(input, offset, length, seed, (seed == 0) ? DEFAULT_SECRET : deriveSecret(seed));
+  }
+
+  private static long hash(ByteBuffer input, int offset, int length, long seed, byte[] longSecret) {
+    if (length <= 16) {
+      if (length > 8) {
+        return hash9To16(
+            input.getLong(offset), input.getLong(offset + length - 8), length, seed);
+      } else if (length >= 4) {
+        return hash4To8(input.getInt(offset), input.getInt(offset + length - 4), length, seed);
+      } else if (length > 0) {
+        return hash1To3(
+            input.get(offset),
+            input.get(offset + (length >> 1)),
+            input.get(offset + length - 1),
+            length,
+            seed);
+      } else {
+        return hash0(seed);
+      }
+    } else if (length <= 128) {
+      long accumulator = length * PRIME64_1;
+      if (length > 32) {
+        if (length > 64) {
+          if (length > 96) {
+            accumulator += mix16(input, offset + 48, 96, seed);
+            accumulator += mix16(input, offset + length - 64, 112, seed);
+          }
+          accumulator += mix16(input, offset + 32, 64, seed);
+          accumulator += mix16(input, offset + length - 48, 80, seed);
+        }
+        accumulator += mix16(input, offset + 16, 32, seed);
+        accumulator += mix16(input, offset + length - 32, 48, seed);
+      }
+      accumulator += mix16(input, offset, 0, seed);
+      accumulator += mix16(input, offset + length - 16, 16, seed);
+      return avalanche(accumulator);
+    } else if (length <= MID_SIZE_MAX) {
+      long accumulator = length * PRIME64_1;
+      int rounds = length / 16;
+      for (int i = 0; i < 8; i++) {
+        accumulator += mix16(input, offset + 16 * i, 16 * i, seed);
+      }
+      accumulator = avalanche(accumulator);
+      for (int i = 8; i < rounds; i++) {
+        accumulator += mix16(input, offset + 16 * i, 16 * (i - 8) + MID_SIZE_START_OFFSET, seed);
+      }
+      accumulator +=
+          mix16(input, offset + length - 16, SECRET_SIZE_MIN - MID_SIZE_LAST_OFFSET, seed);
+      return avalanche(accumulator);
+    } else {
+      return hashLong(input, offset, length, longSecret);
+    }
+  }
+
+  private static long hashLong(ByteBuffer input, int offset, int length, byte[] secret) {
+    long[] accumulators = initialAccumulators();
+    int blocks = (length - 1) / BLOCK_LENGTH;
+    for (int block = 0; block < blocks; block++) {
+      int blockStart = offset + block * BLOCK_LENGTH;
+      for (int stripe = 0; stripe < STRIPES_PER_BLOCK; stripe++) {
+        accumulate(
+            accumulators,
+            input,
+            blockStart + stripe * STRIPE_LENGTH,
+            secret,
+            stripe * SECRET_CONSUME_RATE);
+      }
+      scramble(accumulators, secret);
+    }
+    int lastBlockStart = offset + blocks * BLOCK_LENGTH;
+    int stripes = ((length - 1) - blocks * BLOCK_LENGTH) / STRIPE_LENGTH;
+    for (int stripe = 0; stripe < stripes; stripe++) {
+      accumulate(
+          accumulators,
+          input,
+          lastBlockStart + stripe * STRIPE_LENGTH,
+          secret,
+          stripe * SECRET_CONSUME_RATE);
+    }
+    accumulate(
+        accumulators,
+        input,
+        offset + length - STRIPE_LENGTH,
+        secret,
+        SECRET_SIZE - STRIPE_LENGTH - SECRET_LAST_ACCUMULATOR_START);
+    return mergeAccumulators(accumulators, secret, length * PRIME64_1);
+  }
+
+  private static void accumulate(
+      long[] accumulators, ByteBuffer input, int offset, byte[] secret, int secretOffset) {
+    for (int i = 0; i < 8; i++) {
+      long value = input.getLong(offset + 8 * i);
+      long key = value ^ load64(secret, secretOffset + 8 * i);
+      accumulators[i ^ 1] += value;
+      accumulators[i] += (key & 0xFFFFFFFFL) * (key >>> 32);
+    }
+  }
+
+  private static long mix16(ByteBuffer input, int offset, int secretOffset, long seed) {
+    return mix16(
+        input.getLong(offset),
+        input.getLong(offset + 8),
+        load64(DEFAULT_SECRET, secretOffset),
+        load64(DEFAULT_SECRET, secretOffset + 8),
+        seed);
+  }
+
+  // Steps shared by both input types
+
+  private static long hash0(long seed) {
+    return XxHash64HashFunction.avalanche(
+        seed ^ load64(DEFAULT_SECRET, 56) ^ load64(DEFAULT_SECRET, 64));
+  }
+
+  private static long hash1To3(byte first, byte middle, byte last, int length, long seed) {
+    int combined = ((first & 0xFF) << 16) | ((middle & 0xFF) << 24) | (last & 0xFF) | (length << 8);
+    long bitflip =
+        ((load32(DEFAULT_SECRET, 0) ^ load32(DEFAULT_SECRET, 4)) & 0xFFFFFFFFL) + seed;
+    return XxHash64HashFunction.avalanche((combined & 0xFFFFFFFFL) ^ bitflip);
+  }
+
+  private static long hash4To8(int first, int last, int length, long seed) {
+    seed ^= (long) Integer.reverseBytes((int) seed) << 32;
+    long bitflip = (load64(DEFAULT_SECRET, 8) ^ load64(DEFAULT_SECRET, 16)) - seed;
+    long input = (last & 0xFFFFFFFFL) + ((long) first << 32);
+    return rrmxmx(input ^ bitflip, length);
+  }
+
+  private static long hash9To16(long first, long last, int length, long seed) {
+    long bitflip1 = (load64(DEFAULT_SECRET, 24) ^ load64(DEFAULT_SECRET, 32)) + seed;
+    long bitflip2 = (load64(DEFAULT_SECRET, 40) ^ load64(DEFAULT_SECRET, 48)) - seed;
+    long low = first ^ bitflip1;
+    long high = last ^ bitflip2;
+    long accumulator = length + Long.reverseBytes(low) + high + multiplyFold(low, high);
+    return avalanche(accumulator);
+  }
+
+  private static long mix16(long input0, long input1, long secret0, long secret1, long seed) {
+    return multiplyFold(input0 ^ (secret0 + seed), input1 ^ (secret1 - seed));
+  }
+
+  private static long[] initialAccumulators() {
+    return new long[] {
+      PRIME32_3, PRIME64_1, PRIME64_2, PRIME64_3, PRIME64_4, PRIME32_2, PRIME64_5, PRIME32_1
+    };
+  }
+
+  private static void scramble(long[] accumulators, byte[] secret) {
+    int secretOffset = SECRET_SIZE - STRIPE_LENGTH;
+    for (int i = 0; i < 8; i++) {
+      long accumulator = accumulators[i];
+      accumulator ^= accumulator >>> 47;
+      accumulator ^= load64(secret, secretOffset + 8 * i);
+      accumulators[i] = accumulator * PRIME32_1;
+    }
+  }
+
+  private static long mergeAccumulators(long[] accumulators, byte[] secret, long start) {
+    long result = start;
+    for (int i = 0; i < 4; i++) {
+      int secretOffset = SECRET_MERGE_ACCUMULATORS_START + 16 * i;
+      result +=
+          multiplyFold(
+              accumulators[2 * i] ^ load64(secret, secretOffset),
+              accumulators[2 * i + 1] ^ load64(secret, secretOffset + 8));
+    }
+    return avalanche(result);
+  }
+
+  /** Returns the xor of the low and high halves of the 128-bit product of two unsigned longs. */
+  private static long multiplyFold(long a, long b) {
+    return (a * b) ^ multiplyHighUnsigned(a, b);
+  }
+
+  private static long avalanche(long hash) {
+    hash ^= hash >>> 37;
+    hash *= PRIME_MX1;
+    return hash ^ (hash >>> 32);
+  }
+
+  private static long rrmxmx(long hash, int length) {
+    hash ^= rotateLeft(hash, 49) ^ rotateLeft(hash, 24);
+    hash *= PRIME_MX2;
+    hash ^= (hash >>> 35) + length;
+    hash *= PRIME_MX2;
+    return hash ^ (hash >>> 28);
+  }
+
+  private static final long serialVersionUID = 0L;
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright (C) 2019 The Guava Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.common.io;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.util.concurrent.Futures.immediateFuture;
+import static com.google.common.util.concurrent.MoreExecutors.directExecutor;
+
+import com.google.common.annotations.Beta;
+import com.google.common.annotations.GwtIncompatible;
+import com.google.common.util.concurrent.AsyncCallable;
+import com.google.common.util.concurrent.FluentFuture;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.AsynchronousFileChannel;
+import java.nio.channels.CompletionHandler;
+
+/**
+ * An asynchronous view of a {@link ByteSink}, obtained from {@link AsyncIo#sink}. Each operation
+ * opens the sink, writes to it and closes it without blocking the calling thread, and returns a
+ * future that completes when it's done.
+ *
+ * @since NEXT
+ */
+@Beta
+@GwtIncompatible
+public final class AsyncByteSink {
+  private final AsyncIo io;
+  private final ByteSink sink;
+
+  AsyncByteSink(AsyncIo io, ByteSink sink) {
+    this.io = io;
+    this.sink = sink;
+  }
+
+  ByteSink sink() {
+    return sink;
+  }
+
+  /**
+   * Writes all the given bytes to the sink, like {@link ByteSink#write(byte[])}. The array must
+   * not be modified until the future is done.
+   *
+   * <p>The future fails with an {@link IOException} if an I/O error occurs while writing to the
+   * sink.
+   */
+  public FluentFuture<Void> write(final byte[] bytes) {
+    checkNotNull(bytes);
+    return io.submit(
+        new AsyncCallable<Void>() {
+          @Override
+          public ListenableFuture<Void> call() throws IOException {
+            final AsynchronousFileChannel channel = sink.openAsynchronousChannel(io.executor());
+            if (channel == null) {
+              sink.write(bytes);
+              return immediateFuture(null);
+            }
+            ListenableFuture<Void> written = writeFully(channel, ByteBuffer.wrap(bytes), 0);
+            written.addListener(
+                new Runnable() {
+                  @Override
+                  public void run() {
+                    try {
+                      channel.close();
+                    } catch (IOException e) {
+                      // the result is already done; there's nothing to report the failure to
+                    }
+                  }
+                },
+                directExecutor());
+            return written;
+          }
+        });
+  }
+
+  @Override
+  public String toString() {
+    return "AsyncByteSink(" + sink + ")";
+  }
+
+  /**
+   * Writes the bytes remaining in {@code buffer} to {@code channel}, starting at {@code position}
+   * in the file, and returns a future that completes when they've all been written.
+   */
+  static ListenableFuture<Void> writeFully(
+      AsynchronousFileChannel channel, ByteBuffer buffer, long position) {
+    ChannelWriter writer = new ChannelWriter(channel, buffer, position);
+    writer.writeNext();
+    return writer.result;
+  }
+
+  private static final class ChannelWriter implements CompletionHandler<Integer, Void> {
+    final AsynchronousFileChannel channel;
+    final ByteBuffer buffer;
+    final SettableFuture<Void> result = SettableFuture.create();
+    long position;
+
+    ChannelWriter(AsynchronousFileChannel channel, ByteBuffer buffer, long position) {
+      this.channel = channel;
+      this.buffer = buffer;
+      this.position = position;
+    }
+
+    void writeNext() {
+      try {
+        channel.write(buffer, position, null, this);
+      } catch (Throwable e) {
+        result.setException(e);
+      }
+    }
+
+    @Override
+    public void completed(Integer written, Void attachment) {
+      position += written;
+      if (buffer.hasRemaining()) {
+        writeNext();
+      } else {
+        result.set(null);
+      }
+    }
+
+    @Override
+    public void failed(Throwable t, Void attachment) {
+      result.setException(t);
+    }
+  }
+}
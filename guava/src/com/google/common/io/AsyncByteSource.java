@@ -0,0 +1,322 @@
+/*
+ * Copyright (C) 2019 The Guava Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.common.io;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.util.concurrent.Futures.immediateFuture;
+import static com.google.common.util.concurrent.MoreExecutors.directExecutor;
+
+import com.google.common.annotations.Beta;
+import com.google.common.annotations.GwtIncompatible;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hasher;
+import com.google.common.util.concurrent.AsyncCallable;
+import com.google.common.util.concurrent.FluentFuture;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.AsynchronousFileChannel;
+import java.nio.channels.CompletionHandler;
+import java.util.Arrays;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * An asynchronous view of a {@link ByteSource}, obtained from {@link AsyncIo#source}. Each
+ * operation opens the source, reads it and closes it without blocking the calling thread, and
+ * returns a future of its result.
+ *
+ * @since NEXT
+ */
+@Beta
+@GwtIncompatible
+public final class AsyncByteSource {
+  private final AsyncIo io;
+  private final ByteSource source;
+
+  AsyncByteSource(AsyncIo io, ByteSource source) {
+    this.io = io;
+    this.source = source;
+  }
+
+  /**
+   * Reads the full contents of the source as a byte array, like {@link ByteSource#read()}.
+   *
+   * <p>The future fails with an {@link IOException} if an I/O error occurs while reading the
+   * source.
+   */
+  public FluentFuture<byte[]> read() {
+    return io.submit(
+        new AsyncCallable<byte[]>() {
+          @Override
+          public ListenableFuture<byte[]> call() throws IOException {
+            AsynchronousFileChannel channel = source.openAsynchronousChannel(io.executor());
+            if (channel == null) {
+              return immediateFuture(source.read());
+            }
+            long size;
+            try {
+              size = channel.size();
+            } catch (Throwable e) {
+              channel.close();
+              throw e;
+            }
+            if (size > Integer.MAX_VALUE) {
+              channel.close();
+              throw new OutOfMemoryError(
+                  "file is too large to fit in a byte array: " + size + " bytes");
+            }
+            final int expectedSize = (int) size;
+            return new ChannelReader<byte[]>(channel, channel) {
+              byte[] bytes = new byte[expectedSize];
+              int length;
+
+              @Override
+              ByteBuffer nextBuffer() {
+                if (length < bytes.length) {
+                  // Read straight into the array, a chunk at a time so that the temporary direct
+                  // buffer that the JDK reads heap buffers through stays small.
+                  int n = Math.min(AsyncIo.CHUNK_SIZE, bytes.length - length);
+                  return ByteBuffer.wrap(bytes, length, n);
+                }
+                // the file has grown since its size was read, or reports no size
+                return super.nextBuffer();
+              }
+
+              @Override
+              void process(ByteBuffer chunk) {
+                int n = chunk.remaining();
+                if (chunk.array() != bytes) {
+                  if (n > bytes.length - length) {
+                    bytes = Arrays.copyOf(bytes, Math.max(length + n, 2 * bytes.length));
+                  }
+                  chunk.get(bytes, length, n);
+                }
+                length += n;
+                readNext();
+              }
+
+              @Override
+              byte[] finish() {
+                return (length == bytes.length) ? bytes : Arrays.copyOf(bytes, length);
+              }
+            }.start();
+          }
+        });
+  }
+
+  /**
+   * Hashes the contents of the source using the given hash function, like {@link
+   * ByteSource#hash(HashFunction)}.
+   *
+   * <p>The future fails with an {@link IOException} if an I/O error occurs while reading the
+   * source.
+   */
+  public FluentFuture<HashCode> hash(final HashFunction hashFunction) {
+    checkNotNull(hashFunction);
+    return io.submit(
+        new AsyncCallable<HashCode>() {
+          @Override
+          public ListenableFuture<HashCode> call() throws IOException {
+            AsynchronousFileChannel channel = source.openAsynchronousChannel(io.executor());
+            if (channel == null) {
+              return immediateFuture(source.hash(hashFunction));
+            }
+            return new ChannelReader<HashCode>(channel, channel) {
+              final Hasher hasher = hashFunction.newHasher();
+
+              @Override
+              void process(ByteBuffer chunk) {
+                hasher.putBytes(chunk);
+                readNext();
+              }
+
+              @Override
+              HashCode finish() {
+                return hasher.hash();
+              }
+            }.start();
+          }
+        });
+  }
+
+  /**
+   * Copies the contents of the source to the given sink, like {@link ByteSource#copyTo(ByteSink)}.
+   * The future's value is the number of bytes copied.
+   *
+   * <p>The future fails with an {@link IOException} if an I/O error occurs while reading the
+   * source or writing to the sink.
+   */
+  public FluentFuture<Long> copyTo(final AsyncByteSink sink) {
+    checkNotNull(sink);
+    return io.submit(
+        new AsyncCallable<Long>() {
+          @Override
+          public ListenableFuture<Long> call() throws IOException {
+            AsynchronousFileChannel in = source.openAsynchronousChannel(io.executor());
+            if (in == null) {
+              return immediateFuture(source.copyTo(sink.sink()));
+            }
+            final AsynchronousFileChannel out;
+            Closer closer = Closer.create();
+            closer.register(in);
+            try {
+              out = sink.sink().openAsynchronousChannel(io.executor());
+            } catch (Throwable e) {
+              try {
+                throw closer.rethrow(e);
+              } finally {
+                closer.close();
+              }
+            }
+            if (out == null) {
+              closer.close();
+              return immediateFuture(source.copyTo(sink.sink()));
+            }
+            closer.register(out);
+            return new ChannelReader<Long>(in, closer) {
+              long total;
+
+              @Override
+              void process(ByteBuffer chunk) {
+                final int n = chunk.remaining();
+                Futures.addCallback(
+                    AsyncByteSink.writeFully(out, chunk, total),
+                    new FutureCallback<Object>() {
+                      @Override
+                      public void onSuccess(Object ignored) {
+                        total += n;
+                        readNext();
+                      }
+
+                      @Override
+                      public void onFailure(Throwable t) {
+                        fail(t);
+                      }
+                    },
+                    directExecutor());
+              }
+
+              @Override
+              Long finish() {
+                return total;
+              }
+            }.start();
+          }
+        });
+  }
+
+  @Override
+  public String toString() {
+    return "AsyncByteSource(" + source + ")";
+  }
+
+  /**
+   * Reads a file channel from its start to its end a chunk at a time. Each chunk is read into the
+   * buffer returned by {@link #nextBuffer} and passed to {@link #process}, which must call {@link
+   * #readNext} or {@link #fail} when it's done with it. {@code closeable} is closed when the result
+   * is done, including when it is cancelled.
+   */
+  private abstract static class ChannelReader<T> implements CompletionHandler<Integer, Void> {
+    private final AsynchronousFileChannel channel;
+    private final SettableFuture<T> result = SettableFuture.create();
+    private @Nullable ByteBuffer chunkBuffer;
+    private @Nullable ByteBuffer buffer;
+    private int start;
+    private long position;
+
+    ChannelReader(AsynchronousFileChannel channel, final Closeable closeable) {
+      this.channel = channel;
+      result.addListener(
+          new Runnable() {
+            @Override
+            public void run() {
+              try {
+                closeable.close();
+              } catch (IOException e) {
+                // the result is already done; there's nothing to report the failure to
+              }
+            }
+          },
+          directExecutor());
+    }
+
+    final ListenableFuture<T> start() {
+      readNext();
+      return result;
+    }
+
+    /**
+     * Returns the buffer to read the next chunk into, between its position and its limit. By
+     * default, this is a heap buffer of {@link AsyncIo#CHUNK_SIZE} bytes that is reused for every
+     * chunk.
+     */
+    ByteBuffer nextBuffer() {
+      if (chunkBuffer == null) {
+        chunkBuffer = ByteBuffer.allocate(AsyncIo.CHUNK_SIZE);
+      }
+      chunkBuffer.clear();
+      return chunkBuffer;
+    }
+
+    /** Processes the bytes remaining in {@code chunk}, which are the bytes that were just read. */
+    abstract void process(ByteBuffer chunk);
+
+    /** Returns the result once the end of the file has been reached. */
+    abstract T finish();
+
+    final void readNext() {
+      if (result.isDone()) {
+        return;
+      }
+      try {
+        buffer = nextBuffer();
+        start = buffer.position();
+        channel.read(buffer, position, null, this);
+      } catch (Throwable e) {
+        fail(e);
+      }
+    }
+
+    final void fail(Throwable t) {
+      result.setException(t);
+    }
+
+    @Override
+    public final void completed(Integer read, Void attachment) {
+      try {
+        if (read == -1) {
+          result.set(finish());
+          return;
+        }
+        position += read;
+        buffer.limit(buffer.position());
+        buffer.position(start);
+        process(buffer);
+      } catch (Throwable e) {
+        fail(e);
+      }
+    }
+
+    @Override
+    public final void failed(Throwable t, Void attachment) {
+      fail(t);
+    }
+  }
+}
@@ -0,0 +1,191 @@
+/*
+ * Copyright (C) 2019 The Guava Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.common.io;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.util.concurrent.Futures.immediateFailedFuture;
+import static com.google.common.util.concurrent.MoreExecutors.directExecutor;
+
+import com.google.common.annotations.Beta;
+import com.google.common.annotations.GwtIncompatible;
+import com.google.common.util.concurrent.AsyncCallable;
+import com.google.common.util.concurrent.FluentFuture;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.SettableFuture;
+import com.google.errorprone.annotations.concurrent.GuardedBy;
+import java.nio.channels.AsynchronousFileChannel;
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Performs asynchronous I/O on {@link ByteSource}s and {@link ByteSink}s, returning {@link
+ * FluentFuture}s instead of blocking the calling thread. For example, to read many files with at
+ * most 100 of them open at a time:
+ *
+ * <pre>{@code
+ * AsyncIo io = AsyncIo.create(executor, 100);
+ * List<ListenableFuture<byte[]>> contents = new ArrayList<>();
+ * for (File file : files) {
+ *   contents.add(io.source(Files.asByteSource(file)).read());
+ * }
+ * }</pre>
+ *
+ * <p>Sources and sinks for regular files, as returned by {@link Files#asByteSource(java.io.File)},
+ * {@link MoreFiles#asByteSource}, {@link Files#asByteSink(java.io.File, FileWriteMode...)} and
+ * {@link MoreFiles#asByteSink}, are read and written a chunk at a time with an {@link
+ * AsynchronousFileChannel} that uses the executor, so that the calling thread never waits for
+ * them. The threads of the executor carry out the I/O: on most platforms, including Linux and
+ * macOS, each read or write of a chunk is a blocking call on one of them. Other sources and sinks
+ * are read and written by blocking a thread of the executor for each whole operation.
+ *
+ * <p>Operations on a file may run completion handlers on the thread that started them when the
+ * executor is a {@linkplain com.google.common.util.concurrent.MoreExecutors#directExecutor direct
+ * executor}, so use an executor with threads of its own.
+ *
+ * @since NEXT
+ */
+@Beta
+@GwtIncompatible
+public final class AsyncIo {
+  /** The size of the chunks in which files are read and copied. */
+  static final int CHUNK_SIZE = 64 * 1024;
+
+  /**
+   * Returns an {@code AsyncIo} that runs its operations on {@code executor}, with no limit on how
+   * many are in progress at once other than those of the executor.
+   */
+  public static AsyncIo create(ListeningExecutorService executor) {
+    return new AsyncIo(checkNotNull(executor), Integer.MAX_VALUE);
+  }
+
+  /**
+   * Returns an {@code AsyncIo} that runs its operations on {@code executor}, with at most {@code
+   * maxConcurrentOperations} of them in progress at once. Further operations wait, in the order in
+   * which they were started, until others complete. An operation that is cancelled while it waits
+   * never starts.
+   *
+   * <p>This bounds the number of files that are open at once, which an executor can't do for
+   * operations that don't hold one of its threads while they are in progress.
+   *
+   * @throws IllegalArgumentException if {@code maxConcurrentOperations} is not positive
+   */
+  public static AsyncIo create(ListeningExecutorService executor, int maxConcurrentOperations) {
+    checkArgument(
+        maxConcurrentOperations > 0,
+        "maxConcurrentOperations (%s) must be positive",
+        maxConcurrentOperations);
+    return new AsyncIo(checkNotNull(executor), maxConcurrentOperations);
+  }
+
+  private final ListeningExecutorService executor;
+  private final int maxConcurrentOperations;
+
+  @GuardedBy("this")
+  private int running;
+
+  @GuardedBy("this")
+  private final Queue<Operation<?>> waiting = new ArrayDeque<>();
+
+  private AsyncIo(ListeningExecutorService executor, int maxConcurrentOperations) {
+    this.executor = executor;
+    this.maxConcurrentOperations = maxConcurrentOperations;
+  }
+
+  /** Returns an asynchronous view of {@code source} whose operations are performed by this. */
+  public AsyncByteSource source(ByteSource source) {
+    return new AsyncByteSource(this, checkNotNull(source));
+  }
+
+  /** Returns an asynchronous view of {@code sink} whose operations are performed by this. */
+  public AsyncByteSink sink(ByteSink sink) {
+    return new AsyncByteSink(this, checkNotNull(sink));
+  }
+
+  ListeningExecutorService executor() {
+    return executor;
+  }
+
+  /**
+   * Calls {@code operation} on the executor as soon as fewer than the maximum number of operations
+   * are in progress. The operation is in progress until the future that it returns is done.
+   */
+  <T> FluentFuture<T> submit(AsyncCallable<T> operation) {
+    Operation<T> op = new Operation<>(operation);
+    boolean startNow;
+    synchronized (this) {
+      startNow = running < maxConcurrentOperations;
+      if (startNow) {
+        running++;
+      } else {
+        waiting.add(op);
+      }
+    }
+    if (startNow) {
+      op.start();
+    }
+    return FluentFuture.from(op.result);
+  }
+
+  /** Starts the next waiting operation, if any, when an operation completes. */
+  private void release() {
+    while (true) {
+      Operation<?> next;
+      synchronized (this) {
+        next = waiting.poll();
+        if (next == null) {
+          running--;
+          return;
+        }
+      }
+      if (next.start()) {
+        return;
+      }
+    }
+  }
+
+  private final class Operation<T> implements Runnable {
+    final AsyncCallable<T> callable;
+    final SettableFuture<T> result = SettableFuture.create();
+
+    Operation(AsyncCallable<T> callable) {
+      this.callable = callable;
+    }
+
+    /** Starts this operation, or returns false if it was cancelled while it waited. */
+    boolean start() {
+      if (result.isCancelled()) {
+        return false;
+      }
+      ListenableFuture<T> future;
+      try {
+        future = Futures.submitAsync(callable, executor);
+      } catch (RejectedExecutionException e) {
+        future = immediateFailedFuture(e);
+      }
+      result.setFuture(future);
+      future.addListener(this, directExecutor());
+      return true;
+    }
+
+    @Override
+    public void run() {
+      release();
+    }
+  }
+}
@@ -27,12 +27,15 @@ import static java.math.RoundingMode.UNNECESSARY;
 import com.google.common.annotations.GwtCompatible;
 import com.google.common.annotations.GwtIncompatible;
 import com.google.common.base.Ascii;
+import com.google.common.base.CharMatcher;
 import com.google.common.base.Objects;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.Reader;
 import java.io.Writer;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
 import java.util.Arrays;
 import org.checkerframework.checker.nullness.qual.MonotonicNonNull;
 import org.checkerframework.checker.nullness.qual.Nullable;
@@ -154,13 +157,76 @@ public abstract class BaseEncoding {
    */
   public final String encode(byte[] bytes, int off, int len) {
     checkPositionIndexes(off, off + len, bytes.length);
-    StringBuilder result = new StringBuilder(maxEncodedSize(len));
-    try {
-      encodeTo(result, bytes, off, len);
-    } catch (IOException impossible) {
-      throw new AssertionError(impossible);
+    char[] result = new char[maxEncodedSize(len)];
+    int length = encodeTo(result, 0, bytes, off, len);
+    return new String(result, 0, length);
+  }
+
+  /**
+   * Encodes the specified range of the specified byte array, and writes the encoded characters to
+   * {@code target} as ASCII bytes, starting at {@code targetOffset}. {@code target} must have room
+   * for {@link #maxEncodedSize maxEncodedSize(len)} bytes.
+   *
+   * @return the number of bytes written to {@code target}
+   * @throws IndexOutOfBoundsException if the range is out of bounds, or {@code target} doesn't have
+   *     enough room
+   * @throws IllegalStateException if this encoding's padding character or separator is not ASCII
+   * @since NEXT
+   */
+  public final int encodeTo(byte[] target, int targetOffset, byte[] bytes, int off, int len) {
+    checkAscii();
+    checkPositionIndexes(off, off + len, bytes.length);
+    checkPositionIndexes(targetOffset, targetOffset + maxEncodedSize(len), target.length);
+    return encodeAsciiTo(target, targetOffset, bytes, off, len);
+  }
+
+  /**
+   * Encodes the remaining bytes of {@code bytes}, and writes the encoded characters to {@code
+   * target} as ASCII bytes. The positions of both buffers are advanced past the bytes that were
+   * read and written. Heap buffers are encoded in place, without copying.
+   *
+   * @return the number of bytes written to {@code target}
+   * @throws BufferOverflowException if {@code target} has fewer than {@link #maxEncodedSize
+   *     maxEncodedSize(bytes.remaining())} bytes remaining
+   * @throws IllegalStateException if this encoding's padding character or separator is not ASCII
+   * @since NEXT
+   */
+  @GwtIncompatible // ByteBuffer
+  public final int encodeTo(ByteBuffer target, ByteBuffer bytes) {
+    checkAscii();
+    int len = bytes.remaining();
+    int maxSize = maxEncodedSize(len);
+    if (target.remaining() < maxSize) {
+      throw new BufferOverflowException();
     }
-    return result.toString();
+    byte[] input = arrayOf(bytes);
+    int inputOffset = bytes.hasArray() ? bytes.arrayOffset() + bytes.position() : 0;
+    int written;
+    if (target.hasArray()) {
+      written =
+          encodeAsciiTo(
+              target.array(), target.arrayOffset() + target.position(), input, inputOffset, len);
+    } else {
+      byte[] output = new byte[maxSize];
+      written = encodeAsciiTo(output, 0, input, inputOffset, len);
+      target.duplicate().put(output, 0, written);
+    }
+    bytes.position(bytes.position() + len);
+    target.position(target.position() + written);
+    return written;
+  }
+
+  /**
+   * Returns the array backing {@code buffer} if it has one, or else a copy of its remaining bytes.
+   */
+  @GwtIncompatible // ByteBuffer
+  private static byte[] arrayOf(ByteBuffer buffer) {
+    if (buffer.hasArray()) {
+      return buffer.array();
+    }
+    byte[] copy = new byte[buffer.remaining()];
+    buffer.duplicate().get(copy);
+    return copy;
   }
 
   /**
@@ -234,6 +300,74 @@ public abstract class BaseEncoding {
     return extract(tmp, len);
   }
 
+  /**
+   * Decodes the specified range of ASCII bytes, and writes the decoded bytes to {@code target},
+   * starting at {@code targetOffset}. {@code target} must have room for {@link #maxDecodedSize
+   * maxDecodedSize(len)} bytes. This is the inverse operation to {@link #encodeTo(byte[], int,
+   * byte[], int, int)}.
+   *
+   * @return the number of bytes written to {@code target}
+   * @throws IllegalArgumentException if the input is not a valid encoded string according to this
+   *     encoding.
+   * @throws IndexOutOfBoundsException if the range is out of bounds, or {@code target} doesn't have
+   *     enough room
+   * @throws IllegalStateException if this encoding's padding character or separator is not ASCII
+   * @since NEXT
+   */
+  public final int decodeTo(byte[] target, int targetOffset, byte[] encoded, int off, int len) {
+    checkAscii();
+    checkPositionIndexes(off, off + len, encoded.length);
+    checkPositionIndexes(targetOffset, targetOffset + maxDecodedSize(len), target.length);
+    try {
+      return decodeAsciiTo(target, targetOffset, encoded, off, len);
+    } catch (DecodingException badInput) {
+      throw new IllegalArgumentException(badInput);
+    }
+  }
+
+  /**
+   * Decodes the remaining ASCII bytes of {@code encoded}, and writes the decoded bytes to {@code
+   * target}. The positions of both buffers are advanced past the bytes that were read and written
+   * if the input is valid, and are left unchanged otherwise. Heap buffers are decoded in place,
+   * without copying.
+   *
+   * @return the number of bytes written to {@code target}
+   * @throws IllegalArgumentException if the input is not a valid encoded string according to this
+   *     encoding.
+   * @throws BufferOverflowException if {@code target} has fewer than {@link #maxDecodedSize
+   *     maxDecodedSize(encoded.remaining())} bytes remaining
+   * @throws IllegalStateException if this encoding's padding character or separator is not ASCII
+   * @since NEXT
+   */
+  @GwtIncompatible // ByteBuffer
+  public final int decodeTo(ByteBuffer target, ByteBuffer encoded) {
+    checkAscii();
+    int len = encoded.remaining();
+    int maxSize = maxDecodedSize(len);
+    if (target.remaining() < maxSize) {
+      throw new BufferOverflowException();
+    }
+    byte[] input = arrayOf(encoded);
+    int inputOffset = encoded.hasArray() ? encoded.arrayOffset() + encoded.position() : 0;
+    int written;
+    try {
+      if (target.hasArray()) {
+        written =
+            decodeAsciiTo(
+                target.array(), target.arrayOffset() + target.position(), input, inputOffset, len);
+      } else {
+        byte[] output = new byte[maxSize];
+        written = decodeAsciiTo(output, 0, input, inputOffset, len);
+        target.duplicate().put(output, 0, written);
+      }
+    } catch (DecodingException badInput) {
+      throw new IllegalArgumentException(badInput);
+    }
+    encoded.position(encoded.position() + len);
+    target.position(target.position() + written);
+    return written;
+  }
+
   /**
    * Returns an {@code InputStream} that decodes base-encoded input from the specified {@code
    * Reader}. The returned stream throws a {@link DecodingException} upon decoding-specific errors.
@@ -256,16 +390,80 @@ public abstract class BaseEncoding {
     };
   }
 
-  // Implementations for encoding/decoding
+  /**
+   * Returns the largest number of characters that encoding {@code bytes} bytes can produce, which
+   * is the room that {@link #encodeTo(byte[], int, byte[], int, int)} needs.
+   *
+   * @since NEXT
+   */
+  public abstract int maxEncodedSize(int bytes);
 
-  abstract int maxEncodedSize(int bytes);
+  /**
+   * Returns the largest number of bytes that decoding {@code chars} characters can produce, which
+   * is the room that {@link #decodeTo(byte[], int, byte[], int, int)} needs.
+   *
+   * @since NEXT
+   */
+  public abstract int maxDecodedSize(int chars);
+
+  // Implementations for encoding/decoding
 
   abstract void encodeTo(Appendable target, byte[] bytes, int off, int len) throws IOException;
 
-  abstract int maxDecodedSize(int chars);
+  /**
+   * Encodes to {@code target}, which has room for {@code maxEncodedSize(len)} characters, and
+   * returns the number of characters written. Subclasses override this with loops that don't go
+   * through an {@code Appendable}.
+   */
+  int encodeTo(char[] target, int targetOffset, byte[] bytes, int off, int len) {
+    CharArrayAppendable appendable = new CharArrayAppendable(target, targetOffset);
+    try {
+      encodeTo(appendable, bytes, off, len);
+    } catch (IOException impossible) {
+      throw new AssertionError(impossible);
+    }
+    return appendable.position - targetOffset;
+  }
+
+  /** Returns whether every character that this encoding writes is ASCII. */
+  abstract boolean isAscii();
+
+  /**
+   * Checks that this encoding can be written as ASCII bytes, rather than letting the byte-oriented
+   * methods truncate the characters that are not ASCII.
+   */
+  private void checkAscii() {
+    checkState(isAscii(), "%s has a padding character or separator that is not ASCII", this);
+  }
+
+  /** Like {@link #encodeTo(char[], int, byte[], int, int)}, but writes the characters as bytes. */
+  int encodeAsciiTo(byte[] target, int targetOffset, byte[] bytes, int off, int len) {
+    char[] chars = new char[maxEncodedSize(len)];
+    int length = encodeTo(chars, 0, bytes, off, len);
+    for (int i = 0; i < length; i++) {
+      target[targetOffset + i] = (byte) chars[i];
+    }
+    return length;
+  }
 
   abstract int decodeTo(byte[] target, CharSequence chars) throws DecodingException;
 
+  /**
+   * Decodes ASCII bytes to {@code target}, which has room for {@code maxDecodedSize(len)} bytes,
+   * and returns the number of bytes written.
+   */
+  int decodeAsciiTo(byte[] target, int targetOffset, byte[] encoded, int off, int len)
+      throws DecodingException {
+    char[] chars = new char[len];
+    for (int i = 0; i < len; i++) {
+      chars[i] = (char) (encoded[off + i] & 0xFF);
+    }
+    byte[] decoded = new byte[maxDecodedSize(len)];
+    int length = decodeTo(decoded, new String(chars));
+    System.arraycopy(decoded, 0, target, targetOffset, length);
+    return length;
+  }
+
   CharSequence trimTrailingPadding(CharSequence chars) {
     return checkNotNull(chars);
   }
@@ -472,6 +670,23 @@ public abstract class BaseEncoding {
       return chars[bits];
     }
 
+    /** Returns the value of an ASCII byte, which is negative if it's not in this alphabet. */
+    int decodeAsciiOrNegative(byte b) {
+      return (b < 0) ? -1 : decodabet[b];
+    }
+
+    /** Returns the exception for the first of the given bytes that isn't in this alphabet. */
+    DecodingException invalidAscii(byte[] bytes, int off, int len) {
+      for (int i = off; i < off + len; i++) {
+        try {
+          decode((char) (bytes[i] & 0xFF));
+        } catch (DecodingException e) {
+          return e;
+        }
+      }
+      throw new AssertionError("all characters are valid");
+    }
+
     boolean isValidPaddingStartPosition(int index) {
       return validPadding[index % charsPerChunk];
     }
@@ -564,6 +779,9 @@ public abstract class BaseEncoding {
   }
 
   static class StandardBaseEncoding extends BaseEncoding {
+    /** The number of chunks that an encoding stream encodes and writes at once. */
+    private static final int STREAM_BATCH_CHUNKS = 1024;
+
     // TODO(lowasser): provide a useful toString
     final Alphabet alphabet;
 
@@ -583,10 +801,16 @@ public abstract class BaseEncoding {
     }
 
     @Override
-    int maxEncodedSize(int bytes) {
+    public int maxEncodedSize(int bytes) {
       return alphabet.charsPerChunk * divide(bytes, alphabet.bytesPerChunk, CEILING);
     }
 
+    @Override
+    boolean isAscii() {
+      // the alphabet can only contain ASCII characters
+      return paddingChar == null || paddingChar.charValue() < 0x80;
+    }
+
     @GwtIncompatible // Writer,OutputStream
     @Override
     public OutputStream encodingStream(final Writer out) {
@@ -595,6 +819,32 @@ public abstract class BaseEncoding {
         int bitBuffer = 0;
         int bitBufferLength = 0;
         int writtenChars = 0;
+        char @Nullable [] encoded;
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+          checkPositionIndexes(off, off + len, b.length);
+          // finish the chunk in progress, if any, a byte at a time
+          for (; len > 0 && bitBufferLength > 0; len--) {
+            write(b[off++]);
+          }
+          // then encode whole chunks in batches, and write each batch at once
+          while (len >= alphabet.bytesPerChunk) {
+            if (encoded == null) {
+              encoded = new char[STREAM_BATCH_CHUNKS * alphabet.charsPerChunk];
+            }
+            int chunks = Math.min(len / alphabet.bytesPerChunk, STREAM_BATCH_CHUNKS);
+            int n = chunks * alphabet.bytesPerChunk;
+            int chars = encodeTo(encoded, 0, b, off, n);
+            out.write(encoded, 0, chars);
+            writtenChars += chars;
+            off += n;
+            len -= n;
+          }
+          for (; len > 0; len--) {
+            write(b[off++]);
+          }
+        }
 
         @Override
         public void write(int b) throws IOException {
@@ -667,7 +917,7 @@ public abstract class BaseEncoding {
     }
 
     @Override
-    int maxDecodedSize(int chars) {
+    public int maxDecodedSize(int chars) {
       return (int) ((alphabet.bitsPerChar * (long) chars + 7L) / 8L);
     }
 
@@ -890,6 +1140,7 @@ public abstract class BaseEncoding {
 
   static final class Base16Encoding extends StandardBaseEncoding {
     final char[] encoding = new char[512];
+    final byte[] asciiEncoding = new byte[512];
 
     Base16Encoding(String name, String alphabetChars) {
       this(new Alphabet(name, alphabetChars.toCharArray()));
@@ -902,6 +1153,49 @@ public abstract class BaseEncoding {
         encoding[i] = alphabet.encode(i >>> 4);
         encoding[i | 0x100] = alphabet.encode(i & 0xF);
       }
+      for (int i = 0; i < 512; i++) {
+        asciiEncoding[i] = (byte) encoding[i];
+      }
+    }
+
+    @Override
+    int encodeTo(char[] target, int targetOffset, byte[] bytes, int off, int len) {
+      int j = targetOffset;
+      for (int i = off; i < off + len; i++) {
+        int b = bytes[i] & 0xFF;
+        target[j++] = encoding[b];
+        target[j++] = encoding[b | 0x100];
+      }
+      return j - targetOffset;
+    }
+
+    @Override
+    int encodeAsciiTo(byte[] target, int targetOffset, byte[] bytes, int off, int len) {
+      int j = targetOffset;
+      for (int i = off; i < off + len; i++) {
+        int b = bytes[i] & 0xFF;
+        target[j++] = asciiEncoding[b];
+        target[j++] = asciiEncoding[b | 0x100];
+      }
+      return j - targetOffset;
+    }
+
+    @Override
+    int decodeAsciiTo(byte[] target, int targetOffset, byte[] encoded, int off, int len)
+        throws DecodingException {
+      if (len % 2 == 1) {
+        throw new DecodingException("Invalid input length " + len);
+      }
+      int j = targetOffset;
+      for (int i = off; i < off + len; i += 2) {
+        int high = alphabet.decodeAsciiOrNegative(encoded[i]);
+        int low = alphabet.decodeAsciiOrNegative(encoded[i + 1]);
+        if ((high | low) < 0) {
+          throw alphabet.invalidAscii(encoded, i, 2);
+        }
+        target[j++] = (byte) (high << 4 | low);
+      }
+      return j - targetOffset;
     }
 
     @Override
@@ -936,6 +1230,8 @@ public abstract class BaseEncoding {
   }
 
   static final class Base64Encoding extends StandardBaseEncoding {
+    private final byte[] asciiChars;
+
     Base64Encoding(String name, String alphabetChars, @Nullable Character paddingChar) {
       this(new Alphabet(name, alphabetChars.toCharArray()), paddingChar);
     }
@@ -943,6 +1239,116 @@ public abstract class BaseEncoding {
     private Base64Encoding(Alphabet alphabet, @Nullable Character paddingChar) {
       super(alphabet, paddingChar);
       checkArgument(alphabet.chars.length == 64);
+      this.asciiChars = new byte[64];
+      for (int i = 0; i < 64; i++) {
+        asciiChars[i] = (byte) alphabet.chars[i];
+      }
+    }
+
+    @Override
+    int encodeTo(char[] target, int targetOffset, byte[] bytes, int off, int len) {
+      char[] chars = alphabet.chars;
+      int i = off;
+      int j = targetOffset;
+      for (int end = off + len - len % 3; i < end; i += 3) {
+        int chunk = (bytes[i] & 0xFF) << 16 | (bytes[i + 1] & 0xFF) << 8 | bytes[i + 2] & 0xFF;
+        target[j] = chars[chunk >>> 18];
+        target[j + 1] = chars[(chunk >>> 12) & 0x3F];
+        target[j + 2] = chars[(chunk >>> 6) & 0x3F];
+        target[j + 3] = chars[chunk & 0x3F];
+        j += 4;
+      }
+      int remaining = off + len - i;
+      if (remaining > 0) {
+        int chunk = (bytes[i] & 0xFF) << 16 | ((remaining == 2) ? (bytes[i + 1] & 0xFF) << 8 : 0);
+        target[j++] = chars[chunk >>> 18];
+        target[j++] = chars[(chunk >>> 12) & 0x3F];
+        if (remaining == 2) {
+          target[j++] = chars[(chunk >>> 6) & 0x3F];
+        }
+        if (paddingChar != null) {
+          while ((j - targetOffset) % 4 != 0) {
+            target[j++] = paddingChar.charValue();
+          }
+        }
+      }
+      return j - targetOffset;
+    }
+
+    @Override
+    int encodeAsciiTo(byte[] target, int targetOffset, byte[] bytes, int off, int len) {
+      byte[] chars = asciiChars;
+      int i = off;
+      int j = targetOffset;
+      for (int end = off + len - len % 3; i < end; i += 3) {
+        int chunk = (bytes[i] & 0xFF) << 16 | (bytes[i + 1] & 0xFF) << 8 | bytes[i + 2] & 0xFF;
+        target[j] = chars[chunk >>> 18];
+        target[j + 1] = chars[(chunk >>> 12) & 0x3F];
+        target[j + 2] = chars[(chunk >>> 6) & 0x3F];
+        target[j + 3] = chars[chunk & 0x3F];
+        j += 4;
+      }
+      int remaining = off + len - i;
+      if (remaining > 0) {
+        int chunk = (bytes[i] & 0xFF) << 16 | ((remaining == 2) ? (bytes[i + 1] & 0xFF) << 8 : 0);
+        target[j++] = chars[chunk >>> 18];
+        target[j++] = chars[(chunk >>> 12) & 0x3F];
+        if (remaining == 2) {
+          target[j++] = chars[(chunk >>> 6) & 0x3F];
+        }
+        if (paddingChar != null) {
+          while ((j - targetOffset) % 4 != 0) {
+            target[j++] = (byte) paddingChar.charValue();
+          }
+        }
+      }
+      return j - targetOffset;
+    }
+
+    @Override
+    int decodeAsciiTo(byte[] target, int targetOffset, byte[] encoded, int off, int len)
+        throws DecodingException {
+      if (paddingChar != null) {
+        char padChar = paddingChar.charValue();
+        while (len > 0 && (encoded[off + len - 1] & 0xFF) == padChar) {
+          len--;
+        }
+      }
+      if (!alphabet.isValidPaddingStartPosition(len)) {
+        throw new DecodingException("Invalid input length " + len);
+      }
+      int i = off;
+      int j = targetOffset;
+      for (int end = off + len - len % 4; i < end; i += 4) {
+        int c0 = alphabet.decodeAsciiOrNegative(encoded[i]);
+        int c1 = alphabet.decodeAsciiOrNegative(encoded[i + 1]);
+        int c2 = alphabet.decodeAsciiOrNegative(encoded[i + 2]);
+        int c3 = alphabet.decodeAsciiOrNegative(encoded[i + 3]);
+        if ((c0 | c1 | c2 | c3) < 0) {
+          throw alphabet.invalidAscii(encoded, i, 4);
+        }
+        int chunk = c0 << 18 | c1 << 12 | c2 << 6 | c3;
+        target[j] = (byte) (chunk >>> 16);
+        target[j + 1] = (byte) (chunk >>> 8);
+        target[j + 2] = (byte) chunk;
+        j += 3;
+      }
+      // the last two or three characters, if any
+      int remaining = off + len - i;
+      if (remaining > 0) {
+        int c0 = alphabet.decodeAsciiOrNegative(encoded[i]);
+        int c1 = alphabet.decodeAsciiOrNegative(encoded[i + 1]);
+        int c2 = (remaining == 3) ? alphabet.decodeAsciiOrNegative(encoded[i + 2]) : 0;
+        if ((c0 | c1 | c2) < 0) {
+          throw alphabet.invalidAscii(encoded, i, remaining);
+        }
+        int chunk = c0 << 18 | c1 << 12 | c2 << 6;
+        target[j++] = (byte) (chunk >>> 16);
+        if (remaining == 3) {
+          target[j++] = (byte) (chunk >>> 8);
+        }
+      }
+      return j - targetOffset;
     }
 
     @Override
@@ -992,6 +1398,37 @@ public abstract class BaseEncoding {
     }
   }
 
+  /** An {@code Appendable} that writes to an array that is known to have enough room. */
+  private static final class CharArrayAppendable implements Appendable {
+    final char[] chars;
+    int position;
+
+    CharArrayAppendable(char[] chars, int position) {
+      this.chars = chars;
+      this.position = position;
+    }
+
+    @Override
+    public Appendable append(char c) {
+      chars[position++] = c;
+      return this;
+    }
+
+    @Override
+    public Appendable append(@Nullable CharSequence csq) {
+      return append(csq, 0, String.valueOf(csq).length());
+    }
+
+    @Override
+    public Appendable append(@Nullable CharSequence csq, int start, int end) {
+      CharSequence sequence = String.valueOf(csq);
+      for (int i = start; i < end; i++) {
+        chars[position++] = sequence.charAt(i);
+      }
+      return this;
+    }
+  }
+
   @GwtIncompatible
   static Reader ignoringReader(final Reader delegate, final String toIgnore) {
     checkNotNull(delegate);
@@ -1052,17 +1489,37 @@ public abstract class BaseEncoding {
   @GwtIncompatible // Writer
   static Writer separatingWriter(
       final Writer delegate, final String separator, final int afterEveryChars) {
-    final Appendable seperatingAppendable =
-        separatingAppendable(delegate, separator, afterEveryChars);
+    checkNotNull(delegate);
+    checkNotNull(separator);
+    checkArgument(afterEveryChars > 0);
     return new Writer() {
+      int charsUntilSeparator = afterEveryChars;
+
       @Override
       public void write(int c) throws IOException {
-        seperatingAppendable.append((char) c);
+        if (charsUntilSeparator == 0) {
+          delegate.write(separator);
+          charsUntilSeparator = afterEveryChars;
+        }
+        delegate.write(c);
+        charsUntilSeparator--;
       }
 
+      // writes the characters between separators at once
       @Override
       public void write(char[] chars, int off, int len) throws IOException {
-        throw new UnsupportedOperationException();
+        checkPositionIndexes(off, off + len, chars.length);
+        while (len > 0) {
+          if (charsUntilSeparator == 0) {
+            delegate.write(separator);
+            charsUntilSeparator = afterEveryChars;
+          }
+          int n = Math.min(len, charsUntilSeparator);
+          delegate.write(chars, off, n);
+          charsUntilSeparator -= n;
+          off += n;
+          len -= n;
+        }
       }
 
       @Override
@@ -1096,7 +1553,12 @@ public abstract class BaseEncoding {
     }
 
     @Override
-    int maxEncodedSize(int bytes) {
+    boolean isAscii() {
+      return delegate.isAscii() && CharMatcher.ascii().matchesAllOf(separator);
+    }
+
+    @Override
+    public int maxEncodedSize(int bytes) {
       int unseparatedSize = delegate.maxEncodedSize(bytes);
       return unseparatedSize
           + separator.length() * divide(Math.max(0, unseparatedSize - 1), afterEveryChars, FLOOR);
@@ -1114,7 +1576,7 @@ public abstract class BaseEncoding {
     }
 
     @Override
-    int maxDecodedSize(int chars) {
+    public int maxDecodedSize(int chars) {
       return delegate.maxDecodedSize(chars);
     }
 
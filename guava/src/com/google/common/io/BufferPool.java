@@ -0,0 +1,156 @@
+/*
+ * Copyright (C) 2019 The Guava Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.common.io;
+
+import com.google.common.annotations.GwtIncompatible;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Per-thread pools of the buffers that {@link ByteStreams} and {@link CharStreams} use to copy and
+ * read streams, so that copying a stream doesn't allocate a buffer every time. Each thread keeps at
+ * most one buffer of each kind: a buffer is taken out of the pool while it's in use, so that a
+ * nested copy on the same thread gets a buffer of its own, and returned when the copy is done.
+ *
+ * <p>Pooled buffers are passed to the streams being copied, and must not be retained by them.
+ * Streams that keep a reference to the arrays passed to their {@code read} or {@code write}
+ * methods are broken anyway, since the callers of those methods are free to reuse the arrays, but
+ * pooling can be turned off by setting the system property {@code guava.io.pool_buffers} to {@code
+ * false}. Buffers are zeroed when they are returned to the pool, so that a stream never sees the
+ * bytes or chars that an earlier, unrelated copy on the same thread passed through the buffer.
+ *
+ * <p>The buffer sizes can be configured with the system properties {@code
+ * guava.io.byte_buffer_size} (in bytes, 8192 by default) and {@code guava.io.char_buffer_size} (in
+ * chars, 2048 by default).
+ */
+@GwtIncompatible
+final class BufferPool {
+  private static final boolean POOL_BUFFERS;
+
+  /** The size of byte buffers. */
+  static final int BYTE_BUFFER_SIZE;
+
+  /** The size of char buffers. */
+  static final int CHAR_BUFFER_SIZE;
+
+  static {
+    boolean poolBuffers = true;
+    int byteBufferSize = 8192;
+    int charBufferSize = 0x800;
+    try {
+      poolBuffers = Boolean.parseBoolean(System.getProperty("guava.io.pool_buffers", "true"));
+      byteBufferSize = sizeProperty("guava.io.byte_buffer_size", byteBufferSize);
+      charBufferSize = sizeProperty("guava.io.char_buffer_size", charBufferSize);
+    } catch (SecurityException e) {
+      // use the defaults
+    }
+    POOL_BUFFERS = poolBuffers;
+    BYTE_BUFFER_SIZE = byteBufferSize;
+    CHAR_BUFFER_SIZE = charBufferSize;
+  }
+
+  // The pools hold JDK types only, so that threads don't keep this class loader alive.
+  private static final ThreadLocal<byte[]> byteArrays = new ThreadLocal<>();
+  private static final ThreadLocal<char[]> charArrays = new ThreadLocal<>();
+  private static final ThreadLocal<ByteBuffer> directBuffers = new ThreadLocal<>();
+
+  private BufferPool() {}
+
+  private static int sizeProperty(String name, int defaultSize) {
+    Integer size = Integer.getInteger(name);
+    return (size != null && size > 0) ? size : defaultSize;
+  }
+
+  /**
+   * Takes a byte array of {@link #BYTE_BUFFER_SIZE} bytes out of this thread's pool, or allocates
+   * one if the pool is empty.
+   */
+  static byte[] takeByteArray() {
+    if (POOL_BUFFERS) {
+      byte[] buf = byteArrays.get();
+      if (buf != null) {
+        byteArrays.set(null);
+        return buf;
+      }
+    }
+    return new byte[BYTE_BUFFER_SIZE];
+  }
+
+  /** Zeroes a byte array taken by {@link #takeByteArray} and returns it to this thread's pool. */
+  static void returnByteArray(byte[] buf) {
+    if (POOL_BUFFERS && buf.length == BYTE_BUFFER_SIZE) {
+      Arrays.fill(buf, (byte) 0);
+      byteArrays.set(buf);
+    }
+  }
+
+  /**
+   * Takes a char array of {@link #CHAR_BUFFER_SIZE} chars out of this thread's pool, or allocates
+   * one if the pool is empty.
+   */
+  static char[] takeCharArray() {
+    if (POOL_BUFFERS) {
+      char[] buf = charArrays.get();
+      if (buf != null) {
+        charArrays.set(null);
+        return buf;
+      }
+    }
+    return new char[CHAR_BUFFER_SIZE];
+  }
+
+  /** Zeroes a char array taken by {@link #takeCharArray} and returns it to this thread's pool. */
+  static void returnCharArray(char[] buf) {
+    if (POOL_BUFFERS && buf.length == CHAR_BUFFER_SIZE) {
+      Arrays.fill(buf, (char) 0);
+      charArrays.set(buf);
+    }
+  }
+
+  /**
+   * Takes a cleared direct byte buffer of {@link #BYTE_BUFFER_SIZE} bytes out of this thread's
+   * pool, or allocates one if the pool is empty. Channels read into and write from direct buffers
+   * without copying them to temporary direct buffers first.
+   */
+  static ByteBuffer takeDirectBuffer() {
+    if (POOL_BUFFERS) {
+      ByteBuffer buf = directBuffers.get();
+      if (buf != null) {
+        directBuffers.set(null);
+        return buf;
+      }
+    }
+    return ByteBuffer.allocateDirect(BYTE_BUFFER_SIZE);
+  }
+
+  /**
+   * Clears and zeroes a direct byte buffer taken by {@link #takeDirectBuffer}, and returns it to
+   * this thread's pool.
+   */
+  static void returnDirectBuffer(ByteBuffer buf) {
+    if (POOL_BUFFERS) {
+      buf.clear();
+      int capacity = buf.capacity();
+      int i = 0;
+      for (; i <= capacity - Long.BYTES; i += Long.BYTES) {
+        buf.putLong(i, 0);
+      }
+      for (; i < capacity; i++) {
+        buf.put(i, (byte) 0);
+      }
+      directBuffers.set(buf);
+    }
+  }
+}
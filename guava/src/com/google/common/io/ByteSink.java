@@ -16,7 +16,10 @@ package com.google.common.io;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 
+import com.google.common.annotations.Beta;
 import com.google.common.annotations.GwtIncompatible;
+import com.google.common.hash.Hasher;
+import com.google.common.util.concurrent.RateLimiter;
 import com.google.errorprone.annotations.CanIgnoreReturnValue;
 import java.io.BufferedOutputStream;
 import java.io.IOException;
@@ -24,7 +27,14 @@ import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.io.Writer;
+import java.nio.channels.AsynchronousFileChannel;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
 import java.nio.charset.Charset;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicLong;
+import org.checkerframework.checker.nullness.qual.Nullable;
 
 /**
  * A destination to which bytes can be written, such as a file. Unlike an {@link OutputStream}, a
@@ -59,6 +69,82 @@ public abstract class ByteSink {
     return new AsCharSink(charset);
   }
 
+  /**
+   * Returns a view of this sink whose streams compress the bytes written to them in the gzip
+   * format, as {@link java.util.zip.GZIPOutputStream} does, and write the compressed bytes to this
+   * sink. Use {@link ByteSource#gunzipped()} to read them back.
+   *
+   * @since NEXT
+   */
+  @Beta
+  public ByteSink gzipped() {
+    return ByteTransforms.gzip(this);
+  }
+
+  /**
+   * Returns a view of this sink whose streams compress the bytes written to them in the gzip
+   * format, and write the compressed bytes to this sink. Blocks of 128K are compressed in parallel
+   * on {@code executor}, so that large outputs compress several times faster than with {@link
+   * #gzipped()} when the executor has several threads. The output is a single gzip member, which
+   * is a little larger than that of {@link #gzipped()}, since each block is compressed separately.
+   *
+   * <p>A stream of the returned sink writes the compressed blocks to this sink in order, as it is
+   * written to and when it is closed, so the stream must be closed for its output to be complete.
+   *
+   * @since NEXT
+   */
+  @Beta
+  public ByteSink gzipped(Executor executor) {
+    return ByteTransforms.gzip(this, checkNotNull(executor));
+  }
+
+  /**
+   * Returns a view of this sink whose streams compress the bytes written to them in the zlib
+   * format, as {@link java.util.zip.DeflaterOutputStream} does, and write the compressed bytes to
+   * this sink. Use {@link ByteSource#inflated()} to read them back.
+   *
+   * @since NEXT
+   */
+  @Beta
+  public ByteSink deflated() {
+    return ByteTransforms.deflate(this);
+  }
+
+  /**
+   * Returns a view of this sink whose streams pass each byte that is written to them to the given
+   * hasher, like {@link com.google.common.hash.HashingOutputStream}. A {@code Hasher} can't be used
+   * by more than one thread at a time, so the returned sink should typically be written once, by
+   * one stream.
+   *
+   * @since NEXT
+   */
+  @Beta
+  public ByteSink hashing(Hasher hasher) {
+    return ByteTransforms.hash(this, checkNotNull(hasher));
+  }
+
+  /**
+   * Returns a view of this sink whose streams add the number of bytes that are written to them to
+   * {@code count}.
+   *
+   * @since NEXT
+   */
+  @Beta
+  public ByteSink counting(AtomicLong count) {
+    return ByteTransforms.count(this, checkNotNull(count));
+  }
+
+  /**
+   * Returns a view of this sink whose streams acquire a permit from {@code rateLimiter} for each
+   * byte that is written to them, so that the sink is written no faster than the limiter's rate.
+   *
+   * @since NEXT
+   */
+  @Beta
+  public ByteSink rateLimited(RateLimiter rateLimiter) {
+    return ByteTransforms.rateLimit(this, checkNotNull(rateLimiter));
+  }
+
   /**
    * Opens a new {@link OutputStream} for writing to this sink. This method returns a new,
    * independent stream each time it is called.
@@ -69,6 +155,26 @@ public abstract class ByteSink {
    */
   public abstract OutputStream openStream() throws IOException;
 
+  /**
+   * Opens a new {@link WritableByteChannel} for writing to this sink. File sinks return a {@link
+   * java.nio.channels.FileChannel}, to which {@link java.nio.channels.FileChannel#transferTo} can
+   * copy from another file without passing the bytes through user space; other sinks return a
+   * channel that writes to {@link #openStream()}.
+   */
+  WritableByteChannel openChannel() throws IOException {
+    return Channels.newChannel(openStream());
+  }
+
+  /**
+   * Opens a new {@link AsynchronousFileChannel} for writing to this sink, which runs its operations
+   * on {@code executor}, or returns {@code null} if this sink can't be written that way. See {@link
+   * AsyncIo}.
+   */
+  @Nullable AsynchronousFileChannel openAsynchronousChannel(ExecutorService executor)
+      throws IOException {
+    return null;
+  }
+
   /**
    * Opens a new buffered {@link OutputStream} for writing to this sink. The returned stream is not
    * required to be a {@link BufferedOutputStream} in order to allow implementations to simply
@@ -28,18 +28,29 @@ import com.google.common.hash.Funnels;
 import com.google.common.hash.HashCode;
 import com.google.common.hash.HashFunction;
 import com.google.common.hash.Hasher;
+import com.google.common.util.concurrent.RateLimiter;
 import com.google.errorprone.annotations.CanIgnoreReturnValue;
 import java.io.BufferedInputStream;
 import java.io.ByteArrayInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.OutputStream;
 import java.io.Reader;
+import java.nio.channels.AsynchronousFileChannel;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
 import java.nio.charset.Charset;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Iterator;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+import org.checkerframework.checker.nullness.qual.Nullable;
 
 /**
  * A readable source of bytes, such as a file. Unlike an {@link InputStream}, a {@code ByteSource}
@@ -121,6 +132,66 @@ public abstract class ByteSource {
     return new SlicedByteSource(offset, length);
   }
 
+  /**
+   * Returns a view of this source as a source of the bytes that its contents decompress to, when
+   * they are in the gzip format. Concatenated gzip members are decompressed one after the other, as
+   * by {@link java.util.zip.GZIPInputStream}.
+   *
+   * @since NEXT
+   */
+  @Beta
+  public ByteSource gunzipped() {
+    return ByteTransforms.gunzip(this);
+  }
+
+  /**
+   * Returns a view of this source as a source of the bytes that its contents decompress to, when
+   * they are in the zlib format written by {@link java.util.zip.DeflaterOutputStream} and {@link
+   * ByteSink#deflated()}.
+   *
+   * @since NEXT
+   */
+  @Beta
+  public ByteSource inflated() {
+    return ByteTransforms.inflate(this);
+  }
+
+  /**
+   * Returns a view of this source whose streams pass each byte that they read, or skip, to the
+   * given hasher. Like {@link com.google.common.hash.HashingInputStream}, this hashes the bytes as
+   * they are read, rather than reading them a second time as {@link #hash} does. A {@code Hasher}
+   * can't be used by more than one thread at a time, so the returned source should typically be
+   * read once, by one stream.
+   *
+   * @since NEXT
+   */
+  @Beta
+  public ByteSource hashing(Hasher hasher) {
+    return ByteTransforms.hash(this, checkNotNull(hasher));
+  }
+
+  /**
+   * Returns a view of this source whose streams add the number of bytes that they read, or skip,
+   * to {@code count}.
+   *
+   * @since NEXT
+   */
+  @Beta
+  public ByteSource counting(AtomicLong count) {
+    return ByteTransforms.count(this, checkNotNull(count));
+  }
+
+  /**
+   * Returns a view of this source whose streams acquire a permit from {@code rateLimiter} for each
+   * byte that they read, or skip, so that the source is read no faster than the limiter's rate.
+   *
+   * @since NEXT
+   */
+  @Beta
+  public ByteSource rateLimited(RateLimiter rateLimiter) {
+    return ByteTransforms.rateLimit(this, checkNotNull(rateLimiter));
+  }
+
   /**
    * Returns whether the source has zero bytes. The default implementation first checks {@link
    * #sizeIfKnown}, returning true if it's known to be zero and false if it's known to be non-zero.
@@ -239,6 +310,15 @@ public abstract class ByteSource {
 
     Closer closer = Closer.create();
     try {
+      // subclasses of FileOutputStream might override write()
+      if (output.getClass() == FileOutputStream.class) {
+        FileChannel from = openFileChannel();
+        if (from != null) {
+          closer.register(from);
+          // the channel shares its position with the stream, and must not be closed
+          return ByteStreams.copy(from, ((FileOutputStream) output).getChannel());
+        }
+      }
       InputStream in = closer.register(openStream());
       return ByteStreams.copy(in, output);
     } catch (Throwable e) {
@@ -248,9 +328,48 @@ public abstract class ByteSource {
     }
   }
 
+  /**
+   * Copies the contents of this byte source to the given {@code WritableByteChannel}, such as a
+   * socket channel. Does not close {@code channel}.
+   *
+   * <p>If this source is a file, such as a source returned by {@link Files#asByteSource} or {@link
+   * MoreFiles#asByteSource}, the bytes are copied with {@link FileChannel#transferTo}, which on
+   * many platforms copies them from the file to a socket or another file without passing them
+   * through user space.
+   *
+   * @return the number of bytes copied
+   * @throws IOException if an I/O error occurs while reading from this source or writing to {@code
+   *     channel}
+   * @since NEXT
+   */
+  @Beta
+  @CanIgnoreReturnValue
+  public long copyTo(WritableByteChannel channel) throws IOException {
+    checkNotNull(channel);
+
+    Closer closer = Closer.create();
+    try {
+      ReadableByteChannel from = openFileChannel();
+      if (from == null) {
+        from = Channels.newChannel(openStream());
+      }
+      closer.register(from);
+      return ByteStreams.copy(from, channel);
+    } catch (Throwable e) {
+      throw closer.rethrow(e);
+    } finally {
+      closer.close();
+    }
+  }
+
   /**
    * Copies the contents of this byte source to the given {@code ByteSink}.
    *
+   * <p>If this source is a file, such as a source returned by {@link Files#asByteSource} or {@link
+   * MoreFiles#asByteSource}, the bytes are copied with {@link FileChannel#transferTo}. If the sink
+   * is a file as well, this lets the operating system copy them without passing them through user
+   * space.
+   *
    * @return the number of bytes copied
    * @throws IOException if an I/O error occurs while reading from this source or writing to {@code
    *     sink}
@@ -261,6 +380,12 @@ public abstract class ByteSource {
 
     Closer closer = Closer.create();
     try {
+      FileChannel from = openFileChannel();
+      if (from != null) {
+        closer.register(from);
+        WritableByteChannel to = closer.register(sink.openChannel());
+        return ByteStreams.copy(from, to);
+      }
       InputStream in = closer.register(openStream());
       OutputStream out = closer.register(sink.openStream());
       return ByteStreams.copy(in, out);
@@ -271,6 +396,25 @@ public abstract class ByteSource {
     }
   }
 
+  /**
+   * Opens a new {@link FileChannel} positioned at the start of this source, or returns {@code
+   * null} if this source isn't a file. Copying from a file channel can use {@link
+   * FileChannel#transferTo}, which avoids copying the bytes through user space.
+   */
+  @Nullable FileChannel openFileChannel() throws IOException {
+    return null;
+  }
+
+  /**
+   * Opens a new {@link AsynchronousFileChannel} for reading this source, which runs its operations
+   * on {@code executor}, or returns {@code null} if this source isn't a regular file. See {@link
+   * AsyncIo}.
+   */
+  @Nullable AsynchronousFileChannel openAsynchronousChannel(ExecutorService executor)
+      throws IOException {
+    return null;
+  }
+
   /**
    * Reads the full contents of this byte source as a byte array.
    *
@@ -316,6 +460,62 @@ public abstract class ByteSource {
     }
   }
 
+  /**
+   * Reads the lines of this byte source as bytes, using the given {@code processor} to process
+   * each line as it is read. Stops when all lines have been processed or the processor returns
+   * {@code false}. Returns the result produced by the processor.
+   *
+   * <p>Lines are split as by {@link CharSource#readLines(LineProcessor)}, but are not decoded, and
+   * nothing is allocated per line; see {@link ByteStreams#readLines(InputStream,
+   * RecordProcessor)}.
+   *
+   * @throws IOException if an I/O error occurs while reading from this source or if {@code
+   *     processor} throws an {@code IOException}
+   * @since NEXT
+   */
+  @Beta
+  @CanIgnoreReturnValue // some processors won't return a useful result
+  public <T> T readLines(RecordProcessor<T> processor) throws IOException {
+    checkNotNull(processor);
+
+    Closer closer = Closer.create();
+    try {
+      InputStream in = closer.register(openStream());
+      return ByteStreams.readLines(in, processor);
+    } catch (Throwable e) {
+      throw closer.rethrow(e);
+    } finally {
+      closer.close();
+    }
+  }
+
+  /**
+   * Reads the records of this byte source that are separated by {@code delimiter}, using the given
+   * {@code processor} to process each record as it is read. Stops when all records have been
+   * processed or the processor returns {@code false}. Returns the result produced by the
+   * processor.
+   *
+   * @throws IOException if an I/O error occurs while reading from this source or if {@code
+   *     processor} throws an {@code IOException}
+   * @see ByteStreams#readRecords(InputStream, byte, RecordProcessor)
+   * @since NEXT
+   */
+  @Beta
+  @CanIgnoreReturnValue // some processors won't return a useful result
+  public <T> T readRecords(byte delimiter, RecordProcessor<T> processor) throws IOException {
+    checkNotNull(processor);
+
+    Closer closer = Closer.create();
+    try {
+      InputStream in = closer.register(openStream());
+      return ByteStreams.readRecords(in, delimiter, processor);
+    } catch (Throwable e) {
+      throw closer.rethrow(e);
+    } finally {
+      closer.close();
+    }
+  }
+
   /**
    * Hashes the contents of this byte source using the given hash function.
    *
@@ -472,6 +672,28 @@ public abstract class ByteSource {
       return new String(ByteSource.this.read(), charset);
     }
 
+    @Override
+    public Stream<String> parallelLines() throws IOException {
+      if (MappedLineSpliterator.supports(charset)) {
+        FileChannel channel = openFileChannel();
+        if (channel != null) {
+          boolean mapped = false;
+          try {
+            Stream<String> lines = MappedLineSpliterator.lines(channel, charset);
+            mapped = true;
+            return lines;
+          } catch (UnsupportedOperationException e) {
+            // the file system can't map files, so read the lines sequentially
+          } finally {
+            if (!mapped) {
+              channel.close();
+            }
+          }
+        }
+      }
+      return super.parallelLines();
+    }
+
     @Override
     public String toString() {
       return ByteSource.this.toString() + ".asCharSource(" + charset + ")";
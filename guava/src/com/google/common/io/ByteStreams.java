@@ -51,9 +51,12 @@ import java.util.Deque;
 @GwtIncompatible
 public final class ByteStreams {
 
-  private static final int BUFFER_SIZE = 8192;
+  private static final int BUFFER_SIZE = BufferPool.BYTE_BUFFER_SIZE;
 
-  /** Creates a new byte array for buffering reads or writes. */
+  /**
+   * Creates a new byte array for buffering reads or writes. Methods that only need the buffer while
+   * they run should borrow one from {@link BufferPool} instead.
+   */
   static byte[] createBuffer() {
     return new byte[BUFFER_SIZE];
   }
@@ -102,17 +105,21 @@ public final class ByteStreams {
   public static long copy(InputStream from, OutputStream to) throws IOException {
     checkNotNull(from);
     checkNotNull(to);
-    byte[] buf = createBuffer();
-    long total = 0;
-    while (true) {
-      int r = from.read(buf);
-      if (r == -1) {
-        break;
+    byte[] buf = BufferPool.takeByteArray();
+    try {
+      long total = 0;
+      while (true) {
+        int r = from.read(buf);
+        if (r == -1) {
+          break;
+        }
+        to.write(buf, 0, r);
+        total += r;
       }
-      to.write(buf, 0, r);
-      total += r;
+      return total;
+    } finally {
+      BufferPool.returnByteArray(buf);
     }
-    return total;
   }
 
   /**
@@ -141,16 +148,21 @@ public final class ByteStreams {
       return position - oldPosition;
     }
 
-    ByteBuffer buf = ByteBuffer.wrap(createBuffer());
-    long total = 0;
-    while (from.read(buf) != -1) {
-      buf.flip();
-      while (buf.hasRemaining()) {
-        total += to.write(buf);
+    // a direct buffer saves the channels from copying the bytes through a temporary one
+    ByteBuffer buf = BufferPool.takeDirectBuffer();
+    try {
+      long total = 0;
+      while (from.read(buf) != -1) {
+        buf.flip();
+        while (buf.hasRemaining()) {
+          total += to.write(buf);
+        }
+        buf.clear();
       }
-      buf.clear();
+      return total;
+    } finally {
+      BufferPool.returnDirectBuffer(buf);
     }
-    return total;
   }
 
   /** Max array length on JVM. */
@@ -269,9 +281,13 @@ public final class ByteStreams {
   public static long exhaust(InputStream in) throws IOException {
     long total = 0;
     long read;
-    byte[] buf = createBuffer();
-    while ((read = in.read(buf)) != -1) {
-      total += read;
+    byte[] buf = BufferPool.takeByteArray();
+    try {
+      while ((read = in.read(buf)) != -1) {
+        total += read;
+      }
+    } finally {
+      BufferPool.returnByteArray(buf);
     }
     return total;
   }
@@ -816,23 +832,33 @@ public final class ByteStreams {
    */
   static long skipUpTo(InputStream in, final long n) throws IOException {
     long totalSkipped = 0;
-    byte[] buf = createBuffer();
-
-    while (totalSkipped < n) {
-      long remaining = n - totalSkipped;
-      long skipped = skipSafely(in, remaining);
-
-      if (skipped == 0) {
-        // Do a buffered read since skipSafely could return 0 repeatedly, for example if
-        // in.available() always returns 0 (the default).
-        int skip = (int) Math.min(remaining, buf.length);
-        if ((skipped = in.read(buf, 0, skip)) == -1) {
-          // Reached EOF
-          break;
+    // borrowed lazily, since skipping usually doesn't need it
+    byte[] buf = null;
+
+    try {
+      while (totalSkipped < n) {
+        long remaining = n - totalSkipped;
+        long skipped = skipSafely(in, remaining);
+
+        if (skipped == 0) {
+          // Do a buffered read since skipSafely could return 0 repeatedly, for example if
+          // in.available() always returns 0 (the default).
+          if (buf == null) {
+            buf = BufferPool.takeByteArray();
+          }
+          int skip = (int) Math.min(remaining, buf.length);
+          if ((skipped = in.read(buf, 0, skip)) == -1) {
+            // Reached EOF
+            break;
+          }
         }
-      }
 
-      totalSkipped += skipped;
+        totalSkipped += skipped;
+      }
+    } finally {
+      if (buf != null) {
+        BufferPool.returnByteArray(buf);
+      }
     }
 
     return totalSkipped;
@@ -865,11 +891,146 @@ public final class ByteStreams {
     checkNotNull(input);
     checkNotNull(processor);
 
-    byte[] buf = createBuffer();
-    int read;
-    do {
-      read = input.read(buf);
-    } while (read != -1 && processor.processBytes(buf, 0, read));
+    byte[] buf = BufferPool.takeByteArray();
+    try {
+      int read;
+      do {
+        read = input.read(buf);
+      } while (read != -1 && processor.processBytes(buf, 0, read));
+    } finally {
+      BufferPool.returnByteArray(buf);
+    }
+    return processor.getResult();
+  }
+
+  /**
+   * Processes the lines of the given input stream as bytes, using the given processor. Like {@link
+   * java.io.BufferedReader#readLine()}, this method considers a line to be a sequence of bytes that
+   * is terminated by (but does not include) one of {@code \r\n}, {@code \r} or {@code \n}. If the
+   * stream does not end in a line terminator, it is treated as if it does. This suits text in
+   * UTF-8 and other charsets that are supersets of ASCII. Stops when all lines have been processed
+   * or the processor returns {@code false}. Does not close the stream.
+   *
+   * <p>Unlike {@link CharStreams#readLines(Readable, LineProcessor)}, this method does not decode
+   * the lines, and allocates nothing per line.
+   *
+   * @param input the input stream to process
+   * @param processor the object to which to pass the lines of the stream
+   * @return the result of the record processor
+   * @throws IOException if an I/O error occurs or if {@code processor} throws an {@code
+   *     IOException}
+   * @since NEXT
+   */
+  @Beta
+  @CanIgnoreReturnValue // some processors won't return a useful result
+  public static <T> T readLines(InputStream input, RecordProcessor<T> processor)
+      throws IOException {
+    checkNotNull(input);
+    checkNotNull(processor);
+    return readRecords(input, true, (byte) 0, processor);
+  }
+
+  /**
+   * Processes the records of the given input stream that are separated by {@code delimiter}, using
+   * the given processor. A delimiter at the end of the stream does not start an empty record.
+   * Stops when all records have been processed or the processor returns {@code false}. Does not
+   * close the stream.
+   *
+   * @param input the input stream to process
+   * @param delimiter the byte that ends each record
+   * @param processor the object to which to pass the records of the stream
+   * @return the result of the record processor
+   * @throws IOException if an I/O error occurs or if {@code processor} throws an {@code
+   *     IOException}
+   * @since NEXT
+   */
+  @Beta
+  @CanIgnoreReturnValue // some processors won't return a useful result
+  public static <T> T readRecords(InputStream input, byte delimiter, RecordProcessor<T> processor)
+      throws IOException {
+    checkNotNull(input);
+    checkNotNull(processor);
+    return readRecords(input, false, delimiter, processor);
+  }
+
+  private static <T> T readRecords(
+      InputStream input, boolean lines, byte delimiter, RecordProcessor<T> processor)
+      throws IOException {
+    byte[] buf = BufferPool.takeByteArray();
+    try {
+      return readRecords(input, buf, lines, delimiter, processor);
+    } finally {
+      // if a long record made readRecords grow the buffer, the larger copy is simply dropped
+      BufferPool.returnByteArray(buf);
+    }
+  }
+
+  private static <T> T readRecords(
+      InputStream input,
+      byte[] buf,
+      boolean lines,
+      byte delimiter,
+      RecordProcessor<T> processor)
+      throws IOException {
+    int start = 0; // the start of the current record
+    int end = 0; // the end of the bytes read
+    boolean skipLineFeed = false; // whether the previous record ended with \r
+    while (true) {
+      if (end == buf.length) {
+        if (start > 0) {
+          // make room by moving the current record to the start of the buffer
+          System.arraycopy(buf, start, buf, 0, end - start);
+          end -= start;
+          start = 0;
+        } else {
+          // the record doesn't fit in the buffer
+          buf = Arrays.copyOf(buf, IntMath.saturatedMultiply(buf.length, 2));
+        }
+      }
+      int read = input.read(buf, end, buf.length - end);
+      if (read == -1) {
+        break;
+      }
+      int i = end;
+      end += read;
+      if (lines) {
+        if (skipLineFeed && i < end) {
+          skipLineFeed = false;
+          if (buf[i] == '\n') {
+            i++;
+            start = i;
+          }
+        }
+        for (; i < end; i++) {
+          byte b = buf[i];
+          if (b == '\n' || b == '\r') {
+            if (!processor.processRecord(buf, start, i - start)) {
+              return processor.getResult();
+            }
+            if (b == '\r') {
+              if (i + 1 == end) {
+                skipLineFeed = true;
+              } else if (buf[i + 1] == '\n') {
+                i++;
+              }
+            }
+            start = i + 1;
+          }
+        }
+      } else {
+        for (; i < end; i++) {
+          if (buf[i] == delimiter) {
+            if (!processor.processRecord(buf, start, i - start)) {
+              return processor.getResult();
+            }
+            start = i + 1;
+          }
+        }
+      }
+    }
+    if (end > start) {
+      processor.processRecord(buf, start, end - start);
+    }
     return processor.getResult();
   }
 
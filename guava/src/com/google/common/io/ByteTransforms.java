@@ -0,0 +1,400 @@
+/*
+ * Copyright (C) 2019 The Guava Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.common.io;
+
+import com.google.common.annotations.GwtIncompatible;
+import com.google.common.base.Optional;
+import com.google.common.hash.Hasher;
+import com.google.common.util.concurrent.RateLimiter;
+import java.io.FilterInputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * The implementations of the views that {@link ByteSource} and {@link ByteSink} return to compress,
+ * hash, count and rate limit the bytes that pass through their streams.
+ *
+ * <p>The streams of these views don't buffer anything themselves, other than the output of the
+ * compressors and the input of the decompressors, so copying through several of them passes each
+ * chunk of bytes from one stream to the next without copying it. The compressors' buffers are the
+ * size of those that {@link ByteStreams#copy} copies with.
+ */
+@GwtIncompatible
+final class ByteTransforms {
+  private ByteTransforms() {}
+
+  /** A source whose streams transform the streams of another source. */
+  abstract static class TransformedByteSource extends ByteSource {
+    final ByteSource source;
+    private final String description;
+
+    TransformedByteSource(ByteSource source, String description) {
+      this.source = source;
+      this.description = description;
+    }
+
+    /** Wraps a stream of the underlying source. */
+    abstract InputStream wrap(InputStream in) throws IOException;
+
+    @Override
+    public InputStream openStream() throws IOException {
+      InputStream in = source.openStream();
+      try {
+        return wrap(in);
+      } catch (Throwable e) {
+        Closer closer = Closer.create();
+        closer.register(in);
+        try {
+          throw closer.rethrow(e);
+        } finally {
+          closer.close();
+        }
+      }
+    }
+
+    @Override
+    public String toString() {
+      return source + "." + description;
+    }
+  }
+
+  /** A source whose streams read the same bytes as the streams of the underlying source. */
+  abstract static class PassThroughByteSource extends TransformedByteSource {
+    PassThroughByteSource(ByteSource source, String description) {
+      super(source, description);
+    }
+
+    @Override
+    public Optional<Long> sizeIfKnown() {
+      return source.sizeIfKnown();
+    }
+
+    // don't read the stream for these, which would count, hash or rate limit the bytes
+
+    @Override
+    public boolean isEmpty() throws IOException {
+      return source.isEmpty();
+    }
+
+    @Override
+    public long size() throws IOException {
+      return source.size();
+    }
+  }
+
+  /** A sink whose streams transform what is written to them and write it to another sink. */
+  abstract static class TransformedByteSink extends ByteSink {
+    private final ByteSink sink;
+    private final String description;
+
+    TransformedByteSink(ByteSink sink, String description) {
+      this.sink = sink;
+      this.description = description;
+    }
+
+    /** Wraps a stream of the underlying sink. */
+    abstract OutputStream wrap(OutputStream out) throws IOException;
+
+    @Override
+    public OutputStream openStream() throws IOException {
+      OutputStream out = sink.openStream();
+      try {
+        return wrap(out);
+      } catch (Throwable e) {
+        Closer closer = Closer.create();
+        closer.register(out);
+        try {
+          throw closer.rethrow(e);
+        } finally {
+          closer.close();
+        }
+      }
+    }
+
+    @Override
+    public String toString() {
+      return sink + "." + description;
+    }
+  }
+
+  static ByteSource gunzip(ByteSource source) {
+    return new TransformedByteSource(source, "gunzipped()") {
+      @Override
+      InputStream wrap(InputStream in) throws IOException {
+        return new GZIPInputStream(in, BufferPool.BYTE_BUFFER_SIZE);
+      }
+    };
+  }
+
+  static ByteSource inflate(ByteSource source) {
+    return new TransformedByteSource(source, "inflated()") {
+      @Override
+      InputStream wrap(InputStream in) {
+        final Inflater inflater = new Inflater();
+        return new InflaterInputStream(in, inflater, BufferPool.BYTE_BUFFER_SIZE) {
+          @Override
+          public void close() throws IOException {
+            try {
+              super.close();
+            } finally {
+              // InflaterInputStream only ends the inflaters that it creates itself
+              inflater.end();
+            }
+          }
+        };
+      }
+    };
+  }
+
+  static ByteSink gzip(ByteSink sink) {
+    return new TransformedByteSink(sink, "gzipped()") {
+      @Override
+      OutputStream wrap(OutputStream out) throws IOException {
+        return new GZIPOutputStream(out, BufferPool.BYTE_BUFFER_SIZE);
+      }
+    };
+  }
+
+  static ByteSink gzip(ByteSink sink, final Executor executor) {
+    return new TransformedByteSink(sink, "gzipped(" + executor + ")") {
+      @Override
+      OutputStream wrap(OutputStream out) throws IOException {
+        return new ParallelGzipOutputStream(out, executor);
+      }
+    };
+  }
+
+  static ByteSink deflate(ByteSink sink) {
+    return new TransformedByteSink(sink, "deflated()") {
+      @Override
+      OutputStream wrap(OutputStream out) {
+        final Deflater deflater = new Deflater();
+        return new DeflaterOutputStream(out, deflater, BufferPool.BYTE_BUFFER_SIZE) {
+          @Override
+          public void close() throws IOException {
+            try {
+              super.close();
+            } finally {
+              // DeflaterOutputStream only ends the deflaters that it creates itself
+              deflater.end();
+            }
+          }
+        };
+      }
+    };
+  }
+
+  static ByteSource hash(ByteSource source, final Hasher hasher) {
+    return new PassThroughByteSource(source, "hashing(" + hasher + ")") {
+      @Override
+      InputStream wrap(InputStream in) {
+        return new ObservingInputStream(in) {
+          @Override
+          void observe(byte[] b, int off, int len) {
+            hasher.putBytes(b, off, len);
+          }
+        };
+      }
+    };
+  }
+
+  static ByteSink hash(ByteSink sink, final Hasher hasher) {
+    return new TransformedByteSink(sink, "hashing(" + hasher + ")") {
+      @Override
+      OutputStream wrap(OutputStream out) {
+        return new ObservingOutputStream(out) {
+          @Override
+          void observe(byte[] b, int off, int len) {
+            hasher.putBytes(b, off, len);
+          }
+        };
+      }
+    };
+  }
+
+  static ByteSource count(ByteSource source, final AtomicLong count) {
+    return new PassThroughByteSource(source, "counting()") {
+      @Override
+      InputStream wrap(InputStream in) {
+        return new ObservingInputStream(in) {
+          @Override
+          void observe(byte[] b, int off, int len) {
+            count.addAndGet(len);
+          }
+        };
+      }
+    };
+  }
+
+  static ByteSink count(ByteSink sink, final AtomicLong count) {
+    return new TransformedByteSink(sink, "counting()") {
+      @Override
+      OutputStream wrap(OutputStream out) {
+        return new ObservingOutputStream(out) {
+          @Override
+          void observe(byte[] b, int off, int len) {
+            count.addAndGet(len);
+          }
+        };
+      }
+    };
+  }
+
+  static ByteSource rateLimit(ByteSource source, final RateLimiter rateLimiter) {
+    return new PassThroughByteSource(source, "rateLimited(" + rateLimiter + ")") {
+      @Override
+      InputStream wrap(InputStream in) {
+        return new ObservingInputStream(in) {
+          @Override
+          void observe(byte[] b, int off, int len) {
+            // the bytes have already been read, so this slows down the next read
+            rateLimiter.acquire(len);
+          }
+        };
+      }
+    };
+  }
+
+  static ByteSink rateLimit(ByteSink sink, final RateLimiter rateLimiter) {
+    return new TransformedByteSink(sink, "rateLimited(" + rateLimiter + ")") {
+      @Override
+      OutputStream wrap(OutputStream out) {
+        return new ObservingOutputStream(out) {
+          @Override
+          void observe(byte[] b, int off, int len) {
+            if (len > 0) {
+              rateLimiter.acquire(len);
+            }
+          }
+        };
+      }
+    };
+  }
+
+  /**
+   * An input stream that passes each chunk of bytes that it reads to {@link #observe}, after they
+   * have been read. Skipped bytes are read, so that they are observed too.
+   */
+  private abstract static class ObservingInputStream extends FilterInputStream {
+    private final byte[] single = new byte[1];
+
+    ObservingInputStream(InputStream in) {
+      super(in);
+    }
+
+    abstract void observe(byte[] b, int off, int len);
+
+    @Override
+    public int read() throws IOException {
+      int b = in.read();
+      if (b != -1) {
+        single[0] = (byte) b;
+        observe(single, 0, 1);
+      }
+      return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+      int read = in.read(b, off, len);
+      if (read > 0) {
+        observe(b, off, read);
+      }
+      return read;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+      byte[] buf = BufferPool.takeByteArray();
+      try {
+        long skipped = 0;
+        while (skipped < n) {
+          int read = read(buf, 0, (int) Math.min(n - skipped, buf.length));
+          if (read == -1) {
+            break;
+          }
+          skipped += read;
+        }
+        return skipped;
+      } finally {
+        BufferPool.returnByteArray(buf);
+      }
+    }
+
+    @Override
+    public boolean markSupported() {
+      return false;
+    }
+
+    @Override
+    public void mark(int readlimit) {}
+
+    @Override
+    public void reset() throws IOException {
+      throw new IOException("mark/reset not supported");
+    }
+  }
+
+  /**
+   * An output stream that passes each chunk of bytes that is written to it to {@link #observe},
+   * before it writes them.
+   */
+  private abstract static class ObservingOutputStream extends FilterOutputStream {
+    private final byte[] single = new byte[1];
+
+    ObservingOutputStream(OutputStream out) {
+      super(out);
+    }
+
+    abstract void observe(byte[] b, int off, int len);
+
+    @Override
+    public void write(int b) throws IOException {
+      single[0] = (byte) b;
+      observe(single, 0, 1);
+      out.write(b);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+      observe(b, off, len);
+      out.write(b, off, len);
+    }
+
+    // FilterOutputStream.close() swallows failures to flush before Java 9
+    @Override
+    public void close() throws IOException {
+      Closer closer = Closer.create();
+      closer.register(out);
+      try {
+        out.flush();
+      } catch (Throwable e) {
+        throw closer.rethrow(e);
+      } finally {
+        closer.close();
+      }
+    }
+  }
+}
@@ -157,6 +157,41 @@ public abstract class CharSource {
             });
   }
 
+  /**
+   * Opens a new parallel {@link Stream} for reading text one line at a time from this source. This
+   * method returns a new, independent stream each time it is called.
+   *
+   * <p>The returned stream is like the one returned by {@link #lines()}, except that it is
+   * parallel. For sources of files in {@linkplain java.nio.charset.StandardCharsets#UTF_8 UTF-8},
+   * {@linkplain java.nio.charset.StandardCharsets#US_ASCII US-ASCII} or {@linkplain
+   * java.nio.charset.StandardCharsets#ISO_8859_1 ISO-8859-1}, such as those returned by {@link
+   * Files#asCharSource} and {@link MoreFiles#asCharSource}, it maps the file into memory and splits
+   * it at line boundaries, so that the lines of different parts of the file are read and decoded
+   * in parallel. For other sources, it reads the lines sequentially and processes them in
+   * parallel.
+   *
+   * <p>The returned stream is ordered, so operations like {@link Stream#forEachOrdered} and {@link
+   * java.util.stream.Collectors#toList} see the lines in order, but unordered operations like
+   * {@link Stream#forEach} and {@link Stream#unordered} parallelize best. For example, to count
+   * the lines of a large log file that contain an error:
+   *
+   * <pre>{@code
+   * try (Stream<String> lines = Files.asCharSource(file, UTF_8).parallelLines()) {
+   *   long errors = lines.filter(line -> line.contains("ERROR")).count();
+   * }
+   * }</pre>
+   *
+   * <p>The caller is responsible for ensuring that the returned stream is closed.
+   *
+   * @throws IOException if an I/O error occurs while opening the stream
+   * @since NEXT
+   */
+  @Beta
+  @MustBeClosed
+  public Stream<String> parallelLines() throws IOException {
+    return lines().parallel();
+  }
+
   /**
    * Returns the size of this source in chars, if the size can be easily determined without actually
    * opening the data stream.
@@ -46,10 +46,13 @@ import java.util.List;
 @GwtIncompatible
 public final class CharStreams {
 
-  // 2K chars (4K bytes)
-  private static final int DEFAULT_BUF_SIZE = 0x800;
+  // 2K chars (4K bytes) by default
+  private static final int DEFAULT_BUF_SIZE = BufferPool.CHAR_BUFFER_SIZE;
 
-  /** Creates a new {@code CharBuffer} for buffering reads or writes. */
+  /**
+   * Creates a new {@code CharBuffer} for buffering reads or writes. Methods that only need the
+   * buffer while they run should borrow one from {@link BufferPool} instead.
+   */
   static CharBuffer createBuffer() {
     return CharBuffer.allocate(DEFAULT_BUF_SIZE);
   }
@@ -80,21 +83,22 @@ public final class CharStreams {
       checkNotNull(from);
       checkNotNull(to);
       long total = 0;
-      CharBuffer buf = createBuffer();
-      while (from.read(buf) != -1) {
-        buf.flip();
-        to.append(buf);
-        total += buf.remaining();
-        buf.clear();
+      char[] array = BufferPool.takeCharArray();
+      try {
+        CharBuffer buf = CharBuffer.wrap(array);
+        while (from.read(buf) != -1) {
+          buf.flip();
+          to.append(buf);
+          total += buf.remaining();
+          buf.clear();
+        }
+      } finally {
+        BufferPool.returnCharArray(array);
       }
       return total;
     }
   }
 
-  // TODO(lukes): consider allowing callers to pass in a buffer to use, some callers would be able
-  // to reuse buffers, others would be able to size them more appropriately than the constant
-  // defaults
-
   /**
    * Copies all characters between the {@link Reader} and {@link StringBuilder} objects. Does not
    * close or flush the reader.
@@ -113,14 +117,18 @@ public final class CharStreams {
   static long copyReaderToBuilder(Reader from, StringBuilder to) throws IOException {
     checkNotNull(from);
     checkNotNull(to);
-    char[] buf = new char[DEFAULT_BUF_SIZE];
-    int nRead;
-    long total = 0;
-    while ((nRead = from.read(buf)) != -1) {
-      to.append(buf, 0, nRead);
-      total += nRead;
+    char[] buf = BufferPool.takeCharArray();
+    try {
+      int nRead;
+      long total = 0;
+      while ((nRead = from.read(buf)) != -1) {
+        to.append(buf, 0, nRead);
+        total += nRead;
+      }
+      return total;
+    } finally {
+      BufferPool.returnCharArray(buf);
     }
-    return total;
   }
 
   /**
@@ -141,14 +149,18 @@ public final class CharStreams {
   static long copyReaderToWriter(Reader from, Writer to) throws IOException {
     checkNotNull(from);
     checkNotNull(to);
-    char[] buf = new char[DEFAULT_BUF_SIZE];
-    int nRead;
-    long total = 0;
-    while ((nRead = from.read(buf)) != -1) {
-      to.write(buf, 0, nRead);
-      total += nRead;
+    char[] buf = BufferPool.takeCharArray();
+    try {
+      int nRead;
+      long total = 0;
+      while ((nRead = from.read(buf)) != -1) {
+        to.write(buf, 0, nRead);
+        total += nRead;
+      }
+      return total;
+    } finally {
+      BufferPool.returnCharArray(buf);
     }
-    return total;
   }
 
   /**
@@ -239,10 +251,15 @@ public final class CharStreams {
   public static long exhaust(Readable readable) throws IOException {
     long total = 0;
     long read;
-    CharBuffer buf = createBuffer();
-    while ((read = readable.read(buf)) != -1) {
-      total += read;
-      buf.clear();
+    char[] array = BufferPool.takeCharArray();
+    try {
+      CharBuffer buf = CharBuffer.wrap(array);
+      while ((read = readable.read(buf)) != -1) {
+        total += read;
+        buf.clear();
+      }
+    } finally {
+      BufferPool.returnCharArray(array);
     }
     return total;
   }
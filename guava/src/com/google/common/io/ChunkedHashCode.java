@@ -0,0 +1,372 @@
+/*
+ * Copyright (C) 2019 The Guava Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.common.io;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Throwables.throwIfInstanceOf;
+import static com.google.common.base.Throwables.throwIfUnchecked;
+
+import com.google.common.annotations.Beta;
+import com.google.common.annotations.GwtIncompatible;
+import com.google.common.base.MoreObjects;
+import com.google.common.base.Objects;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSortedSet;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+import com.google.j2objc.annotations.J2ObjCIncompatible;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * The hash codes of the fixed-size chunks of some bytes, such as the contents of a large file,
+ * together with a {@linkplain #root() root} hash code that combines them. The chunks are hashed
+ * concurrently on an {@link Executor}, so that hashing a large file is not limited to a single
+ * core.
+ *
+ * <p>Chunk {@code i} holds the bytes from offset {@code i * chunkSize()} up to, but not including,
+ * offset {@code (i + 1) * chunkSize()}; only the last chunk can be shorter. Empty contents consist
+ * of a single, empty chunk. The root is computed like the root of a Merkle tree: adjacent pairs of
+ * chunk hash codes are combined with {@link Hashing#combineOrdered}, then adjacent pairs of those,
+ * and so on, with the last hash code of a level that has an odd number of them carried up as is.
+ * The root therefore depends on the chunk size, and is not equal to the hash code of the whole
+ * contents. Note that {@code combineOrdered} is not cryptographically secure, so that two equal
+ * roots do not prove equal contents in the presence of an adversary, even if the hash function is
+ * cryptographic; compare the {@linkplain #chunkHashCodes() chunk hash codes} in that case.
+ *
+ * <p>After some chunks of the contents have changed, {@link #rehash(ByteSource, Iterable,
+ * Executor)} recomputes the hash codes of only those chunks, and {@link #changedChunks} finds the
+ * chunks that differ between two instances.
+ *
+ * @since NEXT
+ */
+@Beta
+@GwtIncompatible
+public final class ChunkedHashCode {
+
+  /**
+   * Returns the chunked hash code of the bytes of {@code source}, hashing chunks of {@code
+   * chunkSize} bytes with {@code hashFunction} on {@code executor}.
+   *
+   * <p>Each chunk is read through its own {@linkplain ByteSource#slice slice} of {@code source},
+   * so streams of the source must be able to be opened and read concurrently.
+   *
+   * @throws IllegalArgumentException if {@code chunkSize} is not positive, or if the contents
+   *     would consist of more than {@link Integer#MAX_VALUE} chunks
+   * @throws IOException if an I/O error occurs while reading {@code source}
+   */
+  public static ChunkedHashCode hash(
+      ByteSource source, HashFunction hashFunction, int chunkSize, Executor executor)
+      throws IOException {
+    checkNotNull(hashFunction);
+    checkArgument(chunkSize > 0, "chunkSize (%s) must be positive", chunkSize);
+    checkNotNull(executor);
+    long size = source.size();
+    HashCode[] chunkHashCodes = new HashCode[chunkCount(size, chunkSize)];
+    return hashChunks(hashFunction, chunkSize, size, chunkHashCodes, sliceHasher(source), executor);
+  }
+
+  /**
+   * Returns the chunked hash code of the contents of the file located by the given path, hashing
+   * chunks of {@code chunkSize} bytes with {@code hashFunction} on {@code executor}.
+   *
+   * <p>Each chunk of the file is mapped into memory and passed to the hash function as is, as in
+   * {@link MoreFiles#hash}. A file on a file system other than the default one is read through
+   * {@link MoreFiles#asByteSource} instead.
+   *
+   * @throws IllegalArgumentException if {@code chunkSize} is not positive, or if the file would
+   *     consist of more than {@link Integer#MAX_VALUE} chunks
+   * @throws IOException if an I/O error occurs while reading the file
+   */
+  @J2ObjCIncompatible // java.nio.file
+  public static ChunkedHashCode hash(
+      Path path, HashFunction hashFunction, int chunkSize, Executor executor) throws IOException {
+    checkNotNull(hashFunction);
+    checkArgument(chunkSize > 0, "chunkSize (%s) must be positive", chunkSize);
+    checkNotNull(executor);
+    if (path.getFileSystem() != FileSystems.getDefault()) {
+      return hash(MoreFiles.asByteSource(path), hashFunction, chunkSize, executor);
+    }
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      long size = channel.size();
+      HashCode[] chunkHashCodes = new HashCode[chunkCount(size, chunkSize)];
+      return hashChunks(
+          hashFunction, chunkSize, size, chunkHashCodes, mappingHasher(channel), executor);
+    }
+  }
+
+  private final HashFunction hashFunction;
+  private final int chunkSize;
+  private final long size;
+  private final ImmutableList<HashCode> chunkHashCodes;
+  private final HashCode root;
+
+  private ChunkedHashCode(
+      HashFunction hashFunction, int chunkSize, long size, ImmutableList<HashCode> chunkHashCodes) {
+    this.hashFunction = hashFunction;
+    this.chunkSize = chunkSize;
+    this.size = size;
+    this.chunkHashCodes = chunkHashCodes;
+    this.root = merkleRoot(chunkHashCodes);
+  }
+
+  /** Returns the hash function with which the chunks were hashed. */
+  public HashFunction hashFunction() {
+    return hashFunction;
+  }
+
+  /** Returns the size of every chunk but the last. */
+  public int chunkSize() {
+    return chunkSize;
+  }
+
+  /** Returns the total number of bytes in all chunks. */
+  public long size() {
+    return size;
+  }
+
+  /** Returns the hash codes of the chunks, in order. The list is never empty. */
+  public ImmutableList<HashCode> chunkHashCodes() {
+    return chunkHashCodes;
+  }
+
+  /** Returns the hash code that combines the hash codes of all chunks, as described above. */
+  public HashCode root() {
+    return root;
+  }
+
+  /**
+   * Returns the chunked hash code of the bytes of {@code source}, assuming that, of the bytes
+   * hashed by this instance, only those in the chunks with the given indices have changed. Only
+   * those chunks are read and hashed again, along with any chunks that were added, removed or
+   * resized because the size of the contents changed. Indices of chunks that no longer exist are
+   * ignored.
+   *
+   * <p>This does not check that the other chunks are indeed unchanged; {@link #hash(ByteSource,
+   * HashFunction, int, Executor)} followed by {@link #changedChunks} does that.
+   *
+   * @throws IllegalArgumentException if any index is negative, or if the contents would consist
+   *     of more than {@link Integer#MAX_VALUE} chunks
+   * @throws IOException if an I/O error occurs while reading {@code source}
+   */
+  public ChunkedHashCode rehash(
+      ByteSource source, Iterable<Integer> changedChunks, Executor executor) throws IOException {
+    checkNotNull(changedChunks);
+    checkNotNull(executor);
+    long newSize = source.size();
+    HashCode[] newChunkHashCodes = unchangedChunkHashCodes(newSize, changedChunks);
+    return hashChunks(
+        hashFunction, chunkSize, newSize, newChunkHashCodes, sliceHasher(source), executor);
+  }
+
+  /**
+   * As {@link #rehash(ByteSource, Iterable, Executor)}, for the contents of the file located by the
+   * given path, mapping the chunks that need to be hashed again as in {@link #hash(Path,
+   * HashFunction, int, Executor)}.
+   */
+  @J2ObjCIncompatible // java.nio.file
+  public ChunkedHashCode rehash(Path path, Iterable<Integer> changedChunks, Executor executor)
+      throws IOException {
+    checkNotNull(changedChunks);
+    checkNotNull(executor);
+    if (path.getFileSystem() != FileSystems.getDefault()) {
+      return rehash(MoreFiles.asByteSource(path), changedChunks, executor);
+    }
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      long newSize = channel.size();
+      HashCode[] newChunkHashCodes = unchangedChunkHashCodes(newSize, changedChunks);
+      return hashChunks(
+          hashFunction, chunkSize, newSize, newChunkHashCodes, mappingHasher(channel), executor);
+    }
+  }
+
+  /**
+   * Returns the indices of the chunks whose hash codes differ between this instance and {@code
+   * other}, including those of the chunks that exist in only one of them.
+   *
+   * @throws IllegalArgumentException if {@code other} uses a different hash function or chunk size
+   */
+  public ImmutableSortedSet<Integer> changedChunks(ChunkedHashCode other) {
+    checkArgument(
+        hashFunction.equals(other.hashFunction) && chunkSize == other.chunkSize,
+        "Cannot compare chunked hash codes with different hash functions or chunk sizes");
+    ImmutableSortedSet.Builder<Integer> changed = ImmutableSortedSet.naturalOrder();
+    int commonChunks = Math.min(chunkHashCodes.size(), other.chunkHashCodes.size());
+    for (int i = 0; i < commonChunks; i++) {
+      if (!chunkHashCodes.get(i).equals(other.chunkHashCodes.get(i))) {
+        changed.add(i);
+      }
+    }
+    int chunks = Math.max(chunkHashCodes.size(), other.chunkHashCodes.size());
+    for (int i = commonChunks; i < chunks; i++) {
+      changed.add(i);
+    }
+    return changed.build();
+  }
+
+  @Override
+  public boolean equals(@Nullable Object object) {
+    if (object instanceof ChunkedHashCode) {
+      ChunkedHashCode that = (ChunkedHashCode) object;
+      return this.chunkSize == that.chunkSize
+          && this.size == that.size
+          && this.hashFunction.equals(that.hashFunction)
+          && this.chunkHashCodes.equals(that.chunkHashCodes);
+    }
+    return false;
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hashCode(hashFunction, chunkSize, size, root);
+  }
+
+  @Override
+  public String toString() {
+    return MoreObjects.toStringHelper(this)
+        .add("hashFunction", hashFunction)
+        .add("chunkSize", chunkSize)
+        .add("size", size)
+        .add("root", root)
+        .toString();
+  }
+
+  /**
+   * Returns an array with an element for each chunk of contents of {@code newSize} bytes, holding
+   * the hash code of this instance for that chunk if it is unaffected, or null if it must be
+   * hashed again.
+   */
+  private HashCode[] unchangedChunkHashCodes(long newSize, Iterable<Integer> changedChunks) {
+    HashCode[] newChunkHashCodes = new HashCode[chunkCount(newSize, chunkSize)];
+    // If the size changed, only the chunks that end before both the old and the new size are
+    // unaffected by it.
+    int unaffected =
+        newSize == size ? chunkHashCodes.size() : (int) (Math.min(size, newSize) / chunkSize);
+    for (int i = 0; i < unaffected; i++) {
+      newChunkHashCodes[i] = chunkHashCodes.get(i);
+    }
+    for (int index : changedChunks) {
+      checkArgument(index >= 0, "chunk index (%s) may not be negative", index);
+      if (index < newChunkHashCodes.length) {
+        newChunkHashCodes[index] = null;
+      }
+    }
+    return newChunkHashCodes;
+  }
+
+  /** Hashes the chunk of {@code length} bytes at {@code offset}. */
+  private interface ChunkHasher {
+    HashCode hash(HashFunction hashFunction, long offset, int length) throws IOException;
+  }
+
+  private static ChunkHasher sliceHasher(ByteSource source) {
+    return (hashFunction, offset, length) -> source.slice(offset, length).hash(hashFunction);
+  }
+
+  private static ChunkHasher mappingHasher(FileChannel channel) {
+    return (hashFunction, offset, length) ->
+        hashFunction.hashBytes(channel.map(MapMode.READ_ONLY, offset, length));
+  }
+
+  /**
+   * Hashes the chunks whose elements in {@code chunkHashCodes} are null concurrently, and returns
+   * the resulting chunked hash code once all of them are done.
+   */
+  private static ChunkedHashCode hashChunks(
+      HashFunction hashFunction,
+      int chunkSize,
+      long size,
+      @Nullable HashCode[] chunkHashCodes,
+      ChunkHasher chunkHasher,
+      Executor executor)
+      throws IOException {
+    List<Integer> indices = new ArrayList<>();
+    List<FutureTask<HashCode>> tasks = new ArrayList<>();
+    try {
+      for (int i = 0; i < chunkHashCodes.length; i++) {
+        if (chunkHashCodes[i] == null) {
+          long offset = (long) i * chunkSize;
+          int length = (int) Math.min(chunkSize, size - offset);
+          FutureTask<HashCode> task =
+              new FutureTask<>(() -> chunkHasher.hash(hashFunction, offset, length));
+          indices.add(i);
+          tasks.add(task);
+          executor.execute(task);
+        }
+      }
+      // If several chunks fail, this reports the failure of the first of them.
+      for (int i = 0; i < indices.size(); i++) {
+        chunkHashCodes[indices.get(i)] = tasks.get(i).get();
+      }
+    } catch (InterruptedException e) {
+      cancelAll(tasks);
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException();
+    } catch (ExecutionException e) {
+      cancelAll(tasks);
+      Throwable cause = e.getCause();
+      throwIfInstanceOf(cause, IOException.class);
+      throwIfUnchecked(cause);
+      throw new IOException(cause);
+    } catch (RuntimeException | Error e) {
+      cancelAll(tasks);
+      throw e;
+    }
+    return new ChunkedHashCode(
+        hashFunction, chunkSize, size, ImmutableList.copyOf(Arrays.asList(chunkHashCodes)));
+  }
+
+  private static void cancelAll(List<FutureTask<HashCode>> tasks) {
+    for (FutureTask<HashCode> task : tasks) {
+      task.cancel(false);
+    }
+  }
+
+  private static int chunkCount(long size, int chunkSize) {
+    long chunks = size == 0 ? 1 : (size - 1) / chunkSize + 1;
+    checkArgument(
+        chunks <= Integer.MAX_VALUE, "too many chunks of %s bytes in %s bytes", chunkSize, size);
+    return (int) chunks;
+  }
+
+  private static HashCode merkleRoot(List<HashCode> hashCodes) {
+    List<HashCode> level = hashCodes;
+    while (level.size() > 1) {
+      List<HashCode> nextLevel = new ArrayList<>((level.size() + 1) / 2);
+      for (int i = 0; i + 1 < level.size(); i += 2) {
+        nextLevel.add(Hashing.combineOrdered(level.subList(i, i + 2)));
+      }
+      if (level.size() % 2 == 1) {
+        nextLevel.add(level.get(level.size() - 1));
+      }
+      level = nextLevel;
+    }
+    return level.get(0);
+  }
+}
@@ -14,6 +14,9 @@
 
 package com.google.common.io;
 
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
 import com.google.common.annotations.Beta;
 import com.google.common.annotations.GwtIncompatible;
 import com.google.common.annotations.VisibleForTesting;
@@ -25,12 +28,17 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.util.concurrent.Executor;
 import org.checkerframework.checker.nullness.qual.Nullable;
 
 /**
  * An {@link OutputStream} that starts buffering to a byte array, but switches to file buffering
  * once the data reaches a configurable size.
  *
+ * <p>Instances created with {@link #FileBackedOutputStream(int, long, Executor)} buffer in three
+ * tiers instead: byte arrays, then direct byte buffers, and then a file that the direct buffers are
+ * written to in the background.
+ *
  * <p>This class is thread-safe.
  *
  * @author Chris Nokleberg
@@ -47,6 +55,7 @@ public final class FileBackedOutputStream extends OutputStream {
   private OutputStream out;
   private MemoryOutput memory;
   private @Nullable File file;
+  private final @Nullable SpillingOutputStream tiered;
 
   /** ByteArrayOutputStream that exposes its internals. */
   private static class MemoryOutput extends ByteArrayOutputStream {
@@ -62,7 +71,7 @@ public final class FileBackedOutputStream extends OutputStream {
   /** Returns the file holding the data (possibly null). */
   @VisibleForTesting
   synchronized File getFile() {
-    return file;
+    return (tiered != null) ? tiered.getFile() : file;
   }
 
   /**
@@ -86,6 +95,7 @@ public final class FileBackedOutputStream extends OutputStream {
   public FileBackedOutputStream(int fileThreshold, boolean resetOnFinalize) {
     this.fileThreshold = fileThreshold;
     this.resetOnFinalize = resetOnFinalize;
+    this.tiered = null;
     memory = new MemoryOutput();
     out = memory;
 
@@ -117,6 +127,44 @@ public final class FileBackedOutputStream extends OutputStream {
     }
   }
 
+  /**
+   * Creates a new instance that buffers the first {@code heapThreshold} bytes in byte arrays and
+   * the following ones in direct byte buffers. Once about half of {@code directThreshold} bytes are
+   * held in direct buffers, the oldest of them are written to a file by a task on {@code
+   * spillExecutor}, so that writing to this stream doesn't wait for the file unless the direct
+   * buffers are full. Streams opened by {@link #asByteSource} read each part of the data from
+   * whichever tier holds it, without copying the data to a file first.
+   *
+   * <p>The direct buffers are reused once their contents have been written to the file, so up to
+   * {@code directThreshold} bytes of them stay allocated until this stream is garbage collected.
+   * The file is kept open only while this stream is open or still writing to it, and streams
+   * opened by {@link #asByteSource} open it themselves. The data is not reset when the {@link
+   * ByteSource} returned by {@link #asByteSource} is finalized; call {@link #reset} to delete the
+   * file.
+   *
+   * @param heapThreshold the number of bytes to buffer in byte arrays
+   * @param directThreshold the number of bytes to buffer in direct byte buffers before writing to
+   *     the file waits for the spilling to catch up; at least 128K are used
+   * @param spillExecutor the executor that writes the direct buffers to the file
+   * @since NEXT
+   */
+  public FileBackedOutputStream(int heapThreshold, long directThreshold, Executor spillExecutor) {
+    checkArgument(heapThreshold >= 0, "heapThreshold (%s) must be >= 0", heapThreshold);
+    checkArgument(directThreshold >= 0, "directThreshold (%s) must be >= 0", directThreshold);
+    this.fileThreshold = heapThreshold;
+    this.resetOnFinalize = false;
+    this.tiered =
+        new SpillingOutputStream(heapThreshold, directThreshold, checkNotNull(spillExecutor));
+    out = tiered;
+    source =
+        new ByteSource() {
+          @Override
+          public InputStream openStream() throws IOException {
+            return openInputStream();
+          }
+        };
+  }
+
   /**
    * Returns a readable {@link ByteSource} view of the data that has been written to this stream.
    *
@@ -127,7 +175,9 @@ public final class FileBackedOutputStream extends OutputStream {
   }
 
   private synchronized InputStream openInputStream() throws IOException {
-    if (file != null) {
+    if (tiered != null) {
+      return tiered.openInputStream();
+    } else if (file != null) {
       return new FileInputStream(file);
     } else {
       return new ByteArrayInputStream(memory.getBuffer(), 0, memory.getCount());
@@ -144,17 +194,21 @@ public final class FileBackedOutputStream extends OutputStream {
     try {
       close();
     } finally {
-      if (memory == null) {
-        memory = new MemoryOutput();
+      if (tiered != null) {
+        tiered.reset();
       } else {
-        memory.reset();
-      }
-      out = memory;
-      if (file != null) {
-        File deleteMe = file;
-        file = null;
-        if (!deleteMe.delete()) {
-          throw new IOException("Could not delete: " + deleteMe);
+        if (memory == null) {
+          memory = new MemoryOutput();
+        } else {
+          memory.reset();
+        }
+        out = memory;
+        if (file != null) {
+          File deleteMe = file;
+          file = null;
+          if (!deleteMe.delete()) {
+            throw new IOException("Could not delete: " + deleteMe);
+          }
         }
       }
     }
@@ -192,7 +246,7 @@ public final class FileBackedOutputStream extends OutputStream {
    * so.
    */
   private void update(int len) throws IOException {
-    if (file == null && (memory.getCount() + len > fileThreshold)) {
+    if (tiered == null && file == null && (memory.getCount() + len > fileThreshold)) {
       File temp = File.createTempFile("FileBackedOutputStream", null);
       if (resetOnFinalize) {
         // Finalizers are not guaranteed to be called on system shutdown;
@@ -44,14 +44,19 @@ import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.io.RandomAccessFile;
 import java.nio.MappedByteBuffer;
+import java.nio.channels.AsynchronousFileChannel;
 import java.nio.channels.FileChannel;
 import java.nio.channels.FileChannel.MapMode;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import org.checkerframework.checker.nullness.qual.Nullable;
 
 /**
  * Provides utility methods for working with {@linkplain File files}.
@@ -147,6 +152,26 @@ public final class Files {
       return file.length();
     }
 
+    @Override
+    @Nullable FileChannel openFileChannel() throws IOException {
+      // FileChannel.transferTo relies on the size of the file, so leave FIFOs, devices and files
+      // that report no size, like those in /proc, to the streams
+      if (!file.isFile() || file.length() == 0) {
+        return null;
+      }
+      return openStream().getChannel();
+    }
+
+    @Override
+    @Nullable AsynchronousFileChannel openAsynchronousChannel(ExecutorService executor)
+        throws IOException {
+      if (!file.isFile()) {
+        return null; // let openStream() report it
+      }
+      return AsynchronousFileChannel.open(
+          file.toPath(), EnumSet.of(StandardOpenOption.READ), executor);
+    }
+
     @Override
     public byte[] read() throws IOException {
       Closer closer = Closer.create();
@@ -193,6 +218,26 @@ public final class Files {
       return new FileOutputStream(file, modes.contains(APPEND));
     }
 
+    @Override
+    FileChannel openChannel() throws IOException {
+      return openStream().getChannel();
+    }
+
+    @Override
+    @Nullable AsynchronousFileChannel openAsynchronousChannel(ExecutorService executor)
+        throws IOException {
+      if (modes.contains(APPEND)) {
+        return null; // asynchronous channels can't append
+      }
+      return AsynchronousFileChannel.open(
+          file.toPath(),
+          EnumSet.of(
+              StandardOpenOption.WRITE,
+              StandardOpenOption.CREATE,
+              StandardOpenOption.TRUNCATE_EXISTING),
+          executor);
+    }
+
     @Override
     public String toString() {
       return "Files.asByteSink(" + file + ", " + modes + ")";
@@ -705,6 +750,42 @@ public final class Files {
     }
   }
 
+  /**
+   * Maps a file read-only in to memory, and returns a {@link ByteSource} that reads the mapped
+   * bytes. Unlike {@link #map(File)}, this works for files of any size: files larger than 1 GB are
+   * mapped as several consecutive regions.
+   *
+   * <p>The source's {@linkplain ByteSource#slice slices} share the mapping, and reading from the
+   * source or its slices, {@linkplain ByteSource#hash hashing} them or {@linkplain
+   * ByteSource#contentEquals comparing} them reads the mapped memory directly, without any system
+   * calls. This makes it well suited to random access to large files that don't change.
+   *
+   * <p>The file is mapped when this method is called, and its size is fixed then. The file is not
+   * kept open, but the mapping stays valid until the source and its slices are garbage collected.
+   * The result of reading the source is unspecified if the file is truncated or modified
+   * afterwards.
+   *
+   * @param file the file to map
+   * @throws FileNotFoundException if the {@code file} does not exist
+   * @throws IOException if an I/O error occurs
+   * @since NEXT
+   */
+  @Beta
+  public static ByteSource mapAsByteSource(File file) throws IOException {
+    checkNotNull(file);
+    Closer closer = Closer.create();
+    try {
+      RandomAccessFile raf = closer.register(new RandomAccessFile(file, "r"));
+      FileChannel channel = closer.register(raf.getChannel());
+      return MappedByteSource.map(
+          channel, MappedByteSource.REGION_SIZE, "Files.mapAsByteSource(" + file + ")");
+    } catch (Throwable e) {
+      throw closer.rethrow(e);
+    } finally {
+      closer.close();
+    }
+  }
+
   /**
    * Returns the lexically cleaned form of the path name, <i>usually</i> (but not always) equivalent
    * to the original. The following heuristics are used:
@@ -0,0 +1,300 @@
+/*
+ * Copyright (C) 2019 The Guava Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.common.io;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkPositionIndexes;
+
+import com.google.common.annotations.GwtIncompatible;
+import com.google.common.base.Optional;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hasher;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * A source that reads a file that has been mapped into memory. Files larger than a region, which
+ * is 1 GB by default, are mapped as consecutive regions, so files of any size can be read. Slices
+ * of the source share the mappings, and reading from them doesn't make any system calls.
+ *
+ * <p>The regions are never written to, and are only read through duplicates, so the source can be
+ * used from several threads at once.
+ */
+@GwtIncompatible
+final class MappedByteSource extends ByteSource {
+  /** The size of the regions that files are mapped in. */
+  static final long REGION_SIZE = 1L << 30;
+
+  private final ByteBuffer[] regions;
+  private final long regionSize;
+  private final long offset;
+  private final long length;
+  private final String description;
+
+  private MappedByteSource(
+      ByteBuffer[] regions, long regionSize, long offset, long length, String description) {
+    this.regions = regions;
+    this.regionSize = regionSize;
+    this.offset = offset;
+    this.length = length;
+    this.description = description;
+  }
+
+  /**
+   * Maps the whole of {@code channel} read-only, in regions of {@code regionSize} bytes. The
+   * channel may be closed afterwards; the mappings stay valid until they're garbage collected.
+   */
+  static MappedByteSource map(FileChannel channel, long regionSize, String description)
+      throws IOException {
+    checkArgument(regionSize > 0 && regionSize <= Integer.MAX_VALUE);
+    long size = channel.size();
+    ByteBuffer[] regions = new ByteBuffer[(int) ((size + regionSize - 1) / regionSize)];
+    for (int i = 0; i < regions.length; i++) {
+      long start = i * regionSize;
+      regions[i] = channel.map(MapMode.READ_ONLY, start, Math.min(regionSize, size - start));
+    }
+    return new MappedByteSource(regions, regionSize, 0, size, description);
+  }
+
+  /**
+   * Returns a duplicate of the region that holds the byte at {@code position} in this source,
+   * positioned at that byte and limited to the end of the region or of this source.
+   */
+  private ByteBuffer regionAt(long position) {
+    long absolute = offset + position;
+    ByteBuffer region = regions[(int) (absolute / regionSize)].duplicate();
+    int start = (int) (absolute % regionSize);
+    region.limit((int) Math.min(region.limit(), start + (length - position)));
+    region.position(start);
+    return region;
+  }
+
+  @Override
+  public InputStream openStream() {
+    return new MappedInputStream();
+  }
+
+  @Override
+  public InputStream openBufferedStream() {
+    return openStream();
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return length == 0;
+  }
+
+  @Override
+  public long size() {
+    return length;
+  }
+
+  @Override
+  public Optional<Long> sizeIfKnown() {
+    return Optional.of(length);
+  }
+
+  @Override
+  public byte[] read() {
+    if (length > Integer.MAX_VALUE - 8) {
+      throw new OutOfMemoryError("file is too large to fit in a byte array: " + length + " bytes");
+    }
+    byte[] bytes = new byte[(int) length];
+    int copied = 0;
+    while (copied < length) {
+      ByteBuffer region = regionAt(copied);
+      int n = region.remaining();
+      region.get(bytes, copied, n);
+      copied += n;
+    }
+    return bytes;
+  }
+
+  @Override
+  public <T> T read(ByteProcessor<T> processor) throws IOException {
+    checkNotNull(processor);
+    // processors only take arrays, so the bytes are copied to one a buffer at a time
+    byte[] buf = BufferPool.takeByteArray();
+    try {
+      for (long position = 0; position < length; ) {
+        ByteBuffer region = regionAt(position);
+        while (region.hasRemaining()) {
+          int n = Math.min(buf.length, region.remaining());
+          region.get(buf, 0, n);
+          position += n;
+          if (!processor.processBytes(buf, 0, n)) {
+            return processor.getResult();
+          }
+        }
+      }
+      return processor.getResult();
+    } finally {
+      BufferPool.returnByteArray(buf);
+    }
+  }
+
+  @Override
+  public long copyTo(OutputStream output) throws IOException {
+    checkNotNull(output);
+    byte[] buf = BufferPool.takeByteArray();
+    try {
+      for (long position = 0; position < length; ) {
+        ByteBuffer region = regionAt(position);
+        while (region.hasRemaining()) {
+          int n = Math.min(buf.length, region.remaining());
+          region.get(buf, 0, n);
+          output.write(buf, 0, n);
+          position += n;
+        }
+      }
+      return length;
+    } finally {
+      BufferPool.returnByteArray(buf);
+    }
+  }
+
+  @Override
+  public long copyTo(WritableByteChannel channel) throws IOException {
+    checkNotNull(channel);
+    for (long position = 0; position < length; ) {
+      ByteBuffer region = regionAt(position);
+      position += region.remaining();
+      while (region.hasRemaining()) {
+        channel.write(region);
+      }
+    }
+    return length;
+  }
+
+  @Override
+  public HashCode hash(HashFunction hashFunction) {
+    Hasher hasher = hashFunction.newHasher();
+    for (long position = 0; position < length; ) {
+      ByteBuffer region = regionAt(position);
+      position += region.remaining();
+      hasher.putBytes(region);
+    }
+    return hasher.hash();
+  }
+
+  @Override
+  public boolean contentEquals(ByteSource other) throws IOException {
+    checkNotNull(other);
+    if (!(other instanceof MappedByteSource)) {
+      return super.contentEquals(other);
+    }
+    MappedByteSource that = (MappedByteSource) other;
+    if (this.length != that.length) {
+      return false;
+    }
+    // compare the parts in which neither source crosses from one region to the next
+    for (long position = 0; position < length; ) {
+      ByteBuffer thisRegion = this.regionAt(position);
+      ByteBuffer thatRegion = that.regionAt(position);
+      int n = Math.min(thisRegion.remaining(), thatRegion.remaining());
+      thisRegion.limit(thisRegion.position() + n);
+      thatRegion.limit(thatRegion.position() + n);
+      if (!thisRegion.equals(thatRegion)) {
+        return false;
+      }
+      position += n;
+    }
+    return true;
+  }
+
+  @Override
+  public ByteSource slice(long offset, long length) {
+    checkArgument(offset >= 0, "offset (%s) may not be negative", offset);
+    checkArgument(length >= 0, "length (%s) may not be negative", length);
+    offset = Math.min(offset, this.length);
+    length = Math.min(length, this.length - offset);
+    return new MappedByteSource(
+        regions,
+        regionSize,
+        this.offset + offset,
+        length,
+        description + ".slice(" + offset + ", " + length + ")");
+  }
+
+  @Override
+  public String toString() {
+    return description;
+  }
+
+  /** A stream that reads the regions through duplicates of them. */
+  private final class MappedInputStream extends InputStream {
+    private long position;
+    private long mark;
+
+    @Override
+    public int read() {
+      if (position >= length) {
+        return -1;
+      }
+      long absolute = offset + position++;
+      return regions[(int) (absolute / regionSize)].get((int) (absolute % regionSize)) & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) {
+      checkPositionIndexes(off, off + len, b.length);
+      if (len == 0) {
+        return 0;
+      }
+      if (position >= length) {
+        return -1;
+      }
+      ByteBuffer region = regionAt(position);
+      int n = Math.min(len, region.remaining());
+      region.get(b, off, n);
+      position += n;
+      return n;
+    }
+
+    @Override
+    public long skip(long n) {
+      long skipped = Math.max(0, Math.min(n, length - position));
+      position += skipped;
+      return skipped;
+    }
+
+    @Override
+    public int available() {
+      return (int) Math.min(length - position, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public boolean markSupported() {
+      return true;
+    }
+
+    @Override
+    public void mark(int readlimit) {
+      mark = position;
+    }
+
+    @Override
+    public void reset() {
+      position = mark;
+    }
+  }
+}
@@ -0,0 +1,233 @@
+/*
+ * Copyright (C) 2019 The Guava Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.common.io;
+
+import static java.nio.charset.StandardCharsets.ISO_8859_1;
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.common.annotations.GwtIncompatible;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * A {@link Spliterator} over the lines of a range of a file, which it reads by mapping the file
+ * into memory a window at a time. It splits at line boundaries, so that the lines of a large file
+ * can be decoded in parallel.
+ *
+ * <p>Lines are terminated by {@code \r\n}, {@code \r} or {@code \n}, like those returned by {@link
+ * java.io.BufferedReader#readLine()}. This only works for charsets in which the bytes of those
+ * characters can't be part of other characters; see {@link #supports}.
+ */
+@GwtIncompatible
+final class MappedLineSpliterator implements Spliterator<String> {
+  /** The most bytes that a spliterator maps at a time, unless a line is longer. */
+  private static final int WINDOW_SIZE = 1 << 26;
+
+  /** Ranges smaller than this aren't worth splitting further. */
+  private static final long MIN_SPLIT_SIZE = 1 << 16;
+
+  private final FileChannel channel;
+  private final Charset charset;
+  private final long fileSize;
+  private long position;
+  private final long end;
+
+  private ByteBuffer window;
+  private long windowStart;
+  private byte[] lineBuffer = new byte[128];
+
+  private MappedLineSpliterator(FileChannel channel, Charset charset, long fileSize, long end) {
+    this.channel = channel;
+    this.charset = charset;
+    this.fileSize = fileSize;
+    this.end = end;
+  }
+
+  /** Returns whether the lines of text in the given charset can be split at the byte level. */
+  static boolean supports(Charset charset) {
+    return charset.equals(UTF_8) || charset.equals(US_ASCII) || charset.equals(ISO_8859_1);
+  }
+
+  /**
+   * Returns a parallel stream of the lines of the file that {@code channel} reads, which is
+   * closed when the stream is closed. Throws {@link UnsupportedOperationException}, and leaves
+   * {@code channel} open, if the file can't be mapped.
+   */
+  static Stream<String> lines(FileChannel channel, Charset charset) throws IOException {
+    long size = channel.size();
+    MappedLineSpliterator spliterator = new MappedLineSpliterator(channel, charset, size, size);
+    if (size > 0) {
+      // map the first window eagerly, so that a file system that doesn't support mapping fails
+      // here rather than in the stream
+      spliterator.map(0, (int) Math.min(size, WINDOW_SIZE));
+    }
+    return StreamSupport.stream(spliterator, true)
+        .onClose(
+            () -> {
+              try {
+                channel.close();
+              } catch (IOException e) {
+                throw new UncheckedIOException(e);
+              }
+            });
+  }
+
+  @Override
+  public boolean tryAdvance(Consumer<? super String> action) {
+    if (position >= end) {
+      return false;
+    }
+    action.accept(nextLine());
+    return true;
+  }
+
+  @Override
+  public void forEachRemaining(Consumer<? super String> action) {
+    while (position < end) {
+      action.accept(nextLine());
+    }
+  }
+
+  @Override
+  public Spliterator<String> trySplit() {
+    if (end - position < MIN_SPLIT_SIZE) {
+      return null;
+    }
+    long split;
+    try {
+      split = nextLineStart(position + (end - position) / 2);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    if (split >= end) {
+      return null;
+    }
+    MappedLineSpliterator prefix = new MappedLineSpliterator(channel, charset, fileSize, split);
+    prefix.position = position;
+    prefix.window = (window == null) ? null : window.duplicate();
+    prefix.windowStart = windowStart;
+    position = split;
+    return prefix;
+  }
+
+  @Override
+  public long estimateSize() {
+    return end - position;
+  }
+
+  @Override
+  public int characteristics() {
+    return ORDERED | NONNULL;
+  }
+
+  /** Returns the line that starts at {@code position}, and moves past its terminator. */
+  private String nextLine() {
+    try {
+      long lineEnd = findTerminator(position, end);
+      String line = decode(position, (int) (lineEnd - position));
+      position = (lineEnd < end) ? lineStart(lineEnd) : end;
+      return line;
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * Returns the position just after the first line terminator at or after {@code from}, or {@code
+   * end} if there is none.
+   */
+  private long nextLineStart(long from) throws IOException {
+    long terminator = findTerminator(from, end);
+    return (terminator < end) ? lineStart(terminator) : end;
+  }
+
+  /** Returns the position just after the line terminator at {@code terminator}. */
+  private long lineStart(long terminator) throws IOException {
+    // treat \r\n as one terminator
+    return (byteAt(terminator) == '\r' && terminator + 1 < end && byteAt(terminator + 1) == '\n')
+        ? terminator + 2
+        : terminator + 1;
+  }
+
+  /**
+   * Returns the position of the first {@code \r} or {@code \n} at or after {@code from} and
+   * before {@code limit}, or {@code limit} if there is none. When this returns, the window contains
+   * all bytes from {@code from} to the returned position.
+   */
+  private long findTerminator(long from, long limit) throws IOException {
+    ensureMapped(from);
+    int i = (int) (from - windowStart);
+    while (true) {
+      int scanLimit = (int) Math.min(window.limit(), limit - windowStart);
+      for (; i < scanLimit; i++) {
+        byte b = window.get(i);
+        if (b == '\n' || b == '\r') {
+          return windowStart + i;
+        }
+      }
+      long windowEnd = windowStart + scanLimit;
+      if (windowEnd >= limit) {
+        return limit;
+      }
+      // the line continues past the window, so map one that starts at the line and is larger
+      long length = Math.max(WINDOW_SIZE, 2 * (windowEnd - from));
+      if (length > Integer.MAX_VALUE) {
+        throw new IOException("line too long to be read: more than " + (windowEnd - from));
+      }
+      map(from, (int) length);
+      i = (int) (windowEnd - from);
+    }
+  }
+
+  private byte byteAt(long pos) throws IOException {
+    ensureMapped(pos);
+    return window.get((int) (pos - windowStart));
+  }
+
+  private String decode(long from, int length) throws IOException {
+    if (length == 0) {
+      return "";
+    }
+    if (length > lineBuffer.length) {
+      lineBuffer = Arrays.copyOf(lineBuffer, Math.max(length, lineBuffer.length * 2));
+    }
+    // findTerminator has made the window contain the line
+    window.position((int) (from - windowStart));
+    window.get(lineBuffer, 0, length);
+    return new String(lineBuffer, 0, length, charset);
+  }
+
+  private void ensureMapped(long pos) throws IOException {
+    if (window == null || pos < windowStart || pos >= windowStart + window.limit()) {
+      map(pos, WINDOW_SIZE);
+    }
+  }
+
+  /** Maps up to {@code length} bytes starting at {@code start}, but not past the end of file. */
+  private void map(long start, int length) throws IOException {
+    windowStart = start;
+    window = channel.map(MapMode.READ_ONLY, start, Math.min(length, fileSize - start));
+  }
+}
@@ -16,6 +16,7 @@
 
 package com.google.common.io;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 import static java.nio.file.LinkOption.NOFOLLOW_LINKS;
 
@@ -26,11 +27,18 @@ import com.google.common.base.Predicate;
 import com.google.common.collect.ImmutableList;
 import com.google.common.graph.SuccessorsFunction;
 import com.google.common.graph.Traverser;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
 import com.google.j2objc.annotations.J2ObjCIncompatible;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.channels.AsynchronousFileChannel;
 import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
 import java.nio.channels.SeekableByteChannel;
 import java.nio.charset.Charset;
 import java.nio.file.DirectoryIteratorException;
@@ -49,9 +57,19 @@ import java.nio.file.attribute.BasicFileAttributeView;
 import java.nio.file.attribute.BasicFileAttributes;
 import java.nio.file.attribute.FileAttribute;
 import java.nio.file.attribute.FileTime;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 import java.util.stream.Stream;
 import org.checkerframework.checker.nullness.qual.Nullable;
 
@@ -154,6 +172,48 @@ public final class MoreFiles {
       return attrs.size();
     }
 
+    @Override
+    @Nullable FileChannel openFileChannel() throws IOException {
+      // FileChannel.transferTo relies on the size of the file, so leave FIFOs, devices and files
+      // that report no size, like those in /proc, to the streams
+      BasicFileAttributes attrs;
+      try {
+        attrs = readAttributes();
+      } catch (IOException e) {
+        return null; // let openStream() report it
+      }
+      if (!attrs.isRegularFile() || attrs.size() == 0) {
+        return null;
+      }
+      SeekableByteChannel channel = Files.newByteChannel(path, options);
+      if (channel instanceof FileChannel) {
+        return (FileChannel) channel;
+      }
+      channel.close();
+      return null;
+    }
+
+    @Override
+    @Nullable AsynchronousFileChannel openAsynchronousChannel(ExecutorService executor)
+        throws IOException {
+      BasicFileAttributes attrs;
+      try {
+        attrs = readAttributes();
+      } catch (IOException e) {
+        return null; // let openStream() report it
+      }
+      if (!attrs.isRegularFile()) {
+        return null;
+      }
+      Set<OpenOption> channelOptions = new HashSet<>(Arrays.asList(options));
+      channelOptions.add(StandardOpenOption.READ);
+      try {
+        return AsynchronousFileChannel.open(path, channelOptions, executor);
+      } catch (UnsupportedOperationException e) {
+        return null; // the file system or one of the options doesn't support it
+      }
+    }
+
     @Override
     public byte[] read() throws IOException {
       try (SeekableByteChannel channel = Files.newByteChannel(path, options)) {
@@ -216,6 +276,41 @@ public final class MoreFiles {
       return Files.newOutputStream(path, options);
     }
 
+    @Override
+    SeekableByteChannel openChannel() throws IOException {
+      return Files.newByteChannel(path, channelOptions());
+    }
+
+    @Override
+    @Nullable AsynchronousFileChannel openAsynchronousChannel(ExecutorService executor)
+        throws IOException {
+      Set<OpenOption> channelOptions = channelOptions();
+      if (channelOptions.contains(StandardOpenOption.APPEND)) {
+        return null; // asynchronous channels can't append
+      }
+      try {
+        return AsynchronousFileChannel.open(path, channelOptions, executor);
+      } catch (UnsupportedOperationException e) {
+        return null; // the file system or one of the options doesn't support it
+      }
+    }
+
+    /** Returns the options with which to open channels, the same as Files.newOutputStream's. */
+    private Set<OpenOption> channelOptions() {
+      Set<OpenOption> channelOptions = new HashSet<>();
+      if (options.length == 0) {
+        channelOptions.add(StandardOpenOption.CREATE);
+        channelOptions.add(StandardOpenOption.TRUNCATE_EXISTING);
+      } else {
+        for (OpenOption option : options) {
+          checkArgument(option != StandardOpenOption.READ, "READ not allowed");
+          channelOptions.add(option);
+        }
+      }
+      channelOptions.add(StandardOpenOption.WRITE);
+      return channelOptions;
+    }
+
     @Override
     public String toString() {
       return "MoreFiles.asByteSink(" + path + ", " + Arrays.toString(options) + ")";
@@ -312,6 +407,108 @@ public final class MoreFiles {
     return ImmutableList.of();
   }
 
+  /**
+   * Passes {@code start} and, if it is a directory, every file and directory in the tree under it
+   * to {@code visitor}, reading the directories in parallel in {@code pool}. Each directory is
+   * passed to the visitor before the files in it, but there is otherwise no guarantee about the
+   * order in which the files are visited, and the visitor is called from several threads at once.
+   *
+   * <p>Symbolic links are visited, but not followed. Where the file system supports {@link
+   * SecureDirectoryStream}, subdirectories are opened relative to their parent directories, so this
+   * is guaranteed even if the tree is modified during the walk; otherwise this method has the same
+   * caveat as {@link #fileTraverser}. If {@code start} does not exist or is not a directory, only
+   * {@code start} is visited.
+   *
+   * <p>Each directory is listed in batches, and only a bounded number of batches per directory are
+   * queued for other threads at any time, so the walk doesn't hold on to the whole listing of a
+   * large directory. The tasks in {@code pool} block on I/O, so it should be a pool dedicated to
+   * I/O rather than {@link ForkJoinPool#commonPool}.
+   *
+   * <p>If an I/O exception occurs attempting to read any directory, this method skips that
+   * directory and continues. All such exceptions are collected and, after the rest of the tree has
+   * been visited, an {@code IOException} is thrown containing those exceptions as {@linkplain
+   * Throwable#getSuppressed() suppressed exceptions}. Exceptions thrown by {@code visitor} are
+   * propagated to the caller, possibly after other files have been visited.
+   *
+   * @throws IOException if one or more directories can't be read
+   * @since NEXT
+   */
+  public static void walkFileTree(Path start, ForkJoinPool pool, Consumer<? super Path> visitor)
+      throws IOException {
+    checkNotNull(pool);
+    checkNotNull(visitor);
+    visitor.accept(start);
+    if (!Files.isDirectory(start, NOFOLLOW_LINKS)) {
+      return;
+    }
+
+    Collection<IOException> exceptions =
+        invoke(
+            pool,
+            () -> {
+              try (DirectoryStream<Path> stream = Files.newDirectoryStream(start)) {
+                return (stream instanceof SecureDirectoryStream)
+                    ? walkSecure((SecureDirectoryStream<Path>) stream, visitor)
+                    : walkInsecure(stream, visitor);
+              } catch (IOException e) {
+                return addException(null, e);
+              }
+            });
+    if (exceptions != null) {
+      FileSystemException walkFailed =
+          new FileSystemException(
+              start.toString(),
+              null,
+              "failed to read one or more directories; see suppressed exceptions for details");
+      for (IOException e : exceptions) {
+        walkFailed.addSuppressed(e);
+      }
+      throw walkFailed;
+    }
+  }
+
+  /** Visits the tree under {@code dir}, opening its subdirectories relative to it. */
+  private static @Nullable Collection<IOException> walkSecure(
+      SecureDirectoryStream<Path> dir, Consumer<? super Path> visitor) {
+    return forEachEntryInParallel(
+        dir,
+        entry -> {
+          visitor.accept(entry);
+          Path name = entry.getFileName();
+          try {
+            if (isDirectory(dir, name, NOFOLLOW_LINKS)) {
+              try (SecureDirectoryStream<Path> childDir =
+                  dir.newDirectoryStream(name, NOFOLLOW_LINKS)) {
+                return walkSecure(childDir, visitor);
+              }
+            }
+            return null;
+          } catch (IOException e) {
+            return addException(null, e);
+          }
+        });
+  }
+
+  /** Visits the tree under {@code dir} for file systems that don't support secure streams. */
+  private static @Nullable Collection<IOException> walkInsecure(
+      DirectoryStream<Path> dir, Consumer<? super Path> visitor) {
+    return forEachEntryInParallel(
+        dir,
+        entry -> {
+          visitor.accept(entry);
+          try {
+            if (Files.isDirectory(entry, NOFOLLOW_LINKS)) {
+              try (DirectoryStream<Path> stream = Files.newDirectoryStream(entry)) {
+                return walkInsecure(stream, visitor);
+              }
+            }
+            return null;
+          } catch (IOException e) {
+            return addException(null, e);
+          }
+        });
+  }
+
   /**
    * Returns a predicate that returns the result of {@link java.nio.file.Files#isDirectory(Path,
    * LinkOption...)} on input paths with the given link options.
@@ -387,6 +584,47 @@ public final class MoreFiles {
     return source1.contentEquals(source2);
   }
 
+  /**
+   * Returns the hash code of the contents of the file located by the given path, computed with
+   * {@code hashFunction}.
+   *
+   * <p>Unlike {@code asByteSource(path).hash(hashFunction)}, this maps the file into memory and
+   * passes the mapped buffer to the hash function as is, so that hash functions which read direct
+   * buffers in place never copy the file's contents to the heap. A file larger than 1 GiB is
+   * mapped and passed to a single {@link Hasher} one region at a time; note that the hashers of
+   * some hash functions, such as {@link Hashing#farmHashFingerprint64()}, buffer all of their input
+   * in memory.
+   *
+   * <p>If the file reports a size of zero (as devices and pipes may), or if its file system does
+   * not support file channels or memory mapping, this falls back to reading the file as a stream.
+   *
+   * @throws IOException if an I/O error occurs
+   * @since NEXT
+   */
+  public static HashCode hash(Path path, HashFunction hashFunction) throws IOException {
+    checkNotNull(hashFunction);
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      long size = channel.size();
+      if (size > 0) {
+        if (size <= MAPPED_REGION_SIZE) {
+          return hashFunction.hashBytes(channel.map(MapMode.READ_ONLY, 0, size));
+        }
+        Hasher hasher = hashFunction.newHasher();
+        for (long position = 0; position < size; position += MAPPED_REGION_SIZE) {
+          long regionSize = Math.min(MAPPED_REGION_SIZE, size - position);
+          hasher.putBytes(channel.map(MapMode.READ_ONLY, position, regionSize));
+        }
+        return hasher.hash();
+      }
+    } catch (UnsupportedOperationException e) {
+      // The file system provider does not support file channels or memory mapping; read the file
+      // instead.
+    }
+    return asByteSource(path).hash(hashFunction);
+  }
+
+  private static final long MAPPED_REGION_SIZE = 1L << 30;
+
   /**
    * Like the unix command of the same name, creates an empty file or updates the last modified
    * timestamp of the existing file at the given path to the current system time.
@@ -520,6 +758,38 @@ public final class MoreFiles {
    */
   public static void deleteRecursively(Path path, RecursiveDeleteOption... options)
       throws IOException {
+    deleteRecursivelyIn(null, path, options);
+  }
+
+  /**
+   * Deletes the file or directory at the given {@code path} recursively, like {@link
+   * #deleteRecursively(Path, RecursiveDeleteOption...)}, but deletes the files in each directory in
+   * parallel in {@code pool}. Each directory is listed in batches, and only a bounded number of
+   * batches per directory are queued for other threads at any time, so the delete doesn't hold on
+   * to the whole listing of a large directory.
+   *
+   * <p>The same {@linkplain #deleteRecursively(Path, RecursiveDeleteOption...) caveats about
+   * security} apply: unless {@link RecursiveDeleteOption#ALLOW_INSECURE} is passed, this method
+   * throws {@link InsecureRecursiveDeleteException} on file systems that don't support {@link
+   * SecureDirectoryStream}, before deleting anything. The tasks in {@code pool} block on I/O, so it
+   * should be a pool dedicated to I/O rather than {@link ForkJoinPool#commonPool}.
+   *
+   * @throws NoSuchFileException if {@code path} does not exist <i>(optional specific exception)</i>
+   * @throws InsecureRecursiveDeleteException if the security of recursive deletes can't be
+   *     guaranteed for the file system and {@link RecursiveDeleteOption#ALLOW_INSECURE} was not
+   *     specified
+   * @throws IOException if {@code path} or any file in the subtree rooted at it can't be deleted
+   *     for any reason
+   * @since NEXT
+   */
+  public static void deleteRecursively(
+      Path path, ForkJoinPool pool, RecursiveDeleteOption... options) throws IOException {
+    deleteRecursivelyIn(checkNotNull(pool), path, options);
+  }
+
+  /** Deletes {@code path} recursively, in parallel if there's a pool to do so in. */
+  private static void deleteRecursivelyIn(
+      @Nullable ForkJoinPool pool, Path path, RecursiveDeleteOption[] options) throws IOException {
     Path parentPath = getParentPath(path);
     if (parentPath == null) {
       throw new FileSystemException(path.toString(), null, "can't delete recursively");
@@ -531,14 +801,15 @@ public final class MoreFiles {
       try (DirectoryStream<Path> parent = Files.newDirectoryStream(parentPath)) {
         if (parent instanceof SecureDirectoryStream) {
           sdsSupported = true;
+          SecureDirectoryStream<Path> sds = (SecureDirectoryStream<Path>) parent;
           exceptions =
-              deleteRecursivelySecure((SecureDirectoryStream<Path>) parent, path.getFileName());
+              invoke(pool, () -> deleteRecursivelySecure(sds, path.getFileName(), pool != null));
         }
       }
 
       if (!sdsSupported) {
         checkAllowsInsecure(path, options);
-        exceptions = deleteRecursivelyInsecure(path);
+        exceptions = invoke(pool, () -> deleteRecursivelyInsecure(path, pool != null));
       }
     } catch (IOException e) {
       if (exceptions == null) {
@@ -586,14 +857,45 @@ public final class MoreFiles {
    */
   public static void deleteDirectoryContents(Path path, RecursiveDeleteOption... options)
       throws IOException {
+    deleteDirectoryContentsIn(null, path, options);
+  }
+
+  /**
+   * Deletes all files within the directory at the given {@code path} recursively, like {@link
+   * #deleteDirectoryContents(Path, RecursiveDeleteOption...)}, but deletes the files in each
+   * directory in parallel in {@code pool}, as {@link #deleteRecursively(Path, ForkJoinPool,
+   * RecursiveDeleteOption...)} does.
+   *
+   * <p>The same {@linkplain #deleteDirectoryContents(Path, RecursiveDeleteOption...) caveats about
+   * security} apply: unless {@link RecursiveDeleteOption#ALLOW_INSECURE} is passed, this method
+   * throws {@link InsecureRecursiveDeleteException} on file systems that don't support {@link
+   * SecureDirectoryStream}, before deleting anything.
+   *
+   * @throws NoSuchFileException if {@code path} does not exist <i>(optional specific exception)</i>
+   * @throws NotDirectoryException if the file at {@code path} is not a directory <i>(optional
+   *     specific exception)</i>
+   * @throws InsecureRecursiveDeleteException if the security of recursive deletes can't be
+   *     guaranteed for the file system and {@link RecursiveDeleteOption#ALLOW_INSECURE} was not
+   *     specified
+   * @throws IOException if one or more files can't be deleted for any reason
+   * @since NEXT
+   */
+  public static void deleteDirectoryContents(
+      Path path, ForkJoinPool pool, RecursiveDeleteOption... options) throws IOException {
+    deleteDirectoryContentsIn(checkNotNull(pool), path, options);
+  }
+
+  /** Deletes the contents of {@code path}, in parallel if there's a pool to do so in. */
+  private static void deleteDirectoryContentsIn(
+      @Nullable ForkJoinPool pool, Path path, RecursiveDeleteOption[] options) throws IOException {
     Collection<IOException> exceptions = null; // created lazily if needed
     try (DirectoryStream<Path> stream = Files.newDirectoryStream(path)) {
       if (stream instanceof SecureDirectoryStream) {
         SecureDirectoryStream<Path> sds = (SecureDirectoryStream<Path>) stream;
-        exceptions = deleteDirectoryContentsSecure(sds);
+        exceptions = invoke(pool, () -> deleteDirectoryContentsSecure(sds, pool != null));
       } else {
         checkAllowsInsecure(path, options);
-        exceptions = deleteDirectoryContentsInsecure(stream);
+        exceptions = invoke(pool, () -> deleteDirectoryContentsInsecure(stream, pool != null));
       }
     } catch (IOException e) {
       if (exceptions == null) {
@@ -613,12 +915,12 @@ public final class MoreFiles {
    * that occurred or null if no exceptions were thrown.
    */
   private static @Nullable Collection<IOException> deleteRecursivelySecure(
-      SecureDirectoryStream<Path> dir, Path path) {
+      SecureDirectoryStream<Path> dir, Path path, boolean parallel) {
     Collection<IOException> exceptions = null;
     try {
       if (isDirectory(dir, path, NOFOLLOW_LINKS)) {
         try (SecureDirectoryStream<Path> childDir = dir.newDirectoryStream(path, NOFOLLOW_LINKS)) {
-          exceptions = deleteDirectoryContentsSecure(childDir);
+          exceptions = deleteDirectoryContentsSecure(childDir, parallel);
         }
 
         // If exceptions is not null, something went wrong trying to delete the contents of the
@@ -641,11 +943,15 @@ public final class MoreFiles {
    * Returns a collection of exceptions that occurred or null if no exceptions were thrown.
    */
   private static @Nullable Collection<IOException> deleteDirectoryContentsSecure(
-      SecureDirectoryStream<Path> dir) {
+      SecureDirectoryStream<Path> dir, boolean parallel) {
+    if (parallel) {
+      return forEachEntryInParallel(
+          dir, entry -> deleteRecursivelySecure(dir, entry.getFileName(), true));
+    }
     Collection<IOException> exceptions = null;
     try {
       for (Path path : dir) {
-        exceptions = concat(exceptions, deleteRecursivelySecure(dir, path.getFileName()));
+        exceptions = concat(exceptions, deleteRecursivelySecure(dir, path.getFileName(), false));
       }
 
       return exceptions;
@@ -658,12 +964,13 @@ public final class MoreFiles {
    * Insecure recursive delete for file systems that don't support {@code SecureDirectoryStream}.
    * Returns a collection of exceptions that occurred or null if no exceptions were thrown.
    */
-  private static @Nullable Collection<IOException> deleteRecursivelyInsecure(Path path) {
+  private static @Nullable Collection<IOException> deleteRecursivelyInsecure(
+      Path path, boolean parallel) {
     Collection<IOException> exceptions = null;
     try {
       if (Files.isDirectory(path, NOFOLLOW_LINKS)) {
         try (DirectoryStream<Path> stream = Files.newDirectoryStream(path)) {
-          exceptions = deleteDirectoryContentsInsecure(stream);
+          exceptions = deleteDirectoryContentsInsecure(stream, parallel);
         }
       }
 
@@ -685,11 +992,14 @@ public final class MoreFiles {
    * if no exceptions were thrown.
    */
   private static @Nullable Collection<IOException> deleteDirectoryContentsInsecure(
-      DirectoryStream<Path> dir) {
+      DirectoryStream<Path> dir, boolean parallel) {
+    if (parallel) {
+      return forEachEntryInParallel(dir, entry -> deleteRecursivelyInsecure(entry, true));
+    }
     Collection<IOException> exceptions = null;
     try {
       for (Path entry : dir) {
-        exceptions = concat(exceptions, deleteRecursivelyInsecure(entry));
+        exceptions = concat(exceptions, deleteRecursivelyInsecure(entry, false));
       }
 
       return exceptions;
@@ -698,6 +1008,106 @@ public final class MoreFiles {
     }
   }
 
+  /** The number of directory entries that are processed by each task of a parallel walk. */
+  private static final int PARALLEL_BATCH_SIZE = 64;
+
+  /** The number of batches of each directory that a parallel walk queues for other threads. */
+  private static final int MAX_PENDING_BATCHES = 16;
+
+  /** Processes an entry of a directory, returning the exceptions that occurred or null. */
+  private interface EntryProcessor {
+    @Nullable
+    Collection<IOException> process(Path entry);
+  }
+
+  /**
+   * Runs {@code work} in {@code pool}, or in the calling thread if {@code pool} is null, returning
+   * the exceptions that occurred or null.
+   */
+  private static @Nullable Collection<IOException> invoke(
+      @Nullable ForkJoinPool pool, Supplier<Collection<IOException>> work) {
+    if (pool == null) {
+      return work.get();
+    }
+    return pool.invoke(
+        new RecursiveTask<Collection<IOException>>() {
+          @Override
+          protected Collection<IOException> compute() {
+            return work.get();
+          }
+        });
+  }
+
+  /**
+   * Passes each entry of {@code dir} to {@code processor}, forking batches of entries as tasks in
+   * the current fork-join pool. Once {@link #MAX_PENDING_BATCHES} batches are pending, the oldest
+   * is joined before another is forked, so the memory used doesn't grow with the size of the
+   * directory. Returns only once all the batches are done, so that {@code dir} is still open while
+   * they use it. Returns a collection of exceptions that occurred or null if no exceptions were
+   * thrown.
+   */
+  private static @Nullable Collection<IOException> forEachEntryInParallel(
+      DirectoryStream<Path> dir, EntryProcessor processor) {
+    Collection<IOException> exceptions = null;
+    Deque<EntryBatch> pending = new ArrayDeque<>();
+    try {
+      List<Path> batch = new ArrayList<>(PARALLEL_BATCH_SIZE);
+      try {
+        for (Path entry : dir) {
+          batch.add(entry);
+          if (batch.size() == PARALLEL_BATCH_SIZE) {
+            if (pending.size() == MAX_PENDING_BATCHES) {
+              exceptions = concat(exceptions, pending.removeFirst().join());
+            }
+            EntryBatch task = new EntryBatch(batch, processor);
+            task.fork();
+            pending.addLast(task);
+            batch = new ArrayList<>(PARALLEL_BATCH_SIZE);
+          }
+        }
+      } catch (DirectoryIteratorException e) {
+        exceptions = addException(exceptions, e.getCause());
+      }
+
+      // the last batch is processed in this thread rather than waiting for the others
+      exceptions = concat(exceptions, processBatch(batch, processor));
+      while (!pending.isEmpty()) {
+        exceptions = concat(exceptions, pending.removeFirst().join());
+      }
+      return exceptions;
+    } finally {
+      // if a processor threw, wait for the other batches before the caller closes the directory
+      for (EntryBatch task : pending) {
+        task.quietlyJoin();
+      }
+    }
+  }
+
+  private static @Nullable Collection<IOException> processBatch(
+      List<Path> batch, EntryProcessor processor) {
+    Collection<IOException> exceptions = null;
+    for (Path entry : batch) {
+      exceptions = concat(exceptions, processor.process(entry));
+    }
+    return exceptions;
+  }
+
+  /** A task that processes a batch of the entries of a directory. */
+  private static final class EntryBatch extends RecursiveTask<Collection<IOException>> {
+    private final List<Path> batch;
+    private final EntryProcessor processor;
+
+    EntryBatch(List<Path> batch, EntryProcessor processor) {
+      this.batch = batch;
+      this.processor = processor;
+    }
+
+    @Override
+    protected Collection<IOException> compute() {
+      return processBatch(batch, processor);
+    }
+  }
+
   /**
    * Returns a path to the parent directory of the given path. If the path actually has a parent
    * path, this is simple. Otherwise, we need to do some trickier things. Returns null if the path
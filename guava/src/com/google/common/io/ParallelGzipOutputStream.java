@@ -0,0 +1,255 @@
+/*
+ * Copyright (C) 2019 The Guava Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.common.io;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkPositionIndexes;
+
+import com.google.common.annotations.GwtIncompatible;
+import com.google.common.util.concurrent.Uninterruptibles;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * An output stream that compresses the bytes written to it in the gzip format, compressing blocks
+ * of input in parallel on an executor, like pigz. Each block is compressed independently, with the
+ * last 32K of the block before it as its dictionary, so the output is a single gzip member that
+ * any gzip decoder can read, and is almost as small as if it had been compressed sequentially.
+ *
+ * <p>The CRC of the input is computed as it is written, and compressed blocks are written to the
+ * underlying stream in order, by the thread that writes to this stream.
+ *
+ * <p>Once a block fails to be compressed or written, the output is incomplete, so every later write
+ * fails, and {@link #close} only closes the underlying stream before it fails too.
+ */
+@GwtIncompatible
+final class ParallelGzipOutputStream extends OutputStream {
+  /** The size of the blocks that are compressed in parallel. */
+  static final int BLOCK_SIZE = 128 * 1024;
+
+  /** The size of the deflate window, and so of the useful part of a dictionary. */
+  private static final int DICTIONARY_SIZE = 32 * 1024;
+
+  private static final byte[] HEADER = {
+    (byte) 0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, 0
+  };
+
+  private final OutputStream out;
+  private final Executor executor;
+  private final int blockSize;
+  private final int maxPendingBlocks;
+  private final Queue<Future<byte[]>> pending = new ArrayDeque<>();
+  private final CRC32 crc = new CRC32();
+  private final byte[] single = new byte[1];
+
+  private byte[] block;
+  private int blockLength;
+  private byte[] previousBlock;
+  private long totalLength;
+  private boolean closed;
+  private @Nullable Throwable failure;
+
+  ParallelGzipOutputStream(OutputStream out, Executor executor) throws IOException {
+    this(out, executor, BLOCK_SIZE, 2 * Runtime.getRuntime().availableProcessors());
+  }
+
+  ParallelGzipOutputStream(OutputStream out, Executor executor, int blockSize, int maxPendingBlocks)
+      throws IOException {
+    this.out = checkNotNull(out);
+    this.executor = checkNotNull(executor);
+    this.blockSize = blockSize;
+    this.maxPendingBlocks = maxPendingBlocks;
+    this.block = new byte[blockSize];
+    out.write(HEADER);
+  }
+
+  @Override
+  public void write(int b) throws IOException {
+    single[0] = (byte) b;
+    write(single, 0, 1);
+  }
+
+  @Override
+  public void write(byte[] b, int off, int len) throws IOException {
+    checkPositionIndexes(off, off + len, b.length);
+    if (closed) {
+      throw new IOException("stream closed");
+    }
+    checkNotFailed();
+    crc.update(b, off, len);
+    totalLength += len;
+    while (len > 0) {
+      int n = Math.min(len, blockSize - blockLength);
+      System.arraycopy(b, off, block, blockLength, n);
+      blockLength += n;
+      off += n;
+      len -= n;
+      if (blockLength == blockSize) {
+        submitBlock(false);
+      }
+    }
+  }
+
+  /** Writes the blocks that have been compressed so far, and flushes the underlying stream. */
+  @Override
+  public void flush() throws IOException {
+    checkNotFailed();
+    while (!pending.isEmpty() && pending.peek().isDone()) {
+      writeNextBlock();
+    }
+    out.flush();
+  }
+
+  @Override
+  public void close() throws IOException {
+    if (closed) {
+      return;
+    }
+    closed = true;
+    Closer closer = Closer.create();
+    closer.register(out);
+    try {
+      checkNotFailed();
+      submitBlock(true);
+      while (!pending.isEmpty()) {
+        writeNextBlock();
+      }
+      writeTrailerInt((int) crc.getValue());
+      writeTrailerInt((int) totalLength);
+    } catch (Throwable e) {
+      for (Future<byte[]> future : pending) {
+        future.cancel(false);
+      }
+      throw closer.rethrow(e);
+    } finally {
+      closer.close();
+    }
+  }
+
+  private void checkNotFailed() throws IOException {
+    if (failure != null) {
+      throw new IOException("an earlier block failed", failure);
+    }
+  }
+
+  private void submitBlock(boolean last) throws IOException {
+    FutureTask<byte[]> task =
+        new FutureTask<>(new CompressBlock(block, blockLength, previousBlock, last));
+    // executed before it's queued, so that close() never waits for a task that was rejected
+    try {
+      executor.execute(task);
+    } catch (RejectedExecutionException e) {
+      failure = e;
+      throw new IOException("failed to start compressing a block", e);
+    }
+    pending.add(task);
+    previousBlock = block;
+    block = last ? null : new byte[blockSize];
+    blockLength = 0;
+    while (pending.size() > maxPendingBlocks) {
+      writeNextBlock();
+    }
+  }
+
+  private void writeNextBlock() throws IOException {
+    try {
+      byte[] compressed;
+      try {
+        compressed = Uninterruptibles.getUninterruptibly(pending.remove());
+      } catch (ExecutionException e) {
+        Throwable cause = e.getCause();
+        if (cause instanceof Error) {
+          throw (Error) cause;
+        }
+        throw new IOException("failed to compress block", cause);
+      }
+      out.write(compressed);
+    } catch (Throwable e) {
+      failure = e;
+      throw e;
+    }
+  }
+
+  private void writeTrailerInt(int i) throws IOException {
+    out.write(i);
+    out.write(i >>> 8);
+    out.write(i >>> 16);
+    out.write(i >>> 24);
+  }
+
+  /** Compresses a block to raw deflate data that the next block's data can follow. */
+  private static final class CompressBlock implements Callable<byte[]> {
+    private final byte[] block;
+    private final int length;
+    private final byte[] dictionary;
+    private final boolean last;
+
+    CompressBlock(byte[] block, int length, byte[] dictionary, boolean last) {
+      this.block = block;
+      this.length = length;
+      this.dictionary = dictionary;
+      this.last = last;
+    }
+
+    @Override
+    public byte[] call() {
+      Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+      try {
+        if (dictionary != null) {
+          // the previous block is always full, since only the last block can be partial
+          int dictionaryLength = Math.min(dictionary.length, DICTIONARY_SIZE);
+          deflater.setDictionary(
+              dictionary, dictionary.length - dictionaryLength, dictionaryLength);
+        }
+        deflater.setInput(block, 0, length);
+        // a little more than the input, which is enough unless the data is incompressible
+        byte[] output = new byte[length + (length >>> 8) + 64];
+        int outputLength = 0;
+        if (last) {
+          deflater.finish();
+        }
+        while (true) {
+          outputLength +=
+              deflater.deflate(
+                  output,
+                  outputLength,
+                  output.length - outputLength,
+                  last ? Deflater.NO_FLUSH : Deflater.SYNC_FLUSH);
+          // SYNC_FLUSH is done when the output wasn't filled; the last block when it's finished
+          if (last ? deflater.finished() : outputLength < output.length) {
+            return Arrays.copyOf(output, outputLength);
+          }
+          if (outputLength == output.length) {
+            output = Arrays.copyOf(output, 2 * output.length);
+          }
+        }
+      } finally {
+        deflater.end();
+      }
+    }
+  }
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright (C) 2019 The Guava Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.common.io;
+
+import com.google.common.annotations.Beta;
+import com.google.common.annotations.GwtIncompatible;
+import com.google.errorprone.annotations.CanIgnoreReturnValue;
+import java.io.IOException;
+
+/**
+ * A callback interface to process the lines or other delimited records of a stream as bytes,
+ * without decoding them into strings.
+ *
+ * <p>{@link #processRecord} will be called for each record that is read, and should return {@code
+ * false} when you want to stop processing. For example, to sum the second column of a CSV file
+ * without allocating anything per line:
+ *
+ * <pre>{@code
+ * long sum =
+ *     Files.asByteSource(file)
+ *         .readLines(
+ *             new RecordProcessor<Long>() {
+ *               long sum;
+ *
+ *               public boolean processRecord(byte[] buf, int off, int len) {
+ *                 int comma = off;
+ *                 while (buf[comma] != ',') {
+ *                   comma++;
+ *                 }
+ *                 sum += Longs.parseAscii(buf, comma + 1, off + len - comma - 1);
+ *                 return true;
+ *               }
+ *
+ *               public Long getResult() {
+ *                 return sum;
+ *               }
+ *             });
+ * }</pre>
+ *
+ * @since NEXT
+ */
+@Beta
+@GwtIncompatible
+public interface RecordProcessor<T> {
+  /**
+   * This method will be called for each record in an input stream. The record consists of the
+   * bytes from {@code buf[off]} through {@code buf[off + len - 1]} (inclusive), and doesn't
+   * include its delimiter or line terminator.
+   *
+   * <p>The array is only valid during this call: its contents are overwritten as the stream is
+   * read, so the implementation must copy any bytes that it wants to keep.
+   *
+   * @param buf the byte array containing the record
+   * @param off the offset of the record in the array
+   * @param len the length of the record
+   * @return true to continue processing, false to stop
+   */
+  @CanIgnoreReturnValue // some uses know that their processor never returns false
+  boolean processRecord(byte[] buf, int off, int len) throws IOException;
+
+  /** Return the result of processing all the records. */
+  T getResult();
+}
@@ -0,0 +1,520 @@
+/*
+ * Copyright (C) 2019 The Guava Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.common.io;
+
+import static com.google.common.base.Preconditions.checkPositionIndexes;
+
+import com.google.common.annotations.GwtIncompatible;
+import com.google.errorprone.annotations.concurrent.GuardedBy;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * The storage of a {@link FileBackedOutputStream} that buffers in tiers: the first bytes in byte
+ * arrays, the following ones in direct byte buffers, and the oldest of those in a file once the
+ * direct buffers start to fill up. The data is kept in chunks, and the chunks are written to the
+ * file by a task on an executor, so that the writer only waits for the file when it writes faster
+ * than the file can be written, and never waits for the file to be created.
+ *
+ * <p>The streams returned by {@link #openInputStream} read each chunk from whichever tier holds it
+ * when it is read. They open the file themselves, so that the stream's own channel to it can be
+ * closed as soon as the stream is closed and the spilling is done.
+ *
+ * <p>Direct buffers are reused once their chunks have been spilled, rather than left for the
+ * garbage collector to free, so the stream keeps up to its direct buffer limit of them allocated
+ * until it is garbage collected.
+ *
+ * <p>This class is thread-safe, but it expects only one thread to write at a time.
+ */
+@GwtIncompatible
+final class SpillingOutputStream extends OutputStream {
+  /** The size of the chunks, and so of each direct buffer. */
+  static final int CHUNK_SIZE = 64 * 1024;
+
+  private static final int INITIAL_HEAP_ARRAY_SIZE = 256;
+
+  private final long heapThreshold;
+  private final long directLimit;
+  private final Executor executor;
+
+  @GuardedBy("this")
+  private final List<Chunk> chunks = new ArrayList<>();
+
+  /** Direct buffers whose chunks have been spilled or discarded, to be reused for new chunks. */
+  @GuardedBy("this")
+  private final Deque<ByteBuffer> freeBuffers = new ArrayDeque<>();
+
+  @GuardedBy("this")
+  private final byte[] single = new byte[1];
+
+  @GuardedBy("this")
+  private long size;
+
+  /** The capacity of the direct buffers of the chunks that haven't been spilled. */
+  @GuardedBy("this")
+  private long directBytes;
+
+  /** The index of the next chunk to spill. Chunks are spilled in order. */
+  @GuardedBy("this")
+  private int nextToSpill;
+
+  @GuardedBy("this")
+  private boolean spilling;
+
+  /** Incremented by {@link #reset}, so that a spill that was in progress doesn't update chunks. */
+  @GuardedBy("this")
+  private int generation;
+
+  @GuardedBy("this")
+  private @Nullable IOException spillFailure;
+
+  @GuardedBy("this")
+  private @Nullable File file;
+
+  @GuardedBy("this")
+  private @Nullable FileChannel channel;
+
+  @GuardedBy("this")
+  private boolean closed;
+
+  /**
+   * @param heapThreshold the number of bytes to keep in byte arrays
+   * @param directThreshold the most bytes to keep in direct buffers; at least two chunks are kept
+   * @param executor the executor on which to write chunks to the file
+   */
+  SpillingOutputStream(long heapThreshold, long directThreshold, Executor executor) {
+    this.heapThreshold = heapThreshold;
+    this.directLimit = Math.max(directThreshold, 2L * CHUNK_SIZE);
+    this.executor = executor;
+  }
+
+  /** Returns the file holding the spilled chunks, or null if none have been spilled. */
+  synchronized @Nullable File getFile() {
+    return file;
+  }
+
+  @Override
+  public synchronized void write(int b) throws IOException {
+    single[0] = (byte) b;
+    write(single, 0, 1);
+  }
+
+  @Override
+  public synchronized void write(byte[] b, int off, int len) throws IOException {
+    checkPositionIndexes(off, off + len, b.length);
+    if (closed) {
+      throw new IOException("stream closed");
+    }
+    checkSpillFailure();
+    while (len > 0) {
+      Chunk chunk = chunks.isEmpty() ? null : chunks.get(chunks.size() - 1);
+      if (chunk == null || chunk.length == chunk.capacity) {
+        chunk = newChunk();
+      }
+      int n = chunk.append(b, off, len);
+      off += n;
+      len -= n;
+      size += n;
+    }
+  }
+
+  @Override
+  public synchronized void flush() throws IOException {
+    checkSpillFailure();
+  }
+
+  @Override
+  public synchronized void close() throws IOException {
+    closed = true;
+    if (!spilling) {
+      closeChannel();
+    }
+    checkSpillFailure();
+  }
+
+  /**
+   * Closes the channel to the file once the stream is closed and no more chunks will be spilled.
+   * The file itself is kept until {@link #reset}, and input streams open it themselves.
+   */
+  @GuardedBy("this")
+  private void closeChannel() throws IOException {
+    if (channel != null) {
+      FileChannel closeMe = channel;
+      channel = null;
+      closeMe.close();
+    }
+  }
+
+  /**
+   * Discards the data, waiting for a spill that is in progress to complete, and deletes the file.
+   * The stream can be written to again afterwards.
+   */
+  synchronized void reset() throws IOException {
+    List<Chunk> discarded = new ArrayList<>(chunks);
+    chunks.clear();
+    generation++;
+    size = 0;
+    directBytes = 0;
+    nextToSpill = 0;
+    spillFailure = null;
+    closed = false;
+    boolean interrupted = false;
+    while (spilling) {
+      try {
+        wait();
+      } catch (InterruptedException e) {
+        interrupted = true;
+      }
+    }
+    if (interrupted) {
+      Thread.currentThread().interrupt();
+    }
+    // no spill is in progress, and input streams don't use the buffers of a previous generation
+    for (Chunk chunk : discarded) {
+      if (chunk.direct != null) {
+        freeBuffers.add(chunk.direct);
+        chunk.direct = null;
+      }
+    }
+    if (file != null) {
+      File deleteMe = file;
+      file = null;
+      try {
+        closeChannel();
+      } finally {
+        if (!deleteMe.delete()) {
+          throw new IOException("Could not delete: " + deleteMe);
+        }
+      }
+    }
+  }
+
+  /** Returns a stream that reads the data that has been written so far. */
+  synchronized InputStream openInputStream() {
+    return new ChunksInputStream(new ArrayList<>(chunks), size, generation);
+  }
+
+  @GuardedBy("this")
+  private Chunk newChunk() throws IOException {
+    Chunk chunk;
+    if (size < heapThreshold) {
+      chunk = new Chunk(size, (int) Math.min(CHUNK_SIZE, heapThreshold - size));
+      chunk.heap = new byte[Math.min(INITIAL_HEAP_ARRAY_SIZE, chunk.capacity)];
+    } else {
+      while (directBytes + CHUNK_SIZE > directLimit) {
+        // the spill task, which is running, frees direct buffers as it writes them to the file
+        try {
+          wait();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          throw new InterruptedIOException("interrupted while waiting for the file");
+        }
+        checkSpillFailure();
+      }
+      chunk = new Chunk(size, CHUNK_SIZE);
+      ByteBuffer buffer = freeBuffers.poll();
+      if (buffer == null) {
+        buffer = ByteBuffer.allocateDirect(CHUNK_SIZE);
+      } else {
+        buffer.clear();
+      }
+      chunk.direct = buffer;
+      directBytes += CHUNK_SIZE;
+    }
+    chunks.add(chunk);
+    if (directBytes > directLimit / 2 && !spilling) {
+      startSpilling();
+    }
+    return chunk;
+  }
+
+  @GuardedBy("this")
+  private void checkSpillFailure() throws IOException {
+    if (spillFailure != null) {
+      throw new IOException("failed to write to the file", spillFailure);
+    }
+  }
+
+  @GuardedBy("this")
+  private void startSpilling() throws IOException {
+    spilling = true;
+    try {
+      executor.execute(
+          new Runnable() {
+            @Override
+            public void run() {
+              spill();
+            }
+          });
+    } catch (RejectedExecutionException e) {
+      spilling = false;
+      throw new IOException("failed to start writing to the file", e);
+    }
+  }
+
+  /**
+   * Writes the oldest full chunks in direct buffers to the file, until no more than half of the
+   * direct buffer limit is in use.
+   */
+  private void spill() {
+    while (true) {
+      Chunk chunk;
+      ByteBuffer data;
+      int spillGeneration;
+      FileChannel spillChannel;
+      synchronized (this) {
+        while (nextToSpill < chunks.size() && chunks.get(nextToSpill).direct == null) {
+          nextToSpill++; // skip the heap chunks
+        }
+        // the last chunk is the one being written to
+        if (nextToSpill >= chunks.size() - 1 || directBytes <= directLimit / 2) {
+          stopSpilling();
+          return;
+        }
+        chunk = chunks.get(nextToSpill);
+        data = chunk.direct.duplicate();
+        spillGeneration = generation;
+        spillChannel = channel;
+      }
+      try {
+        if (spillChannel == null) {
+          spillChannel = createFile(spillGeneration);
+        }
+        data.clear();
+        long position = chunk.start - heapThreshold;
+        while (data.hasRemaining()) {
+          spillChannel.write(data, position + data.position());
+        }
+      } catch (IOException e) {
+        synchronized (this) {
+          if (generation == spillGeneration) {
+            spillFailure = e;
+          }
+          stopSpilling();
+          return;
+        }
+      }
+      synchronized (this) {
+        if (generation == spillGeneration) {
+          // input streams check that the chunk still has the buffer after they copy from it
+          freeBuffers.add(chunk.direct);
+          chunk.direct = null;
+          directBytes -= chunk.capacity;
+          nextToSpill++;
+        }
+        notifyAll();
+      }
+    }
+  }
+
+  @GuardedBy("this")
+  private void stopSpilling() {
+    spilling = false;
+    notifyAll();
+    if (closed) {
+      try {
+        closeChannel();
+      } catch (IOException e) {
+        if (spillFailure == null) {
+          spillFailure = e;
+        }
+      }
+    }
+  }
+
+  /** Creates the file to which chunks are spilled. Called only by the spill task. */
+  private FileChannel createFile(int spillGeneration) throws IOException {
+    File temp = File.createTempFile("FileBackedOutputStream", null);
+    FileChannel created;
+    try {
+      created =
+          FileChannel.open(temp.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE);
+    } catch (IOException e) {
+      temp.delete();
+      throw e;
+    }
+    synchronized (this) {
+      if (generation == spillGeneration) {
+        file = temp;
+        channel = created;
+        return created;
+      }
+    }
+    // reset() was called while the file was being created
+    created.close();
+    temp.delete();
+    throw new IOException("reset while spilling");
+  }
+
+  /**
+   * Copies {@code len} bytes from {@code chunk}, starting at {@code from}, to {@code b}, for {@code
+   * in}.
+   */
+  private void read(ChunksInputStream in, Chunk chunk, int from, byte[] b, int off, int len)
+      throws IOException {
+    byte[] heap;
+    ByteBuffer direct;
+    File spillFile;
+    synchronized (this) {
+      heap = chunk.heap;
+      direct = chunk.direct;
+      spillFile = (generation == in.generation) ? file : null;
+      if (heap == null && generation != in.generation) {
+        throw new IOException("stream was reset");
+      }
+    }
+    if (heap != null) {
+      // heap chunks are never spilled, and their arrays are never reused
+      System.arraycopy(heap, from, b, off, len);
+      return;
+    }
+    if (direct != null) {
+      ByteBuffer data = direct.duplicate();
+      data.clear();
+      data.position(from);
+      data.get(b, off, len);
+      synchronized (this) {
+        if (chunk.direct == direct) {
+          return; // it wasn't spilled, and so wasn't reused, while it was copied
+        }
+        if (generation != in.generation) {
+          throw new IOException("stream was reset");
+        }
+        spillFile = file;
+      }
+    }
+    ByteBuffer dst = ByteBuffer.wrap(b, off, len);
+    long position = chunk.start - heapThreshold + from - off;
+    FileChannel spillChannel = in.fileChannel(spillFile);
+    while (dst.hasRemaining()) {
+      if (spillChannel.read(dst, position + dst.position()) == -1) {
+        throw new EOFException();
+      }
+    }
+  }
+
+  /**
+   * A chunk of the data, which is held in exactly one of a heap array, a direct buffer or the file.
+   * Its fields other than {@code start} and {@code capacity} are guarded by the stream.
+   */
+  private static final class Chunk {
+    final long start;
+    final int capacity;
+    int length;
+    byte @Nullable [] heap;
+    @Nullable ByteBuffer direct;
+
+    Chunk(long start, int capacity) {
+      this.start = start;
+      this.capacity = capacity;
+    }
+
+    /** Appends as many of the given bytes as fit, and returns how many that is. */
+    int append(byte[] b, int off, int len) {
+      int n = Math.min(len, capacity - length);
+      if (heap != null) {
+        if (length + n > heap.length) {
+          heap = Arrays.copyOf(heap, Math.min(capacity, Math.max(length + n, 2 * heap.length)));
+        }
+        System.arraycopy(b, off, heap, length, n);
+      } else {
+        direct.put(b, off, n);
+      }
+      length += n;
+      return n;
+    }
+  }
+
+  /** Reads the first {@code size} bytes of a snapshot of the chunks. */
+  private final class ChunksInputStream extends InputStream {
+    private final List<Chunk> chunks;
+    private final long size;
+    private final int generation;
+    private final byte[] single = new byte[1];
+    private @Nullable FileChannel fileChannel;
+    private long position;
+    private int index;
+
+    ChunksInputStream(List<Chunk> chunks, long size, int generation) {
+      this.chunks = chunks;
+      this.size = size;
+      this.generation = generation;
+    }
+
+    /** Returns this stream's channel to the file, opening it if this is the first read from it. */
+    FileChannel fileChannel(File file) throws IOException {
+      if (fileChannel == null) {
+        fileChannel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+      }
+      return fileChannel;
+    }
+
+    @Override
+    public int read() throws IOException {
+      return (read(single, 0, 1) == -1) ? -1 : (single[0] & 0xFF);
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+      checkPositionIndexes(off, off + len, b.length);
+      if (position >= size) {
+        return -1;
+      }
+      Chunk chunk = chunks.get(index);
+      int from = (int) (position - chunk.start);
+      int n = (int) Math.min(len, Math.min(chunk.capacity - from, size - position));
+      SpillingOutputStream.this.read(this, chunk, from, b, off, n);
+      skip(n);
+      return n;
+    }
+
+    @Override
+    public long skip(long n) {
+      long skipped = Math.max(0, Math.min(n, size - position));
+      position += skipped;
+      while (index < chunks.size() - 1 && position >= chunks.get(index + 1).start) {
+        index++;
+      }
+      return skipped;
+    }
+
+    @Override
+    public int available() {
+      return (int) Math.min(size - position, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public void close() throws IOException {
+      if (fileChannel != null) {
+        fileChannel.close();
+      }
+    }
+  }
+}
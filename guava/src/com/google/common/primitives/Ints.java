@@ -741,4 +741,31 @@ public final class Ints {
       return result.intValue();
     }
   }
+
+  /**
+   * Parses the specified range of an array of ASCII bytes, such as a field of a line of a CSV file,
+   * as a signed decimal integer value. The ASCII character {@code '-'} is recognized as the minus
+   * sign.
+   *
+   * <p>Unlike {@link #tryParse(String)}, this method doesn't require the bytes to be decoded into a
+   * string first, and doesn't allocate anything unless parsing fails.
+   *
+   * @param bytes the array containing the ASCII representation of an integer value
+   * @param offset the offset of the representation in the array
+   * @param length the length of the representation
+   * @return the integer value represented by the bytes
+   * @throws NumberFormatException if the bytes have a length of zero or cannot be parsed as an
+   *     integer value
+   * @throws IndexOutOfBoundsException if {@code offset} or {@code length} is negative, or {@code
+   *     offset + length} is greater than {@code bytes.length}
+   * @since NEXT
+   */
+  @Beta
+  public static int parseAscii(byte[] bytes, int offset, int length) {
+    long result = Longs.parseAscii(bytes, offset, length);
+    if (result != (int) result) {
+      throw Longs.numberFormatException(bytes, offset, offset + length);
+    }
+    return (int) result;
+  }
 }
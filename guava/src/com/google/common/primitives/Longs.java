@@ -430,6 +430,68 @@ public final class Longs {
     }
   }
 
+  /**
+   * Parses the specified range of an array of ASCII bytes, such as a field of a line of a CSV file,
+   * as a signed decimal long value. The ASCII character {@code '-'} is recognized as the minus
+   * sign.
+   *
+   * <p>Unlike {@link #tryParse(String)}, this method doesn't require the bytes to be decoded into a
+   * string first, and doesn't allocate anything unless parsing fails.
+   *
+   * @param bytes the array containing the ASCII representation of a long value
+   * @param offset the offset of the representation in the array
+   * @param length the length of the representation
+   * @return the long value represented by the bytes
+   * @throws NumberFormatException if the bytes have a length of zero or cannot be parsed as a long
+   *     value
+   * @throws IndexOutOfBoundsException if {@code offset} or {@code length} is negative, or {@code
+   *     offset + length} is greater than {@code bytes.length}
+   * @since NEXT
+   */
+  @Beta
+  public static long parseAscii(byte[] bytes, int offset, int length) {
+    checkPositionIndexes(offset, offset + length, bytes.length);
+    int end = offset + length;
+    if (length == 0) {
+      throw numberFormatException(bytes, offset, end);
+    }
+    boolean negative = bytes[offset] == '-';
+    int index = negative ? offset + 1 : offset;
+    if (index == end) {
+      throw numberFormatException(bytes, offset, end);
+    }
+    // accumulate negatively, like tryParse, so that Long.MIN_VALUE can be represented
+    long accum = 0;
+    long cap = Long.MIN_VALUE / 10;
+    while (index < end) {
+      int digit = bytes[index++] - '0';
+      if (digit < 0 || digit > 9 || accum < cap) {
+        throw numberFormatException(bytes, offset, end);
+      }
+      accum *= 10;
+      if (accum < Long.MIN_VALUE + digit) {
+        throw numberFormatException(bytes, offset, end);
+      }
+      accum -= digit;
+    }
+
+    if (negative) {
+      return accum;
+    } else if (accum == Long.MIN_VALUE) {
+      throw numberFormatException(bytes, offset, end);
+    } else {
+      return -accum;
+    }
+  }
+
+  static NumberFormatException numberFormatException(byte[] bytes, int start, int end) {
+    StringBuilder builder = new StringBuilder(end - start);
+    for (int i = start; i < end; i++) {
+      builder.append((char) (bytes[i] & 0xFF));
+    }
+    return new NumberFormatException("For input: \"" + builder + "\"");
+  }
+
   private static final class LongConverter extends Converter<String, Long> implements Serializable {
     static final LongConverter INSTANCE = new LongConverter();
 